@@ -0,0 +1,134 @@
+package com.product.bitmap;
+
+import com.product.event.ChangeType;
+import com.product.event.ProductChangedEvent;
+import com.product.model.Product;
+import com.product.repository.MatchMode;
+import com.product.repository.ProductRepository;
+import com.product.service.ChangesWhileLoading;
+import com.product.service.ProductReadModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Answers searches from a {@link ProductBitmapIndex} of the whole catalog, loaded at startup and
+ * maintained from the {@link ProductChangedEvent}s, reading again the products changed while it
+ * loads, see {@link ChangesWhileLoading}. The filters and the page are worked out in
+ * memory; only the products of the page are read from the database, by id. Single product reads
+ * are left to the other read models.
+ */
+@Component
+@ConditionalOnProperty(prefix = "product.search.bitmap", name = "enabled", havingValue = "true")
+public class BitmapSearchService implements ProductReadModel {
+
+    private static final Logger log = LoggerFactory.getLogger(BitmapSearchService.class);
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final ProductRepository repository;
+
+    private final ProductBitmapIndex index;
+
+    private final ChangesWhileLoading changesWhileLoading = new ChangesWhileLoading();
+
+    private volatile boolean loaded;
+
+    public BitmapSearchService(ProductRepository repository,
+                               @Value("${product.search.bitmap.expected-size:100000}") int expectedSize) {
+        this.repository = repository;
+        this.index = new ProductBitmapIndex(expectedSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        changesWhileLoading.start();
+        long after = 0;
+        while (true) {
+            var page = repository.findPageAfter(after, PageRequest.of(0, BATCH_SIZE));
+            page.forEach(index::put);
+            if (page.size() < BATCH_SIZE) {
+                break;
+            }
+            after = page.get(page.size() - 1).getId();
+        }
+        changesWhileLoading.reload(repository::findAllById, index::put, index::remove);
+        loaded = true;
+        log.info("Loaded {} products in the bitmap index ({} bytes)", index.size(), index.bytes());
+    }
+
+    @EventListener(condition = "#event.tenant == null")
+    public void onProductChanged(ProductChangedEvent event) {
+        changesWhileLoading.record(event.getId());
+        if (event.getType() == ChangeType.DELETED) {
+            index.remove(event.getId());
+        } else {
+            index.put(event.getProduct());
+        }
+    }
+
+    @Override
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    @Override
+    public Optional<Product> get(long id) {
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean supports(Pageable pageable) {
+        if (!loaded) {
+            return false;
+        }
+        var sort = pageable.getSort();
+        return sort.isUnsorted() || sort.equals(Sort.by("id"));
+    }
+
+    @Override
+    public Page<Product> search(String name, String description, MatchMode match, Pageable pageable) {
+        return search(filter(name, description, match), pageable);
+    }
+
+    public Page<Product> search(Filter filter, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(products(index.ids(filter)));
+        }
+        var matches = index.search(filter, pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(products(matches.getIds()), pageable, matches.getTotal());
+    }
+
+    /**
+     * @return the ids of the matching products, in no particular order
+     */
+    public long[] ids(String name, String description, MatchMode match) {
+        return index.ids(filter(name, description, match));
+    }
+
+    private static Filter filter(String name, String description, MatchMode match) {
+        return Filter.and(Filter.name(name, match), Filter.description(description, match));
+    }
+
+    private List<Product> products(long[] ids) {
+        // products deleted since the index was read are simply left out of the page
+        return repository.findAllById(Arrays.stream(ids).boxed().collect(Collectors.toList())).stream()
+                .sorted(Comparator.comparing(Product::getId))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,197 @@
+package com.product.bitmap;
+
+import com.product.repository.MatchMode;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * A predicate on products that {@link ProductBitmapIndex} evaluates as bitmap operations. Leaves
+ * select the products of a name or description filter or of a range of creation days; {@link #and},
+ * {@link #or} and {@link #not} combine them. New attributes are new leaves with their own postings
+ * in the index.
+ */
+public abstract class Filter {
+
+    private static final Filter ALL = new Filter() {
+        @Override
+        OrdinalBitmap evaluate(ProductBitmapIndex index, OrdinalBitmap within) {
+            return within;
+        }
+    };
+
+    Filter() {
+    }
+
+    /**
+     * @param within the products still in question, never null: leaves only look at those
+     */
+    abstract OrdinalBitmap evaluate(ProductBitmapIndex index, OrdinalBitmap within);
+
+    /**
+     * A superset of {@link #evaluate}, cheaper to work out; the exact set by default.
+     */
+    OrdinalBitmap candidates(ProductBitmapIndex index, OrdinalBitmap within) {
+        return evaluate(index, within);
+    }
+
+    /**
+     * Narrows down a subset of {@link #candidates} to the products that match.
+     */
+    OrdinalBitmap verify(ProductBitmapIndex index, OrdinalBitmap candidates) {
+        return candidates;
+    }
+
+    public static Filter all() {
+        return ALL;
+    }
+
+    /**
+     * @return {@link #all} for a null filter, like the search parameters
+     */
+    public static Filter name(String filter, MatchMode match) {
+        return filter == null ? ALL : new Text(ProductBitmapIndex.Field.NAME, filter, match);
+    }
+
+    public static Filter description(String filter, MatchMode match) {
+        return filter == null ? ALL : new Text(ProductBitmapIndex.Field.DESCRIPTION, filter, match);
+    }
+
+    /**
+     * Products created from the start of {@code from} to the end of {@code to}.
+     */
+    public static Filter createdBetween(LocalDate from, LocalDate to) {
+        return new Created(from, to);
+    }
+
+    public static Filter and(Filter... filters) {
+        var operands = operands(filters);
+        return operands.isEmpty() ? ALL : operands.size() == 1 ? operands.get(0) : new And(operands);
+    }
+
+    public static Filter or(Filter... filters) {
+        return new Or(List.of(filters));
+    }
+
+    public static Filter not(Filter filter) {
+        return new Not(filter);
+    }
+
+    private static List<Filter> operands(Filter[] filters) {
+        return Arrays.stream(filters).filter(filter -> filter != ALL).collect(Collectors.toList());
+    }
+
+    private static final class Text extends Filter {
+
+        private final ProductBitmapIndex.Field field;
+
+        private final String filter;
+
+        private final MatchMode match;
+
+        private Text(ProductBitmapIndex.Field field, String filter, MatchMode match) {
+            this.field = field;
+            this.filter = filter;
+            this.match = Objects.requireNonNull(match);
+        }
+
+        @Override
+        OrdinalBitmap evaluate(ProductBitmapIndex index, OrdinalBitmap within) {
+            return verify(index, candidates(index, within));
+        }
+
+        @Override
+        OrdinalBitmap candidates(ProductBitmapIndex index, OrdinalBitmap within) {
+            return index.candidates(field, filter, match, within);
+        }
+
+        @Override
+        OrdinalBitmap verify(ProductBitmapIndex index, OrdinalBitmap candidates) {
+            return index.verify(field, filter, match, candidates);
+        }
+    }
+
+    private static final class Created extends Filter {
+
+        private final LocalDate from;
+
+        private final LocalDate to;
+
+        private Created(LocalDate from, LocalDate to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        OrdinalBitmap evaluate(ProductBitmapIndex index, OrdinalBitmap within) {
+            return OrdinalBitmap.and(index.createdBetween(from, to), within);
+        }
+    }
+
+    /**
+     * Intersects the candidates of every operand first and only then checks the text of what is
+     * left, so the checks of a broad text filter run on the few products the other operands kept.
+     */
+    private static final class And extends Filter {
+
+        private final List<Filter> operands;
+
+        private And(List<Filter> operands) {
+            this.operands = operands;
+        }
+
+        @Override
+        OrdinalBitmap evaluate(ProductBitmapIndex index, OrdinalBitmap within) {
+            var result = within;
+            for (Filter operand : operands) {
+                if (result.isEmpty()) {
+                    return result;
+                }
+                result = operand.candidates(index, result);
+            }
+            for (Filter operand : operands) {
+                if (result.isEmpty()) {
+                    break;
+                }
+                result = operand.verify(index, result);
+            }
+            return result;
+        }
+    }
+
+    private static final class Or extends Filter {
+
+        private final List<Filter> operands;
+
+        private Or(List<Filter> operands) {
+            this.operands = operands;
+        }
+
+        @Override
+        OrdinalBitmap evaluate(ProductBitmapIndex index, OrdinalBitmap within) {
+            var result = new OrdinalBitmap();
+            for (Filter operand : operands) {
+                // what an earlier operand matched needs no second look
+                result = OrdinalBitmap.or(result, operand.evaluate(index, OrdinalBitmap.andNot(within, result)));
+            }
+            return result;
+        }
+    }
+
+    private static final class Not extends Filter {
+
+        private final Filter operand;
+
+        private Not(Filter operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        OrdinalBitmap evaluate(ProductBitmapIndex index, OrdinalBitmap within) {
+            return OrdinalBitmap.andNot(within, operand.evaluate(index, within));
+        }
+    }
+}
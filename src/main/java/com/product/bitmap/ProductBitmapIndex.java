@@ -0,0 +1,486 @@
+package com.product.bitmap;
+
+import com.product.catalog.ByteArena;
+import com.product.catalog.LongIntHashMap;
+import com.product.model.Product;
+import com.product.model.SearchText;
+import com.product.repository.MatchMode;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * Bitmap postings of the catalog. Every product gets an ordinal, and every trigram of its normalized
+ * name and description, and its creation day, maps to an {@link OrdinalBitmap} of the ordinals that
+ * have it. A text filter intersects the postings of its trigrams, smallest first, and checks what is
+ * left against the normalized text kept in a {@link ByteArena}, so results are exact; three letter
+ * filters need no check at all. Texts are indexed behind a start marker, so {@link MatchMode#PREFIX}
+ * filters use the postings as well. Pages are cut in id order without sorting every match. The
+ * arena is rebuilt from the live texts once updates have left it mostly unreachable.
+ * Guarded by a read write lock.
+ */
+public class ProductBitmapIndex {
+
+    enum Field {
+        NAME,
+        DESCRIPTION
+    }
+
+    private static final char START = '\u0002';
+
+    private static final int GRAM = 3;
+
+    private static final int NO_DAY = Integer.MIN_VALUE;
+
+    // ordinals are grouped in blocks that remember their lowest id, to stop paging early
+    private static final int BLOCK_BITS = 10;
+
+    // larger pages are cut from the sorted ids of every match instead
+    private static final int MAX_HEAP = 10_000;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final LongIntHashMap ordinals;
+
+    private ByteArena arena = new ByteArena();
+
+    private final OrdinalBitmap live = new OrdinalBitmap();
+
+    private final Map<Field, Map<Long, OrdinalBitmap>> grams = new EnumMap<>(Field.class);
+
+    private final NavigableMap<Integer, OrdinalBitmap> createdDays = new TreeMap<>();
+
+    private long[] ids;
+
+    private final long[][] texts = new long[Field.values().length][];
+
+    private int[] days;
+
+    private long[] blockMinIds;
+
+    private int used;
+
+    private int[] free = new int[16];
+
+    private int freeCount;
+
+    public ProductBitmapIndex(int expectedSize) {
+        int capacity = Math.max(16, expectedSize);
+        ordinals = new LongIntHashMap(capacity);
+        ids = new long[capacity];
+        days = new int[capacity];
+        for (Field field : Field.values()) {
+            texts[field.ordinal()] = new long[capacity];
+            grams.put(field, new HashMap<>());
+        }
+        blockMinIds = new long[(capacity >>> BLOCK_BITS) + 1];
+        Arrays.fill(blockMinIds, Long.MAX_VALUE);
+    }
+
+    public void put(Product product) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = ordinals.get(product.getId());
+            if (ordinal == LongIntHashMap.MISSING) {
+                ordinal = allocate(product.getId());
+                ordinals.put(product.getId(), ordinal);
+            } else {
+                unindex(ordinal);
+            }
+            index(ordinal, Field.NAME, product.getName());
+            index(ordinal, Field.DESCRIPTION, product.getDescription());
+            days[ordinal] = day(product.getCreateDateTime());
+            createdDays.computeIfAbsent(days[ordinal], day -> new OrdinalBitmap()).add(ordinal);
+            live.add(ordinal);
+            compactIfFragmented();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = ordinals.remove(id);
+            if (ordinal == LongIntHashMap.MISSING) {
+                return false;
+            }
+            unindex(ordinal);
+            live.remove(ordinal);
+            if (freeCount == free.length) {
+                free = Arrays.copyOf(free, freeCount * 2);
+            }
+            free[freeCount++] = ordinal;
+            compactIfFragmented();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int count(Filter filter) {
+        lock.readLock().lock();
+        try {
+            return filter.evaluate(this, live).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the ids of every product matching the filter, in no particular order
+     */
+    public long[] ids(Filter filter) {
+        lock.readLock().lock();
+        try {
+            return ids(filter.evaluate(this, live));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the ids, ascending, of the matching products from {@code offset} to {@code offset + limit}
+     * in id order, with the number of matches
+     */
+    public Matches search(Filter filter, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            var matches = filter.evaluate(this, live);
+            int total = matches.cardinality();
+            if (offset >= total || limit <= 0) {
+                return new Matches(new long[0], total);
+            }
+            int end = (int) Math.min(total, offset + limit);
+            long[] smallest;
+            if (end > MAX_HEAP) {
+                smallest = ids(matches);
+                Arrays.sort(smallest);
+            } else {
+                var collector = new SmallestIds(end, suffixMinIds());
+                matches.forEach(collector);
+                smallest = collector.sorted();
+            }
+            return new Matches(Arrays.copyOfRange(smallest, (int) offset, end), total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return allocated bytes of the postings, texts and ordinal arrays, for footprint reporting
+     */
+    public long bytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = ordinals.bytes() + arena.bytes() + live.bytes() + ids.length * (8L + 4L + 8L * texts.length);
+            for (Map<Long, OrdinalBitmap> postings : grams.values()) {
+                for (OrdinalBitmap posting : postings.values()) {
+                    bytes += 48 + posting.bytes();
+                }
+            }
+            for (OrdinalBitmap posting : createdDays.values()) {
+                bytes += 48 + posting.bytes();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Called by {@link Filter} under the read lock.
+     *
+     * @return the products within that have every trigram of the filter, a superset of its matches
+     */
+    OrdinalBitmap candidates(Field field, String filter, MatchMode match, OrdinalBitmap within) {
+        var indexed = indexed(filter, match);
+        if (indexed.length() < GRAM) {
+            return within;
+        }
+        List<OrdinalBitmap> postings = new ArrayList<>();
+        for (long gram : grams(indexed)) {
+            var posting = grams.get(field).get(gram);
+            if (posting == null) {
+                return new OrdinalBitmap();
+            }
+            postings.add(posting);
+        }
+        postings.sort(Comparator.comparingInt(OrdinalBitmap::cardinality));
+        var result = within;
+        for (OrdinalBitmap posting : postings) {
+            result = OrdinalBitmap.and(posting, result);
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Called by {@link Filter} under the read lock.
+     *
+     * @return the candidates whose text matches the filter
+     */
+    OrdinalBitmap verify(Field field, String filter, MatchMode match, OrdinalBitmap candidates) {
+        var indexed = indexed(filter, match);
+        if (indexed.length() == GRAM || SearchText.normalize(filter).isEmpty()) {
+            // one trigram is the whole filter, and an empty one matches everything
+            return candidates;
+        }
+        // the trigrams can all be there without being next to each other
+        boolean prefix = match == MatchMode.PREFIX;
+        var pattern = SearchText.normalize(filter).getBytes(StandardCharsets.UTF_8);
+        var references = texts[field.ordinal()];
+        var result = new OrdinalBitmap();
+        candidates.forEach(ordinal -> {
+            if (prefix ? arena.startsWith(references[ordinal], pattern) : arena.contains(references[ordinal], pattern)) {
+                result.add(ordinal);
+            }
+            return true;
+        });
+        return result;
+    }
+
+    /**
+     * Called by {@link Filter} under the read lock.
+     */
+    OrdinalBitmap createdBetween(LocalDate from, LocalDate to) {
+        var result = new OrdinalBitmap();
+        for (OrdinalBitmap day : createdDays.subMap(day(from), true, day(to), true).values()) {
+            result = OrdinalBitmap.or(result, day);
+        }
+        return result;
+    }
+
+    private int allocate(long id) {
+        int ordinal;
+        if (freeCount > 0) {
+            ordinal = free[--freeCount];
+        } else {
+            if (used == ids.length) {
+                int capacity = ids.length * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                days = Arrays.copyOf(days, capacity);
+                for (int i = 0; i < texts.length; i++) {
+                    texts[i] = Arrays.copyOf(texts[i], capacity);
+                }
+                int blocks = blockMinIds.length;
+                blockMinIds = Arrays.copyOf(blockMinIds, (capacity >>> BLOCK_BITS) + 1);
+                Arrays.fill(blockMinIds, blocks, blockMinIds.length, Long.MAX_VALUE);
+            }
+            ordinal = used++;
+        }
+        ids[ordinal] = id;
+        // a lower bound of the ids in the block, reused ordinals only ever lower it
+        blockMinIds[ordinal >>> BLOCK_BITS] = Math.min(blockMinIds[ordinal >>> BLOCK_BITS], id);
+        return ordinal;
+    }
+
+    private void index(int ordinal, Field field, String text) {
+        var normalized = text == null ? "" : SearchText.normalize(text);
+        texts[field.ordinal()][ordinal] = arena.add(normalized);
+        var postings = grams.get(field);
+        for (long gram : grams(START + normalized)) {
+            postings.computeIfAbsent(gram, key -> new OrdinalBitmap()).add(ordinal);
+        }
+    }
+
+    private void unindex(int ordinal) {
+        for (Field field : Field.values()) {
+            long reference = texts[field.ordinal()][ordinal];
+            var postings = grams.get(field);
+            for (long gram : grams(START + arena.string(reference))) {
+                var posting = postings.get(gram);
+                posting.remove(ordinal);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+            arena.release(reference);
+        }
+        var day = createdDays.get(days[ordinal]);
+        day.remove(ordinal);
+        if (day.isEmpty()) {
+            createdDays.remove(days[ordinal]);
+        }
+    }
+
+    // called under the write lock
+    private void compactIfFragmented() {
+        if (!arena.isFragmented()) {
+            return;
+        }
+        var compacted = new ByteArena();
+        live.forEach(ordinal -> {
+            for (long[] references : texts) {
+                references[ordinal] = compacted.add(arena, references[ordinal]);
+            }
+            return true;
+        });
+        arena = compacted;
+    }
+
+    private long[] ids(OrdinalBitmap matches) {
+        var result = new long[matches.cardinality()];
+        var count = new int[1];
+        matches.forEach(ordinal -> {
+            result[count[0]++] = ids[ordinal];
+            return true;
+        });
+        return result;
+    }
+
+    private long[] suffixMinIds() {
+        int blocks = (used >>> BLOCK_BITS) + 1;
+        var suffixMin = new long[blocks + 1];
+        suffixMin[blocks] = Long.MAX_VALUE;
+        for (int block = blocks - 1; block >= 0; block--) {
+            suffixMin[block] = Math.min(blockMinIds[block], suffixMin[block + 1]);
+        }
+        return suffixMin;
+    }
+
+    private static String indexed(String filter, MatchMode match) {
+        var normalized = SearchText.normalize(filter);
+        return match == MatchMode.PREFIX ? START + normalized : normalized;
+    }
+
+    private static LinkedHashSet<Long> grams(String text) {
+        var result = new LinkedHashSet<Long>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            result.add((long) text.charAt(i) << 32 | (long) text.charAt(i + 1) << 16 | text.charAt(i + 2));
+        }
+        return result;
+    }
+
+    private static int day(LocalDateTime dateTime) {
+        return dateTime == null ? NO_DAY : day(dateTime.toLocalDate());
+    }
+
+    // open ranges pass LocalDate.MIN or MAX, past what an int holds
+    private static int day(LocalDate date) {
+        return (int) Math.max(NO_DAY + 1, Math.min(Integer.MAX_VALUE, date.toEpochDay()));
+    }
+
+    /**
+     * A page of matching ids and the number of matches.
+     */
+    public static final class Matches {
+
+        private final long[] ids;
+
+        private final int total;
+
+        private Matches(long[] ids, int total) {
+            this.ids = ids;
+            this.total = total;
+        }
+
+        public long[] getIds() {
+            return ids;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+    }
+
+    /**
+     * Keeps the {@code limit} lowest ids in a max heap while visiting ordinals in ascending order,
+     * and stops as soon as no later block holds an id low enough to get in: ids mostly grow with
+     * ordinals, so a first page is found after reading little more than its own matches.
+     */
+    private final class SmallestIds implements IntPredicate {
+
+        private final long[] heap;
+
+        private final long[] suffixMinIds;
+
+        private int size;
+
+        private int block = -1;
+
+        private SmallestIds(int limit, long[] suffixMinIds) {
+            this.heap = new long[limit];
+            this.suffixMinIds = suffixMinIds;
+        }
+
+        @Override
+        public boolean test(int ordinal) {
+            if (ordinal >>> BLOCK_BITS != block) {
+                block = ordinal >>> BLOCK_BITS;
+                if (size == heap.length && suffixMinIds[block] >= heap[0]) {
+                    return false;
+                }
+            }
+            long id = ids[ordinal];
+            if (size < heap.length) {
+                heap[size] = id;
+                up(size++);
+            } else if (id < heap[0]) {
+                heap[0] = id;
+                down();
+            }
+            return true;
+        }
+
+        private long[] sorted() {
+            var result = Arrays.copyOf(heap, size);
+            Arrays.sort(result);
+            return result;
+        }
+
+        private void up(int index) {
+            while (index > 0 && heap[(index - 1) / 2] < heap[index]) {
+                swap(index, (index - 1) / 2);
+                index = (index - 1) / 2;
+            }
+        }
+
+        private void down() {
+            int index = 0;
+            while (true) {
+                int largest = index;
+                for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+                    if (heap[child] > heap[largest]) {
+                        largest = child;
+                    }
+                }
+                if (largest == index) {
+                    return;
+                }
+                swap(index, largest);
+                index = largest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            long value = heap[i];
+            heap[i] = heap[j];
+            heap[j] = value;
+        }
+    }
+}
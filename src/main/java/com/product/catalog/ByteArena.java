@@ -0,0 +1,127 @@
+package com.product.catalog;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Append-only storage of short UTF-8 strings in 1MB pages. A string is addressed by a single
+ * {@code long}: page (28 bits), offset in page (20 bits) and length (16 bits). Replaced strings
+ * are only counted; once {@link #isFragmented()} the owner copies its live strings into a new
+ * arena with {@link #add(ByteArena, long)}.
+ */
+public final class ByteArena {
+
+    private static final int PAGE_BITS = 20;
+
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+    private static final int MAX_LENGTH = (1 << 16) - 1;
+
+    private byte[][] pages = new byte[16][];
+
+    private int page = -1;
+
+    private int offset = PAGE_SIZE;
+
+    private long wasted;
+
+    public long add(String value) {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_LENGTH) {
+            throw new IllegalArgumentException("Strings are limited to " + MAX_LENGTH + " bytes");
+        }
+        return append(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Copies a string of another arena into this one.
+     *
+     * @return the reference of the copy in this arena
+     */
+    public long add(ByteArena source, long reference) {
+        return append(source.pages[page(reference)], offset(reference), length(reference));
+    }
+
+    private long append(byte[] bytes, int from, int length) {
+        // a full page takes no string at all, not even an empty one: its offset would spill into the page bits
+        if (page < 0 || offset == PAGE_SIZE || offset + length > PAGE_SIZE) {
+            if (++page == pages.length) {
+                pages = Arrays.copyOf(pages, pages.length * 2);
+            }
+            pages[page] = new byte[PAGE_SIZE];
+            offset = 0;
+        }
+        System.arraycopy(bytes, from, pages[page], offset, length);
+        long reference = (long) page << 36 | (long) offset << 16 | length;
+        offset += length;
+        return reference;
+    }
+
+    /**
+     * Records that the bytes of a replaced string are no longer reachable.
+     */
+    public void release(long reference) {
+        wasted += length(reference);
+    }
+
+    public String string(long reference) {
+        return new String(pages[page(reference)], offset(reference), length(reference), StandardCharsets.UTF_8);
+    }
+
+    public boolean contains(long reference, byte[] pattern) {
+        var bytes = pages[page(reference)];
+        int start = offset(reference);
+        int last = start + length(reference) - pattern.length;
+        for (int i = start; i <= last; i++) {
+            int j = 0;
+            while (j < pattern.length && bytes[i + j] == pattern[j]) {
+                j++;
+            }
+            if (j == pattern.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean startsWith(long reference, byte[] pattern) {
+        if (length(reference) < pattern.length) {
+            return false;
+        }
+        var bytes = pages[page(reference)];
+        int start = offset(reference);
+        for (int j = 0; j < pattern.length; j++) {
+            if (bytes[start + j] != pattern[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long bytes() {
+        return (page + 1) * (long) PAGE_SIZE;
+    }
+
+    public long wastedBytes() {
+        return wasted;
+    }
+
+    /**
+     * @return whether released strings take a page or more and at least half of the bytes written
+     */
+    public boolean isFragmented() {
+        return wasted >= PAGE_SIZE && wasted * 2 >= page * (long) PAGE_SIZE + offset;
+    }
+
+    private static int page(long reference) {
+        return (int) (reference >>> 36);
+    }
+
+    private static int offset(long reference) {
+        return (int) (reference >>> 16) & (PAGE_SIZE - 1);
+    }
+
+    private static int length(long reference) {
+        return (int) reference & MAX_LENGTH;
+    }
+}
@@ -0,0 +1,123 @@
+package com.product.catalog;
+
+import com.product.event.ChangeType;
+import com.product.event.ProductChangedEvent;
+import com.product.model.Product;
+import com.product.repository.MatchMode;
+import com.product.repository.ProductRepository;
+import com.product.service.ChangesWhileLoading;
+import com.product.service.ProductReadModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Keeps a {@link CompactProductCatalog} of the whole catalog in memory, loaded at startup and
+ * maintained from the {@link ProductChangedEvent}s, and serves reads from it. Products changed
+ * while it loads are read again once it is done, see {@link ChangesWhileLoading}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "product.catalog", name = "enabled", havingValue = "true")
+public class CompactCatalogService implements ProductReadModel {
+
+    private static final Logger log = LoggerFactory.getLogger(CompactCatalogService.class);
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final ProductRepository repository;
+
+    private final CompactProductCatalog catalog;
+
+    private final ChangesWhileLoading changesWhileLoading = new ChangesWhileLoading();
+
+    private volatile boolean loaded;
+
+    public CompactCatalogService(ProductRepository repository,
+                                 @Value("${product.catalog.expected-size:100000}") int expectedSize) {
+        this.repository = repository;
+        this.catalog = new CompactProductCatalog(expectedSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        changesWhileLoading.start();
+        long after = 0;
+        while (true) {
+            var page = repository.findPageAfter(after, PageRequest.of(0, BATCH_SIZE));
+            page.forEach(catalog::put);
+            if (page.size() < BATCH_SIZE) {
+                break;
+            }
+            after = page.get(page.size() - 1).getId();
+        }
+        changesWhileLoading.reload(repository::findAllById, catalog::put, catalog::remove);
+        loaded = true;
+        log.info("Loaded {} products in the compact catalog ({} bytes)", catalog.size(), catalog.bytes());
+    }
+
+    @EventListener(condition = "#event.tenant == null")
+    public void onProductChanged(ProductChangedEvent event) {
+        changesWhileLoading.record(event.getId());
+        if (event.getType() == ChangeType.DELETED) {
+            catalog.remove(event.getId());
+        } else {
+            catalog.put(event.getProduct());
+        }
+    }
+
+    public CompactProductCatalog getCatalog() {
+        return catalog;
+    }
+
+    @Override
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    @Override
+    public Optional<Product> get(long id) {
+        return catalog.get(id);
+    }
+
+    @Override
+    public boolean supports(Pageable pageable) {
+        if (!loaded) {
+            return false;
+        }
+        var sort = pageable.getSort();
+        return sort.isUnsorted() || sort.equals(Sort.by("id"));
+    }
+
+    @Override
+    public Page<Product> search(String name, String description, MatchMode match, Pageable pageable) {
+        var ids = catalog.filter(name, description, match);
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(products(ids));
+        }
+        int from = (int) Math.min(pageable.getOffset(), ids.length);
+        int to = Math.min(from + pageable.getPageSize(), ids.length);
+        return new PageImpl<>(products(Arrays.copyOfRange(ids, from, to)), pageable, ids.length);
+    }
+
+    private List<Product> products(long[] ids) {
+        List<Product> products = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            catalog.get(id).ifPresent(products::add);
+        }
+        return products;
+    }
+}
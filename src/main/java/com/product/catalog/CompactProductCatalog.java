@@ -0,0 +1,251 @@
+package com.product.catalog;
+
+import com.product.model.EpochMicros;
+import com.product.model.Product;
+import com.product.model.SearchText;
+import com.product.repository.MatchMode;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Column oriented in-memory catalog: one slot per product in parallel primitive arrays, found
+ * through a {@link LongIntHashMap} and with the strings in a {@link ByteArena}. Around 60 bytes
+ * per product plus the string bytes, against several hundred for a {@code HashMap<Long, Product>}.
+ * Filters run on the {@link SearchText} form of name and description, which shares the bytes of
+ * the original when it is already folded. Updates append new string bytes; once most of the arena
+ * holds replaced strings the live ones are copied into a new one.
+ */
+public class CompactProductCatalog {
+
+    private static final long DELETED = -1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final LongIntHashMap slots;
+
+    private ByteArena arena = new ByteArena();
+
+    private long[] ids;
+
+    private long[] created;
+
+    private long[] updated;
+
+    private long[] names;
+
+    private long[] descriptions;
+
+    private long[] nameKeys;
+
+    private long[] descriptionKeys;
+
+    private int used;
+
+    private int[] free = new int[16];
+
+    private int freeCount;
+
+    public CompactProductCatalog(int expectedSize) {
+        int capacity = Math.max(16, expectedSize);
+        slots = new LongIntHashMap(capacity);
+        ids = new long[capacity];
+        created = new long[capacity];
+        updated = new long[capacity];
+        names = new long[capacity];
+        descriptions = new long[capacity];
+        nameKeys = new long[capacity];
+        descriptionKeys = new long[capacity];
+    }
+
+    public void put(Product product) {
+        lock.writeLock().lock();
+        try {
+            int slot = slots.get(product.getId());
+            if (slot == LongIntHashMap.MISSING) {
+                slot = allocate();
+                slots.put(product.getId(), slot);
+            } else {
+                release(slot);
+            }
+            ids[slot] = product.getId();
+            created[slot] = EpochMicros.of(product.getCreateDateTime());
+            updated[slot] = EpochMicros.of(product.getUpdateDateTime());
+            names[slot] = arena.add(product.getName());
+            descriptions[slot] = arena.add(product.getDescription());
+            nameKeys[slot] = key(product.getName(), names[slot]);
+            descriptionKeys[slot] = key(product.getDescription(), descriptions[slot]);
+            compactIfFragmented();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(long id) {
+        lock.writeLock().lock();
+        try {
+            int slot = slots.remove(id);
+            if (slot == LongIntHashMap.MISSING) {
+                return false;
+            }
+            release(slot);
+            names[slot] = DELETED;
+            if (freeCount == free.length) {
+                free = Arrays.copyOf(free, freeCount * 2);
+            }
+            free[freeCount++] = slot;
+            compactIfFragmented();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<Product> get(long id) {
+        lock.readLock().lock();
+        try {
+            int slot = slots.get(id);
+            return slot == LongIntHashMap.MISSING ? Optional.empty() : Optional.of(product(slot));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(long id) {
+        lock.readLock().lock();
+        try {
+            return slots.get(id) != LongIntHashMap.MISSING;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long[] filter(String name, String description) {
+        return filter(name, description, MatchMode.CONTAINS);
+    }
+
+    /**
+     * @return ids, ascending, of the products whose name and description match the given
+     * filters; a null filter matches everything
+     */
+    public long[] filter(String name, String description, MatchMode match) {
+        var namePattern = pattern(name);
+        var descriptionPattern = pattern(description);
+        boolean prefix = match == MatchMode.PREFIX;
+        lock.readLock().lock();
+        try {
+            var matches = new long[Math.min(used, 1024)];
+            int count = 0;
+            for (int slot = 0; slot < used; slot++) {
+                if (names[slot] == DELETED) {
+                    continue;
+                }
+                if (matches(nameKeys[slot], namePattern, prefix)
+                        && matches(descriptionKeys[slot], descriptionPattern, prefix)) {
+                    if (count == matches.length) {
+                        matches = Arrays.copyOf(matches, count * 2);
+                    }
+                    matches[count++] = ids[slot];
+                }
+            }
+            var result = Arrays.copyOf(matches, count);
+            Arrays.sort(result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return allocated bytes of the catalog structures, for footprint reporting
+     */
+    public long bytes() {
+        lock.readLock().lock();
+        try {
+            return slots.bytes() + arena.bytes() + ids.length * 8L * 7 + free.length * 4L;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long key(String text, long reference) {
+        var normalized = SearchText.normalize(text);
+        return normalized.equals(text) ? reference : arena.add(normalized);
+    }
+
+    private void release(int slot) {
+        arena.release(names[slot]);
+        arena.release(descriptions[slot]);
+        if (nameKeys[slot] != names[slot]) {
+            arena.release(nameKeys[slot]);
+        }
+        if (descriptionKeys[slot] != descriptions[slot]) {
+            arena.release(descriptionKeys[slot]);
+        }
+    }
+
+    // called under the write lock
+    private void compactIfFragmented() {
+        if (!arena.isFragmented()) {
+            return;
+        }
+        var compacted = new ByteArena();
+        for (int slot = 0; slot < used; slot++) {
+            if (names[slot] == DELETED) {
+                continue;
+            }
+            long name = compacted.add(arena, names[slot]);
+            long description = compacted.add(arena, descriptions[slot]);
+            nameKeys[slot] = nameKeys[slot] == names[slot] ? name : compacted.add(arena, nameKeys[slot]);
+            descriptionKeys[slot] = descriptionKeys[slot] == descriptions[slot]
+                    ? description : compacted.add(arena, descriptionKeys[slot]);
+            names[slot] = name;
+            descriptions[slot] = description;
+        }
+        arena = compacted;
+    }
+
+    private boolean matches(long key, byte[] pattern, boolean prefix) {
+        if (pattern == null) {
+            return true;
+        }
+        return prefix ? arena.startsWith(key, pattern) : arena.contains(key, pattern);
+    }
+
+    private static byte[] pattern(String filter) {
+        return filter == null ? null : SearchText.normalize(filter).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Product product(int slot) {
+        return new Product(ids[slot], arena.string(names[slot]), arena.string(descriptions[slot]),
+                EpochMicros.toLocalDateTime(created[slot]), EpochMicros.toLocalDateTime(updated[slot]));
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return free[--freeCount];
+        }
+        if (used == ids.length) {
+            int capacity = used + (used >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            created = Arrays.copyOf(created, capacity);
+            updated = Arrays.copyOf(updated, capacity);
+            names = Arrays.copyOf(names, capacity);
+            descriptions = Arrays.copyOf(descriptions, capacity);
+            nameKeys = Arrays.copyOf(nameKeys, capacity);
+            descriptionKeys = Arrays.copyOf(descriptionKeys, capacity);
+        }
+        return used++;
+    }
+}
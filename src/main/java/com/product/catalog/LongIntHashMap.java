@@ -0,0 +1,141 @@
+package com.product.catalog;
+
+/**
+ * Open addressing map from primitive {@code long} keys to non-negative {@code int} values,
+ * with linear probing and backward shift deletion. Not thread safe.
+ */
+public final class LongIntHashMap {
+
+    public static final int MISSING = -1;
+
+    private static final long FREE = 0;
+
+    private long[] keys;
+
+    private int[] values;
+
+    private int mask;
+
+    private int size;
+
+    private int zeroValue = MISSING;
+
+    public LongIntHashMap(int expectedSize) {
+        long needed = Math.max(4, expectedSize * 4L / 3 + 1);
+        int capacity = (int) Math.min(1 << 30, Long.highestOneBit(needed - 1) << 1);
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    public int size() {
+        return size + (zeroValue == MISSING ? 0 : 1);
+    }
+
+    public int get(long key) {
+        if (key == FREE) {
+            return zeroValue;
+        }
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) {
+                return values[slot];
+            }
+            if (current == FREE) {
+                return MISSING;
+            }
+        }
+    }
+
+    public void put(long key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Values must not be negative");
+        }
+        if (key == FREE) {
+            zeroValue = value;
+            return;
+        }
+        int slot = slot(key);
+        while (keys[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == FREE) {
+            keys[slot] = key;
+            values[slot] = value;
+            if (++size > (mask + 1) * 3L / 4) {
+                grow();
+            }
+            return;
+        }
+        values[slot] = value;
+    }
+
+    public int remove(long key) {
+        if (key == FREE) {
+            int previous = zeroValue;
+            zeroValue = MISSING;
+            return previous;
+        }
+        int slot = slot(key);
+        while (keys[slot] != key) {
+            if (keys[slot] == FREE) {
+                return MISSING;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int previous = values[slot];
+        shiftBack(slot);
+        size--;
+        return previous;
+    }
+
+    /**
+     * @return allocated bytes, for footprint reporting
+     */
+    public long bytes() {
+        return keys.length * 8L + values.length * 4L;
+    }
+
+    private void shiftBack(int hole) {
+        int next = hole;
+        while (true) {
+            next = (next + 1) & mask;
+            long key = keys[next];
+            if (key == FREE) {
+                keys[hole] = FREE;
+                return;
+            }
+            int home = slot(key);
+            // move the entry unless its home slot lies cyclically in (hole, next]
+            boolean movable = hole <= next ? home <= hole || home > next : home <= hole && home > next;
+            if (movable) {
+                keys[hole] = key;
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+    }
+
+    private void grow() {
+        var oldKeys = keys;
+        var oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                int slot = slot(oldKeys[i]);
+                while (keys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,32 @@
+package com.product.cluster;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(prefix = "product.cluster", name = "enabled", havingValue = "true")
+public class ClusterConfiguration {
+
+    public ClusterConfiguration(@Value("${product.sharding.enabled:false}") boolean sharding) {
+        if (sharding) {
+            // the changed products are read again from the default datasource, which sharding bypasses
+            throw new IllegalStateException("product.cluster and product.sharding cannot be enabled together");
+        }
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean(InvalidationTransport.class)
+    public JdbcInvalidationTransport jdbcInvalidationTransport(
+            JdbcTemplate jdbc,
+            @Value("${product.cluster.jdbc.poll-interval-ms:500}") long pollIntervalMillis,
+            @Value("${product.cluster.jdbc.lookback:PT5S}") Duration lookback,
+            @Value("${product.cluster.jdbc.retention:PT1H}") Duration retention) {
+        return new JdbcInvalidationTransport(jdbc, pollIntervalMillis, lookback, retention);
+    }
+}
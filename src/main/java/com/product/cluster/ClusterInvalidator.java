@@ -0,0 +1,245 @@
+package com.product.cluster;
+
+import com.product.event.ChangeType;
+import com.product.event.ProductChangedEvent;
+import com.product.model.Product;
+import com.product.model.ProductInvalidation;
+import com.product.repository.ProductRepository;
+import com.product.tenant.TenantContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the in-memory state of the nodes sharing a catalog in step. Every change committed on this
+ * node is queued and published through the {@link InvalidationTransport} in batches of
+ * {@code product.cluster.batch-size}, at least every {@code product.cluster.max-delay-ms}; several
+ * changes of a product in a batch are sent once. The other nodes read the changed products again,
+ * with one query per batch, and publish them as remote {@link ProductChangedEvent}s, which refresh
+ * or drop them in every cache and index that follows the events.
+ * <p>
+ * A change reaches the other nodes within {@code max-delay-ms} plus the delivery delay of the
+ * transport; {@code product.cluster.invalidation.lag} measures it from the change, by the clocks
+ * of the two nodes.
+ */
+@Component
+@ConditionalOnProperty(prefix = "product.cluster", name = "enabled", havingValue = "true")
+public class ClusterInvalidator {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterInvalidator.class);
+
+    private final InvalidationTransport transport;
+
+    private final ProductRepository repository;
+
+    private final ApplicationEventPublisher events;
+
+    private final String node;
+
+    private final int batchSize;
+
+    private final int maxPending;
+
+    private final Queue<ProductInvalidation> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // a batch that could not be published, sent first by the next flush, guarded by flushLock
+    private List<ProductInvalidation> unpublished = new ArrayList<>();
+
+    private final Counter published;
+
+    private final Counter received;
+
+    private final Timer lag;
+
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(runnable -> {
+        var thread = new Thread(runnable, "product-invalidation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ClusterInvalidator(InvalidationTransport transport,
+                              ProductRepository repository,
+                              ApplicationEventPublisher events,
+                              MeterRegistry registry,
+                              @Value("${product.cluster.node-id:}") String node,
+                              @Value("${product.cluster.batch-size:500}") int batchSize,
+                              @Value("${product.cluster.max-pending:10000}") int maxPending) {
+        this.transport = transport;
+        this.repository = repository;
+        this.events = events;
+        this.node = node.isBlank() ? UUID.randomUUID().toString() : node;
+        this.batchSize = batchSize;
+        this.maxPending = Math.max(batchSize, maxPending);
+        this.published = counter(registry, "published");
+        this.received = counter(registry, "received");
+        this.lag = Timer.builder("product.cluster.invalidation.lag")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        registry.gauge("product.cluster.invalidation.pending", pending);
+    }
+
+    private static Counter counter(MeterRegistry registry, String direction) {
+        return Counter.builder("product.cluster.invalidations")
+                .tag("direction", direction)
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        transport.subscribe(this::apply);
+        log.info("Node {} follows the changes of the cluster", node);
+    }
+
+    // remote events are changes of other nodes, they already published them
+    @EventListener(condition = "!#event.remote")
+    public void onProductChanged(ProductChangedEvent event) {
+        queue.add(new ProductInvalidation(0, node, event.getTenant(), event.getId(), event.getType(),
+                event.getTimestamp() == null ? LocalDateTime.now() : event.getTimestamp(), null));
+        var count = pending.incrementAndGet();
+        if (count >= maxPending) {
+            flush();
+        } else if (count >= batchSize && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushRequested.set(false);
+                flush();
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${product.cluster.max-delay-ms:100}")
+    public void flushPeriodically() {
+        flush();
+    }
+
+    /**
+     * Publishes every pending invalidation and returns how many were sent. If the transport fails
+     * the batch is kept, in order, for the next flush.
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            Map<String, ProductInvalidation> batch = new LinkedHashMap<>();
+            unpublished.forEach(invalidation -> merge(batch, invalidation));
+            ProductInvalidation invalidation;
+            while ((invalidation = queue.poll()) != null) {
+                pending.decrementAndGet();
+                merge(batch, invalidation);
+            }
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            List<ProductInvalidation> invalidations = new ArrayList<>(batch.values());
+            try {
+                // the transport lives in the default tenant's database, whichever tenant flushes
+                TenantContext.run(null, () -> transport.publish(invalidations));
+                unpublished = new ArrayList<>();
+                published.increment(invalidations.size());
+                return invalidations.size();
+            } catch (RuntimeException e) {
+                log.warn("Could not publish {} invalidations, will retry", invalidations.size(), e);
+                unpublished = invalidations;
+                return 0;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flusher.shutdown();
+        flush();
+    }
+
+    /**
+     * Refreshes this node with the changes of the other nodes in {@code batch}.
+     */
+    void apply(List<ProductInvalidation> batch) {
+        Map<String, Map<Long, ProductInvalidation>> byTenant = new LinkedHashMap<>();
+        for (ProductInvalidation invalidation : batch) {
+            if (!node.equals(invalidation.getNode())) {
+                byTenant.computeIfAbsent(invalidation.getTenant(), tenant -> new LinkedHashMap<>())
+                        .put(invalidation.getProductId(), invalidation);
+            }
+        }
+        byTenant.forEach((tenant, invalidations) -> {
+            try {
+                TenantContext.run(tenant, () -> refresh(invalidations.values()));
+            } catch (RuntimeException e) {
+                log.warn("Could not apply {} invalidations of tenant {}", invalidations.size(),
+                        TenantContext.name(tenant), e);
+            }
+        });
+    }
+
+    private void refresh(Collection<ProductInvalidation> invalidations) {
+        var ids = invalidations.stream()
+                .filter(invalidation -> invalidation.getType() != ChangeType.DELETED)
+                .map(ProductInvalidation::getProductId)
+                .collect(Collectors.toList());
+        Map<Long, Product> products = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            repository.findAllById(ids.subList(from, Math.min(ids.size(), from + batchSize)))
+                    .forEach(product -> products.put(product.getId(), product));
+        }
+        var now = LocalDateTime.now();
+        for (ProductInvalidation invalidation : invalidations) {
+            var product = products.get(invalidation.getProductId());
+            // not found: deleted since, maybe by a later invalidation
+            events.publishEvent(product == null
+                    ? new ProductChangedEvent(ChangeType.DELETED, invalidation.getProductId(), null,
+                    invalidation.getChangedAt(), true)
+                    : new ProductChangedEvent(invalidation.getType(), product.getId(), product,
+                    product.getUpdateDateTime(), true));
+            received.increment();
+            lag.record(Duration.between(invalidation.getChangedAt(), now));
+        }
+    }
+
+    /**
+     * Keeps one invalidation per product, the last, still flagged as created when it was.
+     */
+    private static void merge(Map<String, ProductInvalidation> batch, ProductInvalidation invalidation) {
+        var key = TenantContext.scoped(invalidation.getTenant(), String.valueOf(invalidation.getProductId()));
+        var before = batch.remove(key);
+        if (before != null && before.getType() == ChangeType.CREATED && invalidation.getType() == ChangeType.UPDATED) {
+            invalidation = new ProductInvalidation(0, invalidation.getNode(), invalidation.getTenant(),
+                    invalidation.getProductId(), ChangeType.CREATED, invalidation.getChangedAt(), null);
+        }
+        batch.put(key, invalidation);
+    }
+}
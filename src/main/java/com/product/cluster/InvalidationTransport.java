@@ -0,0 +1,25 @@
+package com.product.cluster;
+
+import com.product.model.ProductInvalidation;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Carries invalidations between the nodes sharing a catalog. {@link JdbcInvalidationTransport}
+ * works wherever the nodes share a database; declaring another bean of this type, over a message
+ * broker or multicast, replaces it.
+ */
+public interface InvalidationTransport {
+
+    /**
+     * Sends a batch of invalidations to every node, this one included.
+     */
+    void publish(List<ProductInvalidation> batch);
+
+    /**
+     * Delivers, in batches, the invalidations published from now on by any node. Deliveries may
+     * repeat an invalidation; they never run concurrently.
+     */
+    void subscribe(Consumer<List<ProductInvalidation>> listener);
+}
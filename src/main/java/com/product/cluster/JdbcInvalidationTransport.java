@@ -0,0 +1,135 @@
+package com.product.cluster;
+
+import com.product.event.ChangeType;
+import com.product.model.ProductInvalidation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Invalidations through the {@code product_invalidations} table of the shared database: published
+ * with JDBC batches, read back every {@code product.cluster.jdbc.poll-interval-ms}. Rows are stamped
+ * with the database clock, so nodes need not agree on the time; each poll reads again the last
+ * {@code product.cluster.jdbc.lookback} of rows, catching those committed after younger ones, and
+ * skips the ones already delivered. Rows older than {@code product.cluster.jdbc.retention} are deleted.
+ */
+public class JdbcInvalidationTransport implements InvalidationTransport, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcInvalidationTransport.class);
+
+    private static final String INSERT = "insert into product_invalidations " +
+            "(node, tenant, product_id, type, changed_at, published_at) values (?, ?, ?, ?, ?, localtimestamp)";
+
+    private static final String SELECT = "select id, node, tenant, product_id, type, changed_at, published_at " +
+            "from product_invalidations where published_at >= ? order by id";
+
+    private static final String PURGE = "delete from product_invalidations where published_at < ?";
+
+    private static final RowMapper<ProductInvalidation> ROW = (rs, rowNum) -> new ProductInvalidation(
+            rs.getLong(1), rs.getString(2), rs.getString(3), rs.getLong(4), ChangeType.valueOf(rs.getString(5)),
+            rs.getObject(6, LocalDateTime.class), rs.getObject(7, LocalDateTime.class));
+
+    private final JdbcTemplate jdbc;
+
+    private final long pollIntervalMillis;
+
+    private final Duration lookback;
+
+    private final Duration retention;
+
+    private final List<Consumer<List<ProductInvalidation>>> listeners = new CopyOnWriteArrayList<>();
+
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "product-invalidation-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // ids of the rows within the lookback already delivered, with when they were published
+    private final Map<Long, LocalDateTime> delivered = new HashMap<>();
+
+    // the newest publishedAt read, by the database clock
+    private LocalDateTime watermark;
+
+    private LocalDateTime purgedAt;
+
+    public JdbcInvalidationTransport(JdbcTemplate jdbc, long pollIntervalMillis, Duration lookback, Duration retention) {
+        this.jdbc = jdbc;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.lookback = lookback;
+        this.retention = retention;
+    }
+
+    @Override
+    public void publish(List<ProductInvalidation> batch) {
+        jdbc.batchUpdate(INSERT, batch, batch.size(), (statement, invalidation) -> {
+            statement.setString(1, invalidation.getNode());
+            statement.setString(2, invalidation.getTenant());
+            statement.setLong(3, invalidation.getProductId());
+            statement.setString(4, invalidation.getType().name());
+            statement.setObject(5, invalidation.getChangedAt());
+        });
+    }
+
+    @Override
+    public synchronized void subscribe(Consumer<List<ProductInvalidation>> listener) {
+        if (watermark == null) {
+            watermark = jdbc.queryForObject("select localtimestamp", LocalDateTime.class);
+            purgedAt = watermark;
+            poller.scheduleWithFixedDelay(this::deliver, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * @return the invalidations published since the last poll
+     */
+    synchronized List<ProductInvalidation> poll() {
+        var from = watermark.minus(lookback);
+        List<ProductInvalidation> fresh = new ArrayList<>();
+        for (ProductInvalidation invalidation : jdbc.query(SELECT, ROW, from)) {
+            if (delivered.putIfAbsent(invalidation.getId(), invalidation.getPublishedAt()) == null) {
+                fresh.add(invalidation);
+            }
+            if (invalidation.getPublishedAt().isAfter(watermark)) {
+                watermark = invalidation.getPublishedAt();
+            }
+        }
+        delivered.values().removeIf(publishedAt -> publishedAt.isBefore(watermark.minus(lookback)));
+        if (watermark.isAfter(purgedAt.plus(retention))) {
+            // every node purges, deleting rows already deleted is harmless
+            jdbc.update(PURGE, watermark.minus(retention));
+            purgedAt = watermark;
+        }
+        return fresh;
+    }
+
+    @Override
+    public void close() {
+        poller.shutdownNow();
+    }
+
+    private void deliver() {
+        try {
+            var fresh = poll();
+            if (!fresh.isEmpty()) {
+                listeners.forEach(listener -> listener.accept(fresh));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not read invalidations, will retry", e);
+        }
+    }
+}
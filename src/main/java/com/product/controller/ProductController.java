@@ -1,16 +1,37 @@
 package com.product.controller;
 
+import com.product.dto.ChangeFeed;
+import com.product.dto.Facets;
+import com.product.dto.ProductLookup;
 import com.product.dto.Response;
+import com.product.dto.Suggestion;
+import com.product.facet.FacetService;
+import com.product.history.ProductHistory;
+import com.product.idempotency.IdempotencyStore;
 import com.product.model.Product;
+import com.product.overload.StaleCache;
+import com.product.repository.MatchMode;
+import com.product.service.ProductChangeFeedService;
 import com.product.service.ProductService;
+import com.product.service.SearchDeadlineExecutor;
+import com.product.suggest.SuggestService;
+import com.product.tenant.TenantContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.validation.Valid;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping({"/api", "/api/v1"})
@@ -19,23 +40,124 @@ public class ProductController {
     @Autowired
     private ProductService service;
 
+    @Autowired
+    private ProductChangeFeedService changeFeedService;
+
+    @Autowired(required = false)
+    private SuggestService suggestService;
+
+    @Autowired(required = false)
+    private SearchDeadlineExecutor searchDeadlineExecutor;
+
+    @Autowired(required = false)
+    private FacetService facetService;
+
+    @Autowired(required = false)
+    private IdempotencyStore idempotencyStore;
+
+    @Autowired(required = false)
+    private ProductHistory productHistory;
+
     @GetMapping("/products")
-    public ResponseEntity<Response<Product>> getAllProducts(
+    public DeferredResult<ResponseEntity<Response<Product>>> getAllProducts(
             @RequestParam(required = false) String name,
             @RequestParam(required = false) String description,
+            @RequestParam(defaultValue = "CONTAINS") MatchMode match,
+            @RequestParam(defaultValue = "false") boolean partial,
             @PageableDefault(page = 0, size = 3) Pageable pageable) {
-        Response<Product> productProductResponse = service.search(name, description, pageable);
-        return new ResponseEntity<>(productProductResponse, HttpStatus.OK);
+        var result = new DeferredResult<ResponseEntity<Response<Product>>>();
+        if (searchDeadlineExecutor == null) {
+            try {
+                result.setResult(ok(service.search(name, description, match, pageable)));
+            } catch (ResponseStatusException e) {
+                result.setErrorResult(e);
+            }
+            return result;
+        }
+        var search = searchDeadlineExecutor.submit(() -> service.search(name, description, match, pageable), partial);
+        search.whenComplete((response, error) -> {
+            if (error == null) {
+                result.setResult(ok(response));
+            } else {
+                result.setErrorResult(error instanceof CompletionException ? error.getCause() : error);
+            }
+        });
+        // the client went away or the request timed out: stop the query
+        result.onError(error -> search.cancel(true));
+        result.onTimeout(() -> search.cancel(true));
+        return result;
+    }
+
+    @GetMapping(value = "/products", params = "ids")
+    public ResponseEntity<ProductLookup> getProductsById(@RequestParam List<Long> ids) {
+        return new ResponseEntity<>(service.getAll(ids), HttpStatus.OK);
+    }
+
+    @PostMapping("/products/lookup")
+    public ResponseEntity<ProductLookup> lookupProducts(@RequestBody List<Long> ids) {
+        return new ResponseEntity<>(service.getAll(ids), HttpStatus.OK);
+    }
+
+    @GetMapping("/products/suggest")
+    public ResponseEntity<List<Suggestion>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (suggestService == null || !suggestService.isLoaded() || !TenantContext.isDefault()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Suggestions are not available");
+        }
+        return new ResponseEntity<>(suggestService.suggest(prefix, limit), HttpStatus.OK);
+    }
+
+    @GetMapping("/products/facets")
+    public ResponseEntity<Facets> getFacets(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String description,
+            @RequestParam(defaultValue = "CONTAINS") MatchMode match,
+            @RequestParam(defaultValue = "10") int terms) {
+        if (facetService == null || !facetService.isLoaded() || !TenantContext.isDefault()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Facets are not available");
+        }
+        return new ResponseEntity<>(facetService.facets(name, description, match, terms), HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/products/changes", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ChangeFeed> getChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "100") int limit) {
+        return new ResponseEntity<>(changeFeedService.changes(since, limit), HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/products/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @RequestParam(required = false) String since,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return changeFeedService.subscribe(lastEventId != null ? lastEventId : since);
     }
 
     @PostMapping("/products")
-    public ResponseEntity<Product> createProduct(@RequestBody @Valid Product product) {
-        return service.create(product);
+    public ResponseEntity<Product> createProduct(
+            @RequestBody @Valid Product product,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyStore == null) {
+            return service.create(product);
+        }
+        return idempotencyStore.execute(idempotencyKey, List.of(product.getName(), product.getDescription()),
+                () -> service.create(product));
     }
 
     @GetMapping("/products/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable("id") long id) {
-        return service.get(id);
+    public ResponseEntity<Product> getProductById(
+            @PathVariable("id") long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf) {
+        if (asOf == null) {
+            return service.get(id);
+        }
+        if (productHistory == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Product history is not available");
+        }
+        return productHistory.asOf(id, asOf)
+                .map(product -> new ResponseEntity<>(product, HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
     @PutMapping("/products/{id}")
@@ -47,4 +169,11 @@ public class ProductController {
     public ResponseEntity<HttpStatus> deleteProduct(@PathVariable("id") long id) {
         return service.delete(id);
     }
+
+    /**
+     * A search page, flagged as stale when it comes from the cache of an overloaded database.
+     */
+    private static ResponseEntity<Response<Product>> ok(Response<Product> response) {
+        return new ResponseEntity<>(response, StaleCache.headers(response == null ? null : response.getAge()), HttpStatus.OK);
+    }
 }
@@ -0,0 +1,32 @@
+package com.product.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+@JsonInclude(content = JsonInclude.Include.NON_NULL)
+public class ChangeFeed {
+
+    @JsonProperty("changes")
+    private List<ProductChange> changes;
+
+    @JsonProperty("next")
+    private String next;
+
+    public ChangeFeed() {
+    }
+
+    public ChangeFeed(List<ProductChange> changes, String next) {
+        this.changes = changes;
+        this.next = next;
+    }
+
+    public List<ProductChange> getChanges() {
+        return changes;
+    }
+
+    public String getNext() {
+        return next;
+    }
+}
@@ -0,0 +1,36 @@
+package com.product.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class FacetCount {
+
+    @JsonProperty("value")
+    private String value;
+
+    @JsonProperty("count")
+    private long count;
+
+    public FacetCount() {
+    }
+
+    public FacetCount(String value, long count) {
+        this.value = value;
+        this.count = count;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,68 @@
+package com.product.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts over the products matching a filter. The date facets map each window, like {@code P7D}
+ * for the last seven days including today, to the number of products created or updated in it.
+ */
+public class Facets {
+
+    @JsonProperty("total")
+    private long total;
+
+    @JsonProperty("createDateTime")
+    private Map<String, Long> createDateTime;
+
+    @JsonProperty("updateDateTime")
+    private Map<String, Long> updateDateTime;
+
+    @JsonProperty("nameTerms")
+    private List<FacetCount> nameTerms;
+
+    public Facets() {
+    }
+
+    public Facets(long total, Map<String, Long> createDateTime, Map<String, Long> updateDateTime,
+                  List<FacetCount> nameTerms) {
+        this.total = total;
+        this.createDateTime = createDateTime;
+        this.updateDateTime = updateDateTime;
+        this.nameTerms = nameTerms;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public Map<String, Long> getCreateDateTime() {
+        return createDateTime;
+    }
+
+    public void setCreateDateTime(Map<String, Long> createDateTime) {
+        this.createDateTime = createDateTime;
+    }
+
+    public Map<String, Long> getUpdateDateTime() {
+        return updateDateTime;
+    }
+
+    public void setUpdateDateTime(Map<String, Long> updateDateTime) {
+        this.updateDateTime = updateDateTime;
+    }
+
+    public List<FacetCount> getNameTerms() {
+        return nameTerms;
+    }
+
+    public void setNameTerms(List<FacetCount> nameTerms) {
+        this.nameTerms = nameTerms;
+    }
+}
@@ -15,6 +15,14 @@ public class Pagination {
     @JsonProperty("totalPages")
     private int totalPages;
 
+    /**
+     * Set when the search hit its deadline: the page holds the rows found until then and the
+     * totals are lower bounds.
+     */
+    @JsonProperty("partial")
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    private boolean partial;
+
     public Pagination() {
     }
 
@@ -47,4 +55,12 @@ public class Pagination {
     public void setTotalPages(int totalPages) {
         this.totalPages = totalPages;
     }
+
+    public boolean isPartial() {
+        return partial;
+    }
+
+    public void setPartial(boolean partial) {
+        this.partial = partial;
+    }
 }
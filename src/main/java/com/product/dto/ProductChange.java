@@ -0,0 +1,58 @@
+package com.product.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.product.event.ChangeType;
+import com.product.model.Product;
+
+import java.time.LocalDateTime;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductChange {
+
+    @JsonProperty("type")
+    private ChangeType type;
+
+    @JsonProperty("id")
+    private long id;
+
+    @JsonProperty("product")
+    private Product product;
+
+    @JsonProperty("timestamp")
+    private LocalDateTime timestamp;
+
+    @JsonProperty("token")
+    private String token;
+
+    public ProductChange() {
+    }
+
+    public ProductChange(ChangeType type, long id, Product product, LocalDateTime timestamp, String token) {
+        this.type = type;
+        this.id = id;
+        this.product = product;
+        this.timestamp = timestamp;
+        this.token = token;
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public String getToken() {
+        return token;
+    }
+}
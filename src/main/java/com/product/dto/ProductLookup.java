@@ -0,0 +1,43 @@
+package com.product.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.product.model.Product;
+
+import java.util.List;
+
+/**
+ * The products found by a multi-get, in the order their ids were asked for, and the ids that
+ * matched no product.
+ */
+public class ProductLookup {
+
+    @JsonProperty("data")
+    private List<Product> data;
+
+    @JsonProperty("notFound")
+    private List<Long> notFound;
+
+    public ProductLookup() {
+    }
+
+    public ProductLookup(List<Product> data, List<Long> notFound) {
+        this.data = data;
+        this.notFound = notFound;
+    }
+
+    public List<Product> getData() {
+        return data;
+    }
+
+    public void setData(List<Product> data) {
+        this.data = data;
+    }
+
+    public List<Long> getNotFound() {
+        return notFound;
+    }
+
+    public void setNotFound(List<Long> notFound) {
+        this.notFound = notFound;
+    }
+}
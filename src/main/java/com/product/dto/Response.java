@@ -1,8 +1,10 @@
 package com.product.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import java.time.Duration;
 import java.util.List;
 
 @JsonInclude(content = JsonInclude.Include.NON_NULL)
@@ -14,6 +16,13 @@ public class Response<T> {
     @JsonProperty("pagination")
     private Pagination pagination;
 
+    /**
+     * Set when the response is served from a cache because the database could not answer: how
+     * old it is. Sent as headers, not in the body.
+     */
+    @JsonIgnore
+    private Duration age;
+
     public Response() {
     }
 
@@ -37,4 +46,13 @@ public class Response<T> {
     public void setPagination(Pagination pagination) {
         this.pagination = pagination;
     }
+
+    @JsonIgnore
+    public Duration getAge() {
+        return age;
+    }
+
+    public void setAge(Duration age) {
+        this.age = age;
+    }
 }
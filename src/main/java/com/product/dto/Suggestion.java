@@ -0,0 +1,36 @@
+package com.product.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class Suggestion {
+
+    @JsonProperty("id")
+    private long id;
+
+    @JsonProperty("name")
+    private String name;
+
+    public Suggestion() {
+    }
+
+    public Suggestion(long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
@@ -0,0 +1,7 @@
+package com.product.event;
+
+public enum ChangeType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
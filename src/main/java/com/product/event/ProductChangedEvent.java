@@ -0,0 +1,77 @@
+package com.product.event;
+
+import com.product.model.Product;
+import com.product.tenant.TenantContext;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published by {@link com.product.service.ProductService} once a write has been committed.
+ * {@code product} is null for {@link ChangeType#DELETED}. {@code tenant} is the tenant of the
+ * thread that published it, null for the default one: the in-memory indexes only follow the default
+ * catalog, with {@code @EventListener(condition = "#event.tenant == null")}. A {@code remote} event
+ * replays a change committed by another node, see {@link com.product.cluster.ClusterInvalidator}:
+ * it updates the in-memory state of this node but must not be written or broadcast again.
+ */
+public class ProductChangedEvent {
+
+    private final ChangeType type;
+
+    private final long id;
+
+    private final Product product;
+
+    private final LocalDateTime timestamp;
+
+    private final String tenant = TenantContext.get();
+
+    private final boolean remote;
+
+    public ProductChangedEvent(ChangeType type, long id, Product product, LocalDateTime timestamp) {
+        this(type, id, product, timestamp, false);
+    }
+
+    public ProductChangedEvent(ChangeType type, long id, Product product, LocalDateTime timestamp, boolean remote) {
+        this.type = type;
+        this.id = id;
+        this.product = product;
+        this.timestamp = timestamp;
+        this.remote = remote;
+    }
+
+    public static ProductChangedEvent created(Product product) {
+        return new ProductChangedEvent(ChangeType.CREATED, product.getId(), product, product.getUpdateDateTime());
+    }
+
+    public static ProductChangedEvent updated(Product product) {
+        return new ProductChangedEvent(ChangeType.UPDATED, product.getId(), product, product.getUpdateDateTime());
+    }
+
+    public static ProductChangedEvent deleted(long id, LocalDateTime timestamp) {
+        return new ProductChangedEvent(ChangeType.DELETED, id, null, timestamp);
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public boolean isRemote() {
+        return remote;
+    }
+}
@@ -0,0 +1,278 @@
+package com.product.facet;
+
+import com.product.catalog.LongIntHashMap;
+import com.product.dto.FacetCount;
+import com.product.dto.Facets;
+import com.product.model.SearchText;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * The facet values of every product, by ordinal: the day it was created, the day it was last
+ * updated and the distinct terms of its normalized name. Totals over the whole catalog are kept up
+ * to date on every change, so unfiltered counts cost nothing; counts over a subset of products are
+ * a single pass over their ordinals. Guarded by a read write lock.
+ */
+public class FacetIndex {
+
+    private static final Pattern TERM_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final int NO_DAY = Integer.MIN_VALUE;
+
+    private static final int[] NO_TERMS = new int[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final LongIntHashMap ordinals;
+
+    private int[] createdDays;
+
+    private int[] updatedDays;
+
+    private int[][] terms;
+
+    private int ordinalCount;
+
+    private int[] free = new int[16];
+
+    private int freeCount;
+
+    private final Map<String, Integer> termIds = new HashMap<>();
+
+    private final List<String> termValues = new ArrayList<>();
+
+    private int[] termTotals = new int[256];
+
+    private final NavigableMap<Integer, Integer> createdTotals = new TreeMap<>();
+
+    private final NavigableMap<Integer, Integer> updatedTotals = new TreeMap<>();
+
+    public FacetIndex(int expectedSize) {
+        int capacity = Math.max(16, expectedSize);
+        ordinals = new LongIntHashMap(capacity);
+        createdDays = new int[capacity];
+        updatedDays = new int[capacity];
+        terms = new int[capacity][];
+    }
+
+    public void put(long id, String name, LocalDateTime created, LocalDateTime updated) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = ordinals.get(id);
+            if (ordinal == LongIntHashMap.MISSING) {
+                ordinal = allocate();
+                ordinals.put(id, ordinal);
+            } else {
+                unlink(ordinal);
+            }
+            createdDays[ordinal] = day(created);
+            updatedDays[ordinal] = day(updated);
+            terms[ordinal] = termIds(name);
+            link(ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = ordinals.remove(id);
+            if (ordinal == LongIntHashMap.MISSING) {
+                return;
+            }
+            unlink(ordinal);
+            terms[ordinal] = null;
+            if (freeCount == free.length) {
+                free = Arrays.copyOf(free, freeCount * 2);
+            }
+            free[freeCount++] = ordinal;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param products ids of the products to count, any order, ids not in the index are skipped;
+     *                 null for the whole catalog
+     * @param windows  date buckets, each counting the products of its last {@code n} days up to {@code today}
+     * @param termLimit the number of most frequent name terms to return
+     */
+    public Facets count(long[] products, LocalDate today, List<Integer> windows, int termLimit) {
+        lock.readLock().lock();
+        try {
+            if (products == null) {
+                return new Facets(ordinals.size(),
+                        windowTotals(createdTotals, today, windows),
+                        windowTotals(updatedTotals, today, windows),
+                        top(termTotals, termLimit));
+            }
+            int[] firstDays = firstDays(today, windows);
+            long[] created = new long[windows.size()];
+            long[] updated = new long[windows.size()];
+            int[] termCounts = new int[termValues.size()];
+            int total = 0;
+            for (long id : products) {
+                int ordinal = ordinals.get(id);
+                if (ordinal == LongIntHashMap.MISSING) {
+                    continue;
+                }
+                total++;
+                for (int i = 0; i < firstDays.length; i++) {
+                    if (createdDays[ordinal] >= firstDays[i]) {
+                        created[i]++;
+                    }
+                    if (updatedDays[ordinal] >= firstDays[i]) {
+                        updated[i]++;
+                    }
+                }
+                for (int term : terms[ordinal]) {
+                    termCounts[term]++;
+                }
+            }
+            return new Facets(total, buckets(windows, created), buckets(windows, updated), top(termCounts, termLimit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static String[] terms(String name) {
+        var normalized = SearchText.normalize(name);
+        if (normalized == null) {
+            return new String[0];
+        }
+        return Arrays.stream(TERM_SEPARATOR.split(normalized))
+                .filter(term -> term.length() > 1)
+                .distinct()
+                .toArray(String[]::new);
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return free[--freeCount];
+        }
+        if (ordinalCount == terms.length) {
+            int capacity = terms.length * 2;
+            createdDays = Arrays.copyOf(createdDays, capacity);
+            updatedDays = Arrays.copyOf(updatedDays, capacity);
+            terms = Arrays.copyOf(terms, capacity);
+        }
+        return ordinalCount++;
+    }
+
+    private int[] termIds(String name) {
+        var values = terms(name);
+        if (values.length == 0) {
+            return NO_TERMS;
+        }
+        int[] result = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = termIds.computeIfAbsent(values[i], term -> {
+                termValues.add(term);
+                if (termValues.size() > termTotals.length) {
+                    termTotals = Arrays.copyOf(termTotals, termTotals.length * 2);
+                }
+                return termValues.size() - 1;
+            });
+        }
+        return result;
+    }
+
+    private void link(int ordinal) {
+        add(createdTotals, createdDays[ordinal], 1);
+        add(updatedTotals, updatedDays[ordinal], 1);
+        for (int term : terms[ordinal]) {
+            termTotals[term]++;
+        }
+    }
+
+    private void unlink(int ordinal) {
+        add(createdTotals, createdDays[ordinal], -1);
+        add(updatedTotals, updatedDays[ordinal], -1);
+        for (int term : terms[ordinal]) {
+            termTotals[term]--;
+        }
+    }
+
+    private static void add(NavigableMap<Integer, Integer> totals, int day, int delta) {
+        if (day != NO_DAY) {
+            totals.merge(day, delta, (current, change) -> current + change == 0 ? null : current + change);
+        }
+    }
+
+    private static int day(LocalDateTime dateTime) {
+        return dateTime == null ? NO_DAY : (int) dateTime.toLocalDate().toEpochDay();
+    }
+
+    private static int[] firstDays(LocalDate today, List<Integer> windows) {
+        return windows.stream().mapToInt(days -> (int) today.minusDays(days - 1L).toEpochDay()).toArray();
+    }
+
+    private static Map<String, Long> windowTotals(NavigableMap<Integer, Integer> totals, LocalDate today,
+                                                  List<Integer> windows) {
+        int[] firstDays = firstDays(today, windows);
+        long[] counts = new long[windows.size()];
+        for (int i = 0; i < firstDays.length; i++) {
+            for (int count : totals.tailMap(firstDays[i], true).values()) {
+                counts[i] += count;
+            }
+        }
+        return buckets(windows, counts);
+    }
+
+    private static Map<String, Long> buckets(List<Integer> windows, long[] counts) {
+        Map<String, Long> buckets = new LinkedHashMap<>();
+        for (int i = 0; i < counts.length; i++) {
+            buckets.put("P" + windows.get(i) + "D", counts[i]);
+        }
+        return buckets;
+    }
+
+    private List<FacetCount> top(int[] counts, int limit) {
+        Comparator<Integer> ranking = Comparator.<Integer>comparingInt(term -> counts[term])
+                .thenComparing(termValues::get, Comparator.reverseOrder());
+        var best = new PriorityQueue<>(ranking);
+        for (int term = 0; term < termValues.size() && limit > 0; term++) {
+            if (counts[term] == 0) {
+                continue;
+            }
+            if (best.size() < limit) {
+                best.add(term);
+            } else if (ranking.compare(term, best.peek()) > 0) {
+                best.poll();
+                best.add(term);
+            }
+        }
+        List<FacetCount> result = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            int term = best.poll();
+            result.add(new FacetCount(termValues.get(term), counts[term]));
+        }
+        // the queue hands out the lowest ranked first
+        Collections.reverse(result);
+        return result;
+    }
+}
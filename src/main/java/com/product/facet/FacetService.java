@@ -0,0 +1,128 @@
+package com.product.facet;
+
+import com.product.bitmap.BitmapSearchService;
+import com.product.dto.Facets;
+import com.product.event.ChangeType;
+import com.product.event.ProductChangedEvent;
+import com.product.model.Product;
+import com.product.repository.MatchMode;
+import com.product.repository.ProductRepository;
+import com.product.service.ChangesWhileLoading;
+import com.product.service.SortedIdSets;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Serves {@code GET /products/facets} from a {@link FacetIndex} of the whole catalog, loaded at
+ * startup and maintained from the {@link ProductChangedEvent}s, reading again the products changed
+ * while it loads, see {@link ChangesWhileLoading}. Without filters the counts are
+ * the index totals; with filters the matching ids come from one id query per filter, the same
+ * ones {@link com.product.service.ParallelSearchExecutor} runs, and every facet is counted in a
+ * single pass over them instead of a count query per facet value. With the bitmap search enabled
+ * the matching ids come from its index and no query is run at all.
+ */
+@Component
+@ConditionalOnProperty(prefix = "product.facets", name = "enabled", havingValue = "true")
+public class FacetService {
+
+    private static final Logger log = LoggerFactory.getLogger(FacetService.class);
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final ProductRepository repository;
+
+    private final FacetIndex index;
+
+    private final ChangesWhileLoading changesWhileLoading = new ChangesWhileLoading();
+
+    private final List<Integer> windowDays;
+
+    private final int maxTerms;
+
+    @Autowired(required = false)
+    private BitmapSearchService bitmapSearch;
+
+    private volatile boolean loaded;
+
+    public FacetService(ProductRepository repository,
+                        @Value("${product.facets.window-days:1,7,30,365}") List<Integer> windowDays,
+                        @Value("${product.facets.max-terms:50}") int maxTerms,
+                        @Value("${product.facets.expected-size:100000}") int expectedSize) {
+        this.repository = repository;
+        this.index = new FacetIndex(expectedSize);
+        this.windowDays = List.copyOf(windowDays);
+        this.maxTerms = maxTerms;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        changesWhileLoading.start();
+        long after = 0;
+        while (true) {
+            var page = repository.findPageAfter(after, PageRequest.of(0, BATCH_SIZE));
+            page.forEach(this::put);
+            if (page.size() < BATCH_SIZE) {
+                break;
+            }
+            after = page.get(page.size() - 1).getId();
+        }
+        changesWhileLoading.reload(repository::findAllById, this::put, index::remove);
+        loaded = true;
+        log.info("Loaded the facets of {} products", index.size());
+    }
+
+    @EventListener(condition = "#event.tenant == null")
+    public void onProductChanged(ProductChangedEvent event) {
+        changesWhileLoading.record(event.getId());
+        if (event.getType() == ChangeType.DELETED) {
+            index.remove(event.getId());
+        } else {
+            put(event.getProduct());
+        }
+    }
+
+    private void put(Product product) {
+        index.put(product.getId(), product.getName(), product.getCreateDateTime(), product.getUpdateDateTime());
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public Facets facets(String name, String description, MatchMode match, int terms) {
+        if (name == null && description == null) {
+            return count(null, terms);
+        }
+        if (bitmapSearch != null && bitmapSearch.isLoaded()) {
+            return count(bitmapSearch.ids(name, description, match), terms);
+        }
+        List<long[]> filters = new ArrayList<>(2);
+        if (name != null) {
+            filters.add(ids(repository::findIdsByNameLike, match.pattern(name)));
+        }
+        if (description != null) {
+            filters.add(ids(repository::findIdsByDescriptionLike, match.pattern(description)));
+        }
+        return count(SortedIdSets.intersect(filters), terms);
+    }
+
+    private Facets count(long[] products, int terms) {
+        return index.count(products, LocalDate.now(), windowDays, Math.max(0, Math.min(terms, maxTerms)));
+    }
+
+    private static long[] ids(Function<String, List<Long>> query, String pattern) {
+        return query.apply(pattern).stream().mapToLong(Long::longValue).toArray();
+    }
+}
@@ -0,0 +1,243 @@
+package com.product.history;
+
+import com.product.event.ProductChangedEvent;
+import com.product.model.Product;
+import com.product.model.ProductVersion;
+import com.product.repository.ProductVersionRepository;
+import com.product.tenant.TenantContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only history of the products, fed by the {@link ProductChangedEvent}s. Writes only queue
+ * the new version; it is written with JDBC batches when {@code product.history.batch-size} versions
+ * are pending or every {@code product.history.max-delay-ms}, past {@code product.history.max-pending}
+ * the writing thread flushes itself. A version is a delta against the one before when that one is
+ * among the last {@code product.history.cache-size} written and not younger, a whole snapshot
+ * otherwise;
+ * {@link ProductHistoryCompactionJob} bounds the deltas to replay. Each tenant's versions are
+ * written to its own database.
+ */
+@Component
+@ConditionalOnProperty(prefix = "product.history", name = "enabled", havingValue = "true")
+public class ProductHistory {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductHistory.class);
+
+    private static final String INSERT = "insert into product_versions (product_id, valid_from, kind, data) " +
+            "values (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbc;
+
+    private final ProductVersionRepository versions;
+
+    private final int batchSize;
+
+    private final int maxPending;
+
+    private final Queue<Change> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    // the last version written of recently changed products, by tenant and id, guarded by flushLock
+    private final Map<String, Product> latest;
+
+    // versions of the batches that failed, by tenant, written first by the next flush so deltas keep their base
+    private Map<String, List<ProductVersion>> unwritten = new LinkedHashMap<>();
+
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(runnable -> {
+        var thread = new Thread(runnable, "product-history");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ProductHistory(JdbcTemplate jdbc,
+                          ProductVersionRepository versions,
+                          @Value("${product.history.batch-size:500}") int batchSize,
+                          @Value("${product.history.max-pending:10000}") int maxPending,
+                          @Value("${product.history.cache-size:10000}") int cacheSize) {
+        this.jdbc = jdbc;
+        this.versions = versions;
+        this.batchSize = batchSize;
+        this.maxPending = Math.max(batchSize, maxPending);
+        this.latest = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Product> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    // another node already wrote the versions of its changes
+    @EventListener(condition = "!#event.remote")
+    public void onProductChanged(ProductChangedEvent event) {
+        // copied now, the entity of the event may change before it is written
+        var product = event.getProduct();
+        enqueue(product == null ? new Change(event.getTenant(), event.getId(), null, event.getTimestamp(), false)
+                : new Change(event.getTenant(), event.getId(), new Product(product.getId(), product.getName(),
+                product.getDescription(), product.getCreateDateTime(), event.getTimestamp()), event.getTimestamp(),
+                false));
+    }
+
+    /**
+     * A version written by another node is not the base this node last wrote: the next local
+     * version of the product is a snapshot. Queued, so it applies after the local changes before it.
+     */
+    @EventListener(condition = "#event.remote")
+    public void onRemoteProductChanged(ProductChangedEvent event) {
+        enqueue(new Change(event.getTenant(), event.getId(), null, event.getTimestamp(), true));
+    }
+
+    private void enqueue(Change change) {
+        queue.add(change);
+        var count = pending.incrementAndGet();
+        if (count >= maxPending) {
+            flush();
+        } else if (count >= batchSize && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushRequested.set(false);
+                flush();
+            });
+        }
+    }
+
+    /**
+     * The product as it was at {@code asOf}, empty when it did not exist or was deleted. Pending
+     * versions are written first, so a product reads back its own recent changes.
+     */
+    public Optional<Product> asOf(long id, LocalDateTime asOf) {
+        if (pending.get() > 0) {
+            flush();
+        }
+        return VersionCodec.replay(id, versions.findChain(id, asOf));
+    }
+
+    public int size() {
+        return pending.get();
+    }
+
+    @Scheduled(fixedDelayString = "${product.history.max-delay-ms:1000}")
+    public void flushPeriodically() {
+        var written = flush();
+        if (written > 0) {
+            log.debug("Wrote {} product versions", written);
+        }
+    }
+
+    /**
+     * Writes every pending version, in the database of its tenant, and returns how many were
+     * written. If the batch of a tenant fails it is kept, in order, for the next flush.
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            var batches = unwritten;
+            Change change;
+            while ((change = queue.poll()) != null) {
+                pending.decrementAndGet();
+                var version = encode(change);
+                if (version != null) {
+                    batches.computeIfAbsent(change.tenant, tenant -> new ArrayList<>()).add(version);
+                }
+            }
+            unwritten = new LinkedHashMap<>();
+            int written = 0;
+            for (Map.Entry<String, List<ProductVersion>> batch : batches.entrySet()) {
+                try {
+                    TenantContext.run(batch.getKey(), () -> jdbc.batchUpdate(INSERT, batch.getValue(), batchSize,
+                            (statement, version) -> {
+                                statement.setLong(1, version.getProductId());
+                                statement.setObject(2, version.getValidFrom());
+                                statement.setString(3, version.getKind().name());
+                                statement.setBytes(4, version.getData());
+                            }));
+                    written += batch.getValue().size();
+                } catch (RuntimeException e) {
+                    log.warn("Could not write {} product versions of tenant {}, will retry", batch.getValue().size(),
+                            TenantContext.name(batch.getKey()), e);
+                    unwritten.put(batch.getKey(), batch.getValue());
+                }
+            }
+            return written;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flusher.shutdown();
+        var written = flush();
+        log.info("Wrote {} product versions on shutdown", written);
+    }
+
+    /**
+     * @return the version to write, null for a remote change, which only drops the base
+     */
+    private ProductVersion encode(Change change) {
+        var key = TenantContext.scoped(change.tenant, String.valueOf(change.id));
+        if (change.remote) {
+            latest.remove(key);
+            return null;
+        }
+        if (change.product == null) {
+            latest.remove(key);
+            return new ProductVersion(0, change.id, change.timestamp, ProductVersion.Kind.DELETED, null);
+        }
+        var before = latest.put(key, change.product);
+        // concurrent updates can be queued out of time order: a chain up to a point in time must
+        // never hold a delta whose base is later, and filtered out
+        if (before == null || change.timestamp.isBefore(before.getUpdateDateTime())) {
+            return new ProductVersion(0, change.id, change.timestamp, ProductVersion.Kind.SNAPSHOT,
+                    VersionCodec.snapshot(change.product));
+        }
+        return new ProductVersion(0, change.id, change.timestamp, ProductVersion.Kind.DELTA,
+                VersionCodec.delta(before, change.product));
+    }
+
+    private static final class Change {
+
+        private final String tenant;
+
+        private final long id;
+
+        private final Product product;
+
+        private final LocalDateTime timestamp;
+
+        private final boolean remote;
+
+        private Change(String tenant, long id, Product product, LocalDateTime timestamp, boolean remote) {
+            this.tenant = tenant;
+            this.id = id;
+            this.product = product;
+            this.timestamp = timestamp;
+            this.remote = remote;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.product.history;
+
+import com.product.model.ProductVersion;
+import com.product.repository.ProductVersionRepository;
+import com.product.tenant.TenantContext;
+import com.product.tenant.TenantProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Turns the last delta of a product into a snapshot once more than
+ * {@code product.history.compaction.max-deltas} deltas follow its last snapshot, so rebuilding any
+ * version replays a bounded number of them. Every version stays: the deltas before the new snapshot
+ * still rebuild the versions before it. Each run only looks at products with deltas written since
+ * the previous one.
+ */
+@Component
+@ConditionalOnProperty(prefix = "product.history", name = "enabled", havingValue = "true")
+public class ProductHistoryCompactionJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductHistoryCompactionJob.class);
+
+    private final ProductVersionRepository versions;
+
+    private final int maxDeltas;
+
+    // the last version id looked at, by tenant
+    private final Map<String, Long> compactedUpTo = new HashMap<>();
+
+    @Autowired(required = false)
+    private TenantProperties tenants;
+
+    public ProductHistoryCompactionJob(ProductVersionRepository versions,
+                                       @Value("${product.history.compaction.max-deltas:32}") int maxDeltas) {
+        this.versions = versions;
+        this.maxDeltas = maxDeltas;
+    }
+
+    @Scheduled(initialDelayString = "${product.history.compaction.interval-ms:600000}",
+            fixedDelayString = "${product.history.compaction.interval-ms:600000}")
+    public void run() {
+        for (String tenant : tenants == null ? Collections.<String>singletonList(null) : tenants.all()) {
+            var compacted = TenantContext.call(tenant, this::compact);
+            if (compacted > 0) {
+                log.info("Compacted the history of {} products of tenant {}", compacted, TenantContext.name(tenant));
+            }
+        }
+    }
+
+    /**
+     * Compacts the history of the current tenant.
+     *
+     * @return the number of products given a new snapshot
+     */
+    public synchronized int compact() {
+        var tenant = TenantContext.name();
+        var upTo = versions.findMaxId();
+        long from = compactedUpTo.getOrDefault(tenant, 0L);
+        if (upTo == null || upTo <= from) {
+            return 0;
+        }
+        int compacted = 0;
+        for (long productId : versions.findProductIdsWithDeltas(from, upTo)) {
+            var chain = versions.findLatestChain(productId);
+            if (chain.size() <= maxDeltas + 1) {
+                continue;
+            }
+            var last = chain.get(chain.size() - 1);
+            if (last.getKind() != ProductVersion.Kind.DELTA) {
+                continue;
+            }
+            var product = VersionCodec.replay(productId, chain);
+            if (product.isPresent()) {
+                versions.replaceWithSnapshot(last.getId(), VersionCodec.snapshot(product.get()));
+                compacted++;
+            }
+        }
+        compactedUpTo.put(tenant, upTo);
+        return compacted;
+    }
+}
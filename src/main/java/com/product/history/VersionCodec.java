@@ -0,0 +1,149 @@
+package com.product.history;
+
+import com.product.model.EpochMicros;
+import com.product.model.Product;
+import com.product.model.ProductVersion;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Encoding of the product versions, numbers as unsigned LEB128 varints:
+ * <pre>
+ * snapshot  long createMicros (8 bytes, big endian), string name, string description
+ * delta     byte changed fields (1 name, 2 description), then per changed field
+ *           varint prefix, varint suffix, string middle
+ * string    varint length, UTF-8
+ * </pre>
+ * A changed field is the {@code prefix} first and {@code suffix} last characters of the field in
+ * the version before with {@code middle} in between, so an edit of a few words costs a few bytes.
+ * Timestamps are {@link EpochMicros}; the update time of a version is its {@code validFrom}.
+ */
+public final class VersionCodec {
+
+    private static final int NAME = 1;
+
+    private static final int DESCRIPTION = 2;
+
+    private VersionCodec() {
+    }
+
+    public static byte[] snapshot(Product product) {
+        var out = new ByteArrayOutputStream(16 + product.getName().length() + product.getDescription().length());
+        long created = EpochMicros.of(product.getCreateDateTime());
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (created >>> shift));
+        }
+        writeString(out, product.getName());
+        writeString(out, product.getDescription());
+        return out.toByteArray();
+    }
+
+    public static byte[] delta(Product before, Product after) {
+        var out = new ByteArrayOutputStream(16);
+        boolean name = !before.getName().equals(after.getName());
+        boolean description = !before.getDescription().equals(after.getDescription());
+        out.write((name ? NAME : 0) | (description ? DESCRIPTION : 0));
+        if (name) {
+            writeEdit(out, before.getName(), after.getName());
+        }
+        if (description) {
+            writeEdit(out, before.getDescription(), after.getDescription());
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Rebuilds the product from a chain of versions, empty when it is deleted or the chain does
+     * not start with a snapshot.
+     */
+    public static Optional<Product> replay(long id, List<ProductVersion> chain) {
+        Product product = null;
+        for (ProductVersion version : chain) {
+            var data = ByteBuffer.wrap(version.getData() == null ? new byte[0] : version.getData());
+            switch (version.getKind()) {
+                case SNAPSHOT:
+                    var created = EpochMicros.toLocalDateTime(data.getLong());
+                    product = new Product(id, readString(data), readString(data), created, version.getValidFrom());
+                    break;
+                case DELTA:
+                    if (product == null) {
+                        return Optional.empty();
+                    }
+                    int changed = data.get();
+                    var name = (changed & NAME) != 0 ? readEdit(data, product.getName()) : product.getName();
+                    var description = (changed & DESCRIPTION) != 0
+                            ? readEdit(data, product.getDescription()) : product.getDescription();
+                    product = new Product(id, name, description, product.getCreateDateTime(), version.getValidFrom());
+                    break;
+                default:
+                    product = null;
+            }
+        }
+        return Optional.ofNullable(product);
+    }
+
+    private static void writeEdit(ByteArrayOutputStream out, String before, String after) {
+        int max = Math.min(before.length(), after.length());
+        int prefix = 0;
+        while (prefix < max && before.charAt(prefix) == after.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix
+                && before.charAt(before.length() - 1 - suffix) == after.charAt(after.length() - 1 - suffix)) {
+            suffix++;
+        }
+        // never split a surrogate pair, the middle has to survive UTF-8
+        if (prefix > 0 && Character.isHighSurrogate(after.charAt(prefix - 1))) {
+            prefix--;
+        }
+        if (suffix > 0 && Character.isLowSurrogate(after.charAt(after.length() - suffix))) {
+            suffix--;
+        }
+        writeVarint(out, prefix);
+        writeVarint(out, suffix);
+        writeString(out, after.substring(prefix, after.length() - suffix));
+    }
+
+    private static String readEdit(ByteBuffer data, String before) {
+        int prefix = readVarint(data);
+        int suffix = readVarint(data);
+        return before.substring(0, prefix) + readString(data) + before.substring(before.length() - suffix);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    private static String readString(ByteBuffer data) {
+        int length = readVarint(data);
+        var value = new String(data.array(), data.position(), length, StandardCharsets.UTF_8);
+        data.position(data.position() + length);
+        return value;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(ByteBuffer data) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int next = data.get();
+            value |= (next & 0x7f) << shift;
+            if ((next & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+}
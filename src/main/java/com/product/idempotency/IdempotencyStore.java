@@ -0,0 +1,203 @@
+package com.product.idempotency;
+
+import com.product.tenant.TenantContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the responses of requests sent with an {@code Idempotency-Key} header for
+ * {@code product.idempotency.ttl}, so a client retrying a request it got no answer for gets the
+ * first answer back instead of running it again. A retry arriving while the first request still
+ * runs waits for its response, up to {@code product.idempotency.wait-timeout}. Only successful
+ * responses are kept: after a failure the key is free for the next retry. At most
+ * {@code product.idempotency.max-keys} keys are kept, the oldest go first.
+ */
+@Component
+@ConditionalOnProperty(prefix = "product.idempotency", name = "enabled", havingValue = "true")
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // in insertion order, so in expiry order too
+    private final Queue<Entry> order = new ConcurrentLinkedQueue<>();
+
+    private final int maxKeys;
+
+    private final long ttlNanos;
+
+    private final long waitTimeoutNanos;
+
+    private final LongSupplier nanoClock;
+
+    private final Counter executed;
+
+    private final Counter replayed;
+
+    private final Counter rejected;
+
+    @Autowired
+    public IdempotencyStore(@Value("${product.idempotency.max-keys:10000}") int maxKeys,
+                            @Value("${product.idempotency.ttl:PT1H}") Duration ttl,
+                            @Value("${product.idempotency.wait-timeout:PT10S}") Duration waitTimeout,
+                            MeterRegistry registry) {
+        this(maxKeys, ttl, waitTimeout, registry, System::nanoTime);
+    }
+
+    IdempotencyStore(int maxKeys, Duration ttl, Duration waitTimeout, MeterRegistry registry, LongSupplier nanoClock) {
+        this.maxKeys = maxKeys;
+        this.ttlNanos = ttl.toNanos();
+        this.waitTimeoutNanos = waitTimeout.toNanos();
+        this.nanoClock = nanoClock;
+        this.executed = counter(registry, "executed");
+        this.replayed = counter(registry, "replayed");
+        this.rejected = counter(registry, "rejected");
+        registry.gauge("product.idempotency.keys", entries, Map::size);
+    }
+
+    private static Counter counter(MeterRegistry registry, String outcome) {
+        return Counter.builder("product.idempotency.requests")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /**
+     * Runs {@code action} for the first request with {@code key} and answers the later ones with its
+     * response, flagged with an {@code Idempotent-Replayed} header. {@code request} identifies what
+     * was asked: a key reused for a different request is rejected with 422.
+     */
+    public <T> ResponseEntity<T> execute(String key, Object request, Supplier<ResponseEntity<T>> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    HEADER + " must have between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        long now = nanoClock.getAsLong();
+        // the same key sent to two tenants names two different requests
+        var entry = new Entry(TenantContext.scoped(key), request, now + ttlNanos);
+        while (true) {
+            var existing = entries.putIfAbsent(entry.key, entry);
+            if (existing == null) {
+                order.add(entry);
+                evict(now);
+                return run(entry, action);
+            }
+            if (!existing.isExpired(now)) {
+                return replay(existing, key, request);
+            }
+            entries.remove(entry.key, existing);
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private <T> ResponseEntity<T> run(Entry entry, Supplier<ResponseEntity<T>> action) {
+        executed.increment();
+        ResponseEntity<T> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException | Error e) {
+            entries.remove(entry.key, entry);
+            entry.response.completeExceptionally(e);
+            throw e;
+        }
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            entries.remove(entry.key, entry);
+        }
+        entry.response.complete(response);
+        return response;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ResponseEntity<T> replay(Entry entry, String key, Object request) {
+        if (!entry.request.equals(request)) {
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    HEADER + " " + key + " was already used for a different request");
+        }
+        ResponseEntity<T> response;
+        try {
+            response = (ResponseEntity<T>) entry.response.get(waitTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            rejected.increment();
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "A request with " + HEADER + " " + key + " is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted", e);
+        } catch (ExecutionException e) {
+            // the request this one waited for failed, so does this one; the next retry runs again
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Unexpect error", e.getCause());
+        }
+        replayed.increment();
+        var headers = new HttpHeaders();
+        headers.addAll(response.getHeaders());
+        headers.set(REPLAYED_HEADER, "true");
+        return new ResponseEntity<>(response.getBody(), headers, response.getStatusCode());
+    }
+
+    /**
+     * Drops the expired keys, then the oldest ones past {@code maxKeys}. Keys freed by a failure
+     * are still in {@code order} and go when their turn comes.
+     */
+    private void evict(long now) {
+        synchronized (order) {
+            Entry oldest;
+            while ((oldest = order.peek()) != null && (oldest.isExpired(now) || entries.size() > maxKeys)) {
+                order.poll();
+                entries.remove(oldest.key, oldest);
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final String key;
+
+        private final Object request;
+
+        private final long expiresAt;
+
+        private final CompletableFuture<ResponseEntity<?>> response = new CompletableFuture<>();
+
+        private Entry(String key, Object request, long expiresAt) {
+            this.key = key;
+            this.request = request;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
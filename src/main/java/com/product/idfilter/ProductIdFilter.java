@@ -0,0 +1,158 @@
+package com.product.idfilter;
+
+import com.product.event.ChangeType;
+import com.product.event.ProductChangedEvent;
+import com.product.repository.ProductRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * A {@link LongBloomFilter} of the ids of every stored product, so {@code GET /products/{id}} answers
+ * 404 for most ids that do not exist without querying the database. Built from an id scan when the
+ * application is ready and again every {@code product.id-filter.rebuild-interval-ms}, which is what
+ * drops deleted products and resizes the filter as the catalog grows; created products are added as
+ * they are committed. Until the first build every id might exist.
+ */
+@Component
+@ConditionalOnProperty(prefix = "product.id-filter", name = "enabled", havingValue = "true")
+public class ProductIdFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductIdFilter.class);
+
+    private static final int BATCH_SIZE = 10_000;
+
+    // room to grow between two rebuilds before the false positive rate degrades
+    private static final double HEADROOM = 1.5;
+
+    private final ProductRepository repository;
+
+    private final long expectedSize;
+
+    private final double falsePositiveRate;
+
+    private final Counter rejected;
+
+    private final Counter passed;
+
+    private final Counter falsePositives;
+
+    private volatile LongBloomFilter filter;
+
+    private volatile LongBloomFilter building;
+
+    public ProductIdFilter(ProductRepository repository, MeterRegistry registry,
+                           @Value("${product.id-filter.expected-size:100000}") long expectedSize,
+                           @Value("${product.id-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                           @Value("${product.sharding.enabled:false}") boolean sharding) {
+        if (sharding) {
+            // the scan only sees the default datasource, products of the other shards would be hidden
+            throw new IllegalStateException("product.id-filter is not supported together with sharding");
+        }
+        this.repository = repository;
+        this.expectedSize = expectedSize;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rejected = counter(registry, "rejected");
+        this.passed = counter(registry, "passed");
+        this.falsePositives = counter(registry, "false_positive");
+        registry.gauge("product.id.filter.false.positive.rate", this, ProductIdFilter::observedFalsePositiveRate);
+        registry.gauge("product.id.filter.expected.false.positive.rate", this, ProductIdFilter::expectedFalsePositiveRate);
+        registry.gauge("product.id.filter.ids", this, idFilter -> idFilter.filter == null ? 0 : idFilter.filter.keys());
+    }
+
+    private static Counter counter(MeterRegistry registry, String result) {
+        return Counter.builder("product.id.filter.lookups")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${product.id-filter.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${product.id-filter.rebuild-interval-ms:3600000}")
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        var next = new LongBloomFilter((long) (Math.max(expectedSize, repository.count()) * HEADROOM), falsePositiveRate);
+        // products created from here on are added to both filters, those committed before are found by the scan
+        building = next;
+        long after = 0;
+        while (true) {
+            var ids = repository.findIdsAfter(after, PageRequest.of(0, BATCH_SIZE));
+            ids.forEach(next::add);
+            if (ids.size() < BATCH_SIZE) {
+                break;
+            }
+            after = ids.get(ids.size() - 1);
+        }
+        filter = next;
+        building = null;
+        log.info("Built the product id filter with {} ids in {} ms", next.keys(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @EventListener(condition = "#event.tenant == null")
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.getType() != ChangeType.CREATED) {
+            return;
+        }
+        // building before filter: once a rebuild has swapped them, the new filter is the current one
+        var next = building;
+        var current = filter;
+        if (next != null) {
+            next.add(event.getId());
+        }
+        if (current != null && current != next) {
+            current.add(event.getId());
+        }
+    }
+
+    /**
+     * @return false if no product with this id exists, true if one might
+     */
+    public boolean mightExist(long id) {
+        var current = filter;
+        if (current == null) {
+            return true;
+        }
+        if (current.mightContain(id)) {
+            passed.increment();
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * Called when an id that {@link #mightExist} was not found: a false positive, or a product
+     * deleted since the last rebuild.
+     */
+    public void recordFalsePositive() {
+        if (filter != null) {
+            falsePositives.increment();
+        }
+    }
+
+    public boolean isLoaded() {
+        return filter != null;
+    }
+
+    /**
+     * Share of the looked up ids that do not exist which still got through to the database.
+     */
+    double observedFalsePositiveRate() {
+        double missing = falsePositives.count() + rejected.count();
+        return missing == 0 ? 0 : falsePositives.count() / missing;
+    }
+
+    double expectedFalsePositiveRate() {
+        var current = filter;
+        return current == null ? 0 : current.expectedFalsePositiveRate();
+    }
+}
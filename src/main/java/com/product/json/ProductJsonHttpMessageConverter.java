@@ -0,0 +1,53 @@
+package com.product.json;
+
+import com.product.dto.Response;
+import com.product.model.Product;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/**
+ * Renders products and product pages ({@link Response} only ever carries products) with
+ * {@link ProductJsonWriter}; everything else, and all request bodies, are left to Jackson.
+ */
+public class ProductJsonHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    public ProductJsonHttpMessageConverter() {
+        super(MediaType.APPLICATION_JSON);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Product.class == clazz || Response.class == clazz;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return supports(clazz) && canWrite(mediaType);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Reading is not supported", inputMessage);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object body, HttpOutputMessage outputMessage) throws IOException {
+        var writer = ProductJsonWriter.current();
+        if (body instanceof Product) {
+            writer.write((Product) body, outputMessage.getBody());
+        } else {
+            writer.write((Response<Product>) body, outputMessage.getBody());
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.product.json;
+
+import com.product.dto.Pagination;
+import com.product.dto.Response;
+import com.product.model.Product;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes {@link Product}, {@link Pagination} and {@code Response<Product>} as UTF-8 JSON straight
+ * into a reusable buffer, producing the same bytes as the Jackson bean serializer. Field names
+ * are pre-encoded and strings are encoded char by char, so rendering allocates nothing.
+ * Instances are not thread safe; {@link #current()} hands out one per thread.
+ */
+public final class ProductJsonWriter {
+
+    private static final ThreadLocal<ProductJsonWriter> WRITERS = ThreadLocal.withInitial(ProductJsonWriter::new);
+
+    private static final byte[] ID = ascii("{\"id\":");
+
+    private static final byte[] NAME = ascii(",\"name\":");
+
+    private static final byte[] DESCRIPTION = ascii(",\"description\":");
+
+    private static final byte[] CURRENT_PAGE = ascii("{\"currentPage\":");
+
+    private static final byte[] TOTAL_ITEMS = ascii(",\"totalItems\":");
+
+    private static final byte[] TOTAL_PAGES = ascii(",\"totalPages\":");
+
+    private static final byte[] PARTIAL = ascii(",\"partial\":true");
+
+    private static final byte[] DATA = ascii("{\"data\":");
+
+    private static final byte[] PAGINATION = ascii(",\"pagination\":");
+
+    private static final byte[] NULL = ascii("null");
+
+    private static final byte[] HEX = ascii("0123456789ABCDEF");
+
+    private static final byte[] LONG_MIN = ascii(String.valueOf(Long.MIN_VALUE));
+
+    private final byte[] buffer = new byte[8192];
+
+    private int position;
+
+    private OutputStream out;
+
+    public static ProductJsonWriter current() {
+        return WRITERS.get();
+    }
+
+    public void write(Product product, OutputStream out) throws IOException {
+        this.out = out;
+        try {
+            product(product);
+            flush();
+        } finally {
+            this.out = null;
+            position = 0;
+        }
+    }
+
+    public void write(Response<Product> response, OutputStream out) throws IOException {
+        this.out = out;
+        try {
+            response(response);
+            flush();
+        } finally {
+            this.out = null;
+            position = 0;
+        }
+    }
+
+    private void response(Response<Product> response) throws IOException {
+        raw(DATA);
+        products(response.getData());
+        raw(PAGINATION);
+        pagination(response.getPagination());
+        raw('}');
+    }
+
+    private void products(List<Product> products) throws IOException {
+        if (products == null) {
+            raw(NULL);
+            return;
+        }
+        raw('[');
+        for (int i = 0; i < products.size(); i++) {
+            if (i > 0) {
+                raw(',');
+            }
+            product(products.get(i));
+        }
+        raw(']');
+    }
+
+    private void product(Product product) throws IOException {
+        if (product == null) {
+            raw(NULL);
+            return;
+        }
+        raw(ID);
+        number(product.getId());
+        raw(NAME);
+        string(product.getName());
+        raw(DESCRIPTION);
+        string(product.getDescription());
+        raw('}');
+    }
+
+    private void pagination(Pagination pagination) throws IOException {
+        if (pagination == null) {
+            raw(NULL);
+            return;
+        }
+        raw(CURRENT_PAGE);
+        number(pagination.getCurrentPage());
+        raw(TOTAL_ITEMS);
+        number(pagination.getTotalItems());
+        raw(TOTAL_PAGES);
+        number(pagination.getTotalPages());
+        if (pagination.isPartial()) {
+            raw(PARTIAL);
+        }
+        raw('}');
+    }
+
+    private void string(String value) throws IOException {
+        if (value == null) {
+            raw(NULL);
+            return;
+        }
+        raw('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                ascii(c);
+            } else if (c < 0x800) {
+                ensure(2);
+                buffer[position++] = (byte) (0xC0 | c >> 6);
+                buffer[position++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                // Jackson's UTF-8 generator escapes surrogates instead of encoding the code point
+                escape(c);
+            } else {
+                ensure(3);
+                buffer[position++] = (byte) (0xE0 | c >> 12);
+                buffer[position++] = (byte) (0x80 | c >> 6 & 0x3F);
+                buffer[position++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        raw('"');
+    }
+
+    private void ascii(char c) throws IOException {
+        if (c >= 0x20 && c != '"' && c != '\\') {
+            raw(c);
+            return;
+        }
+        switch (c) {
+            case '"':
+            case '\\':
+                shortEscape(c);
+                break;
+            case '\b':
+                shortEscape('b');
+                break;
+            case '\t':
+                shortEscape('t');
+                break;
+            case '\n':
+                shortEscape('n');
+                break;
+            case '\f':
+                shortEscape('f');
+                break;
+            case '\r':
+                shortEscape('r');
+                break;
+            default:
+                escape(c);
+        }
+    }
+
+    private void shortEscape(char c) throws IOException {
+        ensure(2);
+        buffer[position++] = '\\';
+        buffer[position++] = (byte) c;
+    }
+
+    private void escape(char c) throws IOException {
+        ensure(6);
+        buffer[position++] = '\\';
+        buffer[position++] = 'u';
+        buffer[position++] = HEX[c >> 12];
+        buffer[position++] = HEX[c >> 8 & 0xF];
+        buffer[position++] = HEX[c >> 4 & 0xF];
+        buffer[position++] = HEX[c & 0xF];
+    }
+
+    private void number(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            raw(LONG_MIN);
+            return;
+        }
+        ensure(20);
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        position += digits;
+    }
+
+    private void raw(char c) throws IOException {
+        ensure(1);
+        buffer[position++] = (byte) c;
+    }
+
+    private void raw(byte[] bytes) throws IOException {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    private void ensure(int length) throws IOException {
+        if (position + length > buffer.length) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
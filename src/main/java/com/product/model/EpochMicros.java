@@ -0,0 +1,31 @@
+package com.product.model;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Compact encoding of the product timestamps: microseconds since the epoch of the local date time
+ * read as UTC, with {@link Long#MIN_VALUE} standing for null.
+ */
+public final class EpochMicros {
+
+    public static final long NULL = Long.MIN_VALUE;
+
+    private EpochMicros() {
+    }
+
+    public static long of(LocalDateTime dateTime) {
+        if (dateTime == null) {
+            return NULL;
+        }
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + dateTime.getNano() / 1000;
+    }
+
+    public static LocalDateTime toLocalDateTime(long micros) {
+        if (micros == NULL) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1000, ZoneOffset.UTC);
+    }
+}
@@ -1,15 +1,21 @@
 package com.product.model;
 
-import org.hibernate.annotations.CreationTimestamp;
-import org.hibernate.annotations.UpdateTimestamp;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.Where;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.Objects;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(columnList = "updateDateTime, id"),
+        @Index(columnList = "deleteDateTime"),
+        @Index(columnList = "name_normalized"),
+        @Index(columnList = "description_normalized")})
+@Where(clause = "delete_date_time is null")
 public class Product {
 
     @Id
@@ -24,22 +30,70 @@ public class Product {
     @Column(name = "description")
     private String description;
 
-    @CreationTimestamp
+    /**
+     * {@link SearchText} forms of name and description, what the search filters run against.
+     */
+    @Column(name = "name_normalized")
+    private String nameNormalized;
+
+    @Column(name = "description_normalized")
+    private String descriptionNormalized;
+
     private LocalDateTime createDateTime;
 
-    @UpdateTimestamp
     private LocalDateTime updateDateTime;
 
+    private LocalDateTime deleteDateTime;
 
     public Product(String name, String description) {
         this.name = name;
         this.description = description;
     }
 
+    public Product(long id, String name, String description, LocalDateTime createDateTime, LocalDateTime updateDateTime) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.createDateTime = createDateTime;
+        this.updateDateTime = updateDateTime;
+    }
+
+    public Product(long id, String name, String description, LocalDateTime createDateTime, LocalDateTime updateDateTime,
+                   LocalDateTime deleteDateTime) {
+        this(id, name, description, createDateTime, updateDateTime);
+        this.deleteDateTime = deleteDateTime;
+    }
+
     public Product() {
 
     }
 
+    @PrePersist
+    void onCreate() {
+        createDateTime = now();
+        updateDateTime = createDateTime;
+        normalize();
+    }
+
+    @PreUpdate
+    void onUpdate() {
+        updateDateTime = now();
+        normalize();
+    }
+
+    private void normalize() {
+        nameNormalized = SearchText.normalize(name);
+        descriptionNormalized = SearchText.normalize(description);
+    }
+
+    /**
+     * Timestamps are kept at the precision the database stores, so change feed tokens taken
+     * from an entity in memory compare equal to the persisted row.
+     */
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
     public long getId() {
         return id;
     }
@@ -52,6 +106,36 @@ public class Product {
         return description;
     }
 
+    @JsonIgnore
+    public String getNameNormalized() {
+        return nameNormalized;
+    }
+
+    @JsonIgnore
+    public String getDescriptionNormalized() {
+        return descriptionNormalized;
+    }
+
+    @JsonIgnore
+    public LocalDateTime getCreateDateTime() {
+        return createDateTime;
+    }
+
+    @JsonIgnore
+    public LocalDateTime getUpdateDateTime() {
+        return updateDateTime;
+    }
+
+    @JsonIgnore
+    public LocalDateTime getDeleteDateTime() {
+        return deleteDateTime;
+    }
+
+    @JsonIgnore
+    public boolean isDeleted() {
+        return deleteDateTime != null;
+    }
+
     public void setName(String name) {
         this.name = name;
     }
@@ -0,0 +1,79 @@
+package com.product.model;
+
+import com.product.event.ChangeType;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A product changed on one node, for the other nodes to drop or refresh their copy. Sent through a
+ * {@link com.product.cluster.InvalidationTransport}; the table only backs the JDBC transport.
+ * {@code tenant} is null for the default tenant, {@code publishedAt} is set by the database on insert.
+ */
+@Entity
+@Table(name = "product_invalidations", indexes = @Index(columnList = "publishedAt"))
+public class ProductInvalidation {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Column(length = 64)
+    private String node;
+
+    @Column(length = 64)
+    private String tenant;
+
+    private long productId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 8)
+    private ChangeType type;
+
+    private LocalDateTime changedAt;
+
+    private LocalDateTime publishedAt;
+
+    public ProductInvalidation(long id, String node, String tenant, long productId, ChangeType type,
+                               LocalDateTime changedAt, LocalDateTime publishedAt) {
+        this.id = id;
+        this.node = node;
+        this.tenant = tenant;
+        this.productId = productId;
+        this.type = type;
+        this.changedAt = changedAt;
+        this.publishedAt = publishedAt;
+    }
+
+    public ProductInvalidation() {
+
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getNode() {
+        return node;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public long getProductId() {
+        return productId;
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+
+    public LocalDateTime getPublishedAt() {
+        return publishedAt;
+    }
+}
@@ -0,0 +1,66 @@
+package com.product.model;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One version of a product in its append-only history, in its own table so audit queries never
+ * touch {@code products}. {@code data} is either the whole product or a delta against the version
+ * before, see {@link com.product.history.VersionCodec}. The versions of a product are ordered by id.
+ */
+@Entity
+@Table(name = "product_versions", indexes = @Index(columnList = "productId, id"))
+public class ProductVersion {
+
+    public enum Kind {
+        SNAPSHOT, DELTA, DELETED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    private long productId;
+
+    private LocalDateTime validFrom;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 8)
+    private Kind kind;
+
+    // name and description are at most 255 characters each
+    @Column(length = 2048)
+    private byte[] data;
+
+    public ProductVersion(long id, long productId, LocalDateTime validFrom, Kind kind, byte[] data) {
+        this.id = id;
+        this.productId = productId;
+        this.validFrom = validFrom;
+        this.kind = kind;
+        this.data = data;
+    }
+
+    public ProductVersion() {
+
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getProductId() {
+        return productId;
+    }
+
+    public LocalDateTime getValidFrom() {
+        return validFrom;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+}
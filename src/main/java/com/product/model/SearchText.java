@@ -0,0 +1,41 @@
+package com.product.model;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Search form of product text: lower case and without accents, so a filter {@code "Días"} finds
+ * {@code "dias"} and the other way round. Products store it next to the original text and the
+ * filters are folded the same way before they reach the query.
+ */
+public final class SearchText {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    private SearchText() {
+    }
+
+    public static String normalize(String text) {
+        if (text == null || isFoldedAscii(text)) {
+            return text;
+        }
+        var lower = text.toLowerCase(Locale.ROOT);
+        if (isFoldedAscii(lower)) {
+            return lower;
+        }
+        // decompose to split the accents off their letters, drop them and compose what is left again
+        var stripped = MARKS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+        return Normalizer.normalize(stripped, Normalizer.Form.NFC);
+    }
+
+    private static boolean isFoldedAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80 || (c >= 'A' && c <= 'Z')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,222 @@
+package com.product.overload;
+
+import com.product.tenant.TenantContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker in front of the database. It opens when too many of the last
+ * {@code product.overload.window-size} calls failed or were slower than {@code slow-call}, or at
+ * once when {@code max-pool-waiters} threads wait for a connection; while open, calls fail right away
+ * with {@link DatabaseOverloadedException} instead of queueing on the saturated pool. After
+ * {@code open-duration} up to {@code probe-calls} calls go through: if they all succeed the circuit
+ * closes, otherwise it opens again. Each tenant has its own circuit.
+ */
+public class DatabaseCircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseCircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int minimumCalls;
+
+    private final double failureRate;
+
+    private final long slowCallNanos;
+
+    private final int maxPoolWaiters;
+
+    private final long openNanos;
+
+    private final int probeCalls;
+
+    private final int windowSize;
+
+    private final IntSupplier poolWaiters;
+
+    private final LongSupplier nanoClock;
+
+    private final MeterRegistry registry;
+
+    private final Map<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+    public DatabaseCircuitBreaker(OverloadProperties properties, IntSupplier poolWaiters, MeterRegistry registry) {
+        this(properties, poolWaiters, registry, System::nanoTime);
+    }
+
+    DatabaseCircuitBreaker(OverloadProperties properties, IntSupplier poolWaiters, MeterRegistry registry,
+                           LongSupplier nanoClock) {
+        this.windowSize = properties.getWindowSize();
+        this.minimumCalls = Math.min(properties.getMinimumCalls(), properties.getWindowSize());
+        this.failureRate = properties.getFailureRate();
+        this.slowCallNanos = properties.getSlowCall().toNanos();
+        this.maxPoolWaiters = properties.getMaxPoolWaiters();
+        this.openNanos = properties.getOpenDuration().toNanos();
+        this.probeCalls = properties.getProbeCalls();
+        this.poolWaiters = poolWaiters;
+        this.nanoClock = nanoClock;
+        this.registry = registry;
+        // the meters of the default tenant exist from the start
+        circuit();
+    }
+
+    /**
+     * Runs a database call through the circuit of the current tenant.
+     *
+     * @throws DatabaseOverloadedException when the circuit is open
+     */
+    public <T> T call(Supplier<T> call) {
+        var circuit = circuit();
+        var probe = circuit.acquire();
+        long started = nanoClock.getAsLong();
+        T result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            circuit.record(probe, isFailure(e) || nanoClock.getAsLong() - started > slowCallNanos);
+            throw e;
+        }
+        circuit.record(probe, nanoClock.getAsLong() - started > slowCallNanos);
+        return result;
+    }
+
+    /**
+     * @return the state of the circuit of the current tenant
+     */
+    public State getState() {
+        return circuit().getState();
+    }
+
+    // every tenant has its own database, so its own circuit: one overloaded tenant does not reject the others
+    private Circuit circuit() {
+        return circuits.computeIfAbsent(TenantContext.name(), Circuit::new);
+    }
+
+    private final class Circuit {
+
+        private final String tenant;
+
+        // outcomes of the last calls, a ring of booleans: true for failed or slow
+        private final boolean[] window = new boolean[windowSize];
+
+        private final Counter rejected;
+
+        private int calls;
+
+        private int next;
+
+        private int failures;
+
+        private State state = State.CLOSED;
+
+        private long openedAt;
+
+        private int probesStarted;
+
+        private int probesSucceeded;
+
+        private Circuit(String tenant) {
+            this.tenant = tenant;
+            this.rejected = Counter.builder("product.db.circuit.rejected").tag("tenant", tenant).register(registry);
+            Gauge.builder("product.db.circuit.state", this, circuit -> circuit.getState().ordinal())
+                    .tag("tenant", tenant)
+                    .register(registry);
+        }
+
+        private synchronized State getState() {
+            if (state == State.OPEN && nanoClock.getAsLong() - openedAt >= openNanos) {
+                return State.HALF_OPEN;
+            }
+            return state;
+        }
+
+        /**
+         * @return whether the call is a probe of a half open circuit
+         */
+        private synchronized boolean acquire() {
+            if (state == State.CLOSED) {
+                if (poolWaiters.getAsInt() < maxPoolWaiters) {
+                    return false;
+                }
+                open("connection pool saturated");
+            }
+            long now = nanoClock.getAsLong();
+            if (state == State.OPEN && now - openedAt >= openNanos) {
+                state = State.HALF_OPEN;
+                probesStarted = 0;
+                probesSucceeded = 0;
+            }
+            if (state == State.HALF_OPEN && probesStarted < probeCalls) {
+                probesStarted++;
+                return true;
+            }
+            rejected.increment();
+            long retryNanos = state == State.OPEN ? openedAt + openNanos - now : openNanos;
+            throw new DatabaseOverloadedException(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryNanos + 999_999_999)));
+        }
+
+        private synchronized void record(boolean probe, boolean failed) {
+            if (probe) {
+                if (state != State.HALF_OPEN) {
+                    return;
+                }
+                if (failed) {
+                    open("probe call failed");
+                } else if (++probesSucceeded >= probeCalls) {
+                    state = State.CLOSED;
+                    calls = 0;
+                    next = 0;
+                    failures = 0;
+                    log.info("Database circuit of tenant {} closed", tenant);
+                }
+                return;
+            }
+            if (state != State.CLOSED) {
+                return;
+            }
+            if (calls == window.length) {
+                if (window[next]) {
+                    failures--;
+                }
+            } else {
+                calls++;
+            }
+            window[next] = failed;
+            if (failed) {
+                failures++;
+            }
+            next = (next + 1) % window.length;
+            if (calls >= minimumCalls && failures >= failureRate * calls) {
+                open(failures + " of the last " + calls + " database calls failed or were slow");
+            }
+        }
+
+        private void open(String reason) {
+            if (state != State.OPEN) {
+                log.warn("Database circuit of tenant {} opened: {}", tenant, reason);
+            }
+            state = State.OPEN;
+            openedAt = nanoClock.getAsLong();
+        }
+    }
+
+    /**
+     * Errors the database is not responsible for, like a missing product, do not count.
+     */
+    private static boolean isFailure(RuntimeException e) {
+        return !(e instanceof ResponseStatusException) || ((ResponseStatusException) e).getStatus().is5xxServerError();
+    }
+}
@@ -0,0 +1,30 @@
+package com.product.overload;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * A 503 with a {@code Retry-After}, thrown instead of calling the database while the
+ * {@link DatabaseCircuitBreaker} is open.
+ */
+public class DatabaseOverloadedException extends ResponseStatusException {
+
+    private final long retryAfterSeconds;
+
+    public DatabaseOverloadedException(long retryAfterSeconds) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Database overloaded");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    @Override
+    public HttpHeaders getResponseHeaders() {
+        var headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return headers;
+    }
+}
@@ -0,0 +1,45 @@
+package com.product.overload;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.function.IntSupplier;
+
+@Configuration
+@ConditionalOnProperty(prefix = "product.overload", name = "enabled", havingValue = "true")
+public class OverloadConfiguration {
+
+    @Bean
+    public DatabaseCircuitBreaker databaseCircuitBreaker(OverloadProperties properties, DataSource dataSource,
+                                                         MeterRegistry registry) {
+        return new DatabaseCircuitBreaker(properties, poolWaiters(dataSource), registry);
+    }
+
+    @Bean
+    public StaleCache staleCache(OverloadProperties properties, MeterRegistry registry) {
+        return new StaleCache(properties, registry);
+    }
+
+    /**
+     * Threads waiting for a connection, when the pool is Hikari's. The pool is looked up on each
+     * call: with tenancy it is the one of the current tenant.
+     */
+    private static IntSupplier poolWaiters(DataSource dataSource) {
+        return () -> {
+            try {
+                if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                    return 0;
+                }
+                var pool = dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+                return pool == null ? 0 : pool.getThreadsAwaitingConnection();
+            } catch (SQLException e) {
+                return 0;
+            }
+        };
+    }
+}
@@ -0,0 +1,140 @@
+package com.product.overload;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "product.overload")
+public class OverloadProperties {
+
+    private boolean enabled;
+
+    /**
+     * Number of the last database calls the failure rate is computed over.
+     */
+    private int windowSize = 50;
+
+    /**
+     * Calls needed in the window before the circuit can open.
+     */
+    private int minimumCalls = 20;
+
+    /**
+     * Share of failed or slow calls in the window that opens the circuit.
+     */
+    private double failureRate = 0.5;
+
+    private Duration slowCall = Duration.ofSeconds(1);
+
+    /**
+     * Threads waiting for a pooled connection that open the circuit at once.
+     */
+    private int maxPoolWaiters = 10;
+
+    /**
+     * How long the circuit stays open before probe calls are let through.
+     */
+    private Duration openDuration = Duration.ofSeconds(10);
+
+    /**
+     * Successful probe calls that close the circuit again.
+     */
+    private int probeCalls = 3;
+
+    private int maxProducts = 10000;
+
+    private int maxSearches = 1000;
+
+    /**
+     * Age past which a cached response is no longer served.
+     */
+    private Duration maxStaleness = Duration.ofMinutes(10);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public void setWindowSize(int windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    public void setMinimumCalls(int minimumCalls) {
+        this.minimumCalls = minimumCalls;
+    }
+
+    public double getFailureRate() {
+        return failureRate;
+    }
+
+    public void setFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    public Duration getSlowCall() {
+        return slowCall;
+    }
+
+    public void setSlowCall(Duration slowCall) {
+        this.slowCall = slowCall;
+    }
+
+    public int getMaxPoolWaiters() {
+        return maxPoolWaiters;
+    }
+
+    public void setMaxPoolWaiters(int maxPoolWaiters) {
+        this.maxPoolWaiters = maxPoolWaiters;
+    }
+
+    public Duration getOpenDuration() {
+        return openDuration;
+    }
+
+    public void setOpenDuration(Duration openDuration) {
+        this.openDuration = openDuration;
+    }
+
+    public int getProbeCalls() {
+        return probeCalls;
+    }
+
+    public void setProbeCalls(int probeCalls) {
+        this.probeCalls = probeCalls;
+    }
+
+    public int getMaxProducts() {
+        return maxProducts;
+    }
+
+    public void setMaxProducts(int maxProducts) {
+        this.maxProducts = maxProducts;
+    }
+
+    public int getMaxSearches() {
+        return maxSearches;
+    }
+
+    public void setMaxSearches(int maxSearches) {
+        this.maxSearches = maxSearches;
+    }
+
+    public Duration getMaxStaleness() {
+        return maxStaleness;
+    }
+
+    public void setMaxStaleness(Duration maxStaleness) {
+        this.maxStaleness = maxStaleness;
+    }
+}
@@ -0,0 +1,171 @@
+package com.product.overload;
+
+import com.product.dto.Pagination;
+import com.product.dto.Response;
+import com.product.event.ChangeType;
+import com.product.event.ProductChangedEvent;
+import com.product.model.Product;
+import com.product.repository.MatchMode;
+import com.product.tenant.TenantContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+
+/**
+ * The products and search pages last read from the database, served when it cannot answer. Only
+ * the last {@code product.overload.max-products} and {@code max-searches} are kept, in LRU order,
+ * and nothing older than {@code max-staleness} is served. Product changes update the cached
+ * products; cached searches are not invalidated, they are what the database answered then. Entries
+ * are kept per tenant.
+ */
+public class StaleCache {
+
+    static final String WARNING = "110 - \"Response is Stale\"";
+
+    private final Map<String, Entry<Product>> products;
+
+    private final Map<String, Entry<Response<Product>>> searches;
+
+    private final long maxStalenessNanos;
+
+    private final LongSupplier nanoClock;
+
+    private final Counter staleProducts;
+
+    private final Counter staleSearches;
+
+    public StaleCache(OverloadProperties properties, MeterRegistry registry) {
+        this(properties, registry, System::nanoTime);
+    }
+
+    StaleCache(OverloadProperties properties, MeterRegistry registry, LongSupplier nanoClock) {
+        this.products = lru(properties.getMaxProducts());
+        this.searches = lru(properties.getMaxSearches());
+        this.maxStalenessNanos = properties.getMaxStaleness().toNanos();
+        this.nanoClock = nanoClock;
+        this.staleProducts = counter(registry, "product");
+        this.staleSearches = counter(registry, "search");
+    }
+
+    private static <K, V> Map<K, V> lru(int capacity) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    private static Counter counter(MeterRegistry registry, String kind) {
+        return Counter.builder("product.stale.responses")
+                .tag("kind", kind)
+                .register(registry);
+    }
+
+    /**
+     * @return {@code Warning} and {@code Age} headers for a response served from this cache
+     */
+    public static HttpHeaders headers(Duration age) {
+        var headers = new HttpHeaders();
+        if (age != null) {
+            headers.set(HttpHeaders.WARNING, WARNING);
+            headers.set(HttpHeaders.AGE, String.valueOf(age.toSeconds()));
+        }
+        return headers;
+    }
+
+    public void put(Product product) {
+        products.put(TenantContext.scoped(String.valueOf(product.getId())), new Entry<>(product, nanoClock.getAsLong()));
+    }
+
+    public Optional<Stale<Product>> get(long id) {
+        var stale = fresh(products.get(TenantContext.scoped(String.valueOf(id))));
+        stale.ifPresent(product -> staleProducts.increment());
+        return stale;
+    }
+
+    public void put(String name, String description, MatchMode match, Pageable pageable, Response<Product> response) {
+        searches.put(key(name, description, match, pageable), new Entry<>(response, nanoClock.getAsLong()));
+    }
+
+    /**
+     * @return a copy of the cached page, flagged with its age
+     */
+    public Optional<Response<Product>> search(String name, String description, MatchMode match, Pageable pageable) {
+        return fresh(searches.get(key(name, description, match, pageable))).map(stale -> {
+            staleSearches.increment();
+            var pagination = stale.getValue().getPagination();
+            var copy = new Pagination(pagination.getCurrentPage(), pagination.getTotalItems(), pagination.getTotalPages());
+            copy.setPartial(pagination.isPartial());
+            var response = new Response<>(stale.getValue().getData(), copy);
+            response.setAge(stale.getAge());
+            return response;
+        });
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        var key = TenantContext.scoped(event.getTenant(), String.valueOf(event.getId()));
+        if (event.getType() == ChangeType.DELETED) {
+            products.remove(key);
+        } else if (event.getType() == ChangeType.UPDATED) {
+            products.computeIfPresent(key, (id, entry) -> new Entry<>(event.getProduct(), nanoClock.getAsLong()));
+        }
+    }
+
+    private <T> Optional<Stale<T>> fresh(Entry<T> entry) {
+        if (entry == null) {
+            return Optional.empty();
+        }
+        long age = nanoClock.getAsLong() - entry.storedAt;
+        return age > maxStalenessNanos ? Optional.empty() : Optional.of(new Stale<>(entry.value, Duration.ofNanos(age)));
+    }
+
+    private static String key(String name, String description, MatchMode match, Pageable pageable) {
+        return TenantContext.scoped(name + '\u0000' + description + '\u0000' + match + '\u0000' + pageable);
+    }
+
+    /**
+     * A cached value and how old it is.
+     */
+    public static final class Stale<T> {
+
+        private final T value;
+
+        private final Duration age;
+
+        private Stale(T value, Duration age) {
+            this.value = value;
+            this.age = age;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public Duration getAge() {
+            return age;
+        }
+    }
+
+    private static final class Entry<T> {
+
+        private final T value;
+
+        private final long storedAt;
+
+        private Entry(T value, long storedAt) {
+            this.value = value;
+            this.storedAt = storedAt;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.product.profiling;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Java Flight Recorder sessions of this process: on-demand recordings of a {@link Profile}, at most
+ * one per profile and stopped after {@code maxDuration} at the latest, and optionally a continuous
+ * recording with the low overhead {@code default} settings whose last {@code maxAge} are kept in
+ * JFR's on-disk repository. Stopped recordings are written to {@code directory}.
+ */
+public class FlightRecorderService {
+
+    static final String CONTINUOUS = "continuous";
+
+    private static final Logger log = LoggerFactory.getLogger(FlightRecorderService.class);
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private static final String APPLICATION_PACKAGE = "com.product";
+
+    private final Path directory;
+
+    private final Duration maxDuration;
+
+    private final int top;
+
+    private final boolean continuous;
+
+    private final Duration maxAge;
+
+    private final long maxSize;
+
+    private final Map<Profile, Recording> recordings = new EnumMap<>(Profile.class);
+
+    private Recording continuousRecording;
+
+    public FlightRecorderService(Path directory, Duration maxDuration, int top,
+                                 boolean continuous, Duration maxAge, long maxSize) {
+        if (!FlightRecorder.isAvailable()) {
+            throw new IllegalStateException("product.profiling needs a JVM with Java Flight Recorder");
+        }
+        this.directory = directory;
+        this.maxDuration = maxDuration;
+        this.top = top;
+        this.continuous = continuous;
+        this.maxAge = maxAge;
+        this.maxSize = maxSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void startContinuous() throws IOException, ParseException {
+        if (!continuous || continuousRecording != null) {
+            return;
+        }
+        var recording = new Recording(Configuration.getConfiguration("default"));
+        recording.setName("product-" + CONTINUOUS);
+        recording.enable(RepositoryCallEvent.NAME).withThreshold(Duration.ofMillis(20)).withStackTrace();
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.setMaxSize(maxSize);
+        recording.start();
+        continuousRecording = recording;
+        log.info("Started the continuous flight recording, keeping the last {} up to {} bytes", maxAge, maxSize);
+    }
+
+    /**
+     * @throws IllegalStateException if the profile is already being recorded
+     */
+    public synchronized Map<String, Object> start(Profile profile, Duration duration) {
+        var current = recordings.get(profile);
+        if (current != null && current.getState() == RecordingState.RUNNING) {
+            throw new IllegalStateException("The " + profile.id() + " profile is already being recorded");
+        }
+        if (current != null) {
+            current.close();
+        }
+        var recording = profile.newRecording();
+        recording.setDuration(duration == null || duration.compareTo(maxDuration) > 0 ? maxDuration : duration);
+        recording.start();
+        recordings.put(profile, recording);
+        log.info("Started the {} flight recording for {}", profile.id(), recording.getDuration());
+        return status(profile.id(), recording);
+    }
+
+    /**
+     * @return what was recorded so far, the recording goes on
+     */
+    public Optional<RecordingSummary> summary(String id) {
+        Recording recording;
+        synchronized (this) {
+            recording = CONTINUOUS.equals(id) ? continuousRecording : Profile.of(id).map(recordings::get).orElse(null);
+        }
+        if (recording == null) {
+            return Optional.empty();
+        }
+        try {
+            var file = Files.createTempFile("product-" + id, ".jfr");
+            try {
+                recording.dump(file);
+                return Optional.of(new RecordingSummarizer(APPLICATION_PACKAGE, top, start(recording)).summarize(id, file, null));
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stops the recording of the profile and writes it to the directory.
+     */
+    public Optional<RecordingSummary> stop(Profile profile) {
+        Recording recording;
+        synchronized (this) {
+            recording = recordings.remove(profile);
+        }
+        if (recording == null) {
+            return Optional.empty();
+        }
+        try {
+            if (recording.getState() == RecordingState.RUNNING) {
+                recording.stop();
+            }
+            Files.createDirectories(directory);
+            var file = directory.resolve("product-" + profile.id() + "-" + FILE_TIME.format(LocalDateTime.now()) + ".jfr");
+            recording.dump(file);
+            log.info("Stopped the {} flight recording, written to {}", profile.id(), file);
+            return Optional.of(new RecordingSummarizer(APPLICATION_PACKAGE, top, start(recording))
+                    .summarize(profile.id(), file, file.toString()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            recording.close();
+        }
+    }
+
+    public synchronized Map<String, Object> status() {
+        List<Map<String, Object>> running = new ArrayList<>();
+        recordings.forEach((profile, recording) -> running.add(status(profile.id(), recording)));
+        if (continuousRecording != null) {
+            running.add(status(CONTINUOUS, continuousRecording));
+        }
+        Map<String, Object> status = new LinkedHashMap<>();
+        List<String> profiles = new ArrayList<>();
+        for (Profile profile : Profile.values()) {
+            profiles.add(profile.id());
+        }
+        status.put("profiles", profiles);
+        status.put("recordings", running);
+        status.put("directory", directory.toString());
+        return status;
+    }
+
+    private static Instant start(Recording recording) {
+        // the continuous recording keeps a rolling window, its start is long gone
+        return recording.getMaxAge() == null ? recording.getStartTime() : null;
+    }
+
+    private static Map<String, Object> status(String id, Recording recording) {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("recording", id);
+        status.put("state", recording.getState());
+        status.put("start", recording.getStartTime());
+        if (recording.getDuration() != null) {
+            status.put("duration", recording.getDuration());
+        }
+        if (recording.getMaxAge() != null) {
+            status.put("maxAge", recording.getMaxAge());
+        }
+        return status;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        recordings.values().forEach(Recording::close);
+        recordings.clear();
+        if (continuousRecording != null) {
+            continuousRecording.close();
+            continuousRecording = null;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.product.profiling;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * The event settings of the on-demand recordings. All of them sample the executing threads every
+ * 20 ms, for the hot methods; thresholds keep out the short waits and reads that cost nothing.
+ */
+public enum Profile {
+
+    /**
+     * Allocation samples and garbage collections.
+     */
+    ALLOCATION {
+        @Override
+        void enable(Recording recording) {
+            if (available("jdk.ObjectAllocationSample")) {
+                recording.enable("jdk.ObjectAllocationSample").withStackTrace().with("throttle", "300/s");
+            } else {
+                // before JDK 16 only the TLAB events tell where the memory goes, at a higher cost
+                recording.enable("jdk.ObjectAllocationInNewTLAB").withStackTrace();
+                recording.enable("jdk.ObjectAllocationOutsideTLAB").withStackTrace();
+            }
+            recording.enable("jdk.GarbageCollection");
+            recording.enable("jdk.GCHeapSummary");
+        }
+    },
+
+    /**
+     * Threads blocked on monitors, waiting on them or parked on locks for more than 1 ms.
+     */
+    LOCK {
+        @Override
+        void enable(Recording recording) {
+            recording.enable("jdk.JavaMonitorEnter").withStackTrace().withThreshold(THRESHOLD);
+            recording.enable("jdk.JavaMonitorWait").withStackTrace().withThreshold(THRESHOLD);
+            recording.enable("jdk.ThreadPark").withStackTrace().withThreshold(THRESHOLD);
+        }
+    },
+
+    /**
+     * Repository calls, socket and file reads and writes over 1 ms, and threads parked waiting
+     * for a pooled connection.
+     */
+    JDBC_IO {
+        @Override
+        void enable(Recording recording) {
+            recording.enable(RepositoryCallEvent.NAME).withStackTrace();
+            recording.enable("jdk.SocketRead").withStackTrace().withThreshold(THRESHOLD);
+            recording.enable("jdk.SocketWrite").withStackTrace().withThreshold(THRESHOLD);
+            recording.enable("jdk.FileRead").withStackTrace().withThreshold(THRESHOLD);
+            recording.enable("jdk.FileWrite").withStackTrace().withThreshold(THRESHOLD);
+            recording.enable("jdk.ThreadPark").withStackTrace().withThreshold(THRESHOLD);
+        }
+    };
+
+    private static final Duration THRESHOLD = Duration.ofMillis(1);
+
+    abstract void enable(Recording recording);
+
+    Recording newRecording() {
+        var recording = new Recording();
+        recording.setName("product-" + id());
+        recording.enable("jdk.ExecutionSample").withPeriod(Duration.ofMillis(20)).withStackTrace();
+        enable(recording);
+        return recording;
+    }
+
+    private static boolean available(String event) {
+        return FlightRecorder.getFlightRecorder().getEventTypes().stream().anyMatch(type -> type.getName().equals(event));
+    }
+
+    public String id() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    public static Optional<Profile> of(String id) {
+        return Arrays.stream(values()).filter(profile -> profile.id().equals(id)).findFirst();
+    }
+}
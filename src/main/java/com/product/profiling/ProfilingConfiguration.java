@@ -0,0 +1,35 @@
+package com.product.profiling;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(prefix = "product.profiling", name = "enabled", havingValue = "true")
+public class ProfilingConfiguration {
+
+    @Bean
+    public FlightRecorderService flightRecorderService(
+            @Value("${product.profiling.directory:${java.io.tmpdir}/product-profiling}") Path directory,
+            @Value("${product.profiling.max-duration:PT5M}") Duration maxDuration,
+            @Value("${product.profiling.top:20}") int top,
+            @Value("${product.profiling.continuous.enabled:false}") boolean continuous,
+            @Value("${product.profiling.continuous.max-age:PT30M}") Duration maxAge,
+            @Value("${product.profiling.continuous.max-size:104857600}") long maxSize) {
+        return new FlightRecorderService(directory, maxDuration, top, continuous, maxAge, maxSize);
+    }
+
+    @Bean
+    public RepositoryCallAspect repositoryCallAspect() {
+        return new RepositoryCallAspect();
+    }
+
+    @Bean
+    public ProfilingEndpoint profilingEndpoint(FlightRecorderService flightRecorder) {
+        return new ProfilingEndpoint(flightRecorder);
+    }
+}
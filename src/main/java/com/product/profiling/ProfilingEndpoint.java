@@ -0,0 +1,62 @@
+package com.product.profiling;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * {@code /actuator/profiling}: {@code POST /actuator/profiling/{profile}} starts a flight recording
+ * of a {@link Profile} ({@code allocation}, {@code lock} or {@code jdbc-io}), optionally for
+ * {@code {"seconds": n}}; {@code GET /actuator/profiling/{profile}} summarises it so far and
+ * {@code DELETE} stops it and summarises it. {@code GET /actuator/profiling/continuous} summarises
+ * the continuous recording, {@code GET /actuator/profiling} lists the recordings.
+ */
+@Endpoint(id = "profiling")
+public class ProfilingEndpoint {
+
+    private final FlightRecorderService flightRecorder;
+
+    public ProfilingEndpoint(FlightRecorderService flightRecorder) {
+        this.flightRecorder = flightRecorder;
+    }
+
+    @ReadOperation
+    public Map<String, Object> recordings() {
+        return flightRecorder.status();
+    }
+
+    @ReadOperation
+    public WebEndpointResponse<RecordingSummary> summary(@Selector String recording) {
+        return flightRecorder.summary(recording)
+                .map(WebEndpointResponse::new)
+                .orElseGet(() -> new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND));
+    }
+
+    @WriteOperation
+    public WebEndpointResponse<Map<String, Object>> start(@Selector String profile, @Nullable Long seconds) {
+        var selected = Profile.of(profile);
+        if (selected.isEmpty()) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        try {
+            return new WebEndpointResponse<>(flightRecorder.start(selected.get(), seconds == null ? null : Duration.ofSeconds(seconds)));
+        } catch (IllegalStateException e) {
+            return new WebEndpointResponse<>(Map.of("error", e.getMessage()), 409);
+        }
+    }
+
+    @DeleteOperation
+    public WebEndpointResponse<RecordingSummary> stop(@Selector String profile) {
+        return Profile.of(profile)
+                .flatMap(flightRecorder::stop)
+                .map(WebEndpointResponse::new)
+                .orElseGet(() -> new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND));
+    }
+}
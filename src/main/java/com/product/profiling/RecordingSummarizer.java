@@ -0,0 +1,207 @@
+package com.product.profiling;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Reads a recording file event by event and adds each event to the site of the innermost frame of
+ * its stack under the application package: the code of ours that allocated, waited or ran, even
+ * when the work itself happened deep in a library. Events without such a frame are counted under
+ * {@code (other)}. Dumps hold whole chunks, shared with the other recordings, so events from
+ * before the recording started are left out.
+ */
+class RecordingSummarizer {
+
+    static final String OTHER = "(other)";
+
+    private static final String PROFILING_PACKAGE = RecordingSummarizer.class.getPackageName() + ".";
+
+    private final String applicationPackage;
+
+    private final int top;
+
+    private final Instant from;
+
+    private final Map<String, Map<String, RecordingSummary.Site>> sections = new LinkedHashMap<>();
+
+    private long collections;
+
+    private Duration pauses = Duration.ZERO;
+
+    private Duration longestPause = Duration.ZERO;
+
+    private Instant start;
+
+    private Instant end;
+
+    RecordingSummarizer(String applicationPackage, int top, Instant from) {
+        this.applicationPackage = applicationPackage + ".";
+        this.top = top;
+        this.from = from;
+    }
+
+    RecordingSummary summarize(String recording, Path file, String keptFile) throws IOException {
+        try (var events = new RecordingFile(file)) {
+            while (events.hasMoreEvents()) {
+                add(events.readEvent());
+            }
+        }
+        Map<String, List<RecordingSummary.Site>> sites = new LinkedHashMap<>();
+        sections.forEach((section, bySite) -> sites.put(section, top(section, bySite)));
+        Map<String, Object> gc = null;
+        if (collections > 0) {
+            gc = new LinkedHashMap<>();
+            gc.put("collections", collections);
+            gc.put("totalPauseMillis", pauses.toNanos() / 1_000_000.0);
+            gc.put("longestPauseMillis", longestPause.toNanos() / 1_000_000.0);
+        }
+        return new RecordingSummary(recording, start, end, keptFile, sites, gc);
+    }
+
+    void add(RecordedEvent event) {
+        if (from != null && event.getStartTime().isBefore(from)) {
+            return;
+        }
+        if (start == null || event.getStartTime().isBefore(start)) {
+            start = event.getStartTime();
+        }
+        if (end == null || event.getEndTime().isAfter(end)) {
+            end = event.getEndTime();
+        }
+        var type = event.getEventType().getName();
+        switch (type) {
+            case "jdk.ExecutionSample":
+                site("hotMethods", method(event)).events++;
+                break;
+            case "jdk.ObjectAllocationSample":
+                allocation(event, event.getLong("weight"));
+                break;
+            case "jdk.ObjectAllocationInNewTLAB":
+                allocation(event, event.getLong("tlabSize"));
+                break;
+            case "jdk.ObjectAllocationOutsideTLAB":
+                allocation(event, event.getLong("allocationSize"));
+                break;
+            case "jdk.JavaMonitorEnter":
+                timed("locks", frame(event) + " blocked on " + className(event, "monitorClass"), event, 0);
+                break;
+            case "jdk.JavaMonitorWait":
+                timed("locks", frame(event) + " waiting on " + className(event, "monitorClass"), event, 0);
+                break;
+            case "jdk.ThreadPark":
+                timed("locks", frame(event) + " parked on " + className(event, "parkedClass"), event, 0);
+                break;
+            case "jdk.SocketRead":
+            case "jdk.FileRead":
+                timed("io", frame(event) + " " + type.substring(4), event, event.getLong("bytesRead"));
+                break;
+            case "jdk.SocketWrite":
+            case "jdk.FileWrite":
+                timed("io", frame(event) + " " + type.substring(4), event, event.getLong("bytesWritten"));
+                break;
+            case RepositoryCallEvent.NAME:
+                timed("repositoryCalls", event.getString("method") + " from " + frame(event), event, 0);
+                break;
+            case "jdk.GarbageCollection":
+                collections++;
+                pauses = pauses.plus(event.getDuration("sumOfPauses"));
+                if (event.getDuration("longestPause").compareTo(longestPause) > 0) {
+                    longestPause = event.getDuration("longestPause");
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void allocation(RecordedEvent event, long bytes) {
+        var site = site("allocationSites", frame(event));
+        site.events++;
+        site.bytes += bytes;
+        var type = site("allocatedTypes", className(event, "objectClass"));
+        type.events++;
+        type.bytes += bytes;
+    }
+
+    private void timed(String section, String key, RecordedEvent event, long bytes) {
+        var site = site(section, key);
+        site.events++;
+        site.bytes += bytes;
+        site.nanos += event.getDuration().toNanos();
+    }
+
+    private RecordingSummary.Site site(String section, String key) {
+        return sections.computeIfAbsent(section, name -> new HashMap<>())
+                .computeIfAbsent(key, RecordingSummary.Site::new);
+    }
+
+    private List<RecordingSummary.Site> top(String section, Map<String, RecordingSummary.Site> bySite) {
+        ToLongFunction<RecordingSummary.Site> weight;
+        switch (section) {
+            case "allocationSites":
+            case "allocatedTypes":
+                weight = site -> site.bytes;
+                break;
+            case "hotMethods":
+                weight = site -> site.events;
+                break;
+            default:
+                weight = site -> site.nanos;
+        }
+        return bySite.values().stream()
+                .sorted(Comparator.comparingLong(weight).reversed().thenComparing(RecordingSummary.Site::getSite))
+                .limit(top)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private String frame(RecordedEvent event) {
+        var frame = applicationFrame(event);
+        return frame == null ? OTHER : name(frame) + ":" + frame.getLineNumber();
+    }
+
+    private String method(RecordedEvent event) {
+        var frame = applicationFrame(event);
+        return frame == null ? OTHER : name(frame);
+    }
+
+    private RecordedFrame applicationFrame(RecordedEvent event) {
+        var stackTrace = event.getStackTrace();
+        if (stackTrace == null) {
+            return null;
+        }
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            if (!frame.isJavaFrame()) {
+                continue;
+            }
+            var type = frame.getMethod().getType().getName();
+            // proxies and the profiling itself stand between the callers and the calls they make
+            if (type.startsWith(applicationPackage) && !type.contains("$$") && !type.startsWith(PROFILING_PACKAGE)) {
+                return frame;
+            }
+        }
+        return null;
+    }
+
+    private static String name(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName();
+    }
+
+    private static String className(RecordedEvent event, String field) {
+        var type = event.hasField(field) ? event.getClass(field) : null;
+        return type == null ? OTHER : type.getName();
+    }
+}
@@ -0,0 +1,101 @@
+package com.product.profiling;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What a recording found, as the {@code /actuator/profiling} endpoint returns it: the top sites of
+ * each kind of event, attributed to the innermost {@code com.product} frame of their stack.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public final class RecordingSummary {
+
+    private final String recording;
+
+    private final Instant start;
+
+    private final Instant end;
+
+    private final String file;
+
+    private final Map<String, List<Site>> sites;
+
+    private final Map<String, Object> gc;
+
+    RecordingSummary(String recording, Instant start, Instant end, String file,
+                     Map<String, List<Site>> sites, Map<String, Object> gc) {
+        this.recording = recording;
+        this.start = start;
+        this.end = end;
+        this.file = file;
+        this.sites = new LinkedHashMap<>(sites);
+        this.gc = gc;
+    }
+
+    public String getRecording() {
+        return recording;
+    }
+
+    public Instant getStart() {
+        return start;
+    }
+
+    public Instant getEnd() {
+        return end;
+    }
+
+    /**
+     * @return the recording file kept on disk, for a closer look in JDK Mission Control
+     */
+    public String getFile() {
+        return file;
+    }
+
+    /**
+     * @return by section ({@code hotMethods}, {@code allocationSites}, {@code allocatedTypes},
+     * {@code locks}, {@code io}, {@code repositoryCalls}), the top sites of the events recorded
+     */
+    public Map<String, List<Site>> getSites() {
+        return sites;
+    }
+
+    public Map<String, Object> getGc() {
+        return gc;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_DEFAULT)
+    public static final class Site {
+
+        private final String site;
+
+        long events;
+
+        long bytes;
+
+        long nanos;
+
+        Site(String site) {
+            this.site = site;
+        }
+
+        public String getSite() {
+            return site;
+        }
+
+        public long getEvents() {
+            return events;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public double getMillis() {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.product.profiling;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Emits a {@link RepositoryCallEvent} per repository call, only while a recording wants them.
+ */
+@Aspect
+public class RepositoryCallAspect {
+
+    @Around("this(com.product.repository.ProductRepository)")
+    public Object record(ProceedingJoinPoint call) throws Throwable {
+        var event = new RepositoryCallEvent();
+        if (!event.isEnabled()) {
+            return call.proceed();
+        }
+        event.begin();
+        try {
+            return call.proceed();
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.method = call.getSignature().getName();
+                event.commit();
+            }
+        }
+    }
+}
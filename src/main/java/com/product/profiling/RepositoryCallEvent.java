@@ -0,0 +1,23 @@
+package com.product.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A call into the product repository, recorded by {@link RepositoryCallAspect} while a recording
+ * has the event enabled.
+ */
+@Name(RepositoryCallEvent.NAME)
+@Label("Repository Call")
+@Category("Product")
+@StackTrace
+class RepositoryCallEvent extends Event {
+
+    static final String NAME = "com.product.RepositoryCall";
+
+    @Label("Method")
+    String method;
+}
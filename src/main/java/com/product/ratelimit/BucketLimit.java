@@ -0,0 +1,35 @@
+package com.product.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Capacity and refill rate of a token bucket, expressed the way the GCRA
+ * implementation in {@link InMemoryTokenBucketStore} consumes them.
+ */
+public final class BucketLimit {
+
+    private final long emissionIntervalNanos;
+
+    private final long burstToleranceNanos;
+
+    private BucketLimit(long emissionIntervalNanos, long burstToleranceNanos) {
+        this.emissionIntervalNanos = emissionIntervalNanos;
+        this.burstToleranceNanos = burstToleranceNanos;
+    }
+
+    public static BucketLimit of(long capacity, double refillPerSecond) {
+        if (capacity < 1 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("capacity and refill rate must be positive");
+        }
+        long interval = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / refillPerSecond));
+        return new BucketLimit(interval, capacity * interval);
+    }
+
+    public long getEmissionIntervalNanos() {
+        return emissionIntervalNanos;
+    }
+
+    public long getBurstToleranceNanos() {
+        return burstToleranceNanos;
+    }
+}
@@ -0,0 +1,58 @@
+package com.product.ratelimit;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Lock-free token buckets implemented with the generic cell rate algorithm: each
+ * bucket is a single theoretical arrival time updated by CAS, and the map itself
+ * is striped by {@link ConcurrentHashMap}, so unrelated clients never contend.
+ */
+public class InMemoryTokenBucketStore implements TokenBucketStore {
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    private final LongSupplier nanoClock;
+
+    public InMemoryTokenBucketStore() {
+        this(System::nanoTime);
+    }
+
+    public InMemoryTokenBucketStore(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public long tryConsume(String key, BucketLimit limit) {
+        long now = nanoClock.getAsLong();
+        AtomicLong arrival = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        while (true) {
+            long current = arrival.get();
+            long next = Math.max(current, now) + limit.getEmissionIntervalNanos();
+            long wait = next - now - limit.getBurstToleranceNanos();
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * Drops the buckets that have refilled completely, they behave exactly like a new one.
+     */
+    @Scheduled(fixedDelayString = "${product.rate-limit.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        long now = nanoClock.getAsLong();
+        buckets.values().removeIf(arrival -> arrival.get() <= now);
+    }
+}
@@ -0,0 +1,28 @@
+package com.product.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(prefix = "product.rate-limit", name = "enabled", havingValue = "true")
+public class RateLimitConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(TokenBucketStore.class)
+    public InMemoryTokenBucketStore tokenBucketStore() {
+        return new InMemoryTokenBucketStore();
+    }
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(TokenBucketStore store,
+                                                                   RateLimitProperties properties,
+                                                                   MeterRegistry registry) {
+        var registration = new FilterRegistrationBean<>(new RateLimitFilter(store, properties, registry));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
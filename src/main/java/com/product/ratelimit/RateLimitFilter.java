@@ -0,0 +1,72 @@
+package com.product.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final TokenBucketStore store;
+
+    private final String apiKeyHeader;
+
+    private final Map<RequestClass, BucketLimit> limits = new EnumMap<>(RequestClass.class);
+
+    private final Map<RequestClass, Counter> allowed = new EnumMap<>(RequestClass.class);
+
+    private final Map<RequestClass, Counter> rejected = new EnumMap<>(RequestClass.class);
+
+    public RateLimitFilter(TokenBucketStore store, RateLimitProperties properties, MeterRegistry registry) {
+        this.store = store;
+        this.apiKeyHeader = properties.getApiKeyHeader();
+        for (RequestClass requestClass : RequestClass.values()) {
+            limits.put(requestClass, properties.budget(requestClass).toLimit());
+            allowed.put(requestClass, counter(registry, requestClass, "allowed"));
+            rejected.put(requestClass, counter(registry, requestClass, "rejected"));
+        }
+        registry.gauge("product.rate.limit.buckets", store, TokenBucketStore::size);
+    }
+
+    private static Counter counter(MeterRegistry registry, RequestClass requestClass, String outcome) {
+        return Counter.builder("product.rate.limit.requests")
+                .tag("class", requestClass.name().toLowerCase())
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        var requestClass = RequestClass.of(request);
+        var key = requestClass.name() + ':' + clientKey(request);
+        long waitNanos = store.tryConsume(key, limits.get(requestClass));
+        if (waitNanos > 0) {
+            rejected.get(requestClass).increment();
+            long retryAfter = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            return;
+        }
+        allowed.get(requestClass).increment();
+        chain.doFilter(request, response);
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        var apiKey = request.getHeader(apiKeyHeader);
+        if (apiKey != null && !apiKey.isBlank()) {
+            return apiKey;
+        }
+        return request.getRemoteAddr();
+    }
+}
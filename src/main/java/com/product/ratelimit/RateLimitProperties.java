@@ -0,0 +1,103 @@
+package com.product.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "product.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled;
+
+    private String apiKeyHeader = "X-API-Key";
+
+    private Budget read = new Budget(100, 50);
+
+    private Budget write = new Budget(20, 5);
+
+    private Budget search = new Budget(10, 2);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getApiKeyHeader() {
+        return apiKeyHeader;
+    }
+
+    public void setApiKeyHeader(String apiKeyHeader) {
+        this.apiKeyHeader = apiKeyHeader;
+    }
+
+    public Budget getRead() {
+        return read;
+    }
+
+    public void setRead(Budget read) {
+        this.read = read;
+    }
+
+    public Budget getWrite() {
+        return write;
+    }
+
+    public void setWrite(Budget write) {
+        this.write = write;
+    }
+
+    public Budget getSearch() {
+        return search;
+    }
+
+    public void setSearch(Budget search) {
+        this.search = search;
+    }
+
+    public Budget budget(RequestClass requestClass) {
+        switch (requestClass) {
+            case WRITE:
+                return write;
+            case SEARCH:
+                return search;
+            default:
+                return read;
+        }
+    }
+
+    public static class Budget {
+
+        private long capacity;
+
+        private double refillPerSecond;
+
+        public Budget() {
+        }
+
+        public Budget(long capacity, double refillPerSecond) {
+            this.capacity = capacity;
+            this.refillPerSecond = refillPerSecond;
+        }
+
+        public long getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(long capacity) {
+            this.capacity = capacity;
+        }
+
+        public double getRefillPerSecond() {
+            return refillPerSecond;
+        }
+
+        public void setRefillPerSecond(double refillPerSecond) {
+            this.refillPerSecond = refillPerSecond;
+        }
+
+        public BucketLimit toLimit() {
+            return BucketLimit.of(capacity, refillPerSecond);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.product.ratelimit;
+
+import javax.servlet.http.HttpServletRequest;
+
+public enum RequestClass {
+
+    READ,
+    WRITE,
+    SEARCH;
+
+    public static RequestClass of(HttpServletRequest request) {
+        var method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return WRITE;
+        }
+        if (request.getParameter("description") != null) {
+            return SEARCH;
+        }
+        return READ;
+    }
+}
@@ -0,0 +1,20 @@
+package com.product.ratelimit;
+
+/**
+ * Keeps the state of every client bucket. The default implementation is in memory;
+ * a shared store (Redis, Hazelcast...) can be plugged in by declaring another bean.
+ */
+public interface TokenBucketStore {
+
+    /**
+     * Takes one token from the bucket identified by {@code key}.
+     *
+     * @return 0 when the token was granted, otherwise the nanoseconds until one is available
+     */
+    long tryConsume(String key, BucketLimit limit);
+
+    /**
+     * @return number of buckets currently tracked
+     */
+    int size();
+}
@@ -0,0 +1,38 @@
+package com.product.repository;
+
+import com.product.model.SearchText;
+
+/**
+ * How a name or description filter matches, always on the {@link SearchText} form of both sides.
+ */
+public enum MatchMode {
+
+    /**
+     * The filter appears anywhere in the text, {@code like '%filter%'}: scans every row.
+     */
+    CONTAINS {
+        @Override
+        String wrap(String filter) {
+            return "%" + filter + "%";
+        }
+    },
+
+    /**
+     * The text starts with the filter, {@code like 'filter%'}: a range scan on the search column index.
+     */
+    PREFIX {
+        @Override
+        String wrap(String filter) {
+            return filter + "%";
+        }
+    };
+
+    /**
+     * @return the {@code like} pattern for a filter as the client sent it
+     */
+    public String pattern(String filter) {
+        return wrap(SearchText.normalize(filter));
+    }
+
+    abstract String wrap(String filter);
+}
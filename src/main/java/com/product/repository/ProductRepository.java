@@ -1,8 +1,99 @@
 package com.product.repository;
 
 import com.product.model.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Deleted products stay in the table until {@link com.product.service.ProductPurgeJob} removes them;
+ * the {@code @Where} filter on {@link Product} hides them from every derived and specification query.
+ */
 public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+
+    /**
+     * Native on purpose: the change feed needs the soft deleted rows as tombstones.
+     */
+    @Query(value = "select * from products " +
+            "where update_date_time > :since or (update_date_time = :since and id > :id) " +
+            "order by update_date_time, id",
+            nativeQuery = true)
+    List<Product> findChangedSince(@Param("since") LocalDateTime since, @Param("id") long id, Pageable pageable);
+
+    /**
+     * Keyset pagination over the whole catalog, for jobs that stream every product.
+     */
+    @Query("select p from Product p where p.id > :after order by p.id")
+    List<Product> findPageAfter(@Param("after") long after, Pageable pageable);
+
+    /**
+     * Keyset pagination over the ids alone, which only reads the primary key index.
+     */
+    @Query("select p.id from Product p where p.id > :after order by p.id")
+    List<Long> findIdsAfter(@Param("after") long after, Pageable pageable);
+
+    /**
+     * @param pattern a {@link MatchMode#pattern} on the normalized name
+     */
+    @Query("select p.id from Product p where p.nameNormalized like :pattern order by p.id")
+    List<Long> findIdsByNameLike(@Param("pattern") String pattern);
+
+    /**
+     * @param pattern a {@link MatchMode#pattern} on the normalized description
+     */
+    @Query("select p.id from Product p where p.descriptionNormalized like :pattern order by p.id")
+    List<Long> findIdsByDescriptionLike(@Param("pattern") String pattern);
+
+    /**
+     * Products stored before the normalized search columns existed.
+     */
+    @Query("select p from Product p where p.id > :after " +
+            "and (p.nameNormalized is null or p.descriptionNormalized is null) order by p.id")
+    List<Product> findWithoutSearchText(@Param("after") long after, Pageable pageable);
+
+    /**
+     * Only fills columns still empty, a product updated in the meantime already has its own.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update Product p set p.nameNormalized = :name, p.descriptionNormalized = :description " +
+            "where p.id = :id and (p.nameNormalized is null or p.descriptionNormalized is null)")
+    int updateSearchText(@Param("id") long id, @Param("name") String name, @Param("description") String description);
+
+    /**
+     * Writes the new name and description of a product, unless it has been deleted since it was
+     * read: a merge would insert it again under a new id.
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Product p set p.name = :name, p.description = :description, p.updateDateTime = :now, " +
+            "p.nameNormalized = :nameNormalized, p.descriptionNormalized = :descriptionNormalized " +
+            "where p.id = :id and p.deleteDateTime is null")
+    int updateIfExists(@Param("id") long id, @Param("name") String name, @Param("description") String description,
+                       @Param("nameNormalized") String nameNormalized,
+                       @Param("descriptionNormalized") String descriptionNormalized,
+                       @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Product p set p.deleteDateTime = :now, p.updateDateTime = :now " +
+            "where p.id = :id and p.deleteDateTime is null")
+    int softDeleteById(@Param("id") long id, @Param("now") LocalDateTime now);
+
+    @Query(value = "select id from products where delete_date_time < :before order by id limit :limit",
+            nativeQuery = true)
+    List<Long> findPurgeableIds(@Param("before") LocalDateTime before, @Param("limit") int limit);
+
+    @Transactional
+    @Modifying
+    @Query(value = "delete from products where id in (:ids)", nativeQuery = true)
+    int purgeAllById(@Param("ids") Collection<Long> ids);
 }
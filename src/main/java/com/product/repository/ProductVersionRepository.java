@@ -0,0 +1,46 @@
+package com.product.repository;
+
+import com.product.model.ProductVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Reads of the product history. A chain is the last version that is not a delta, up to a point in
+ * time, and the deltas after it: what it takes to rebuild the product at that time.
+ */
+public interface ProductVersionRepository extends JpaRepository<ProductVersion, Long> {
+
+    @Query(value = "select * from product_versions where product_id = :productId and valid_from <= :asOf " +
+            "and id >= coalesce((select max(id) from product_versions where product_id = :productId " +
+            "and kind <> 'DELTA' and valid_from <= :asOf), 0) order by id",
+            nativeQuery = true)
+    List<ProductVersion> findChain(@Param("productId") long productId, @Param("asOf") LocalDateTime asOf);
+
+    @Query(value = "select * from product_versions where product_id = :productId " +
+            "and id >= coalesce((select max(id) from product_versions where product_id = :productId " +
+            "and kind <> 'DELTA'), 0) order by id",
+            nativeQuery = true)
+    List<ProductVersion> findLatestChain(@Param("productId") long productId);
+
+    @Query("select max(v.id) from ProductVersion v")
+    Long findMaxId();
+
+    /**
+     * Products with deltas written in an id range, which only reads the primary key index.
+     */
+    @Query("select distinct v.productId from ProductVersion v " +
+            "where v.id > :after and v.id <= :upTo and v.kind = com.product.model.ProductVersion$Kind.DELTA")
+    List<Long> findProductIdsWithDeltas(@Param("after") long after, @Param("upTo") long upTo);
+
+    @Transactional
+    @Modifying
+    @Query("update ProductVersion v set v.kind = com.product.model.ProductVersion$Kind.SNAPSHOT, v.data = :data " +
+            "where v.id = :id")
+    int replaceWithSnapshot(@Param("id") long id, @Param("data") byte[] data);
+}
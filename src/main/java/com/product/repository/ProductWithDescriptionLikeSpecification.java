@@ -12,8 +12,15 @@ public class ProductWithDescriptionLikeSpecification implements Specification<Pr
 
     private final String description;
 
+    private MatchMode match;
+
     public ProductWithDescriptionLikeSpecification(String description) {
+        this(description, MatchMode.CONTAINS);
+    }
+
+    public ProductWithDescriptionLikeSpecification(String description, MatchMode match) {
         this.description = description;
+        this.match = match;
     }
 
     @Override
@@ -22,6 +29,6 @@ public class ProductWithDescriptionLikeSpecification implements Specification<Pr
             return criteriaBuilder.isTrue(criteriaBuilder.literal(true));
         }
         return criteriaBuilder.like(
-                root.get("description"), "%" + this.description + "%");
+                root.get("descriptionNormalized"), match.pattern(this.description));
     }
 }
@@ -12,8 +12,15 @@ public class ProductWithNameLikeSpecification implements Specification<Product>
 
     private String name;
 
+    private MatchMode match;
+
     public ProductWithNameLikeSpecification(String name) {
+        this(name, MatchMode.CONTAINS);
+    }
+
+    public ProductWithNameLikeSpecification(String name, MatchMode match) {
         this.name = name;
+        this.match = match;
     }
 
     @Override
@@ -22,6 +29,6 @@ public class ProductWithNameLikeSpecification implements Specification<Product>
             return criteriaBuilder.isTrue(criteriaBuilder.literal(true));
         }
         return criteriaBuilder.like(
-                root.get("name"), "%" + this.name + "%");
+                root.get("nameNormalized"), match.pattern(this.name));
     }
 }
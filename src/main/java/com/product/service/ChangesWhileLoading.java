@@ -0,0 +1,62 @@
+package com.product.service;
+
+import com.product.model.Product;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+/**
+ * The products changed while an in-memory index loads the catalog at startup, when requests are
+ * already served. The loader may put back a row it read before such a change, so once it is done
+ * those products are read again, until a pass sees no new change.
+ */
+public final class ChangesWhileLoading {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean loading;
+
+    public void start() {
+        loading = true;
+    }
+
+    /**
+     * Called by the change listener of the index, before it applies the change.
+     */
+    public void record(long id) {
+        if (loading) {
+            changed.add(id);
+        }
+    }
+
+    /**
+     * Reads the changed products again, puts the ones that still exist and removes the others.
+     */
+    public void reload(Function<Collection<Long>, List<Product>> findAllById, Consumer<Product> put, LongConsumer remove) {
+        while (!changed.isEmpty()) {
+            List<Long> ids = new ArrayList<>(changed);
+            changed.removeAll(ids);
+            for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+                var chunk = ids.subList(from, Math.min(ids.size(), from + BATCH_SIZE));
+                Set<Long> deleted = new HashSet<>(chunk);
+                for (Product product : findAllById.apply(chunk)) {
+                    deleted.remove(product.getId());
+                    put.accept(product);
+                }
+                deleted.forEach(remove::accept);
+            }
+        }
+        // a change recorded after the last pass has been applied by its listener, nothing reads it back
+        loading = false;
+        changed.clear();
+    }
+}
@@ -0,0 +1,103 @@
+package com.product.service;
+
+import com.product.model.Product;
+import com.product.tenant.TenantContext;
+import com.product.timing.RequestTiming;
+import com.product.repository.MatchMode;
+import com.product.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Evaluates the name and description filters as separate id queries on a bounded pool,
+ * intersects the sorted id sets and loads only the products of the requested page.
+ * When the pool is saturated the request thread runs the query itself.
+ */
+@Component
+@ConditionalOnProperty(prefix = "product.search.parallel", name = "enabled", havingValue = "true")
+public class ParallelSearchExecutor {
+
+    private final ProductRepository repository;
+
+    private final ThreadPoolExecutor pool;
+
+    public ParallelSearchExecutor(ProductRepository repository,
+                                  @Value("${product.search.parallel.threads:4}") int threads,
+                                  @Value("${product.search.parallel.queue-size:64}") int queueSize) {
+        this.repository = repository;
+        var count = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    var thread = new Thread(runnable, "product-search-" + count.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Only id ordered pages can be cut from the intersection, other sorts need the single query path.
+     */
+    public boolean supports(String name, String description, Pageable pageable) {
+        if (name == null || description == null) {
+            return false;
+        }
+        var sort = pageable.getSort();
+        if (sort.isUnsorted()) {
+            return true;
+        }
+        var orders = sort.toList();
+        return orders.size() == 1 && "id".equals(orders.get(0).getProperty()) && orders.get(0).isAscending();
+    }
+
+    public Page<Product> search(String name, String description, Pageable pageable) {
+        var byName = ids(repository::findIdsByNameLike, name);
+        var byDescription = ids(repository::findIdsByDescriptionLike, description);
+        var matches = SortedIdSets.intersect(List.of(byName.join(), byDescription.join()));
+
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(load(matches));
+        }
+        int from = (int) Math.min(pageable.getOffset(), matches.length);
+        int to = Math.min(from + pageable.getPageSize(), matches.length);
+        return new PageImpl<>(load(Arrays.copyOfRange(matches, from, to)), pageable, matches.length);
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private CompletableFuture<long[]> ids(Function<String, List<Long>> query, String filter) {
+        return CompletableFuture.supplyAsync(TenantContext.propagate(RequestTiming.propagate(
+                () -> query.apply(MatchMode.CONTAINS.pattern(filter)).stream().mapToLong(Long::longValue).toArray())), pool);
+    }
+
+    private List<Product> load(long[] ids) {
+        List<Long> boxed = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            boxed.add(id);
+        }
+        List<Product> products = new ArrayList<>(repository.findAllById(boxed));
+        products.sort(Comparator.comparingLong(Product::getId));
+        return products;
+    }
+}
@@ -0,0 +1,163 @@
+package com.product.service;
+
+import com.product.dto.ChangeFeed;
+import com.product.dto.ProductChange;
+import com.product.event.ChangeType;
+import com.product.event.ProductChangedEvent;
+import com.product.model.Product;
+import com.product.repository.ProductRepository;
+import com.product.shard.ShardedProductRepository;
+import com.product.tenant.TenantContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Incremental sync for downstream caches. Changes are ordered by (timestamp, id); a consumer
+ * resumes from the token of the last change it processed and may see a change more than once.
+ * Soft deleted rows are the tombstones, so consumers must not lag behind the purge retention.
+ * A stream only gets the changes of the tenant it was opened for. With sharding the changes of
+ * every shard are merged.
+ */
+@Service
+public class ProductChangeFeedService {
+
+    public static final int MAX_LIMIT = 1000;
+
+    private final ProductRepository repository;
+
+    private final long sseTimeout;
+
+    @Autowired(required = false)
+    private ShardedProductRepository shards;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private final ExecutorService broadcaster = Executors.newSingleThreadExecutor(runnable -> {
+        var thread = new Thread(runnable, "product-change-feed");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ProductChangeFeedService(ProductRepository repository,
+                                    @Value("${product.changes.sse-timeout-ms:1800000}") long sseTimeout) {
+        this.repository = repository;
+        this.sseTimeout = sseTimeout;
+    }
+
+    public ChangeFeed changes(String since, int limit) {
+        ChangeToken token;
+        try {
+            token = ChangeToken.parse(since);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+        int size = Math.max(1, Math.min(limit, MAX_LIMIT));
+        List<ProductChange> changes = new ArrayList<>(size);
+        var changed = shards == null
+                ? repository.findChangedSince(token.getTimestamp(), token.getId(), PageRequest.of(0, size))
+                : shards.findChangedSince(token.getTimestamp(), token.getId(), size);
+        for (Product product : changed) {
+            changes.add(change(product, token));
+        }
+        var next = changes.isEmpty() ? token.toString() : changes.get(changes.size() - 1).getToken();
+        return new ChangeFeed(changes, next);
+    }
+
+    public SseEmitter subscribe(String since) {
+        var emitter = new SseEmitter(sseTimeout);
+        emitter.onCompletion(() -> remove(emitter));
+        emitter.onError(ex -> remove(emitter));
+        var tenant = TenantContext.get();
+        // replaying on the broadcaster thread keeps the backlog ordered before the live events
+        broadcaster.execute(TenantContext.propagate(() -> {
+            if (since != null) {
+                var feed = changes(since, MAX_LIMIT);
+                while (!feed.getChanges().isEmpty()) {
+                    for (ProductChange change : feed.getChanges()) {
+                        if (!send(emitter, change)) {
+                            return;
+                        }
+                    }
+                    feed = changes(feed.getNext(), MAX_LIMIT);
+                }
+            }
+            subscribers.add(new Subscriber(tenant, emitter));
+        }));
+        return emitter;
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        var token = event.getTimestamp() == null ? null : new ChangeToken(event.getTimestamp(), event.getId()).toString();
+        var change = new ProductChange(event.getType(), event.getId(), event.getProduct(), event.getTimestamp(), token);
+        broadcaster.execute(() -> subscribers.stream()
+                .filter(subscriber -> Objects.equals(subscriber.tenant, event.getTenant()))
+                .forEach(subscriber -> send(subscriber.emitter, change)));
+    }
+
+    @PreDestroy
+    public void close() {
+        broadcaster.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    private void remove(SseEmitter emitter) {
+        subscribers.removeIf(subscriber -> subscriber.emitter == emitter);
+    }
+
+    private boolean send(SseEmitter emitter, ProductChange change) {
+        try {
+            var event = SseEmitter.event()
+                    .name(change.getType().name().toLowerCase())
+                    .data(change, MediaType.APPLICATION_JSON);
+            if (change.getToken() != null) {
+                event.id(change.getToken());
+            }
+            emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException ex) {
+            remove(emitter);
+            return false;
+        }
+    }
+
+    private static ProductChange change(Product product, ChangeToken since) {
+        var token = new ChangeToken(product.getUpdateDateTime(), product.getId()).toString();
+        if (product.isDeleted()) {
+            return new ProductChange(ChangeType.DELETED, product.getId(), null, product.getDeleteDateTime(), token);
+        }
+        var type = product.getCreateDateTime().isAfter(since.getTimestamp()) ? ChangeType.CREATED : ChangeType.UPDATED;
+        return new ProductChange(type, product.getId(), product, product.getUpdateDateTime(), token);
+    }
+
+    /**
+     * A live stream and the tenant whose changes it gets.
+     */
+    private static final class Subscriber {
+
+        private final String tenant;
+
+        private final SseEmitter emitter;
+
+        private Subscriber(String tenant, SseEmitter emitter) {
+            this.tenant = tenant;
+            this.emitter = emitter;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.product.service;
+
+import com.product.repository.ProductRepository;
+import com.product.shard.ShardedProductRepository;
+import com.product.tenant.TenantContext;
+import com.product.tenant.TenantProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+
+/**
+ * Hard deletes soft deleted products once they are older than the retention window. Each chunk
+ * runs in its own short transaction so the purge never holds locks long enough to hurt traffic.
+ * With sharding it purges every shard.
+ */
+@Component
+public class ProductPurgeJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductPurgeJob.class);
+
+    private final ProductRepository repository;
+
+    private final Duration retention;
+
+    private final int chunkSize;
+
+    private final long pauseMillis;
+
+    @Autowired(required = false)
+    private TenantProperties tenants;
+
+    @Autowired(required = false)
+    private ShardedProductRepository shards;
+
+    public ProductPurgeJob(ProductRepository repository,
+                           @Value("${product.purge.retention:P7D}") Duration retention,
+                           @Value("${product.purge.chunk-size:500}") int chunkSize,
+                           @Value("${product.purge.pause-ms:50}") long pauseMillis) {
+        this.repository = repository;
+        this.retention = retention;
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pauseMillis;
+    }
+
+    @Scheduled(initialDelayString = "${product.purge.interval-ms:3600000}",
+            fixedDelayString = "${product.purge.interval-ms:3600000}")
+    public void run() {
+        var before = LocalDateTime.now().minus(retention);
+        for (String tenant : tenants == null ? Collections.<String>singletonList(null) : tenants.all()) {
+            var purged = TenantContext.call(tenant, () -> purge(before));
+            if (purged > 0) {
+                log.info("Purged {} deleted products of tenant {}", purged, TenantContext.name(tenant));
+            }
+        }
+    }
+
+    /**
+     * Purges the products of the current tenant.
+     */
+    public long purge(LocalDateTime before) {
+        long purged = 0;
+        while (true) {
+            var ids = shards == null ? repository.findPurgeableIds(before, chunkSize)
+                    : shards.findPurgeableIds(before, chunkSize);
+            if (ids.isEmpty()) {
+                return purged;
+            }
+            purged += shards == null ? repository.purgeAllById(ids) : shards.purgeAllById(ids);
+            if (ids.size() < chunkSize) {
+                return purged;
+            }
+            try {
+                Thread.sleep(pauseMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return purged;
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.product.service;
+
+import com.product.model.Product;
+import com.product.repository.MatchMode;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Optional;
+
+/**
+ * In-process copy of the catalog that {@link ProductService} reads before going to the database.
+ */
+public interface ProductReadModel {
+
+    boolean isLoaded();
+
+    /**
+     * @return the product, or empty when this read model does not know it
+     */
+    Optional<Product> get(long id);
+
+    /**
+     * @return whether {@link #search} can serve this page
+     */
+    boolean supports(Pageable pageable);
+
+    Page<Product> search(String name, String description, MatchMode match, Pageable pageable);
+}
@@ -1,12 +1,25 @@
 package com.product.service;
 
 import com.product.dto.Pagination;
+import com.product.dto.ProductLookup;
 import com.product.dto.Response;
+import com.product.event.ProductChangedEvent;
+import com.product.idfilter.ProductIdFilter;
 import com.product.model.Product;
+import com.product.model.SearchText;
+import com.product.overload.DatabaseCircuitBreaker;
+import com.product.overload.StaleCache;
+import com.product.repository.MatchMode;
 import com.product.repository.ProductRepository;
 import com.product.repository.ProductWithDescriptionLikeSpecification;
 import com.product.repository.ProductWithNameLikeSpecification;
-import org.springframework.dao.EmptyResultDataAccessException;
+import com.product.suggest.SuggestService;
+import com.product.tenant.TenantContext;
+import com.product.warmup.AccessLog;
+import com.product.writebehind.WriteBehindBuffer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
@@ -15,27 +28,84 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 @Service
 public class ProductService {
 
     private final ProductRepository repository;
 
-    public ProductService(ProductRepository repository) {
+    private final ApplicationEventPublisher events;
+
+    @Autowired(required = false)
+    private ParallelSearchExecutor parallelSearch;
+
+    @Autowired(required = false)
+    private List<ProductReadModel> readModels = List.of();
+
+    @Autowired(required = false)
+    private WriteBehindBuffer writeBehind;
+
+    @Autowired(required = false)
+    private AccessLog accessLog;
+
+    @Autowired(required = false)
+    private SuggestService suggestions;
+
+    @Autowired(required = false)
+    private SearchDeadlineExecutor deadlines;
+
+    @Autowired(required = false)
+    private ProductIdFilter idFilter;
+
+    @Autowired(required = false)
+    private DatabaseCircuitBreaker circuitBreaker;
+
+    @Autowired(required = false)
+    private StaleCache staleCache;
+
+    @Value("${product.lookup.max-ids:500}")
+    private int maxLookupIds = 500;
+
+    @Value("${product.lookup.chunk-size:100}")
+    private int lookupChunkSize = 100;
+
+    public ProductService(ProductRepository repository, ApplicationEventPublisher events) {
         this.repository = repository;
+        this.events = events;
     }
 
     public Response<Product> search(String name, String description, Pageable pageable) {
+        return search(name, description, MatchMode.CONTAINS, pageable);
+    }
+
+    public Response<Product> search(String name, String description, MatchMode match, Pageable pageable) {
+        if (accessLog() != null) {
+            accessLog().recordSearch(name, description, pageable);
+        }
         Page<Product> productsFound;
         try {
-            var spec = Specification
-                    .where(new ProductWithNameLikeSpecification(name))
-                    .and(new ProductWithDescriptionLikeSpecification(description));
-
-            productsFound = repository.findAll(spec, pageable);
-
+            productsFound = readModels().stream().anyMatch(readModel -> readModel.supports(pageable))
+                    ? findAll(name, description, match, pageable)
+                    : database(() -> findAll(name, description, match, pageable));
         } catch (Exception ex) {
+            var stale = staleCache == null ? Optional.<Response<Product>>empty()
+                    : staleCache.search(name, description, match, pageable);
+            if (stale.isPresent()) {
+                return stale.get();
+            }
+            if (ex instanceof ResponseStatusException) {
+                throw (ResponseStatusException) ex;
+            }
             throw new ResponseStatusException(
                     HttpStatus.INTERNAL_SERVER_ERROR, "Unexpect error", ex);
         }
@@ -44,15 +114,21 @@ public class ProductService {
                     HttpStatus.NO_CONTENT, "Products Not Found");
         }
 
-        return new Response<>(productsFound.getContent(),
+        var response = new Response<>(productsFound.getContent(),
                 new Pagination(productsFound.getNumber(), productsFound.getTotalElements(), productsFound.getTotalPages()));
+        if (staleCache != null) {
+            staleCache.put(name, description, match, pageable, response);
+        }
+        return response;
     }
 
     public ResponseEntity<Product> create(Product product) {
         try {
-            var productSaved = repository
-                    .save(new Product(product.getName(), product.getDescription()));
+            var productSaved = database(() -> save(new Product(product.getName(), product.getDescription())));
+            events.publishEvent(ProductChangedEvent.created(productSaved));
             return new ResponseEntity<>(productSaved, HttpStatus.CREATED);
+        } catch (ResponseStatusException e) {
+            throw e;
         } catch (Exception e) {
             return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -60,10 +136,17 @@ public class ProductService {
 
     public ResponseEntity<HttpStatus> delete(long id) {
         try {
-            repository.deleteById(id);
-            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
-        } catch (EmptyResultDataAccessException e) {
+            var now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            if (writeBehind() != null) {
+                writeBehind().discard(id);
+            }
+            if (database(() -> softDeleteById(id, now)) == 0) {
+                return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+            }
+            events.publishEvent(ProductChangedEvent.deleted(id, now));
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+        } catch (ResponseStatusException e) {
+            throw e;
         } catch (Exception e) {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -71,19 +154,202 @@ public class ProductService {
     }
 
     public ResponseEntity<Product> get(long id) {
-        Optional<Product> product = repository.findById(id);
+        if (accessLog() != null) {
+            accessLog().recordGet(id);
+        }
+        if (suggestions() != null) {
+            suggestions().recordRead(id);
+        }
+        Optional<Product> product = cached(id);
+        if (product.isEmpty()) {
+            try {
+                product = findIfMightExist(id);
+            } catch (RuntimeException e) {
+                var stale = staleCache == null ? Optional.<StaleCache.Stale<Product>>empty() : staleCache.get(id);
+                if (stale.isEmpty()) {
+                    throw e;
+                }
+                return new ResponseEntity<>(stale.get().getValue(), StaleCache.headers(stale.get().getAge()), HttpStatus.OK);
+            }
+            if (staleCache != null) {
+                product.ifPresent(staleCache::put);
+            }
+        }
         return product.map(value ->
                         new ResponseEntity<>(value, HttpStatus.OK))
                 .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
+    /**
+     * Resolves many ids at once: products in memory first, then the rest with one {@code IN} query
+     * per {@code product.lookup.chunk-size} ids. Repeated ids are answered once.
+     */
+    public ProductLookup getAll(List<Long> ids) {
+        var distinct = new LinkedHashSet<>(ids);
+        if (distinct.size() > maxLookupIds) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST, "At most " + maxLookupIds + " ids per lookup");
+        }
+        Map<Long, Product> found = new HashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long id : distinct) {
+            if (accessLog() != null) {
+                accessLog().recordGet(id);
+            }
+            if (suggestions() != null) {
+                suggestions().recordRead(id);
+            }
+            var product = cached(id);
+            if (product.isPresent()) {
+                found.put(id, product.get());
+            } else if (idFilter() == null || idFilter().mightExist(id)) {
+                misses.add(id);
+            }
+        }
+        for (int from = 0; from < misses.size(); from += lookupChunkSize) {
+            var chunk = misses.subList(from, Math.min(misses.size(), from + lookupChunkSize));
+            for (Product product : database(() -> findAllById(chunk))) {
+                found.put(product.getId(), product);
+            }
+        }
+        List<Product> products = new ArrayList<>(found.size());
+        List<Long> notFound = new ArrayList<>();
+        for (Long id : distinct) {
+            var product = found.get(id);
+            if (product != null) {
+                products.add(product);
+            } else {
+                notFound.add(id);
+            }
+        }
+        if (idFilter() != null) {
+            misses.stream().filter(id -> !found.containsKey(id)).forEach(id -> idFilter().recordFalsePositive());
+        }
+        return new ProductLookup(products, notFound);
+    }
+
     public ResponseEntity<Product> update(long id, Product product) {
-        return repository.findById(id).map(value ->
+        if (writeBehind() != null) {
+            return buffered(id).or(() -> database(() -> findById(id))).map(value ->
+                    new ResponseEntity<>(writeBehind().put(value, product.getName(), product.getDescription()), HttpStatus.OK)
+            ).orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+        }
+        // a copy, the product read may be managed and would be flushed even when deleted since
+        return database(() -> findById(id)).flatMap(value ->
+                database(() -> saveIfExists(new Product(value.getId(), product.getName(), product.getDescription(),
+                        value.getCreateDateTime(), value.getUpdateDateTime())))
+        ).map(productSaved ->
         {
-            value.setName(product.getName());
-            value.setDescription(product.getDescription());
-            return new ResponseEntity<>(repository.save(value), HttpStatus.OK);
+            events.publishEvent(ProductChangedEvent.updated(productSaved));
+            return new ResponseEntity<>(productSaved, HttpStatus.OK);
 
         }).orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
+
+    private Optional<Product> cached(long id) {
+        return buffered(id)
+                .or(() -> readModels().stream()
+                        .filter(ProductReadModel::isLoaded)
+                        .map(readModel -> readModel.get(id))
+                        .flatMap(Optional::stream)
+                        .findFirst());
+    }
+
+    private Optional<Product> buffered(long id) {
+        return writeBehind() == null ? Optional.empty() : writeBehind().get(id);
+    }
+
+    private Optional<Product> findIfMightExist(long id) {
+        if (idFilter() == null) {
+            return database(() -> findById(id));
+        }
+        if (!idFilter().mightExist(id)) {
+            return Optional.empty();
+        }
+        var product = database(() -> findById(id));
+        if (product.isEmpty()) {
+            idFilter().recordFalsePositive();
+        }
+        return product;
+    }
+
+    /*
+     * The in-memory indexes and buffers hold the default catalog only, the other tenants go to
+     * their database.
+     */
+
+    private List<ProductReadModel> readModels() {
+        return TenantContext.isDefault() ? readModels : List.of();
+    }
+
+    private WriteBehindBuffer writeBehind() {
+        return TenantContext.isDefault() ? writeBehind : null;
+    }
+
+    private AccessLog accessLog() {
+        return TenantContext.isDefault() ? accessLog : null;
+    }
+
+    private SuggestService suggestions() {
+        return TenantContext.isDefault() ? suggestions : null;
+    }
+
+    private ProductIdFilter idFilter() {
+        return TenantContext.isDefault() ? idFilter : null;
+    }
+
+    /**
+     * Runs a call to the database through the circuit breaker, when there is one: while the
+     * database is overloaded it fails at once with 503 instead of waiting for a connection.
+     */
+    private <T> T database(Supplier<T> call) {
+        return circuitBreaker == null ? call.get() : circuitBreaker.call(call);
+    }
+
+    protected Page<Product> findAll(String name, String description, MatchMode match, Pageable pageable) {
+        for (ProductReadModel readModel : readModels()) {
+            if (readModel.supports(pageable)) {
+                return readModel.search(name, description, match, pageable);
+            }
+        }
+        if (parallelSearch != null && match == MatchMode.CONTAINS && parallelSearch.supports(name, description, pageable)) {
+            return parallelSearch.search(name, description, pageable);
+        }
+        var spec = Specification
+                .where(new ProductWithNameLikeSpecification(name, match))
+                .and(new ProductWithDescriptionLikeSpecification(description, match));
+        if (deadlines != null && deadlines.isActive()) {
+            return deadlines.findAll(spec, pageable);
+        }
+        return repository.findAll(spec, pageable);
+    }
+
+    protected Optional<Product> findById(long id) {
+        return repository.findById(id);
+    }
+
+    protected List<Product> findAllById(Collection<Long> ids) {
+        return repository.findAllById(ids);
+    }
+
+    protected Product save(Product product) {
+        return repository.save(product);
+    }
+
+    /**
+     * Saves a product read before, empty when it has been deleted since.
+     */
+    protected Optional<Product> saveIfExists(Product product) {
+        var now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        if (repository.updateIfExists(product.getId(), product.getName(), product.getDescription(),
+                SearchText.normalize(product.getName()), SearchText.normalize(product.getDescription()), now) == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new Product(product.getId(), product.getName(), product.getDescription(),
+                product.getCreateDateTime(), now));
+    }
+
+    protected int softDeleteById(long id, LocalDateTime now) {
+        return repository.softDeleteById(id, now);
+    }
 }
@@ -0,0 +1,303 @@
+package com.product.service;
+
+import com.product.dto.Response;
+import com.product.model.Product;
+import com.product.tenant.TenantContext;
+import com.product.timing.RequestTiming;
+import org.hibernate.Session;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.jpa.EntityManagerProxy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Runs searches on a bounded pool with a deadline of {@code product.search.deadline.timeout-ms}.
+ * The database queries of a search get a JDBC query timeout from what is left of the deadline and
+ * are cancelled when it passes or the client goes away, so a slow filter never holds a request
+ * thread or a connection past it. Searches that accept partial results get the rows read before
+ * the deadline, flagged in {@code Pagination}; the others fail with 503.
+ */
+@Component
+@ConditionalOnProperty(prefix = "product.search.deadline", name = "enabled", havingValue = "true")
+public class SearchDeadlineExecutor {
+
+    private static final long GRACE_MILLIS = 50;
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactions;
+
+    private final long timeoutMillis;
+
+    private final ThreadPoolExecutor pool;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "product-search-deadline");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SearchDeadlineExecutor(EntityManager entityManager,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${product.search.deadline.timeout-ms:2000}") long timeoutMillis,
+                                  @Value("${product.search.deadline.threads:8}") int threads,
+                                  @Value("${product.search.deadline.queue-size:64}") int queueSize) {
+        this.entityManager = entityManager;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.transactions.setReadOnly(true);
+        this.timeoutMillis = timeoutMillis;
+        var count = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    var thread = new Thread(runnable, "product-search-deadline-" + count.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Runs {@code search} on the pool. The returned future fails with 503 when the pool is full or
+     * the deadline passes; cancelling it cancels the running query.
+     */
+    public CompletableFuture<Response<Product>> submit(Supplier<Response<Product>> search, boolean partial) {
+        var deadline = new Deadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis), partial);
+        var result = new CompletableFuture<Response<Product>>();
+        try {
+            pool.execute(TenantContext.propagate(RequestTiming.propagate(() -> run(search, deadline, result))));
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new ResponseStatusException(
+                    HttpStatus.SERVICE_UNAVAILABLE, "Too many searches in progress"));
+            return result;
+        }
+        var expiry = timer.schedule(() -> {
+            deadline.expire();
+            if (partial) {
+                // a partial search answers itself once its query is cancelled, give it a moment to do so
+                timer.schedule(() -> result.completeExceptionally(deadlineExceeded()), GRACE_MILLIS, TimeUnit.MILLISECONDS);
+            } else {
+                result.completeExceptionally(deadlineExceeded());
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+        result.whenComplete((response, error) -> {
+            expiry.cancel(false);
+            if (result.isCancelled()) {
+                deadline.expire();
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Whether the calling thread runs a search of this executor, whose queries should go through
+     * {@link #findAll}.
+     */
+    public boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * {@code findAll(spec, pageable)} within the deadline of the current search: the rows are
+     * streamed, so when the deadline cancels the query the ones read so far are still there.
+     */
+    public Page<Product> findAll(Specification<Product> spec, Pageable pageable) {
+        var deadline = CURRENT.get();
+        return transactions.execute(status -> {
+            // the session itself, not the shared proxy, which would resolve to nothing on the timer thread
+            var target = entityManager instanceof EntityManagerProxy
+                    ? ((EntityManagerProxy) entityManager).getTargetEntityManager() : entityManager;
+            var session = target.unwrap(Session.class);
+            deadline.attach(session);
+            try {
+                List<Product> rows = new ArrayList<>();
+                // checked per row as well: drivers that stream rows only honour cancel while executing
+                try (Stream<Product> stream = pageQuery(spec, pageable, deadline).getResultStream()) {
+                    var iterator = stream.iterator();
+                    while (!deadline.expired && iterator.hasNext()) {
+                        rows.add(iterator.next());
+                    }
+                } catch (RuntimeException e) {
+                    if (!deadline.expired) {
+                        throw e;
+                    }
+                }
+                if (deadline.expired) {
+                    if (!deadline.truncate(rows.isEmpty())) {
+                        throw deadlineExceeded();
+                    }
+                    status.setRollbackOnly();
+                    return pageable.isUnpaged() ? new PageImpl<>(rows)
+                            : new PageImpl<>(rows, pageable, pageable.getOffset() + rows.size());
+                }
+                if (pageable.isUnpaged()) {
+                    return new PageImpl<>(rows);
+                }
+                return PageableExecutionUtils.getPage(rows, pageable, () -> {
+                    try {
+                        return countQuery(spec, deadline).getSingleResult();
+                    } catch (RuntimeException e) {
+                        if (!deadline.truncate(false)) {
+                            throw e;
+                        }
+                        status.setRollbackOnly();
+                        return pageable.getOffset() + rows.size();
+                    }
+                });
+            } finally {
+                deadline.detach();
+                // some drivers (H2) keep the timeout on the connection, clear it before it goes back to the pool
+                session.doWork(connection -> {
+                    try (var statement = connection.createStatement()) {
+                        statement.setQueryTimeout(0);
+                    }
+                });
+            }
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.shutdownNow();
+        timer.shutdownNow();
+    }
+
+    private void run(Supplier<Response<Product>> search, Deadline deadline, CompletableFuture<Response<Product>> result) {
+        if (result.isDone()) {
+            return;
+        }
+        CURRENT.set(deadline);
+        try {
+            var response = search.get();
+            if (deadline.truncated && response.getPagination() != null) {
+                response.getPagination().setPartial(true);
+            }
+            result.complete(response);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(deadline.expired ? deadlineExceeded() : e);
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    private TypedQuery<Product> pageQuery(Specification<Product> spec, Pageable pageable, Deadline deadline) {
+        var builder = entityManager.getCriteriaBuilder();
+        var query = builder.createQuery(Product.class);
+        var root = query.from(Product.class);
+        var predicate = spec.toPredicate(root, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, builder));
+        var typed = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typed.setFirstResult((int) pageable.getOffset());
+            typed.setMaxResults(pageable.getPageSize());
+            typed.setHint(QueryHints.FETCH_SIZE, pageable.getPageSize());
+        }
+        return deadline.limit(typed);
+    }
+
+    private TypedQuery<Long> countQuery(Specification<Product> spec, Deadline deadline) {
+        var builder = entityManager.getCriteriaBuilder();
+        var query = builder.createQuery(Long.class);
+        var root = query.from(Product.class);
+        var predicate = spec.toPredicate(root, query, builder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(builder.count(root));
+        return deadline.limit(entityManager.createQuery(query));
+    }
+
+    private static ResponseStatusException deadlineExceeded() {
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Search deadline exceeded");
+    }
+
+    private static final class Deadline {
+
+        private final long nanos;
+
+        private final boolean partial;
+
+        private volatile boolean expired;
+
+        private volatile boolean truncated;
+
+        private Session session;
+
+        private Deadline(long nanos, boolean partial) {
+            this.nanos = nanos;
+            this.partial = partial;
+        }
+
+        /**
+         * Sets the JDBC query timeout to what is left of the deadline, rounded up to the whole
+         * seconds JDBC supports; the deadline timer cancels the query on time.
+         */
+        private <T> TypedQuery<T> limit(TypedQuery<T> query) {
+            long left = nanos - System.nanoTime();
+            if (expired || left <= 0) {
+                throw deadlineExceeded();
+            }
+            return query.setHint(QueryHints.TIMEOUT_HIBERNATE, (int) Math.max(1, TimeUnit.NANOSECONDS.toSeconds(left + 999_999_999)));
+        }
+
+        private synchronized void attach(Session session) {
+            if (expired) {
+                throw deadlineExceeded();
+            }
+            this.session = session;
+        }
+
+        private synchronized void detach() {
+            session = null;
+        }
+
+        private synchronized void expire() {
+            expired = true;
+            if (session != null) {
+                session.cancelQuery();
+            }
+        }
+
+        /**
+         * Whether a failed query ends the search with what was read so far.
+         */
+        private boolean truncate(boolean nothingRead) {
+            if (!expired || !partial || nothingRead) {
+                return false;
+            }
+            truncated = true;
+            return true;
+        }
+    }
+}
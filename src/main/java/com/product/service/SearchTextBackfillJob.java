@@ -0,0 +1,76 @@
+package com.product.service;
+
+import com.product.model.Product;
+import com.product.model.SearchText;
+import com.product.repository.ProductRepository;
+import com.product.shard.ShardedProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills the normalized search columns of products stored before they existed; until then those
+ * products are invisible to name and description filters. Works in keyset chunks with a pause in
+ * between, like {@link ProductPurgeJob}, and finds nothing to do once the table is backfilled.
+ * With sharding it backfills the rows of every shard.
+ */
+@Component
+public class SearchTextBackfillJob {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchTextBackfillJob.class);
+
+    private final ProductRepository repository;
+
+    private final int chunkSize;
+
+    private final long pauseMillis;
+
+    @Autowired(required = false)
+    private ShardedProductRepository shards;
+
+    public SearchTextBackfillJob(ProductRepository repository,
+                                 @Value("${product.search-text.backfill.chunk-size:500}") int chunkSize,
+                                 @Value("${product.search-text.backfill.pause-ms:50}") long pauseMillis) {
+        this.repository = repository;
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pauseMillis;
+    }
+
+    @Scheduled(initialDelayString = "${product.search-text.backfill.initial-delay-ms:10000}",
+            fixedDelayString = "${product.search-text.backfill.interval-ms:3600000}")
+    public void run() {
+        var filled = backfill();
+        if (filled > 0) {
+            log.info("Backfilled search text of {} products", filled);
+        }
+    }
+
+    public long backfill() {
+        long filled = 0;
+        long after = 0;
+        while (true) {
+            var products = shards == null ? repository.findWithoutSearchText(after, PageRequest.of(0, chunkSize))
+                    : shards.findWithoutSearchText(after, chunkSize);
+            for (Product product : products) {
+                var name = SearchText.normalize(product.getName());
+                var description = SearchText.normalize(product.getDescription());
+                filled += shards == null ? repository.updateSearchText(product.getId(), name, description)
+                        : shards.updateSearchText(product.getId(), name, description);
+            }
+            if (products.size() < chunkSize) {
+                return filled;
+            }
+            after = products.get(products.size() - 1).getId();
+            try {
+                Thread.sleep(pauseMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return filled;
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.product.service;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+public final class SortedIdSets {
+
+    private SortedIdSets() {
+    }
+
+    /**
+     * Intersects ascending id arrays, starting from the smallest one so every step works on the
+     * most selective candidates found so far.
+     */
+    public static long[] intersect(List<long[]> sets) {
+        var bySize = sets.stream().sorted(Comparator.comparingInt(ids -> ids.length)).toArray(long[][]::new);
+        var result = bySize[0];
+        for (int i = 1; i < bySize.length && result.length > 0; i++) {
+            result = intersect(result, bySize[i]);
+        }
+        return result;
+    }
+
+    static long[] intersect(long[] small, long[] large) {
+        var result = new long[small.length];
+        int size = 0;
+        int from = 0;
+        for (long id : small) {
+            from = gallop(large, from, id);
+            if (from == large.length) {
+                break;
+            }
+            if (large[from] == id) {
+                result[size++] = id;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    /**
+     * @return the first index at or after {@code from} whose value is not lower than {@code key}
+     */
+    private static int gallop(long[] values, int from, long key) {
+        int low = from;
+        int high = from;
+        int step = 1;
+        while (high < values.length && values[high] < key) {
+            low = high + 1;
+            high = from + step;
+            step <<= 1;
+        }
+        high = Math.min(high, values.length);
+        int found = Arrays.binarySearch(values, low, high, key);
+        return found >= 0 ? found : -found - 1;
+    }
+}
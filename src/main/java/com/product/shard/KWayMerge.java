@@ -0,0 +1,56 @@
+package com.product.shard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+final class KWayMerge {
+
+    private KWayMerge() {
+    }
+
+    /**
+     * Merges lists already sorted by {@code comparator}, skipping the first {@code skip} elements
+     * of the merged sequence and returning at most {@code limit} of the following ones.
+     */
+    static <T> List<T> merge(List<List<T>> sorted, Comparator<? super T> comparator, long skip, int limit) {
+        var heads = new PriorityQueue<Cursor<T>>((a, b) -> comparator.compare(a.head(), b.head()));
+        for (List<T> list : sorted) {
+            if (!list.isEmpty()) {
+                heads.add(new Cursor<>(list));
+            }
+        }
+        List<T> merged = new ArrayList<>(limit);
+        long position = 0;
+        while (!heads.isEmpty() && merged.size() < limit) {
+            var cursor = heads.poll();
+            if (position++ >= skip) {
+                merged.add(cursor.head());
+            }
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    private static final class Cursor<T> {
+
+        private final List<T> list;
+
+        private int index;
+
+        Cursor(List<T> list) {
+            this.list = list;
+        }
+
+        T head() {
+            return list.get(index);
+        }
+
+        boolean advance() {
+            return ++index < list.size();
+        }
+    }
+}
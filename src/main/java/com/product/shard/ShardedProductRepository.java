@@ -0,0 +1,360 @@
+package com.product.shard;
+
+import com.product.model.Product;
+import com.product.model.SearchText;
+import com.product.repository.MatchMode;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Spreads products over several databases by a hash of their id. Point operations touch a
+ * single shard; searches run on every shard in parallel and the sorted partial results are
+ * merged, so each shard has to return up to {@code offset + size} rows for a page.
+ */
+public class ShardedProductRepository implements AutoCloseable {
+
+    private static final String SCHEMA = "create table if not exists products (" +
+            "id bigint primary key, " +
+            "name varchar(255) not null, " +
+            "description varchar(255) not null, " +
+            "create_date_time timestamp, " +
+            "update_date_time timestamp, " +
+            "delete_date_time timestamp)";
+
+    private static final String[] MIGRATIONS = {
+            "alter table products add column if not exists name_normalized varchar(255)",
+            "alter table products add column if not exists description_normalized varchar(255)",
+            "create index if not exists products_name_normalized on products (name_normalized)",
+            "create index if not exists products_description_normalized on products (description_normalized)"};
+
+    private static final String COLUMNS = "id, name, description, create_date_time, update_date_time";
+
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "id", "id",
+            "name", "name",
+            "description", "description",
+            "createDateTime", "create_date_time",
+            "updateDateTime", "update_date_time");
+
+    private static final Map<String, Function<Product, Comparable<?>>> SORT_KEYS = Map.of(
+            "id", Product::getId,
+            "name", Product::getName,
+            "description", Product::getDescription,
+            "createDateTime", Product::getCreateDateTime,
+            "updateDateTime", Product::getUpdateDateTime);
+
+    private static final RowMapper<Product> MAPPER = (rs, rowNum) -> new Product(
+            rs.getLong("id"),
+            rs.getString("name"),
+            rs.getString("description"),
+            rs.getObject("create_date_time", LocalDateTime.class),
+            rs.getObject("update_date_time", LocalDateTime.class));
+
+    // the change feed needs the soft deleted rows as tombstones
+    private static final RowMapper<Product> CHANGE_MAPPER = (rs, rowNum) -> new Product(
+            rs.getLong("id"),
+            rs.getString("name"),
+            rs.getString("description"),
+            rs.getObject("create_date_time", LocalDateTime.class),
+            rs.getObject("update_date_time", LocalDateTime.class),
+            rs.getObject("delete_date_time", LocalDateTime.class));
+
+    private static final Comparator<Product> CHANGE_ORDER =
+            Comparator.comparing(Product::getUpdateDateTime).thenComparingLong(Product::getId);
+
+    private final List<DataSource> dataSources;
+
+    private final List<NamedParameterJdbcTemplate> shards;
+
+    private final SnowflakeIdGenerator ids;
+
+    private final ExecutorService executor;
+
+    public ShardedProductRepository(List<DataSource> dataSources, SnowflakeIdGenerator ids) {
+        this.dataSources = dataSources;
+        this.shards = dataSources.stream().map(NamedParameterJdbcTemplate::new).collect(Collectors.toList());
+        this.ids = ids;
+        var threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(dataSources.size(), runnable -> {
+            var thread = new Thread(runnable, "product-shard-" + threads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        shards.forEach(shard -> {
+            shard.getJdbcTemplate().execute(SCHEMA);
+            shard.getJdbcTemplate().batchUpdate(MIGRATIONS);
+        });
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    public int shardOf(long id) {
+        // murmur3 finalizer: snowflake ids differ mostly in their high bits
+        long hash = id;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return (int) Math.floorMod(hash, (long) shards.size());
+    }
+
+    public Optional<Product> findById(long id) {
+        var products = shard(id).query(
+                "select " + COLUMNS + " from products where id = :id and delete_date_time is null",
+                new MapSqlParameterSource("id", id), MAPPER);
+        return products.stream().findFirst();
+    }
+
+    /**
+     * One {@code IN} query per shard holding any of the ids, run in parallel.
+     */
+    public List<Product> findAllById(Collection<Long> ids) {
+        Map<Integer, List<Long>> byShard = ids.stream().collect(Collectors.groupingBy(this::shardOf));
+        List<CompletableFuture<List<Product>>> futures = new ArrayList<>(byShard.size());
+        byShard.forEach((shard, shardIds) -> futures.add(CompletableFuture.supplyAsync(() -> shards.get(shard).query(
+                "select " + COLUMNS + " from products where id in (:ids) and delete_date_time is null",
+                new MapSqlParameterSource("ids", shardIds), MAPPER), executor)));
+        List<Product> products = new ArrayList<>(ids.size());
+        futures.forEach(future -> products.addAll(future.join()));
+        return products;
+    }
+
+    /**
+     * Inserts a new product, or updates an existing one.
+     *
+     * @throws EmptyResultDataAccessException when the product to update is gone, see {@link #update}
+     */
+    public Product save(Product product) {
+        if (product.getId() == 0) {
+            var now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            var created = new Product(ids.nextId(), product.getName(), product.getDescription(), now, now);
+            shard(created.getId()).update(
+                    "insert into products (" + COLUMNS + ", name_normalized, description_normalized) " +
+                            "values (:id, :name, :description, :now, :now, :nameNormalized, :descriptionNormalized)",
+                    parameters(created).addValue("now", now));
+            return created;
+        }
+        return update(product).orElseThrow(() -> new EmptyResultDataAccessException(
+                "Product " + product.getId() + " does not exist", 1));
+    }
+
+    /**
+     * @return the updated product, empty when it was deleted, maybe since it was read
+     */
+    public Optional<Product> update(Product product) {
+        var now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        int updated = shard(product.getId()).update(
+                "update products set name = :name, description = :description, update_date_time = :now, " +
+                        "name_normalized = :nameNormalized, description_normalized = :descriptionNormalized " +
+                        "where id = :id and delete_date_time is null",
+                parameters(product).addValue("now", now));
+        return updated == 0 ? Optional.empty() : Optional.of(new Product(product.getId(), product.getName(),
+                product.getDescription(), product.getCreateDateTime(), now));
+    }
+
+    public int softDeleteById(long id, LocalDateTime now) {
+        return shard(id).update(
+                "update products set delete_date_time = :now, update_date_time = :now " +
+                        "where id = :id and delete_date_time is null",
+                new MapSqlParameterSource("id", id).addValue("now", now));
+    }
+
+    public Page<Product> findAll(String name, String description, Pageable pageable) {
+        return findAll(name, description, MatchMode.CONTAINS, pageable);
+    }
+
+    public Page<Product> findAll(String name, String description, MatchMode match, Pageable pageable) {
+        var where = new StringBuilder(" from products where delete_date_time is null");
+        var parameters = new MapSqlParameterSource();
+        if (name != null) {
+            where.append(" and name_normalized like :name");
+            parameters.addValue("name", match.pattern(name));
+        }
+        if (description != null) {
+            where.append(" and description_normalized like :description");
+            parameters.addValue("description", match.pattern(description));
+        }
+        var select = new StringBuilder("select ").append(COLUMNS).append(where).append(orderBy(pageable.getSort()));
+        if (pageable.isPaged()) {
+            select.append(" limit :limit");
+            parameters.addValue("limit", pageable.getOffset() + pageable.getPageSize());
+        }
+        var count = "select count(*)" + where;
+
+        List<CompletableFuture<ShardPage>> futures = new ArrayList<>(shards.size());
+        for (NamedParameterJdbcTemplate shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(() -> new ShardPage(
+                    shard.query(select.toString(), parameters, MAPPER),
+                    shard.queryForObject(count, parameters, Long.class)), executor));
+        }
+        List<List<Product>> partials = new ArrayList<>(shards.size());
+        long total = 0;
+        for (CompletableFuture<ShardPage> future : futures) {
+            var page = future.join();
+            partials.add(page.products);
+            total += page.total;
+        }
+        if (pageable.isUnpaged()) {
+            return new PageImpl<>(KWayMerge.merge(partials, comparator(pageable.getSort()), 0, Integer.MAX_VALUE));
+        }
+        var content = KWayMerge.merge(partials, comparator(pageable.getSort()), pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * The changes of every shard, soft deleted rows included, merged in (update time, id) order.
+     */
+    public List<Product> findChangedSince(LocalDateTime since, long id, int limit) {
+        var parameters = new MapSqlParameterSource("since", since).addValue("id", id).addValue("limit", limit);
+        return KWayMerge.merge(onEveryShard(shard -> shard.query(
+                "select " + COLUMNS + ", delete_date_time from products " +
+                        "where update_date_time > :since or (update_date_time = :since and id > :id) " +
+                        "order by update_date_time, id limit :limit", parameters, CHANGE_MAPPER)),
+                CHANGE_ORDER, 0, limit);
+    }
+
+    /**
+     * @return the lowest ids, across the shards, of the products deleted before {@code before}
+     */
+    public List<Long> findPurgeableIds(LocalDateTime before, int limit) {
+        var parameters = new MapSqlParameterSource("before", before).addValue("limit", limit);
+        return KWayMerge.merge(onEveryShard(shard -> shard.queryForList(
+                "select id from products where delete_date_time < :before order by id limit :limit",
+                parameters, Long.class)), Comparator.<Long>naturalOrder(), 0, limit);
+    }
+
+    public int purgeAllById(Collection<Long> ids) {
+        int purged = 0;
+        for (Map.Entry<Integer, List<Long>> shardIds : ids.stream().collect(Collectors.groupingBy(this::shardOf)).entrySet()) {
+            purged += shards.get(shardIds.getKey()).update("delete from products where id in (:ids)",
+                    new MapSqlParameterSource("ids", shardIds.getValue()));
+        }
+        return purged;
+    }
+
+    /**
+     * Keyset pagination, by id across the shards, over the whole catalog.
+     */
+    public List<Product> findPageAfter(long after, int limit) {
+        var parameters = new MapSqlParameterSource("after", after).addValue("limit", limit);
+        return KWayMerge.merge(onEveryShard(shard -> shard.query(
+                "select " + COLUMNS + " from products where id > :after and delete_date_time is null " +
+                        "order by id limit :limit", parameters, MAPPER)), Comparator.comparingLong(Product::getId), 0, limit);
+    }
+
+    /**
+     * Keyset pagination, by id across the shards, over the rows stored before the normalized
+     * search columns existed.
+     */
+    public List<Product> findWithoutSearchText(long after, int limit) {
+        var parameters = new MapSqlParameterSource("after", after).addValue("limit", limit);
+        return KWayMerge.merge(onEveryShard(shard -> shard.query(
+                "select " + COLUMNS + " from products where id > :after " +
+                        "and (name_normalized is null or description_normalized is null) order by id limit :limit",
+                parameters, MAPPER)), Comparator.comparingLong(Product::getId), 0, limit);
+    }
+
+    /**
+     * Only fills columns still empty, a product updated in the meantime already has its own.
+     */
+    public int updateSearchText(long id, String name, String description) {
+        return shard(id).update("update products set name_normalized = :name, description_normalized = :description " +
+                        "where id = :id and (name_normalized is null or description_normalized is null)",
+                new MapSqlParameterSource("id", id).addValue("name", name).addValue("description", description));
+    }
+
+    @Override
+    public void close() throws Exception {
+        executor.shutdownNow();
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof AutoCloseable) {
+                ((AutoCloseable) dataSource).close();
+            }
+        }
+    }
+
+    private NamedParameterJdbcTemplate shard(long id) {
+        return shards.get(shardOf(id));
+    }
+
+    private <T> List<List<T>> onEveryShard(Function<NamedParameterJdbcTemplate, List<T>> query) {
+        List<CompletableFuture<List<T>>> futures = new ArrayList<>(shards.size());
+        for (NamedParameterJdbcTemplate shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(() -> query.apply(shard), executor));
+        }
+        return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
+
+    private static MapSqlParameterSource parameters(Product product) {
+        return new MapSqlParameterSource("id", product.getId())
+                .addValue("name", product.getName())
+                .addValue("description", product.getDescription())
+                .addValue("nameNormalized", SearchText.normalize(product.getName()))
+                .addValue("descriptionNormalized", SearchText.normalize(product.getDescription()));
+    }
+
+    private static String orderBy(Sort sort) {
+        var orderBy = new StringBuilder(" order by ");
+        for (Sort.Order order : sort) {
+            orderBy.append(column(order.getProperty())).append(order.isAscending() ? " asc, " : " desc, ");
+        }
+        return orderBy.append("id asc").toString();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Comparator<Product> comparator(Sort sort) {
+        Comparator<Product> comparator = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            column(order.getProperty());
+            Function<Product, Comparable> key = (Function) SORT_KEYS.get(order.getProperty());
+            Comparator<Product> next = Comparator.comparing(key);
+            comparator = comparator.thenComparing(order.isAscending() ? next : next.reversed());
+        }
+        return comparator.thenComparingLong(Product::getId);
+    }
+
+    private static String column(String property) {
+        var column = SORT_COLUMNS.get(property);
+        if (column == null) {
+            throw new IllegalArgumentException("Cannot sort products by " + property);
+        }
+        return column;
+    }
+
+    private static final class ShardPage {
+
+        private final List<Product> products;
+
+        private final long total;
+
+        ShardPage(List<Product> products, long total) {
+            this.products = products;
+            this.total = total;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.product.shard;
+
+import com.product.model.Product;
+import com.product.repository.MatchMode;
+import com.product.repository.ProductRepository;
+import com.product.service.ProductService;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * {@link ProductService} backed by {@link ShardedProductRepository} instead of the JPA repository.
+ */
+public class ShardedProductService extends ProductService {
+
+    private final ShardedProductRepository shards;
+
+    public ShardedProductService(ProductRepository repository, ApplicationEventPublisher events,
+                                 ShardedProductRepository shards) {
+        super(repository, events);
+        this.shards = shards;
+    }
+
+    @Override
+    protected Page<Product> findAll(String name, String description, MatchMode match, Pageable pageable) {
+        return shards.findAll(name, description, match, pageable);
+    }
+
+    @Override
+    protected Optional<Product> findById(long id) {
+        return shards.findById(id);
+    }
+
+    @Override
+    protected List<Product> findAllById(Collection<Long> ids) {
+        return shards.findAllById(ids);
+    }
+
+    @Override
+    protected Product save(Product product) {
+        return shards.save(product);
+    }
+
+    @Override
+    protected Optional<Product> saveIfExists(Product product) {
+        return shards.update(product);
+    }
+
+    @Override
+    protected int softDeleteById(long id, LocalDateTime now) {
+        return shards.softDeleteById(id, now);
+    }
+}
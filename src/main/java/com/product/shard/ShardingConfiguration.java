@@ -0,0 +1,60 @@
+package com.product.shard;
+
+import com.product.repository.ProductRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Opt-in partitioning of the catalog. The shard datasources are owned by the repository and
+ * not exposed as beans, so the JPA datasource stays the auto-configured one. The change feed, the
+ * purge, the search text backfill and the suggestions go to the shards; the features that load or write products
+ * through the JPA datasource cannot be enabled together with sharding. Neither can the search deadline: the
+ * shard queries have no query timeout, a slow one would hold its connection past the deadline.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "product.sharding", name = "enabled", havingValue = "true")
+public class ShardingConfiguration {
+
+    private static final List<String> UNSUPPORTED = List.of("product.snapshot", "product.catalog",
+            "product.search.bitmap", "product.search.parallel", "product.write-behind", "product.facets",
+            "product.warm-up", "product.search.deadline");
+
+    public ShardingConfiguration(Environment environment) {
+        var enabled = UNSUPPORTED.stream()
+                .filter(feature -> environment.getProperty(feature + ".enabled", Boolean.class, false))
+                .collect(Collectors.toList());
+        if (!enabled.isEmpty()) {
+            throw new IllegalStateException("product.sharding cannot be enabled together with " + enabled);
+        }
+    }
+
+    @Bean(destroyMethod = "close")
+    public ShardedProductRepository shardedProductRepository(ShardingProperties properties) {
+        List<DataSource> dataSources = new ArrayList<>(properties.getShards());
+        for (int i = 0; i < properties.getShards(); i++) {
+            dataSources.add(DataSourceBuilder.create()
+                    .url(String.format(properties.getUrlTemplate(), i))
+                    .username(properties.getUsername())
+                    .password(properties.getPassword())
+                    .build());
+        }
+        return new ShardedProductRepository(dataSources, new SnowflakeIdGenerator(properties.getWorkerId()));
+    }
+
+    @Bean
+    @Primary
+    public ShardedProductService shardedProductService(ProductRepository repository, ApplicationEventPublisher events,
+                                                       ShardedProductRepository shards) {
+        return new ShardedProductService(repository, events, shards);
+    }
+}
@@ -0,0 +1,70 @@
+package com.product.shard;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "product.sharding")
+public class ShardingProperties {
+
+    private boolean enabled;
+
+    private int shards = 4;
+
+    /**
+     * JDBC url of each shard, {@code %d} is replaced by the shard index.
+     */
+    private String urlTemplate = "jdbc:h2:mem:product-shard-%d;DB_CLOSE_DELAY=-1";
+
+    private String username = "sa";
+
+    private String password = "sa";
+
+    private long workerId;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    public void setShards(int shards) {
+        this.shards = shards;
+    }
+
+    public String getUrlTemplate() {
+        return urlTemplate;
+    }
+
+    public void setUrlTemplate(String urlTemplate) {
+        this.urlTemplate = urlTemplate;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public long getWorkerId() {
+        return workerId;
+    }
+
+    public void setWorkerId(long workerId) {
+        this.workerId = workerId;
+    }
+}
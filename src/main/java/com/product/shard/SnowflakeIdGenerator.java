@@ -0,0 +1,50 @@
+package com.product.shard;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Globally unique, roughly time ordered ids: 41 bits of milliseconds since 2021-01-01,
+ * 10 bits of worker id and a 12 bit sequence. When the sequence of a millisecond runs out,
+ * or the clock goes backwards, ids keep increasing by borrowing from the next millisecond.
+ */
+public class SnowflakeIdGenerator {
+
+    static final long EPOCH = 1609459200000L;
+
+    private static final int WORKER_BITS = 10;
+
+    private static final int SEQUENCE_BITS = 12;
+
+    private final long workerId;
+
+    private final LongSupplier clock;
+
+    private final AtomicLong last = new AtomicLong();
+
+    public SnowflakeIdGenerator(long workerId) {
+        this(workerId, System::currentTimeMillis);
+    }
+
+    public SnowflakeIdGenerator(long workerId, LongSupplier clock) {
+        if (workerId < 0 || workerId >= 1L << WORKER_BITS) {
+            throw new IllegalArgumentException("workerId must be between 0 and " + ((1L << WORKER_BITS) - 1));
+        }
+        this.workerId = workerId;
+        this.clock = clock;
+    }
+
+    public long nextId() {
+        while (true) {
+            long previous = last.get();
+            long millis = clock.getAsLong() - EPOCH;
+            long next = millis > previous >>> SEQUENCE_BITS ? millis << SEQUENCE_BITS : previous + 1;
+            if (last.compareAndSet(previous, next)) {
+                long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+                return (next >>> SEQUENCE_BITS) << (WORKER_BITS + SEQUENCE_BITS)
+                        | workerId << SEQUENCE_BITS
+                        | sequence;
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.product.snapshot;
+
+import com.product.model.EpochMicros;
+import com.product.model.Product;
+import com.product.model.SearchText;
+import com.product.repository.MatchMode;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Read-only view of a memory-mapped {@link SnapshotFormat} file. Lookups binary search the
+ * index and searches scan the records in place, so only the returned products are allocated.
+ */
+public final class ProductSnapshot {
+
+    private final Path file;
+
+    private final ByteBuffer buffer;
+
+    private final int count;
+
+    private final int indexOffset;
+
+    private ProductSnapshot(Path file, ByteBuffer buffer, int count, int indexOffset) {
+        this.file = file;
+        this.buffer = buffer;
+        this.count = count;
+        this.indexOffset = indexOffset;
+    }
+
+    public static ProductSnapshot open(Path file) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + file + " is larger than 2GB");
+            }
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (channel.size() < SnapshotFormat.HEADER_SIZE
+                    || buffer.getInt(0) != SnapshotFormat.MAGIC
+                    || buffer.getInt(4) != SnapshotFormat.VERSION) {
+                throw new IOException("Not a product snapshot: " + file);
+            }
+            return new ProductSnapshot(file, buffer, (int) buffer.getLong(8), (int) buffer.getLong(16));
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public Optional<Product> get(long id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int entry = indexOffset + middle * SnapshotFormat.INDEX_ENTRY_SIZE;
+            long middleId = buffer.getLong(entry);
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return Optional.of(read((int) buffer.getLong(entry + 8)));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Records are stored by id, so only unsorted or id ascending pages can be served.
+     */
+    public static boolean supports(Pageable pageable) {
+        var sort = pageable.getSort();
+        if (sort.isUnsorted()) {
+            return true;
+        }
+        Sort.Order order = sort.getOrderFor("id");
+        return order != null && order.isAscending() && sort.toList().size() == 1;
+    }
+
+    public Page<Product> search(String name, String description, Pageable pageable) {
+        return search(name, description, MatchMode.CONTAINS, pageable);
+    }
+
+    public Page<Product> search(String name, String description, MatchMode match, Pageable pageable) {
+        var namePattern = pattern(name);
+        var descriptionPattern = pattern(description);
+        boolean prefix = match == MatchMode.PREFIX;
+        long skip = pageable.isPaged() ? pageable.getOffset() : 0;
+        int limit = pageable.isPaged() ? pageable.getPageSize() : Integer.MAX_VALUE;
+
+        List<Product> content = new ArrayList<>(Math.min(limit, 64));
+        long total = 0;
+        int position = SnapshotFormat.HEADER_SIZE;
+        for (int i = 0; i < count; i++) {
+            int record = position;
+            int nameOffset = record + 24;
+            int nameLength = buffer.getInt(nameOffset);
+            int descriptionOffset = nameOffset + 4 + nameLength;
+            int descriptionLength = buffer.getInt(descriptionOffset);
+            int nameKeyOffset = descriptionOffset + 4 + descriptionLength;
+            int nameKeyLength = buffer.getInt(nameKeyOffset);
+            int descriptionKeyOffset = nameKeyOffset + 4 + Math.max(0, nameKeyLength);
+            int descriptionKeyLength = buffer.getInt(descriptionKeyOffset);
+            position = descriptionKeyOffset + 4 + Math.max(0, descriptionKeyLength);
+
+            // a UTF-8 substring match on bytes is a match on characters
+            if (matches(nameOffset, nameKeyOffset, namePattern, prefix)
+                    && matches(descriptionOffset, descriptionKeyOffset, descriptionPattern, prefix)) {
+                if (total >= skip && content.size() < limit) {
+                    content.add(read(record));
+                }
+                total++;
+            }
+        }
+        return pageable.isPaged() ? new PageImpl<>(content, pageable, total) : new PageImpl<>(content);
+    }
+
+    /**
+     * Matches the key stored at {@code keyOffset}, or the text at {@code textOffset} when they are the same.
+     */
+    private boolean matches(int textOffset, int keyOffset, byte[] pattern, boolean prefix) {
+        if (pattern == null) {
+            return true;
+        }
+        int offset = keyOffset;
+        int length = buffer.getInt(keyOffset);
+        if (length == SnapshotFormat.SAME_AS_TEXT) {
+            offset = textOffset;
+            length = buffer.getInt(textOffset);
+        }
+        return prefix ? startsWith(offset + 4, length, pattern) : contains(offset + 4, length, pattern);
+    }
+
+    private boolean startsWith(int offset, int length, byte[] pattern) {
+        if (length < pattern.length) {
+            return false;
+        }
+        for (int i = 0; i < pattern.length; i++) {
+            if (buffer.get(offset + i) != pattern[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean contains(int offset, int length, byte[] pattern) {
+        int last = offset + length - pattern.length;
+        for (int start = offset; start <= last; start++) {
+            int i = 0;
+            while (i < pattern.length && buffer.get(start + i) == pattern[i]) {
+                i++;
+            }
+            if (i == pattern.length) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] pattern(String filter) {
+        return filter == null ? null : SearchText.normalize(filter).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private Product read(int record) {
+        int nameLength = buffer.getInt(record + 24);
+        int descriptionOffset = record + 28 + nameLength;
+        return new Product(
+                buffer.getLong(record),
+                string(record + 28, nameLength),
+                string(descriptionOffset + 4, buffer.getInt(descriptionOffset)),
+                EpochMicros.toLocalDateTime(buffer.getLong(record + 8)),
+                EpochMicros.toLocalDateTime(buffer.getLong(record + 16)));
+    }
+
+    private String string(int offset, int length) {
+        var bytes = new byte[length];
+        buffer.duplicate().position(offset).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
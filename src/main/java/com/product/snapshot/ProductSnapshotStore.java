@@ -0,0 +1,159 @@
+package com.product.snapshot;
+
+import com.product.event.ProductChangedEvent;
+import com.product.model.Product;
+import com.product.repository.MatchMode;
+import com.product.repository.ProductRepository;
+import com.product.service.ProductReadModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Read-mostly serving mode: {@code get} and {@code search} are answered from the latest
+ * memory-mapped snapshot of the catalog. Any write marks the snapshot dirty and the next
+ * refresh builds a new file and swaps it in atomically, so reads lag writes by at most
+ * {@code product.snapshot.refresh-interval-ms} plus the build time.
+ */
+@Component
+@ConditionalOnProperty(prefix = "product.snapshot", name = "enabled", havingValue = "true")
+public class ProductSnapshotStore implements ProductReadModel {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSnapshotStore.class);
+
+    private static final String PREFIX = "products-";
+
+    private static final String SUFFIX = ".snapshot";
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final ProductRepository repository;
+
+    private final Path directory;
+
+    private final AtomicReference<ProductSnapshot> current = new AtomicReference<>();
+
+    private final AtomicBoolean dirty = new AtomicBoolean(true);
+
+    public ProductSnapshotStore(ProductRepository repository,
+                                @Value("${product.snapshot.directory:${java.io.tmpdir}/product-snapshots}") Path directory)
+            throws IOException {
+        this.repository = repository;
+        this.directory = Files.createDirectories(directory);
+        var latest = latest();
+        if (latest.isPresent()) {
+            try {
+                current.set(ProductSnapshot.open(latest.get()));
+                log.info("Mapped product snapshot {} with {} products", latest.get(), current.get().size());
+            } catch (IOException e) {
+                // an older format, the first refresh replaces it
+                log.warn("Could not map product snapshot {}", latest.get(), e);
+            }
+        }
+    }
+
+    @Override
+    public boolean isLoaded() {
+        return current.get() != null;
+    }
+
+    @Override
+    public Optional<Product> get(long id) {
+        var snapshot = current.get();
+        return snapshot == null ? Optional.empty() : snapshot.get(id);
+    }
+
+    @Override
+    public boolean supports(Pageable pageable) {
+        return isLoaded() && ProductSnapshot.supports(pageable);
+    }
+
+    @Override
+    public Page<Product> search(String name, String description, MatchMode match, Pageable pageable) {
+        return current.get().search(name, description, match, pageable);
+    }
+
+    @EventListener(condition = "#event.tenant == null")
+    public void onProductChanged(ProductChangedEvent event) {
+        dirty.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${product.snapshot.refresh-interval-ms:10000}")
+    public void refresh() {
+        if (dirty.getAndSet(false)) {
+            try {
+                build();
+            } catch (IOException | RuntimeException e) {
+                dirty.set(true);
+                log.warn("Could not build product snapshot", e);
+            }
+        }
+    }
+
+    public ProductSnapshot build() throws IOException {
+        var target = directory.resolve(PREFIX + System.currentTimeMillis() + SUFFIX);
+        var temporary = directory.resolve(target.getFileName() + ".tmp");
+        try (var writer = new ProductSnapshotWriter(temporary)) {
+            long after = 0;
+            while (true) {
+                var page = repository.findPageAfter(after, PageRequest.of(0, BATCH_SIZE));
+                for (Product product : page) {
+                    writer.write(product);
+                }
+                if (page.size() < BATCH_SIZE) {
+                    break;
+                }
+                after = page.get(page.size() - 1).getId();
+            }
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        var snapshot = ProductSnapshot.open(target);
+        var previous = current.getAndSet(snapshot);
+        if (previous != null) {
+            // the old mapping stays valid for readers still holding it, unlinking only frees the name
+            try {
+                Files.deleteIfExists(previous.getFile());
+            } catch (IOException e) {
+                log.debug("Could not delete previous snapshot {}", previous.getFile(), e);
+            }
+        }
+        return snapshot;
+    }
+
+    private Optional<Path> latest() throws IOException {
+        try (var files = Files.list(directory)) {
+            var snapshots = files
+                    .filter(file -> file.getFileName().toString().startsWith(PREFIX))
+                    .filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                    .sorted(Comparator.comparing(Path::toString))
+                    .collect(Collectors.toList());
+            if (snapshots.isEmpty()) {
+                return Optional.empty();
+            }
+            for (int i = 0; i < snapshots.size() - 1; i++) {
+                Files.deleteIfExists(snapshots.get(i));
+            }
+            return Optional.of(snapshots.get(snapshots.size() - 1));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
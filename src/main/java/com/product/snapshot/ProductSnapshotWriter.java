@@ -0,0 +1,92 @@
+package com.product.snapshot;
+
+import com.product.model.EpochMicros;
+import com.product.model.Product;
+import com.product.model.SearchText;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Streams products, in ascending id order, into a {@link SnapshotFormat} file.
+ */
+public class ProductSnapshotWriter implements AutoCloseable {
+
+    private final Path file;
+
+    private final DataOutputStream out;
+
+    private long position = SnapshotFormat.HEADER_SIZE;
+
+    private long[] ids = new long[1024];
+
+    private long[] offsets = new long[1024];
+
+    private int count;
+
+    public ProductSnapshotWriter(Path file) throws IOException {
+        this.file = file;
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        out.write(new byte[SnapshotFormat.HEADER_SIZE]);
+    }
+
+    public void write(Product product) throws IOException {
+        if (count > 0 && product.getId() <= ids[count - 1]) {
+            throw new IllegalArgumentException("Products must be written in ascending id order");
+        }
+        if (count == ids.length) {
+            ids = Arrays.copyOf(ids, count * 2);
+            offsets = Arrays.copyOf(offsets, count * 2);
+        }
+        ids[count] = product.getId();
+        offsets[count++] = position;
+
+        var name = product.getName().getBytes(StandardCharsets.UTF_8);
+        var description = product.getDescription().getBytes(StandardCharsets.UTF_8);
+        out.writeLong(product.getId());
+        out.writeLong(EpochMicros.of(product.getCreateDateTime()));
+        out.writeLong(EpochMicros.of(product.getUpdateDateTime()));
+        out.writeInt(name.length);
+        out.write(name);
+        out.writeInt(description.length);
+        out.write(description);
+        position += 8 * 3 + 4 + name.length + 4 + description.length;
+        position += writeKey(product.getName());
+        position += writeKey(product.getDescription());
+    }
+
+    private int writeKey(String text) throws IOException {
+        var key = SearchText.normalize(text);
+        if (key.equals(text)) {
+            out.writeInt(SnapshotFormat.SAME_AS_TEXT);
+            return 4;
+        }
+        var bytes = key.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        return 4 + bytes.length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        long indexOffset = position;
+        for (int i = 0; i < count; i++) {
+            out.writeLong(ids[i]);
+            out.writeLong(offsets[i]);
+        }
+        out.close();
+        try (var header = new RandomAccessFile(file.toFile(), "rw")) {
+            header.writeInt(SnapshotFormat.MAGIC);
+            header.writeInt(SnapshotFormat.VERSION);
+            header.writeLong(count);
+            header.writeLong(indexOffset);
+            header.writeLong(0);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.product.snapshot;
+
+/**
+ * Layout of a snapshot file, all numbers big endian:
+ * <pre>
+ * header  int magic, int version, long count, long indexOffset, long reserved
+ * record  long id, long createMicros, long updateMicros, int nameLength, name UTF-8, int descriptionLength, description UTF-8,
+ *         int nameKeyLength, name key UTF-8, int descriptionKeyLength, description key UTF-8
+ * index   count x (long id, long recordOffset), sorted by id
+ * </pre>
+ * Timestamps are {@link com.product.model.EpochMicros}. Keys are the {@link com.product.model.SearchText}
+ * forms the filters match, with a length of {@link #SAME_AS_TEXT} when equal to the text itself.
+ */
+final class SnapshotFormat {
+
+    static final int MAGIC = 0x50534e50;
+
+    static final int VERSION = 2;
+
+    static final int HEADER_SIZE = 32;
+
+    static final int INDEX_ENTRY_SIZE = 16;
+
+    static final int SAME_AS_TEXT = -1;
+
+    private SnapshotFormat() {
+    }
+}
@@ -0,0 +1,126 @@
+package com.product.suggest;
+
+import com.product.dto.Suggestion;
+import com.product.event.ChangeType;
+import com.product.event.ProductChangedEvent;
+import com.product.repository.ProductRepository;
+import com.product.service.ChangesWhileLoading;
+import com.product.shard.ShardedProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Serves {@code GET /products/suggest} from a {@link SuggestionTrie} of every product name, loaded
+ * at startup and maintained from the {@link ProductChangedEvent}s, reading again the products
+ * changed while it loads, see {@link ChangesWhileLoading}. Popularity is the number of
+ * times a product was read; reads are counted as they happen and added to the ranking every
+ * {@code product.suggest.rescore-interval-ms}, so a request never waits for the trie's write lock.
+ */
+@Component
+@ConditionalOnProperty(prefix = "product.suggest", name = "enabled", havingValue = "true")
+public class SuggestService {
+
+    private static final Logger log = LoggerFactory.getLogger(SuggestService.class);
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final ProductRepository repository;
+
+    private final SuggestionTrie trie = new SuggestionTrie();
+
+    private final ChangesWhileLoading changesWhileLoading = new ChangesWhileLoading();
+
+    private final Map<Long, LongAdder> reads = new ConcurrentHashMap<>();
+
+    private final int maxLimit;
+
+    private final int maxTracked;
+
+    private volatile boolean loaded;
+
+    @Autowired(required = false)
+    private ShardedProductRepository shards;
+
+    public SuggestService(ProductRepository repository,
+                          @Value("${product.suggest.max-limit:50}") int maxLimit,
+                          @Value("${product.suggest.max-tracked:100000}") int maxTracked) {
+        this.repository = repository;
+        this.maxLimit = maxLimit;
+        this.maxTracked = maxTracked;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        changesWhileLoading.start();
+        long after = 0;
+        while (true) {
+            var page = shards == null ? repository.findPageAfter(after, PageRequest.of(0, BATCH_SIZE))
+                    : shards.findPageAfter(after, BATCH_SIZE);
+            page.forEach(product -> trie.put(product.getId(), product.getName()));
+            if (page.size() < BATCH_SIZE) {
+                break;
+            }
+            after = page.get(page.size() - 1).getId();
+        }
+        changesWhileLoading.reload(ids -> shards == null ? repository.findAllById(ids) : shards.findAllById(ids),
+                product -> trie.put(product.getId(), product.getName()), trie::remove);
+        loaded = true;
+        log.info("Loaded {} product names for suggestions", trie.size());
+    }
+
+    @EventListener(condition = "#event.tenant == null")
+    public void onProductChanged(ProductChangedEvent event) {
+        changesWhileLoading.record(event.getId());
+        if (event.getType() == ChangeType.DELETED) {
+            trie.remove(event.getId());
+            reads.remove(event.getId());
+        } else {
+            trie.put(event.getId(), event.getProduct().getName());
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public List<Suggestion> suggest(String prefix, int limit) {
+        return trie.top(prefix, Math.max(0, Math.min(limit, maxLimit)));
+    }
+
+    public void recordRead(long id) {
+        if (!loaded) {
+            return;
+        }
+        var counter = reads.get(id);
+        if (counter == null) {
+            if (reads.size() >= maxTracked) {
+                return;
+            }
+            counter = reads.computeIfAbsent(id, key -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${product.suggest.rescore-interval-ms:10000}")
+    public void rescore() {
+        for (Long id : reads.keySet()) {
+            var count = reads.remove(id);
+            if (count != null) {
+                trie.addScore(id, count.sum());
+            }
+        }
+    }
+}
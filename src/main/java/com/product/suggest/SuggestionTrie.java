@@ -0,0 +1,325 @@
+package com.product.suggest;
+
+import com.product.dto.Suggestion;
+import com.product.model.SearchText;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Radix trie of product names in their {@link SearchText} form, ranked by a popularity score.
+ * Every node knows the best score below it, so the top k under a prefix are found best-first
+ * without visiting the rest of the subtree: the cost depends on k and the prefix length, not on
+ * how many names share the prefix.
+ */
+public class SuggestionTrie {
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    // highest score first; on ties entries before nodes, so equal scores need no further expansion
+    private static final Comparator<Ranked> RANKING = Comparator.comparingLong(Ranked::score).reversed()
+            .thenComparingInt(ranked -> ranked instanceof Entry ? 0 : 1);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Node root = new Node("");
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    /**
+     * Adds the product, or moves it to its new name, keeping its score.
+     */
+    public void put(long id, String name) {
+        lock.writeLock().lock();
+        try {
+            var previous = entries.get(id);
+            if (previous != null && previous.name.equals(name)) {
+                return;
+            }
+            long score = 0;
+            if (previous != null) {
+                score = previous.score;
+                unlink(previous);
+            }
+            link(new Entry(id, name, key(name), score));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            var entry = entries.remove(id);
+            if (entry != null) {
+                unlink(entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds {@code delta} to the popularity of the product, if it is in the trie.
+     */
+    public void addScore(long id, long delta) {
+        lock.writeLock().lock();
+        try {
+            var entry = entries.get(id);
+            if (entry != null) {
+                unlink(entry);
+                link(new Entry(id, entry.name, entry.key, entry.score + delta));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return up to {@code limit} products whose name starts with {@code prefix}, ignoring case and
+     * accents, most popular first
+     */
+    public List<Suggestion> top(String prefix, int limit) {
+        var key = key(prefix);
+        lock.readLock().lock();
+        try {
+            var node = root;
+            int i = 0;
+            while (i < key.length()) {
+                int index = node.indexOf(key.charAt(i));
+                if (index < 0) {
+                    return List.of();
+                }
+                node = node.children[index];
+                int length = Math.min(node.label.length(), key.length() - i);
+                if (!node.label.regionMatches(0, key, i, length)) {
+                    return List.of();
+                }
+                i += length;
+            }
+            List<Suggestion> top = new ArrayList<>(Math.min(limit, entries.size()));
+            var candidates = new PriorityQueue<>(RANKING);
+            candidates.add(node);
+            while (top.size() < limit && !candidates.isEmpty()) {
+                var next = candidates.poll();
+                if (next instanceof Entry) {
+                    var entry = (Entry) next;
+                    top.add(new Suggestion(entry.id, entry.name));
+                } else {
+                    var expanded = (Node) next;
+                    candidates.addAll(Arrays.asList(expanded.entries));
+                    candidates.addAll(Arrays.asList(expanded.children));
+                }
+            }
+            return top;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void link(Entry entry) {
+        entries.put(entry.id, entry);
+        var key = entry.key;
+        var node = root;
+        node.best = Math.max(node.best, entry.score);
+        int i = 0;
+        while (i < key.length()) {
+            int index = node.indexOf(key.charAt(i));
+            if (index < 0) {
+                var leaf = new Node(key.substring(i));
+                node.insertChild(-index - 1, leaf);
+                node = leaf;
+                break;
+            }
+            var child = node.children[index];
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                var split = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                split.children = new Node[]{child};
+                split.best = child.best;
+                node.children[index] = split;
+                child = split;
+            }
+            i += common;
+            node = child;
+            node.best = Math.max(node.best, entry.score);
+        }
+        node.addEntry(entry);
+    }
+
+    private void unlink(Entry entry) {
+        var key = entry.key;
+        List<Node> path = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        var node = root;
+        path.add(node);
+        indexes.add(-1);
+        int i = 0;
+        while (i < key.length()) {
+            int index = node.indexOf(key.charAt(i));
+            node = node.children[index];
+            i += node.label.length();
+            path.add(node);
+            indexes.add(index);
+        }
+        node.removeEntry(entry);
+        // bottom-up: drop nodes left empty, merge pass-through nodes into their child, recompute the bounds
+        for (int j = path.size() - 1; j > 0; j--) {
+            var current = path.get(j);
+            var parent = path.get(j - 1);
+            int index = indexes.get(j);
+            if (current.entries.length == 0 && current.children.length == 0) {
+                parent.removeChild(index);
+            } else if (current.entries.length == 0 && current.children.length == 1) {
+                var child = current.children[0];
+                child.label = current.label + child.label;
+                parent.children[index] = child;
+            } else {
+                current.updateBest();
+            }
+        }
+        root.updateBest();
+    }
+
+    private static String key(String text) {
+        return text == null ? "" : SearchText.normalize(text);
+    }
+
+    private static int commonPrefix(String label, String key, int from) {
+        int length = Math.min(label.length(), key.length() - from);
+        int i = 0;
+        while (i < length && label.charAt(i) == key.charAt(from + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private interface Ranked {
+        long score();
+    }
+
+    private static final class Entry implements Ranked {
+
+        private final long id;
+
+        private final String name;
+
+        private final String key;
+
+        private final long score;
+
+        private Entry(long id, String name, String key, long score) {
+            this.id = id;
+            this.name = name;
+            this.key = key;
+            this.score = score;
+        }
+
+        @Override
+        public long score() {
+            return score;
+        }
+    }
+
+    private static final class Node implements Ranked {
+
+        private String label;
+
+        private Node[] children = NO_CHILDREN;
+
+        private Entry[] entries = NO_ENTRIES;
+
+        private long best = Long.MIN_VALUE;
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public long score() {
+            return best;
+        }
+
+        /**
+         * Children are sorted by the first char of their label, which is unique among siblings.
+         */
+        private int indexOf(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char c = children[mid].label.charAt(0);
+                if (c < first) {
+                    low = mid + 1;
+                } else if (c > first) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private void insertChild(int index, Node child) {
+            var grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, index);
+            grown[index] = child;
+            System.arraycopy(children, index, grown, index + 1, children.length - index);
+            children = grown;
+        }
+
+        private void removeChild(int index) {
+            var shrunk = new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, index);
+            System.arraycopy(children, index + 1, shrunk, index, shrunk.length - index);
+            children = shrunk;
+        }
+
+        private void addEntry(Entry entry) {
+            entries = Arrays.copyOf(entries, entries.length + 1);
+            entries[entries.length - 1] = entry;
+            best = Math.max(best, entry.score);
+        }
+
+        private void removeEntry(Entry entry) {
+            for (int i = 0; i < entries.length; i++) {
+                if (entries[i] == entry) {
+                    var shrunk = new Entry[entries.length - 1];
+                    System.arraycopy(entries, 0, shrunk, 0, i);
+                    System.arraycopy(entries, i + 1, shrunk, i, shrunk.length - i);
+                    entries = shrunk;
+                    return;
+                }
+            }
+        }
+
+        private void updateBest() {
+            long max = Long.MIN_VALUE;
+            for (Entry entry : entries) {
+                max = Math.max(max, entry.score);
+            }
+            for (Node child : children) {
+                max = Math.max(max, child.best);
+            }
+            best = max;
+        }
+    }
+}
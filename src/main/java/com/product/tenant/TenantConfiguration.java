@@ -0,0 +1,86 @@
+package com.product.tenant;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opt-in hosting of several storefronts: one database per tenant behind a routing datasource.
+ * The in-memory indexes (bitmap, compact catalog, snapshot, facets, suggestions, id filter,
+ * warm-up, write-behind) only serve the default tenant, the other tenants read their database.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "product.tenancy", name = "enabled", havingValue = "true")
+public class TenantConfiguration {
+
+    public TenantConfiguration(@Value("${product.sharding.enabled:false}") boolean sharding) {
+        if (sharding) {
+            throw new IllegalStateException("product.tenancy and product.sharding cannot be enabled together");
+        }
+    }
+
+    @Bean(destroyMethod = "close")
+    @Primary
+    public TenantRoutingDataSource dataSource(DataSourceProperties dataSourceProperties, TenantProperties properties,
+                                              Environment environment) {
+        var defaultDataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        hikari(defaultDataSource, environment);
+        Map<String, HikariDataSource> tenants = new LinkedHashMap<>();
+        for (String tenant : properties.getTenants()) {
+            var pool = new HikariDataSource();
+            hikari(pool, environment);
+            pool.setPoolName("product-tenant-" + tenant);
+            pool.setJdbcUrl(String.format(properties.getUrlTemplate(), tenant));
+            pool.setUsername(properties.getUsername());
+            pool.setPassword(properties.getPassword());
+            pool.setMaximumPoolSize(properties.getMaxConnections());
+            tenants.put(tenant, pool);
+        }
+        return new TenantRoutingDataSource(defaultDataSource, tenants);
+    }
+
+    /**
+     * Applies {@code spring.datasource.hikari}, as the auto-configured datasource would.
+     */
+    private static void hikari(HikariDataSource pool, Environment environment) {
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+    }
+
+    @Bean
+    public TenantSchemas tenantSchemas(TenantProperties properties,
+                                       @Value("${spring.jpa.hibernate.ddl-auto:update}") String ddlAuto) {
+        return new TenantSchemas(properties, ddlAuto);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer tenantSchemasIntegrator(TenantSchemas schemas) {
+        return properties -> properties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                (IntegratorProvider) () -> List.of(schemas));
+    }
+
+    @Bean
+    public FilterRegistrationBean<TenantFilter> tenantFilter(TenantProperties properties, MeterRegistry registry) {
+        var registration = new FilterRegistrationBean<>(new TenantFilter(properties, registry));
+        registration.addUrlPatterns("/api/*");
+        // before the filters that may already read the database
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
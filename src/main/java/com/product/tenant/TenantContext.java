@@ -0,0 +1,96 @@
+package com.product.tenant;
+
+import java.util.function.Supplier;
+
+/**
+ * The storefront the current thread works for, set by {@link TenantFilter} from the request and
+ * null for the default tenant, which is also what runs when tenancy is off. The database
+ * connections, caches and budgets of a request are picked from it. Work handed to other threads
+ * keeps the tenant with {@link #propagate}.
+ */
+public final class TenantContext {
+
+    /**
+     * Name of the default tenant, in the tenant header and in metrics.
+     */
+    public static final String DEFAULT = "default";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    /**
+     * @return the tenant of the current thread, null for the default one
+     */
+    public static String get() {
+        return CURRENT.get();
+    }
+
+    public static boolean isDefault() {
+        return CURRENT.get() == null;
+    }
+
+    /**
+     * @return the name of the tenant of the current thread
+     */
+    public static String name() {
+        return name(CURRENT.get());
+    }
+
+    /**
+     * @return the name of {@code tenant}, null standing for the default one
+     */
+    public static String name(String tenant) {
+        return tenant == null ? DEFAULT : tenant;
+    }
+
+    /**
+     * @return {@code key} made unique across tenants, for caches shared by all of them
+     */
+    public static String scoped(String key) {
+        return scoped(CURRENT.get(), key);
+    }
+
+    public static String scoped(String tenant, String key) {
+        return tenant == null ? key : tenant + '\u0000' + key;
+    }
+
+    public static <T> T call(String tenant, Supplier<T> task) {
+        var previous = CURRENT.get();
+        set(tenant);
+        try {
+            return task.get();
+        } finally {
+            set(previous);
+        }
+    }
+
+    public static void run(String tenant, Runnable task) {
+        call(tenant, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * @return the task, run for the tenant of the current thread on whatever thread runs it
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        var tenant = CURRENT.get();
+        return () -> call(tenant, task);
+    }
+
+    public static Runnable propagate(Runnable task) {
+        var tenant = CURRENT.get();
+        return () -> run(tenant, task);
+    }
+
+    static void set(String tenant) {
+        if (tenant == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(tenant);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.product.tenant;
+
+import com.product.ratelimit.RequestClass;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Resolves the tenant of a request from the {@code product.tenancy.header} header, the default
+ * tenant when it is missing, 400 when it is unknown, and runs the request in it. Each tenant may
+ * have {@code max-concurrent-requests} requests and {@code max-concurrent-searches} searches in
+ * progress, past that it gets 429 while the other tenants are served as usual. An asynchronous
+ * request holds its permits until it completes, except an event stream: it gives them back once
+ * started, a subscriber to the change feed may stay for as long as {@code product.changes.sse-timeout-ms}.
+ */
+public class TenantFilter extends OncePerRequestFilter {
+
+    private final String header;
+
+    private final Map<String, Budget> budgets = new HashMap<>();
+
+    public TenantFilter(TenantProperties properties, MeterRegistry registry) {
+        this.header = properties.getHeader();
+        budgets.put(TenantContext.DEFAULT, new Budget(null, properties, registry));
+        for (String tenant : properties.getTenants()) {
+            budgets.put(tenant, new Budget(tenant, properties, registry));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        var name = request.getHeader(header);
+        var budget = budgets.get(name == null || name.isBlank() ? TenantContext.DEFAULT : name);
+        if (budget == null) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Unknown tenant");
+            return;
+        }
+        var search = RequestClass.of(request) == RequestClass.SEARCH;
+        if (!budget.acquire(search)) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            return;
+        }
+        var previous = TenantContext.get();
+        TenantContext.set(budget.tenant);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            TenantContext.set(previous);
+            if (request.isAsyncStarted() && !isEventStream(request, response)) {
+                request.getAsyncContext().addListener(new Release(budget, search));
+            } else {
+                budget.release(search);
+            }
+        }
+    }
+
+    // the headers of a stream may only be written with its first event
+    private static boolean isEventStream(HttpServletRequest request, HttpServletResponse response) {
+        var contentType = response.getContentType();
+        var accept = request.getHeader(HttpHeaders.ACCEPT);
+        return contentType != null && contentType.startsWith(MediaType.TEXT_EVENT_STREAM_VALUE)
+                || accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
+
+    private static final class Budget {
+
+        private final String tenant;
+
+        private final Semaphore requests;
+
+        private final Semaphore searches;
+
+        private final Counter rejected;
+
+        private Budget(String tenant, TenantProperties properties, MeterRegistry registry) {
+            this.tenant = tenant;
+            this.requests = new Semaphore(properties.getMaxConcurrentRequests());
+            this.searches = new Semaphore(properties.getMaxConcurrentSearches());
+            this.rejected = Counter.builder("product.tenant.rejected")
+                    .tag("tenant", TenantContext.name(tenant))
+                    .register(registry);
+        }
+
+        private boolean acquire(boolean search) {
+            if (!requests.tryAcquire()) {
+                rejected.increment();
+                return false;
+            }
+            if (search && !searches.tryAcquire()) {
+                requests.release();
+                rejected.increment();
+                return false;
+            }
+            return true;
+        }
+
+        private void release(boolean search) {
+            if (search) {
+                searches.release();
+            }
+            requests.release();
+        }
+    }
+
+    private static final class Release implements AsyncListener {
+
+        private final Budget budget;
+
+        private final boolean search;
+
+        private Release(Budget budget, boolean search) {
+            this.budget = budget;
+            this.search = search;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            budget.release(search);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
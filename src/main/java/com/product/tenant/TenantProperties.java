@@ -0,0 +1,130 @@
+package com.product.tenant;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "product.tenancy")
+public class TenantProperties {
+
+    private boolean enabled;
+
+    private String header = "X-Tenant-ID";
+
+    /**
+     * The tenants besides the default one, which is served by {@code spring.datasource}; each has
+     * its own database.
+     */
+    private List<String> tenants = new ArrayList<>();
+
+    /**
+     * JDBC url of the database of each tenant, {@code %s} is replaced by the tenant.
+     */
+    private String urlTemplate = "jdbc:h2:mem:product-tenant-%s;DB_CLOSE_DELAY=-1";
+
+    private String username = "sa";
+
+    private String password = "sa";
+
+    /**
+     * Size of the connection pool of each tenant.
+     */
+    private int maxConnections = 4;
+
+    /**
+     * Requests of a tenant handled at the same time, past that it gets 429.
+     */
+    private int maxConcurrentRequests = 32;
+
+    /**
+     * Searches of a tenant running at the same time, past that it gets 429.
+     */
+    private int maxConcurrentSearches = 8;
+
+    /**
+     * @return every tenant, null standing for the default one
+     */
+    public List<String> all() {
+        if (!enabled) {
+            return Collections.singletonList(null);
+        }
+        var all = new ArrayList<String>(tenants.size() + 1);
+        all.add(null);
+        all.addAll(tenants);
+        return all;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    public void setHeader(String header) {
+        this.header = header;
+    }
+
+    public List<String> getTenants() {
+        return tenants;
+    }
+
+    public void setTenants(List<String> tenants) {
+        this.tenants = tenants;
+    }
+
+    public String getUrlTemplate() {
+        return urlTemplate;
+    }
+
+    public void setUrlTemplate(String urlTemplate) {
+        this.urlTemplate = urlTemplate;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    public int getMaxConcurrentSearches() {
+        return maxConcurrentSearches;
+    }
+
+    public void setMaxConcurrentSearches(int maxConcurrentSearches) {
+        this.maxConcurrentSearches = maxConcurrentSearches;
+    }
+}
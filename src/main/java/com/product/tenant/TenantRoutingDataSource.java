@@ -0,0 +1,42 @@
+package com.product.tenant;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hands out connections of the database of the tenant in {@link TenantContext}: the default
+ * datasource for the default tenant, a pool of {@code product.tenancy.max-connections} for each of
+ * the others, so a tenant saturating its pool only waits on its own connections. JPA and
+ * {@code JdbcTemplate} both go through it.
+ */
+public class TenantRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private final HikariDataSource defaultDataSource;
+
+    private final Map<String, HikariDataSource> tenants = new LinkedHashMap<>();
+
+    public TenantRoutingDataSource(HikariDataSource defaultDataSource, Map<String, HikariDataSource> tenants) {
+        this.defaultDataSource = defaultDataSource;
+        this.tenants.putAll(tenants);
+        setDefaultTargetDataSource(defaultDataSource);
+        setTargetDataSources(new HashMap<>(tenants));
+        // an unknown tenant must not fall back to the default database
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TenantContext.get();
+    }
+
+    @Override
+    public void close() {
+        tenants.values().forEach(HikariDataSource::close);
+        defaultDataSource.close();
+    }
+}
@@ -0,0 +1,64 @@
+package com.product.tenant;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.hibernate.tool.hbm2ddl.SchemaUpdate;
+import org.hibernate.tool.schema.TargetType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+
+import java.util.EnumSet;
+
+/**
+ * Creates the tables of the entities in the database of every tenant, the way Hibernate does it
+ * for the default one. The mapping is the one Hibernate built for the application, handed over by
+ * registering this as an {@link Integrator}; the tables are created once every bean exists, before
+ * the first request.
+ */
+public class TenantSchemas implements Integrator, SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(TenantSchemas.class);
+
+    private final TenantProperties properties;
+
+    private final boolean enabled;
+
+    private volatile Metadata metadata;
+
+    /**
+     * @param ddlAuto {@code spring.jpa.hibernate.ddl-auto}: the schemas are left alone when it is
+     *                {@code none} or {@code validate}
+     */
+    public TenantSchemas(TenantProperties properties, String ddlAuto) {
+        this.properties = properties;
+        this.enabled = !"none".equals(ddlAuto) && !"validate".equals(ddlAuto);
+    }
+
+    @Override
+    public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                          SessionFactoryServiceRegistry serviceRegistry) {
+        this.metadata = metadata;
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        this.metadata = null;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled || metadata == null) {
+            return;
+        }
+        for (String tenant : properties.getTenants()) {
+            // the connections come from the routing datasource, so from the tenant's database
+            TenantContext.run(tenant, () -> new SchemaUpdate()
+                    .setHaltOnError(true)
+                    .execute(EnumSet.of(TargetType.DATABASE), metadata));
+            log.info("Schema of tenant {} is up to date", tenant);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.product.timing;
+
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.Locale;
+
+/**
+ * Times the JDBC statements Hibernate executes as {@code db.query}, {@code db.count} or
+ * {@code db.update} phases of the current request. Hibernate creates one listener per session;
+ * the {@link Inspector} sees the SQL of each statement as it is prepared, just before it runs.
+ */
+public class JdbcPhaseListener extends BaseSessionEventListener {
+
+    private static final ThreadLocal<String> NEXT = new ThreadLocal<>();
+
+    private RequestTiming.Phase phase;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        var kind = NEXT.get();
+        NEXT.remove();
+        phase = RequestTiming.start(kind == null ? "db.query" : kind);
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        close();
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        phase = RequestTiming.start("db.update");
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        close();
+    }
+
+    private void close() {
+        if (phase != null) {
+            phase.close();
+            phase = null;
+        }
+    }
+
+    static String kind(String sql) {
+        var start = sql.stripLeading().toLowerCase(Locale.ROOT);
+        if (start.startsWith("select count(")) {
+            return "db.count";
+        }
+        return start.startsWith("select") || start.startsWith("with") ? "db.query" : "db.update";
+    }
+
+    /**
+     * Classifies each statement for the listener; the SQL is returned as is.
+     */
+    public static class Inspector implements StatementInspector {
+
+        @Override
+        public String inspect(String sql) {
+            if (RequestTiming.current() != null) {
+                NEXT.set(kind(sql));
+            }
+            return sql;
+        }
+    }
+}
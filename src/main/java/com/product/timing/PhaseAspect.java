@@ -0,0 +1,37 @@
+package com.product.timing;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Times the calls into the controller, the service and the repository as phases of the current
+ * request. What the JDBC statements take is recorded by {@link JdbcPhaseListener}, so the
+ * repository phase is left with the rest of its time: building the queries and hydrating entities
+ * from the rows.
+ */
+@Aspect
+public class PhaseAspect {
+
+    @Around("@within(org.springframework.web.bind.annotation.RestController)")
+    public Object controller(ProceedingJoinPoint call) throws Throwable {
+        return time("controller", call);
+    }
+
+    @Around("this(com.product.service.ProductService)")
+    public Object service(ProceedingJoinPoint call) throws Throwable {
+        return time("service", call);
+    }
+
+    @Around("this(com.product.repository.ProductRepository)"
+            + " || execution(* com.product.service.SearchDeadlineExecutor.findAll(..))")
+    public Object repository(ProceedingJoinPoint call) throws Throwable {
+        return time("hydrate", call);
+    }
+
+    private static Object time(String phase, ProceedingJoinPoint call) throws Throwable {
+        try (var ignored = RequestTiming.start(phase)) {
+            return call.proceed();
+        }
+    }
+}
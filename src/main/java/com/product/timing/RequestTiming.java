@@ -0,0 +1,192 @@
+package com.product.timing;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Where the time of one sampled request goes: each {@link Phase} records its own time, without the
+ * phases started inside it on the same thread, so the phases of a request add up to its handling
+ * time. Phases of work handed to other threads with {@link #propagate} overlap the phase waiting
+ * for them. The timing of the request handled by the current thread is found with {@link #start},
+ * which is a no-op for requests that are not sampled.
+ */
+public final class RequestTiming {
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private static final ThreadLocal<Phase> OPEN = new ThreadLocal<>();
+
+    // spans kept per request, for requests doing hundreds of queries
+    private static final int MAX_SPANS = 256;
+
+    private final String traceId;
+
+    private final long started = System.nanoTime();
+
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+
+    private final List<Span> spans = new ArrayList<>();
+
+    private Phase serialization;
+
+    public RequestTiming(String traceId) {
+        this.traceId = traceId;
+    }
+
+    /**
+     * Starts a phase of the current request, to be closed on the same thread.
+     */
+    public static Phase start(String name) {
+        var timing = CURRENT.get();
+        if (timing == null) {
+            return Phase.NONE;
+        }
+        var phase = new Phase(timing, name, OPEN.get());
+        OPEN.set(phase);
+        return phase;
+    }
+
+    /**
+     * @return the task, timed as part of the current request on whatever thread runs it
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        var timing = CURRENT.get();
+        if (timing == null) {
+            return task;
+        }
+        return () -> {
+            var previousTiming = CURRENT.get();
+            var previousPhase = OPEN.get();
+            CURRENT.set(timing);
+            OPEN.remove();
+            try {
+                return task.get();
+            } finally {
+                CURRENT.set(previousTiming);
+                OPEN.set(previousPhase);
+            }
+        };
+    }
+
+    public static Runnable propagate(Runnable task) {
+        Supplier<Void> supplier = propagate(() -> {
+            task.run();
+            return null;
+        });
+        return supplier::get;
+    }
+
+    /**
+     * Makes {@code timing} the one of the current thread, null to detach it.
+     */
+    static void attach(RequestTiming timing) {
+        CURRENT.set(timing);
+        // phases left open by an earlier dispatch must not become parents of this one's
+        OPEN.remove();
+    }
+
+    static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    /**
+     * Starts the serialization phase, ended by {@link #finish}: the body is written after the
+     * handler returns, outside of any call that could close it.
+     */
+    void startSerialization() {
+        if (serialization == null) {
+            serialization = start("serialize");
+        }
+    }
+
+    /**
+     * @return the nanoseconds since the request started
+     */
+    long finish() {
+        if (serialization != null) {
+            serialization.close();
+            serialization = null;
+        }
+        return System.nanoTime() - started;
+    }
+
+    /**
+     * @return the nanoseconds spent in each phase, in the order they first ended
+     */
+    synchronized Map<String, Long> phases() {
+        return new LinkedHashMap<>(phases);
+    }
+
+    synchronized List<Span> spans() {
+        return new ArrayList<>(spans);
+    }
+
+    private synchronized void record(Phase phase, long duration) {
+        phases.merge(phase.name, duration - phase.children, Long::sum);
+        if (spans.size() < MAX_SPANS) {
+            spans.add(new Span(phase.name, phase.started - started, duration));
+        }
+    }
+
+    /**
+     * A timed section of a request, closed with try-with-resources.
+     */
+    public static final class Phase implements AutoCloseable {
+
+        private static final Phase NONE = new Phase(null, null, null);
+
+        private final RequestTiming timing;
+
+        private final String name;
+
+        private final Phase parent;
+
+        private final long started = System.nanoTime();
+
+        private long children;
+
+        private Phase(RequestTiming timing, String name, Phase parent) {
+            this.timing = timing;
+            this.name = name;
+            this.parent = parent;
+        }
+
+        @Override
+        public void close() {
+            if (timing == null) {
+                return;
+            }
+            long duration = System.nanoTime() - started;
+            timing.record(this, duration);
+            if (parent != null) {
+                parent.children += duration;
+            }
+            OPEN.set(parent);
+        }
+    }
+
+    /**
+     * One phase as a trace span: its name, start offset from the request start and duration.
+     */
+    static final class Span {
+
+        final String name;
+
+        final long offsetNanos;
+
+        final long durationNanos;
+
+        private Span(String name, long offsetNanos, long durationNanos) {
+            this.name = name;
+            this.offsetNanos = offsetNanos;
+            this.durationNanos = durationNanos;
+        }
+    }
+}
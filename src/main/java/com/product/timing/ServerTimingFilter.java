@@ -0,0 +1,177 @@
+package com.product.timing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Times a sample of the requests with a {@link RequestTiming}: the body is held back until the
+ * request is done, so the phases, serialization included, go out in a {@code Server-Timing} header.
+ * Each phase is recorded in the {@code product.request.phase} timer of its endpoint, and the spans
+ * of the request are logged at debug level under its W3C trace id. Requests that are not sampled
+ * go straight through.
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    public static final String METER = "product.request.phase";
+
+    static final String HEADER = "Server-Timing";
+
+    static final String TOTAL = "total";
+
+    private static final Logger spans = LoggerFactory.getLogger("com.product.timing.spans");
+
+    private static final String ATTRIBUTE = RequestTiming.class.getName();
+
+    private static final Pattern TRACEPARENT = Pattern.compile("[0-9a-f]{2}-([0-9a-f]{32})-[0-9a-f]{16}-[0-9a-f]{2}");
+
+    private static final Map<String, String> DESCRIPTIONS = Map.of(
+            "controller", "Controller",
+            "service", "Service",
+            "hydrate", "Repository outside JDBC: query building, entity hydration",
+            "db.query", "JDBC queries",
+            "db.count", "JDBC count queries",
+            "db.update", "JDBC updates",
+            "serialize", "Response body");
+
+    private final double sampleRate;
+
+    private final MeterRegistry registry;
+
+    public ServerTimingFilter(double sampleRate, MeterRegistry registry) {
+        this.sampleRate = sampleRate;
+        this.registry = registry;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // searches answer in an async dispatch, which is where their body is written
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        var timing = (RequestTiming) request.getAttribute(ATTRIBUTE);
+        var wrapper = WebUtils.getNativeResponse(response, ContentCachingResponseWrapper.class);
+        if (timing == null) {
+            if (isAsyncDispatch(request) || isStream(request) || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+                chain.doFilter(request, response);
+                return;
+            }
+            timing = new RequestTiming(traceId(request));
+            request.setAttribute(ATTRIBUTE, timing);
+            wrapper = new ContentCachingResponseWrapper(response);
+        } else if (wrapper == null) {
+            // the async dispatch was handed another response than the one of the first dispatch
+            chain.doFilter(request, response);
+            return;
+        }
+        RequestTiming.attach(timing);
+        try {
+            chain.doFilter(request, wrapper);
+        } finally {
+            long total = timing.finish();
+            RequestTiming.attach(null);
+            if (!isAsyncStarted(request)) {
+                complete(request, wrapper, timing, total);
+            }
+        }
+    }
+
+    private void complete(HttpServletRequest request, ContentCachingResponseWrapper response, RequestTiming timing,
+                          long total) throws IOException {
+        var phases = timing.phases();
+        var endpoint = request.getMethod() + " " + pattern(request);
+        phases.forEach((phase, nanos) -> timer(endpoint, phase).record(nanos, TimeUnit.NANOSECONDS));
+        timer(endpoint, TOTAL).record(total, TimeUnit.NANOSECONDS);
+        if (!response.isCommitted()) {
+            response.setHeader(HEADER, serverTiming(phases, total, timing.getTraceId()));
+        }
+        if (spans.isDebugEnabled()) {
+            spans.debug("trace={} endpoint=\"{}\" total={}ms spans=[{}]", timing.getTraceId(), endpoint, millis(total),
+                    timing.spans().stream()
+                            .map(span -> span.name + "@" + millis(span.offsetNanos) + "+" + millis(span.durationNanos))
+                            .collect(Collectors.joining(", ")));
+        }
+        response.copyBodyToResponse();
+    }
+
+    static String serverTiming(Map<String, Long> phases, long total, String traceId) {
+        var header = new StringBuilder();
+        phases.forEach((phase, nanos) -> {
+            header.append(phase);
+            var description = DESCRIPTIONS.get(phase);
+            if (description != null) {
+                header.append(";desc=\"").append(description).append('"');
+            }
+            header.append(";dur=").append(millis(nanos)).append(", ");
+        });
+        header.append(TOTAL).append(";dur=").append(millis(total));
+        // the convention tracing tools use to link a page load to the server side trace
+        header.append(", traceparent;desc=\"00-").append(traceId).append('-').append(randomHex(16)).append("-01\"");
+        return header.toString();
+    }
+
+    private Timer timer(String endpoint, String phase) {
+        return Timer.builder(METER)
+                .tag("endpoint", endpoint)
+                .tag("phase", phase)
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .register(registry);
+    }
+
+    private static boolean isStream(HttpServletRequest request) {
+        var accept = request.getHeader(HttpHeaders.ACCEPT);
+        return accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
+
+    private static String pattern(HttpServletRequest request) {
+        var pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        // a fixed value for unmapped paths keeps the number of timers bounded
+        return pattern == null ? "unmatched" : pattern.toString();
+    }
+
+    private static String traceId(HttpServletRequest request) {
+        var traceparent = request.getHeader("traceparent");
+        if (traceparent != null) {
+            var matcher = TRACEPARENT.matcher(traceparent.trim().toLowerCase(Locale.ROOT));
+            if (matcher.matches()) {
+                return matcher.group(1);
+            }
+        }
+        return randomHex(32);
+    }
+
+    private static String randomHex(int digits) {
+        var random = ThreadLocalRandom.current();
+        var hex = new StringBuilder(digits);
+        while (hex.length() < digits) {
+            hex.append(Character.forDigit(random.nextInt(16), 16));
+        }
+        return hex.toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+}
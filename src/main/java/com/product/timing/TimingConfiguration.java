@@ -0,0 +1,41 @@
+package com.product.timing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(prefix = "product.timing", name = "enabled", havingValue = "true")
+public class TimingConfiguration {
+
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter(
+            @Value("${product.timing.sample-rate:0.01}") double sampleRate, MeterRegistry registry) {
+        var registration = new FilterRegistrationBean<>(new ServerTimingFilter(sampleRate, registry));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+
+    @Bean
+    public PhaseAspect phaseAspect() {
+        return new PhaseAspect();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer jdbcPhaseListener() {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, new JdbcPhaseListener.Inspector());
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, JdbcPhaseListener.class.getName());
+        };
+    }
+
+    @Bean
+    public TimingsEndpoint timingsEndpoint(MeterRegistry registry) {
+        return new TimingsEndpoint(registry);
+    }
+}
@@ -0,0 +1,72 @@
+package com.product.timing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code GET /actuator/timings}: the phase timers of the sampled requests by endpoint and phase,
+ * in milliseconds.
+ */
+@Endpoint(id = "timings")
+public class TimingsEndpoint {
+
+    private final MeterRegistry registry;
+
+    public TimingsEndpoint(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, PhaseStatistics>> timings() {
+        Map<String, Map<String, PhaseStatistics>> timings = new TreeMap<>();
+        for (Timer timer : registry.find(ServerTimingFilter.METER).timers()) {
+            timings.computeIfAbsent(timer.getId().getTag("endpoint"), endpoint -> new TreeMap<>())
+                    .put(timer.getId().getTag("phase"), new PhaseStatistics(timer));
+        }
+        return timings;
+    }
+
+    public static final class PhaseStatistics {
+
+        private final long count;
+
+        private final double mean;
+
+        private final double max;
+
+        private final Map<String, Double> percentiles = new TreeMap<>();
+
+        private PhaseStatistics(Timer timer) {
+            var snapshot = timer.takeSnapshot();
+            this.count = snapshot.count();
+            this.mean = snapshot.mean(TimeUnit.MILLISECONDS);
+            this.max = snapshot.max(TimeUnit.MILLISECONDS);
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                percentiles.put("p" + Math.round(percentile.percentile() * 100), percentile.value(TimeUnit.MILLISECONDS));
+            }
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public double getMax() {
+            return max;
+        }
+
+        public Map<String, Double> getPercentiles() {
+            return percentiles;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.product.warmup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Counts which products are read and which searches are run, and keeps the hottest ones in
+ * {@code product.warm-up.access-log} across restarts so {@link StartupWarmUp} can preload them.
+ * Counts loaded from the previous run are halved, so old popularity fades out.
+ */
+@Component
+@ConditionalOnProperty(prefix = "product.warm-up", name = "enabled", havingValue = "true")
+public class AccessLog {
+
+    private static final Logger log = LoggerFactory.getLogger(AccessLog.class);
+
+    private static final String GET = "G";
+
+    private static final String SEARCH = "S";
+
+    private final Path file;
+
+    private final int maxTracked;
+
+    private final int maxSaved;
+
+    private final Map<Long, LongAdder> gets = new ConcurrentHashMap<>();
+
+    private final Map<Search, LongAdder> searches = new ConcurrentHashMap<>();
+
+    private volatile boolean recording;
+
+    public AccessLog(@Value("${product.warm-up.access-log:${java.io.tmpdir}/product-access.log}") Path file,
+                     @Value("${product.warm-up.max-tracked:100000}") int maxTracked,
+                     @Value("${product.warm-up.max-saved:1000}") int maxSaved) {
+        this.file = file;
+        this.maxTracked = maxTracked;
+        this.maxSaved = maxSaved;
+    }
+
+    /**
+     * Starts counting requests, the warm-up itself is not recorded.
+     */
+    public void start() {
+        recording = true;
+    }
+
+    public void recordGet(long id) {
+        if (recording) {
+            count(gets, id, 1);
+        }
+    }
+
+    public void recordSearch(String name, String description, Pageable pageable) {
+        if (recording) {
+            count(searches, Search.of(name, description, pageable), 1);
+        }
+    }
+
+    public List<Long> hottestIds(int limit) {
+        return hottest(gets, limit);
+    }
+
+    public List<Search> hottestSearches(int limit) {
+        return hottest(searches, limit);
+    }
+
+    public void load() throws IOException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            var fields = line.split(" ", -1);
+            var count = Long.parseLong(fields[1]) / 2 + 1;
+            if (GET.equals(fields[0])) {
+                count(gets, Long.parseLong(fields[2]), count);
+            } else if (SEARCH.equals(fields[0])) {
+                count(searches, new Search(decode(fields[5]), decode(fields[6]),
+                        Integer.parseInt(fields[2]), Integer.parseInt(fields[3]), decode(fields[4])), count);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void save() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (Long id : hottestIds(maxSaved)) {
+            lines.add(GET + " " + gets.get(id).sum() + " " + id);
+        }
+        for (Search search : hottestSearches(maxSaved)) {
+            lines.add(SEARCH + " " + searches.get(search).sum() + " " + search.page + " " + search.size + " "
+                    + encode(search.sort) + " " + encode(search.name) + " " + encode(search.description));
+        }
+        var temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temporary, lines, StandardCharsets.UTF_8);
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Saved {} hot products and searches to {}", lines.size(), file);
+    }
+
+    private <K> void count(Map<K, LongAdder> counts, K key, long count) {
+        var counter = counts.get(key);
+        if (counter == null) {
+            if (counts.size() >= maxTracked) {
+                return;
+            }
+            counter = counts.computeIfAbsent(key, k -> new LongAdder());
+        }
+        counter.add(count);
+    }
+
+    private static <K> List<K> hottest(Map<K, LongAdder> counts, int limit) {
+        return counts.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().sum()))
+                .sorted(Map.Entry.<K, Long>comparingByValue().reversed())
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private static String encode(String value) {
+        return value == null ? "" : URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String decode(String value) {
+        return value.isEmpty() ? null : URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A search as {@link com.product.service.ProductService#search} receives it, the sort kept as
+     * {@code property,DIRECTION} pairs separated by {@code ;}.
+     */
+    public static final class Search {
+
+        private final String name;
+
+        private final String description;
+
+        private final int page;
+
+        private final int size;
+
+        private final String sort;
+
+        Search(String name, String description, int page, int size, String sort) {
+            this.name = name;
+            this.description = description;
+            this.page = page;
+            this.size = size;
+            this.sort = sort;
+        }
+
+        static Search of(String name, String description, Pageable pageable) {
+            var sort = pageable.getSort().stream()
+                    .map(order -> order.getProperty() + "," + order.getDirection())
+                    .collect(Collectors.joining(";"));
+            return new Search(name, description, pageable.getPageNumber(), pageable.getPageSize(),
+                    sort.isEmpty() ? null : sort);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * @return the query string of this search on {@code GET /products}
+         */
+        public String toQuery() {
+            var query = new StringBuilder("?page=").append(page).append("&size=").append(size);
+            if (name != null) {
+                query.append("&name=").append(encode(name));
+            }
+            if (description != null) {
+                query.append("&description=").append(encode(description));
+            }
+            if (sort != null) {
+                for (String order : sort.split(";")) {
+                    query.append("&sort=").append(encode(order));
+                }
+            }
+            return query.toString();
+        }
+
+        public Pageable toPageable() {
+            if (sort == null) {
+                return PageRequest.of(page, size);
+            }
+            List<Sort.Order> orders = new ArrayList<>();
+            for (String order : sort.split(";")) {
+                var parts = order.split(",");
+                orders.add(new Sort.Order(Sort.Direction.valueOf(parts[1]), parts[0]));
+            }
+            return PageRequest.of(page, size, Sort.by(orders));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Search)) {
+                return false;
+            }
+            Search search = (Search) o;
+            return page == search.page && size == search.size && Objects.equals(name, search.name)
+                    && Objects.equals(description, search.description) && Objects.equals(sort, search.sort);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, description, page, size, sort);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.product.warmup;
+
+import com.product.event.ChangeType;
+import com.product.event.ProductChangedEvent;
+import com.product.model.Product;
+import com.product.repository.MatchMode;
+import com.product.service.ProductReadModel;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * The hottest products of the previous run, preloaded by {@link StartupWarmUp}. Only serves
+ * {@code get}; updates replace a cached product and deletes drop it, other products are never added.
+ */
+@Component
+@ConditionalOnProperty(prefix = "product.warm-up", name = "enabled", havingValue = "true")
+public class HotProductCache implements ProductReadModel {
+
+    private final Map<Long, Product> products = new ConcurrentHashMap<>();
+
+    private final Set<Long> changedWhileLoading = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean loading;
+
+    private volatile boolean loaded;
+
+    public void load(Supplier<? extends Iterable<Product>> hottest) {
+        loading = true;
+        for (Product product : hottest.get()) {
+            products.put(product.getId(), product);
+        }
+        loading = false;
+        // products read before a concurrent change may be stale, let them fall through to the database
+        changedWhileLoading.forEach(products::remove);
+        changedWhileLoading.clear();
+        loaded = true;
+    }
+
+    public int size() {
+        return products.size();
+    }
+
+    @Override
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    @Override
+    public Optional<Product> get(long id) {
+        return Optional.ofNullable(products.get(id));
+    }
+
+    @Override
+    public boolean supports(Pageable pageable) {
+        return false;
+    }
+
+    /**
+     * Never asked, see {@link #supports}: a handful of hot products answer no search.
+     */
+    @Override
+    public Page<Product> search(String name, String description, MatchMode match, Pageable pageable) {
+        return Page.empty(pageable);
+    }
+
+    @EventListener(condition = "#event.tenant == null")
+    public void onProductChanged(ProductChangedEvent event) {
+        if (loading) {
+            changedWhileLoading.add(event.getId());
+        }
+        if (event.getType() == ChangeType.DELETED) {
+            products.remove(event.getId());
+        } else if (event.getType() == ChangeType.UPDATED) {
+            products.computeIfPresent(event.getId(), (id, product) -> event.getProduct());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.product.warmup;
+
+import com.product.model.Product;
+import com.product.repository.ProductRepository;
+import com.product.service.ProductService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Once the application is ready, preloads the hottest products of the previous run into the
+ * {@link HotProductCache} and replays the hottest searches, which warms the connection pool,
+ * Hibernate's query plan cache and the JIT before real traffic needs them. The first
+ * {@code product.warm-up.requests} of those reads and searches are also sent to the application's
+ * own port so the servlet, MVC and JSON layers are warm too.
+ * <p>
+ * With {@code product.warm-up.exit=true} the application exits right after, which is how the
+ * {@code cds} build profile records the classes a warmed up instance uses.
+ */
+@Component
+@ConditionalOnProperty(prefix = "product.warm-up", name = "enabled", havingValue = "true")
+public class StartupWarmUp {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmUp.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final AccessLog accessLog;
+
+    private final HotProductCache cache;
+
+    private final ProductRepository repository;
+
+    private final ProductService service;
+
+    private final ConfigurableApplicationContext context;
+
+    private final int products;
+
+    private final int searches;
+
+    private final int requests;
+
+    private final boolean exit;
+
+    public StartupWarmUp(AccessLog accessLog,
+                         HotProductCache cache,
+                         ProductRepository repository,
+                         ProductService service,
+                         ConfigurableApplicationContext context,
+                         @Value("${product.warm-up.products:1000}") int products,
+                         @Value("${product.warm-up.searches:100}") int searches,
+                         @Value("${product.warm-up.requests:50}") int requests,
+                         @Value("${product.warm-up.exit:false}") boolean exit) {
+        this.accessLog = accessLog;
+        this.cache = cache;
+        this.repository = repository;
+        this.service = service;
+        this.context = context;
+        this.products = products;
+        this.searches = searches;
+        this.requests = requests;
+        this.exit = exit;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        var start = System.nanoTime();
+        try {
+            accessLog.load();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not read the access log, starting cold", e);
+        }
+        var ids = accessLog.hottestIds(products);
+        cache.load(() -> {
+            List<Product> hottest = new ArrayList<>(ids.size());
+            for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+                repository.findAllById(ids.subList(from, Math.min(ids.size(), from + BATCH_SIZE))).forEach(hottest::add);
+            }
+            return hottest;
+        });
+        var hottestSearches = accessLog.hottestSearches(searches);
+        int replayed = 0;
+        for (AccessLog.Search search : hottestSearches) {
+            try {
+                service.search(search.getName(), search.getDescription(), search.toPageable());
+            } catch (ResponseStatusException e) {
+                // no longer matching anything still warms the query
+            }
+            replayed++;
+        }
+        var sent = sendRequests(ids, hottestSearches);
+        accessLog.start();
+        log.info("Warmed up {} products, {} searches and {} requests in {} ms",
+                cache.size(), replayed, sent, (System.nanoTime() - start) / 1_000_000);
+        if (exit) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+
+    private int sendRequests(List<Long> ids, List<AccessLog.Search> hottestSearches) {
+        var port = context.getEnvironment().getProperty("local.server.port");
+        if (port == null || requests == 0 || (ids.isEmpty() && hottestSearches.isEmpty())) {
+            return 0;
+        }
+        var base = "http://localhost:" + port + "/api/products";
+        var client = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+        int sent = 0;
+        try {
+            for (int i = 0; sent < requests; i++) {
+                if (i < ids.size()) {
+                    send(client, base + "/" + ids.get(i));
+                    sent++;
+                }
+                if (i < hottestSearches.size() && sent < requests) {
+                    send(client, base + hottestSearches.get(i).toQuery());
+                    sent++;
+                }
+                if (i >= ids.size() && i >= hottestSearches.size()) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            log.debug("Stopped warm-up requests", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return sent;
+    }
+
+    private static void send(HttpClient client, String uri) throws IOException, InterruptedException {
+        client.send(HttpRequest.newBuilder(URI.create(uri)).timeout(TIMEOUT).build(), HttpResponse.BodyHandlers.discarding());
+    }
+}
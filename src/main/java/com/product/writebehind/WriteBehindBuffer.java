@@ -0,0 +1,246 @@
+package com.product.writebehind;
+
+import com.product.event.ProductChangedEvent;
+import com.product.model.Product;
+import com.product.model.SearchText;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind buffer for product updates. Updates are kept per id in lock-striped maps, so
+ * repeated updates of the same product collapse into the last one, and are written with JDBC
+ * batches when {@code product.write-behind.batch-size} updates are pending or every
+ * {@code product.write-behind.max-delay-ms}, whichever comes first, and on shutdown.
+ * <p>
+ * The buffer is the durability bound: at most {@code product.write-behind.max-pending} updates
+ * are ever unwritten, past that the updating thread flushes itself. {@link ProductChangedEvent}s
+ * are only published once an update is written, reads see it as soon as it is buffered.
+ */
+@Component
+@ConditionalOnProperty(prefix = "product.write-behind", name = "enabled", havingValue = "true")
+public class WriteBehindBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindBuffer.class);
+
+    private static final String UPDATE = "update products set name = ?, description = ?, update_date_time = ?, " +
+            "name_normalized = ?, description_normalized = ? where id = ? and delete_date_time is null";
+
+    private final JdbcTemplate jdbc;
+
+    private final ApplicationEventPublisher events;
+
+    private final Stripe[] stripes;
+
+    private final int batchSize;
+
+    private final int maxPending;
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final ExecutorService flusher = Executors.newSingleThreadExecutor(runnable -> {
+        var thread = new Thread(runnable, "product-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public WriteBehindBuffer(JdbcTemplate jdbc,
+                             ApplicationEventPublisher events,
+                             @Value("${product.write-behind.stripes:16}") int stripes,
+                             @Value("${product.write-behind.batch-size:500}") int batchSize,
+                             @Value("${product.write-behind.max-pending:10000}") int maxPending) {
+        this.jdbc = jdbc;
+        this.events = events;
+        this.stripes = new Stripe[Integer.highestOneBit(Math.max(1, stripes - 1) << 1)];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.batchSize = batchSize;
+        this.maxPending = Math.max(batchSize, maxPending);
+    }
+
+    /**
+     * Buffers {@code name} and {@code description} as the new state of {@code current}, replacing
+     * any update of the same product that is still pending, and returns the buffered product.
+     */
+    public Product put(Product current, String name, String description) {
+        var updated = new Product(current.getId(), name, description, current.getCreateDateTime(), now());
+        var stripe = stripe(updated.getId());
+        synchronized (stripe) {
+            if (stripe.pending.put(updated.getId(), updated) == null) {
+                pending.incrementAndGet();
+            }
+        }
+        var count = pending.get();
+        if (count >= maxPending) {
+            flush();
+        } else if (count >= batchSize && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushRequested.set(false);
+                flush();
+            });
+        }
+        return updated;
+    }
+
+    /**
+     * The buffered state of the product, including updates being written right now.
+     */
+    public Optional<Product> get(long id) {
+        var stripe = stripe(id);
+        synchronized (stripe) {
+            var product = stripe.pending.get(id);
+            return Optional.ofNullable(product != null ? product : stripe.flushing.get(id));
+        }
+    }
+
+    /**
+     * Drops the pending update of a deleted product so it is no longer served from the buffer.
+     */
+    public void discard(long id) {
+        var stripe = stripe(id);
+        synchronized (stripe) {
+            if (stripe.pending.remove(id) != null) {
+                pending.decrementAndGet();
+            }
+            stripe.flushing.remove(id);
+        }
+    }
+
+    public int size() {
+        return pending.get();
+    }
+
+    @Scheduled(fixedDelayString = "${product.write-behind.max-delay-ms:1000}")
+    public void flushPeriodically() {
+        var written = flush();
+        if (written > 0) {
+            log.debug("Wrote {} buffered product updates", written);
+        }
+    }
+
+    /**
+     * Writes every pending update and returns how many products were updated. Updates of products
+     * deleted in the meantime are skipped; if the batch fails the updates are put back unless a
+     * newer one arrived for the same product.
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            var batch = new ArrayList<Product>();
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    if (!stripe.pending.isEmpty()) {
+                        stripe.flushing = stripe.pending;
+                        stripe.pending = new HashMap<>();
+                        batch.addAll(stripe.flushing.values());
+                    }
+                }
+            }
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            pending.addAndGet(-batch.size());
+            try {
+                return write(batch);
+            } catch (RuntimeException e) {
+                requeue();
+                log.warn("Could not write {} buffered product updates, will retry", batch.size(), e);
+                return 0;
+            } finally {
+                for (Stripe stripe : stripes) {
+                    synchronized (stripe) {
+                        if (!stripe.flushing.isEmpty()) {
+                            stripe.flushing = new HashMap<>();
+                        }
+                    }
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        flusher.shutdown();
+        var written = flush();
+        log.info("Wrote {} buffered product updates on shutdown", written);
+    }
+
+    private int write(List<Product> batch) {
+        var now = now();
+        var counts = jdbc.batchUpdate(UPDATE, batch, batchSize, (statement, product) -> {
+            statement.setString(1, product.getName());
+            statement.setString(2, product.getDescription());
+            statement.setObject(3, now);
+            statement.setString(4, SearchText.normalize(product.getName()));
+            statement.setString(5, SearchText.normalize(product.getDescription()));
+            statement.setLong(6, product.getId());
+        });
+        int written = 0;
+        int index = 0;
+        for (int[] chunk : counts) {
+            for (int count : chunk) {
+                var product = batch.get(index++);
+                if (count > 0) {
+                    written++;
+                    events.publishEvent(ProductChangedEvent.updated(new Product(product.getId(), product.getName(),
+                            product.getDescription(), product.getCreateDateTime(), now)));
+                }
+            }
+        }
+        return written;
+    }
+
+    private void requeue() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (Map.Entry<Long, Product> entry : stripe.flushing.entrySet()) {
+                    if (stripe.pending.putIfAbsent(entry.getKey(), entry.getValue()) == null) {
+                        pending.incrementAndGet();
+                    }
+                }
+            }
+        }
+    }
+
+    private Stripe stripe(long id) {
+        var hash = Long.hashCode(id) * 0x9E3779B9;
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private static final class Stripe {
+
+        private Map<Long, Product> pending = new HashMap<>();
+
+        private Map<Long, Product> flushing = new HashMap<>();
+    }
+}
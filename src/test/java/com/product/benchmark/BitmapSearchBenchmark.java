@@ -0,0 +1,88 @@
+package com.product.benchmark;
+
+import com.product.bitmap.Filter;
+import com.product.bitmap.ProductBitmapIndex;
+import com.product.catalog.CompactProductCatalog;
+import com.product.model.Product;
+import com.product.repository.MatchMode;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * First page of a name + description search from the {@link ProductBitmapIndex} against the
+ * {@link CompactProductCatalog} scan, plus a filter on the creation day only the bitmaps can
+ * answer without a scan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class BitmapSearchBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2021, 1, 1);
+
+    @Param({"1000000"})
+    public int products;
+
+    @Param({"Vaqueiro", "curto"})
+    public String name;
+
+    @Param({"verano"})
+    public String description;
+
+    private CompactProductCatalog catalog;
+
+    private ProductBitmapIndex index;
+
+    @Setup
+    public void setUp() {
+        var random = new Random(42);
+        var samples = SearchBenchmark.Catalog.products(1000, random);
+        catalog = new CompactProductCatalog(products);
+        index = new ProductBitmapIndex(products);
+        for (int i = 0; i < products; i++) {
+            var sample = samples.get(i % samples.size());
+            var created = LocalDateTime.of(FIRST_DAY, LocalTime.NOON).plusDays(random.nextInt(365));
+            var product = new Product(i + 1, sample.getName(), sample.getDescription(), created, created);
+            catalog.put(product);
+            index.put(product);
+        }
+    }
+
+    @Benchmark
+    public long[] scan() {
+        var ids = catalog.filter(name, description, MatchMode.CONTAINS);
+        return Arrays.copyOf(ids, Math.min(PAGE_SIZE, ids.length));
+    }
+
+    @Benchmark
+    public ProductBitmapIndex.Matches bitmap() {
+        return index.search(Filter.and(Filter.name(name, MatchMode.CONTAINS),
+                Filter.description(description, MatchMode.CONTAINS)), 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public ProductBitmapIndex.Matches bitmapCreatedInMonth() {
+        return index.search(Filter.and(Filter.name(name, MatchMode.CONTAINS),
+                Filter.createdBetween(FIRST_DAY.plusMonths(3), FIRST_DAY.plusMonths(4).minusDays(1))), 0, PAGE_SIZE);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BitmapSearchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,58 @@
+package com.product.benchmark;
+
+import com.product.catalog.CompactProductCatalog;
+import com.product.model.Product;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Retained heap of {@link CompactProductCatalog} against a {@code HashMap<Long, Product>} holding
+ * the same products. The default 1M products need about a 2GB heap, e.g.
+ * {@code mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * -Dexec.args="-Xmx2g -cp %classpath com.product.benchmark.CatalogFootprintBenchmark 1000000"}.
+ */
+public class CatalogFootprintBenchmark {
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        long baseline = usedHeap();
+        Map<Long, Product> map = new HashMap<>();
+        fill(count, product -> map.put(product.getId(), product));
+        long mapBytes = usedHeap() - baseline;
+        System.out.printf("HashMap<Long, Product>  %,d products  %,d bytes  %.1f bytes/product%n",
+                map.size(), mapBytes, (double) mapBytes / count);
+        map.clear();
+
+        baseline = usedHeap();
+        var catalog = new CompactProductCatalog(count);
+        fill(count, catalog::put);
+        long catalogBytes = usedHeap() - baseline;
+        System.out.printf("CompactProductCatalog   %,d products  %,d bytes  %.1f bytes/product%n",
+                catalog.size(), catalogBytes, (double) catalogBytes / count);
+    }
+
+    private static void fill(int count, Consumer<Product> sink) {
+        var random = new Random(42);
+        var now = LocalDateTime.now();
+        var catalog = SearchBenchmark.Catalog.products(1000, random);
+        for (int i = 0; i < count; i++) {
+            var template = catalog.get(i % catalog.size());
+            // distinct strings per product, as they would be when loaded from the database
+            sink.accept(new Product(i + 1, new String(template.getName() + " " + i),
+                    new String(template.getDescription()), now.minusSeconds(i), now));
+        }
+    }
+
+    private static long usedHeap() {
+        var runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,63 @@
+package com.product.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.product.dto.Pagination;
+import com.product.dto.Response;
+import com.product.json.ProductJsonWriter;
+import com.product.model.Product;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering a page of products with Jackson against {@link ProductJsonWriter}; run with the GC
+ * profiler to compare the allocation per page ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+
+    @Param({"3", "100"})
+    public int pageSize;
+
+    private final ObjectMapper mapper = new ObjectMapper().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    private final OutputStream sink = OutputStream.nullOutputStream();
+
+    private Response<Product> response;
+
+    @Setup
+    public void setUp() {
+        var products = SearchBenchmark.Catalog.products(pageSize, new Random(42));
+        response = new Response<>(products, new Pagination(0, 1000, 1000 / pageSize));
+    }
+
+    @Benchmark
+    public void jackson() throws IOException {
+        mapper.writeValue(sink, response);
+    }
+
+    @Benchmark
+    public void productJsonWriter() throws IOException {
+        ProductJsonWriter.current().write(response, sink);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JsonBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,108 @@
+package com.product.benchmark;
+
+import com.product.ProductApplication;
+import com.product.model.Product;
+import com.product.repository.ProductRepository;
+import com.product.repository.ProductWithDescriptionLikeSpecification;
+import com.product.repository.ProductWithNameLikeSpecification;
+import com.product.service.ParallelSearchExecutor;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single Specification query against the parallel id-set intersection for name + description searches.
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.product.benchmark.SearchBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"10000", "100000"})
+    public int products;
+
+    @Param({"Vaqueiro", "curto"})
+    public String name;
+
+    @Param({"verano"})
+    public String description;
+
+    private ConfigurableApplicationContext context;
+
+    private ProductRepository repository;
+
+    private ParallelSearchExecutor parallelSearch;
+
+    private final Pageable pageable = PageRequest.of(0, 20);
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(ProductApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--product.search.parallel.enabled=true", "--spring.jpa.show-sql=false");
+        repository = context.getBean(ProductRepository.class);
+        parallelSearch = context.getBean(ParallelSearchExecutor.class);
+        repository.saveAll(Catalog.products(products, new Random(42)));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Page<Product> specification() {
+        var spec = Specification
+                .where(new ProductWithNameLikeSpecification(name))
+                .and(new ProductWithDescriptionLikeSpecification(description));
+        return repository.findAll(spec, pageable);
+    }
+
+    @Benchmark
+    public Page<Product> scatterGather() {
+        return parallelSearch.search(name, description, pageable);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SearchBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    static final class Catalog {
+
+        private static final String[] NAMES = {"Vaqueiro", "Pantalon", "Camisa", "Saia", "Chaqueta", "Abrigo"};
+
+        private static final String[] ADJECTIVES = {"curto", "longo", "alto", "baixo", "bonito", "classico"};
+
+        private static final String[] SEASONS = {"verano", "inverno", "primavera", "outono"};
+
+        private Catalog() {
+        }
+
+        static List<Product> products(int count, Random random) {
+            List<Product> products = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                var name = NAMES[random.nextInt(NAMES.length)] + " " + ADJECTIVES[random.nextInt(ADJECTIVES.length)];
+                var description = "Nuevo " + name.toLowerCase() + " para " + SEASONS[random.nextInt(SEASONS.length)];
+                products.add(new Product(name, description));
+            }
+            return products;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.product.benchmark;
+
+import com.product.ProductApplication;
+import com.product.model.Product;
+import com.product.model.SearchText;
+import com.product.warmup.AccessLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to answer the first {@link #REQUESTS} product reads and searches once the application reports
+ * it is started, with and without the startup warm-up. Every measurement is a fresh JVM so the JIT and
+ * Hibernate start cold, which is what makes the first requests after a deploy slow. Run with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.product.benchmark.StartupBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(5)
+public class StartupBenchmark {
+
+    private static final int PRODUCTS = 2_000;
+
+    private static final int HOT_PRODUCTS = 200;
+
+    private static final int REQUESTS = 10;
+
+    @Param({"false", "true"})
+    public boolean warmUp;
+
+    private Path data;
+
+    private Path accessLog;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void writeFiles() throws IOException {
+        data = Files.createTempFile("products", ".sql");
+        List<String> inserts = new ArrayList<>();
+        long id = 1;
+        for (Product product : SearchBenchmark.Catalog.products(PRODUCTS, new Random(42))) {
+            inserts.add("insert into products (id, name, description, name_normalized, description_normalized, "
+                    + "create_date_time, update_date_time) values (" + id++ + ", '" + product.getName() + "', '"
+                    + product.getDescription() + "', '" + SearchText.normalize(product.getName()) + "', '"
+                    + SearchText.normalize(product.getDescription()) + "', current_timestamp, current_timestamp);");
+        }
+        Files.write(data, inserts, StandardCharsets.UTF_8);
+
+        accessLog = Files.createTempFile("product-access", ".log");
+        var hot = new AccessLog(accessLog, PRODUCTS, 1000);
+        hot.start();
+        for (long hotId = 1; hotId <= HOT_PRODUCTS; hotId++) {
+            hot.recordGet(hotId);
+        }
+        hot.recordSearch("Vaqueiro", "verano", PageRequest.of(0, 3));
+        hot.recordSearch("curto", null, PageRequest.of(0, 3));
+        hot.save();
+
+        // load the client side classes so only the server is measured cold
+        try {
+            client.send(HttpRequest.newBuilder(URI.create("http://localhost:1/")).build(), HttpResponse.BodyHandlers.discarding());
+        } catch (IOException | InterruptedException e) {
+            // nothing listens there
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void start() {
+        context = new SpringApplicationBuilder(ProductApplication.class)
+                .run("--server.port=0",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=warn",
+                        "--logging.level.com.product.warmup=info",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.defer-datasource-initialization=true",
+                        "--spring.sql.init.mode=always",
+                        "--spring.sql.init.data-locations=file:" + data,
+                        "--product.warm-up.enabled=" + warmUp,
+                        "--product.warm-up.access-log=" + accessLog);
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop() {
+        context.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() throws IOException {
+        Files.deleteIfExists(data);
+        Files.deleteIfExists(accessLog);
+    }
+
+    @Benchmark
+    public void timeToFirstRequests() throws IOException, InterruptedException {
+        var base = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/products";
+        var random = new Random(7);
+        for (int i = 0; i < REQUESTS; i++) {
+            send(base + "/" + (1 + random.nextInt(HOT_PRODUCTS)));
+            send(base + "?name=Vaqueiro&description=verano");
+        }
+    }
+
+    private void send(String uri) throws IOException, InterruptedException {
+        var response = client.send(HttpRequest.newBuilder(URI.create(uri)).build(), HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(uri + " answered " + response.statusCode());
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StartupBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,102 @@
+package com.product.benchmark;
+
+import com.product.dto.Suggestion;
+import com.product.model.SearchText;
+import com.product.suggest.SuggestionTrie;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top 10 suggestions for typed prefixes from a {@link SuggestionTrie} against scanning every name,
+ * as {@code like 'prefix%'} without an index would. Sample time mode, so JMH reports the p99 and
+ * p99.9 latencies next to the average; the trie's target is a p99 under 50 µs at 1M products.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class SuggestBenchmark {
+
+    private static final int LIMIT = 10;
+
+    @Param({"1000000"})
+    public int products;
+
+    private final SuggestionTrie trie = new SuggestionTrie();
+
+    private String[] keys;
+
+    private long[] scores;
+
+    private String[] prefixes;
+
+    @Setup
+    public void setUp() {
+        var random = new Random(42);
+        var catalog = SearchBenchmark.Catalog.products(1000, random);
+        keys = new String[products];
+        scores = new long[products];
+        for (int i = 0; i < products; i++) {
+            var name = catalog.get(i % catalog.size()).getName() + " " + i;
+            // a few very popular products and a long tail, like real read counts
+            long score = (long) (1000 / (1 + random.nextDouble() * 999));
+            trie.put(i, name);
+            trie.addScore(i, score);
+            keys[i] = SearchText.normalize(name);
+            scores[i] = score;
+        }
+        // what a search box sends while typing: one to a dozen characters of existing names
+        prefixes = new String[1024];
+        for (int i = 0; i < prefixes.length; i++) {
+            var key = keys[random.nextInt(products)];
+            prefixes[i] = key.substring(0, 1 + random.nextInt(Math.min(12, key.length())));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public List<Suggestion> trie(Cursor cursor) {
+        return trie.top(prefixes[cursor.next++ & (prefixes.length - 1)], LIMIT);
+    }
+
+    @Benchmark
+    public List<Suggestion> scan(Cursor cursor) {
+        var prefix = prefixes[cursor.next++ & (prefixes.length - 1)];
+        var top = new PriorityQueue<Integer>(Comparator.comparingLong(i -> scores[i]));
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].startsWith(prefix)) {
+                top.add(i);
+                if (top.size() > LIMIT) {
+                    top.poll();
+                }
+            }
+        }
+        List<Suggestion> suggestions = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            int i = top.poll();
+            suggestions.add(0, new Suggestion(i, keys[i]));
+        }
+        return suggestions;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SuggestBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
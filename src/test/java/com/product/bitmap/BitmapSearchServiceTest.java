@@ -0,0 +1,48 @@
+package com.product.bitmap;
+
+import com.product.event.ProductChangedEvent;
+import com.product.model.Product;
+import com.product.repository.MatchMode;
+import com.product.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BitmapSearchServiceTest {
+
+    private final ProductRepository repository = mock(ProductRepository.class);
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @Test
+    public void givenChangesWhileLoading_whenLoad_thenIndexedUnderCurrentTerms() {
+        var service = new BitmapSearchService(repository, 16);
+        // the changes are committed after the page was read, before the loader indexes it
+        when(repository.findPageAfter(anyLong(), any())).thenAnswer(invocation -> {
+            service.onProductChanged(ProductChangedEvent.deleted(1, now));
+            service.onProductChanged(ProductChangedEvent.updated(product(2, "Camisa")));
+            return List.of(product(1, "Vaqueiro"), product(2, "Pantalon"), product(3, "Saia"));
+        });
+        when(repository.findAllById(any())).thenReturn(List.of(product(2, "Camisa")));
+
+        service.load();
+
+        assertTrue(service.isLoaded());
+        assertArrayEquals(new long[0], service.ids("Vaqueiro", null, MatchMode.CONTAINS));
+        assertArrayEquals(new long[0], service.ids("Pantalon", null, MatchMode.CONTAINS));
+        assertArrayEquals(new long[]{2}, service.ids("Camisa", null, MatchMode.CONTAINS));
+        assertArrayEquals(new long[]{2, 3}, service.ids(null, "verano", MatchMode.CONTAINS));
+    }
+
+    private Product product(long id, String name) {
+        return new Product(id, name, "Nuevo estilo verano", now, now);
+    }
+}
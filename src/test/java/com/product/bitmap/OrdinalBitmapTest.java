@@ -0,0 +1,90 @@
+package com.product.bitmap;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrdinalBitmapTest {
+
+    @Test
+    public void givenValues_whenAddAndRemove_thenAscendingDistinctValues() {
+        var bitmap = OrdinalBitmap.of(70000, 3, 1, 3, 65536);
+        bitmap.remove(1);
+        bitmap.remove(2);
+
+        assertArrayEquals(new int[]{3, 65536, 70000}, bitmap.toArray());
+        assertEquals(3, bitmap.cardinality());
+        assertTrue(bitmap.contains(65536));
+        assertFalse(bitmap.contains(65537));
+    }
+
+    @Test
+    public void givenDenseGroup_whenRemoveBelowLimit_thenSameValues() {
+        var bitmap = new OrdinalBitmap();
+        for (int value = 0; value <= OrdinalBitmap.ARRAY_LIMIT; value++) {
+            bitmap.add(value * 2);
+        }
+        bitmap.remove(0);
+        bitmap.remove(2);
+
+        assertEquals(OrdinalBitmap.ARRAY_LIMIT - 1, bitmap.cardinality());
+        assertFalse(bitmap.contains(2));
+        assertTrue(bitmap.contains(4));
+        assertFalse(bitmap.contains(5));
+    }
+
+    @Test
+    public void givenRandomSets_whenCombined_thenSameAsBitSet() {
+        var random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            // sparse and dense groups on both sides
+            int range = round % 2 == 0 ? 200_000 : 20_000;
+            var left = new OrdinalBitmap();
+            var right = new OrdinalBitmap();
+            var leftBits = new BitSet();
+            var rightBits = new BitSet();
+            for (int i = 0; i < 10_000; i++) {
+                int value = random.nextInt(range);
+                left.add(value);
+                leftBits.set(value);
+                value = random.nextInt(range);
+                right.add(value);
+                rightBits.set(value);
+            }
+
+            var and = (BitSet) leftBits.clone();
+            and.and(rightBits);
+            var or = (BitSet) leftBits.clone();
+            or.or(rightBits);
+            var andNot = (BitSet) leftBits.clone();
+            andNot.andNot(rightBits);
+
+            assertArrayEquals(and.stream().toArray(), OrdinalBitmap.and(left, right).toArray());
+            assertArrayEquals(or.stream().toArray(), OrdinalBitmap.or(left, right).toArray());
+            assertArrayEquals(andNot.stream().toArray(), OrdinalBitmap.andNot(left, right).toArray());
+            assertEquals(and.cardinality(), OrdinalBitmap.and(left, right).cardinality());
+        }
+    }
+
+    @Test
+    public void givenStoppingAction_whenForEach_thenStopsEarly() {
+        var bitmap = OrdinalBitmap.of(1, 2, 3, 100_000);
+        var visited = new int[1];
+
+        assertFalse(bitmap.forEach(value -> ++visited[0] < 2));
+        assertEquals(2, visited[0]);
+        assertTrue(bitmap.forEach(value -> true));
+    }
+
+    @Test
+    public void givenNegativeValue_whenAdd_thenRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new OrdinalBitmap().add(-1));
+    }
+}
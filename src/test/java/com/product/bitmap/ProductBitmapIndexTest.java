@@ -0,0 +1,153 @@
+package com.product.bitmap;
+
+import com.product.catalog.CompactProductCatalog;
+import com.product.model.Product;
+import com.product.repository.MatchMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductBitmapIndexTest {
+
+    private final LocalDateTime now = LocalDateTime.of(2021, 10, 5, 10, 30);
+
+    private ProductBitmapIndex index;
+
+    @BeforeEach
+    public void init() {
+        index = new ProductBitmapIndex(2);
+        index.put(new Product(3, "Vaqueiro curto", "Vaqueiro para todos los días", now, now));
+        index.put(new Product(1, "Pantalon bonito", "Nuevo pantalon 2021 verano", now.minusDays(10), now));
+        index.put(new Product(2, "Vaqueiro longo", "Vaqueiro classico verano", now.minusDays(1), now));
+    }
+
+    @Test
+    public void givenFilters_whenSearch_thenSortedIdsAndTotal() {
+        assertArrayEquals(new long[]{2, 3}, search(Filter.name("Vaqueiro", MatchMode.CONTAINS)));
+        assertArrayEquals(new long[]{1, 2}, search(Filter.description("verano", MatchMode.CONTAINS)));
+        assertArrayEquals(new long[]{3}, search(Filter.description("días", MatchMode.CONTAINS)));
+        assertArrayEquals(new long[]{1, 2, 3}, search(Filter.all()));
+        assertArrayEquals(new long[]{2}, search(Filter.and(Filter.name("vaq", MatchMode.CONTAINS),
+                Filter.description("verano", MatchMode.CONTAINS))));
+        assertEquals(2, index.count(Filter.name("Vaqueiro", MatchMode.CONTAINS)));
+    }
+
+    @Test
+    public void givenCaseAccentsOrPrefix_whenSearch_thenFoldedMatch() {
+        assertArrayEquals(new long[]{3}, search(Filter.description("TODOS LOS DIAS", MatchMode.CONTAINS)));
+        assertArrayEquals(new long[]{2, 3}, search(Filter.name("va", MatchMode.PREFIX)));
+        assertArrayEquals(new long[0], search(Filter.name("curto", MatchMode.PREFIX)));
+        assertArrayEquals(new long[]{3}, search(Filter.name("curto", MatchMode.CONTAINS)));
+        assertArrayEquals(new long[]{1, 2, 3}, search(Filter.name("o", MatchMode.CONTAINS)));
+        assertArrayEquals(new long[]{1}, search(Filter.name("p", MatchMode.PREFIX)));
+    }
+
+    @Test
+    public void givenTrigramsApart_whenSearch_thenNoMatch() {
+        // "ueiro" and "ro cu" are both in the name, "ueiro cux" is not
+        assertArrayEquals(new long[0], search(Filter.name("eiro cux", MatchMode.CONTAINS)));
+        assertArrayEquals(new long[]{3}, search(Filter.name("eiro cu", MatchMode.CONTAINS)));
+    }
+
+    @Test
+    public void givenCombinations_whenSearch_thenBooleanAlgebra() {
+        var vaqueiro = Filter.name("vaqueiro", MatchMode.CONTAINS);
+        var verano = Filter.description("verano", MatchMode.CONTAINS);
+
+        assertArrayEquals(new long[]{1, 2, 3}, search(Filter.or(vaqueiro, verano)));
+        assertArrayEquals(new long[]{3}, search(Filter.and(vaqueiro, Filter.not(verano))));
+        assertArrayEquals(new long[]{2, 3}, search(Filter.createdBetween(now.toLocalDate().minusDays(1), now.toLocalDate())));
+        assertArrayEquals(new long[]{1}, search(Filter.not(Filter.createdBetween(now.toLocalDate().minusDays(1), LocalDate.MAX))));
+    }
+
+    @Test
+    public void givenUpdateAndRemove_whenSearch_thenLatestState() {
+        index.put(new Product(3, "Saia baixa", "Saia de inverno", now, now));
+        assertTrue(index.remove(1));
+        assertFalse(index.remove(1));
+        index.put(new Product(4, "Vaqueiro alto", "Vaqueiro de verano", now, now));
+
+        assertArrayEquals(new long[]{2, 4}, search(Filter.name("vaqueiro", MatchMode.CONTAINS)));
+        assertArrayEquals(new long[]{3}, search(Filter.name("saia", MatchMode.PREFIX)));
+        assertArrayEquals(new long[0], search(Filter.description("pantalon", MatchMode.CONTAINS)));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    public void givenEmptyTexts_whenPut_thenIndexed() {
+        var fresh = new ProductBitmapIndex(2);
+        fresh.put(new Product(1, "", "", now, now));
+        fresh.put(new Product(2, "Saia", "", now, now));
+
+        assertArrayEquals(new long[]{1, 2}, fresh.search(Filter.name("", MatchMode.CONTAINS), 0, 10).getIds());
+        assertArrayEquals(new long[]{2}, fresh.search(Filter.name("saia", MatchMode.PREFIX), 0, 10).getIds());
+        assertArrayEquals(new long[0], fresh.search(Filter.description("saia", MatchMode.CONTAINS), 0, 10).getIds());
+    }
+
+    @Test
+    public void givenRepeatedUpdates_whenPut_thenArenaCompacted() {
+        var description = "Vaqueiro para todos los días ".repeat(1000);
+        for (int i = 0; i < 500; i++) {
+            index.put(new Product(3, "Vaqueiro " + i, description, now, now));
+        }
+
+        assertArrayEquals(new long[]{3}, search(Filter.name("vaqueiro 499", MatchMode.PREFIX)));
+        assertArrayEquals(new long[]{2, 3}, search(Filter.description("vaqueiro", MatchMode.PREFIX)));
+        assertArrayEquals(new long[]{1}, search(Filter.name("pantalon bonito", MatchMode.CONTAINS)));
+        // 15MB of descriptions written, a few pages kept
+        assertTrue(index.bytes() < 4 << 20);
+    }
+
+    @Test
+    public void givenPages_whenSearch_thenIdOrderSlices() {
+        assertArrayEquals(new long[]{1, 2}, index.search(Filter.all(), 0, 2).getIds());
+        assertArrayEquals(new long[]{3}, index.search(Filter.all(), 2, 2).getIds());
+        assertArrayEquals(new long[0], index.search(Filter.all(), 4, 2).getIds());
+        assertEquals(3, index.search(Filter.all(), 4, 2).getTotal());
+    }
+
+    @Test
+    public void givenRandomCatalog_whenSearch_thenSameAsCompactCatalogScan() {
+        var random = new Random(42);
+        var words = new String[]{"vaqueiro", "pantalon", "camisa", "saia", "curto", "longo", "verano", "inverno"};
+        var catalog = new CompactProductCatalog(16);
+        index = new ProductBitmapIndex(16);
+        for (int i = 0; i < 5000; i++) {
+            // ids out of ordinal order and reused ordinals, so paging cannot lean on the load order
+            long id = 1 + random.nextInt(20_000);
+            if (random.nextInt(10) == 0) {
+                index.remove(id);
+                catalog.remove(id);
+                continue;
+            }
+            var name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+            var description = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+            var product = new Product(id, name, description, now, now);
+            index.put(product);
+            catalog.put(product);
+        }
+        for (String filter : new String[]{"vaqueiro curto", "ro", "o l", "saia", "x"}) {
+            for (MatchMode match : MatchMode.values()) {
+                var expected = catalog.filter(filter, "o", match);
+                var matches = index.search(Filter.and(Filter.name(filter, match), Filter.description("o", match)), 5, 50);
+
+                assertEquals(expected.length, matches.getTotal());
+                assertArrayEquals(Arrays.copyOfRange(expected, Math.min(5, expected.length), Math.min(55, expected.length)),
+                        matches.getIds());
+            }
+        }
+    }
+
+    private long[] search(Filter filter) {
+        return index.search(filter, 0, 100).getIds();
+    }
+}
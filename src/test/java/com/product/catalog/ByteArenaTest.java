@@ -0,0 +1,63 @@
+package com.product.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ByteArenaTest {
+
+    private static final int PAGE_SIZE = 1 << 20;
+
+    @Test
+    public void givenFreshArena_whenAddEmpty_thenEmptyString() {
+        var arena = new ByteArena();
+
+        long empty = arena.add("");
+        long text = arena.add("vaqueiro");
+
+        assertEquals("", arena.string(empty));
+        assertEquals("vaqueiro", arena.string(text));
+        assertTrue(arena.contains(empty, new byte[0]));
+        assertFalse(arena.contains(empty, "v".getBytes()));
+        assertFalse(arena.startsWith(empty, "v".getBytes()));
+    }
+
+    @Test
+    public void givenFullPage_whenAddEmpty_thenNextPage() {
+        var arena = new ByteArena();
+        var chunk = "x".repeat(PAGE_SIZE / 32);
+        long first = arena.add(chunk.substring(1));
+        for (int i = 1; i < 32; i++) {
+            arena.add(i == 31 ? chunk + "x" : chunk);
+        }
+        assertEquals(PAGE_SIZE, arena.bytes());
+
+        long empty = arena.add("");
+        long text = arena.add("saia");
+
+        assertEquals("", arena.string(empty));
+        assertEquals("saia", arena.string(text));
+        assertEquals(chunk.substring(1), arena.string(first));
+        assertEquals(2L * PAGE_SIZE, arena.bytes());
+    }
+
+    @Test
+    public void givenReleasedStrings_whenCopiedToNewArena_thenLiveStringsKept() {
+        var arena = new ByteArena();
+        var text = "y".repeat(60_000);
+        long live = arena.add("pantalon");
+        for (int i = 0; i < 40; i++) {
+            arena.release(arena.add(text));
+        }
+        assertTrue(arena.isFragmented());
+
+        var compacted = new ByteArena();
+        long copy = compacted.add(arena, live);
+
+        assertEquals("pantalon", compacted.string(copy));
+        assertFalse(compacted.isFragmented());
+        assertEquals(PAGE_SIZE, compacted.bytes());
+    }
+}
@@ -0,0 +1,48 @@
+package com.product.catalog;
+
+import com.product.event.ProductChangedEvent;
+import com.product.model.Product;
+import com.product.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CompactCatalogServiceTest {
+
+    private final ProductRepository repository = mock(ProductRepository.class);
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @Test
+    public void givenChangesWhileLoading_whenLoad_thenCurrentProductsLoaded() {
+        var service = new CompactCatalogService(repository, 16);
+        // the changes are committed after the page was read, before the loader puts it
+        when(repository.findPageAfter(anyLong(), any())).thenAnswer(invocation -> {
+            service.onProductChanged(ProductChangedEvent.deleted(1, now));
+            service.onProductChanged(ProductChangedEvent.updated(product(2, "Pantalon curto")));
+            return List.of(product(1, "Vaqueiro"), product(2, "Pantalon"), product(3, "Saia"));
+        });
+        when(repository.findAllById(any())).thenReturn(List.of(product(2, "Pantalon curto")));
+
+        service.load();
+
+        assertTrue(service.isLoaded());
+        assertFalse(service.get(1).isPresent());
+        assertEquals("Pantalon curto", service.get(2).orElseThrow().getName());
+        assertEquals("Saia", service.get(3).orElseThrow().getName());
+        assertEquals(2, service.getCatalog().size());
+    }
+
+    private Product product(long id, String name) {
+        return new Product(id, name, "Nuevo estilo verano", now, now);
+    }
+}
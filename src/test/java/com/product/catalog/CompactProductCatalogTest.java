@@ -0,0 +1,91 @@
+package com.product.catalog;
+
+import com.product.model.Product;
+import com.product.repository.MatchMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactProductCatalogTest {
+
+    private final LocalDateTime now = LocalDateTime.of(2021, 10, 5, 10, 30, 15, 123456000);
+
+    private CompactProductCatalog catalog;
+
+    @BeforeEach
+    public void init() {
+        catalog = new CompactProductCatalog(2);
+        catalog.put(new Product(3, "Vaqueiro curto", "Vaqueiro para todos los días", now, now));
+        catalog.put(new Product(1, "Pantalon bonito", "Nuevo pantalon 2021 verano", now, now));
+        catalog.put(new Product(2, "Vaqueiro longo", "Vaqueiro classico verano", now, now.plusHours(1)));
+    }
+
+    @Test
+    public void givenProducts_whenGet_thenDecoded() {
+        var product = catalog.get(2).orElseThrow();
+
+        assertEquals(new Product(2, "Vaqueiro longo", "Vaqueiro classico verano", null, null), product);
+        assertEquals(now, product.getCreateDateTime());
+        assertEquals(now.plusHours(1), product.getUpdateDateTime());
+        assertEquals(3, catalog.size());
+    }
+
+    @Test
+    public void givenFilters_whenFilter_thenSortedIds() {
+        assertArrayEquals(new long[]{2, 3}, catalog.filter("Vaqueiro", null));
+        assertArrayEquals(new long[]{1, 2}, catalog.filter(null, "verano"));
+        assertArrayEquals(new long[]{3}, catalog.filter(null, "días"));
+        assertArrayEquals(new long[]{1, 2, 3}, catalog.filter(null, null));
+    }
+
+    @Test
+    public void givenCaseAccentsOrPrefix_whenFilter_thenFoldedMatch() {
+        assertArrayEquals(new long[]{3}, catalog.filter(null, "TODOS LOS DIAS"));
+        assertArrayEquals(new long[]{2, 3}, catalog.filter("vaqueiro", null, MatchMode.PREFIX));
+        assertArrayEquals(new long[0], catalog.filter("curto", null, MatchMode.PREFIX));
+        assertArrayEquals(new long[]{3}, catalog.filter("curto", null, MatchMode.CONTAINS));
+    }
+
+    @Test
+    public void givenUpdateAndRemove_whenGet_thenLatestState() {
+        catalog.put(new Product(3, "Vaqueiro baixo", "Vaqueiro de inverno", now, now));
+        assertTrue(catalog.remove(1));
+        assertFalse(catalog.remove(1));
+        catalog.put(new Product(4, "Saia", "Saia de verano", now, now));
+
+        assertEquals("Vaqueiro baixo", catalog.get(3).orElseThrow().getName());
+        assertFalse(catalog.contains(1));
+        assertArrayEquals(new long[]{2, 4}, catalog.filter(null, "verano"));
+        assertEquals(3, catalog.size());
+    }
+
+    @Test
+    public void givenEmptyTexts_whenPut_thenStoredAndMatched() {
+        var fresh = new CompactProductCatalog(2);
+        fresh.put(new Product(1, "", "", now, now));
+
+        assertEquals("", fresh.get(1).orElseThrow().getName());
+        assertArrayEquals(new long[]{1}, fresh.filter("", null));
+        assertArrayEquals(new long[0], fresh.filter("saia", null));
+    }
+
+    @Test
+    public void givenRepeatedUpdates_whenPut_thenArenaCompacted() {
+        var description = "Vaqueiro para todos los días ".repeat(1000);
+        for (int i = 0; i < 500; i++) {
+            catalog.put(new Product(3, "Vaqueiro " + i, description, now, now));
+        }
+
+        assertEquals("Vaqueiro 499", catalog.get(3).orElseThrow().getName());
+        assertEquals("Vaqueiro longo", catalog.get(2).orElseThrow().getName());
+        assertArrayEquals(new long[]{2, 3}, catalog.filter(null, "vaqueiro"));
+        // 30MB of descriptions written, a few pages kept
+        assertTrue(catalog.bytes() < 4 << 20);
+    }
+}
@@ -0,0 +1,48 @@
+package com.product.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LongIntHashMapTest {
+
+    @Test
+    public void givenEntries_whenGet_thenValuesIncludingZeroKey() {
+        var map = new LongIntHashMap(4);
+        map.put(0, 7);
+        map.put(42, 1);
+        map.put(-42, 2);
+        map.put(42, 3);
+
+        assertEquals(7, map.get(0));
+        assertEquals(3, map.get(42));
+        assertEquals(2, map.get(-42));
+        assertEquals(LongIntHashMap.MISSING, map.get(43));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    public void givenRandomOperations_whenCompareWithHashMap_thenSameContent() {
+        var map = new LongIntHashMap(16);
+        var expected = new HashMap<Long, Integer>();
+        var random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(5000);
+            if (random.nextInt(3) == 0) {
+                var removed = expected.remove(key);
+                assertEquals(removed == null ? LongIntHashMap.MISSING : removed, map.remove(key));
+            } else {
+                expected.put(key, i);
+                map.put(key, i);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = 0; key < 5000; key++) {
+            assertEquals(expected.getOrDefault(key, LongIntHashMap.MISSING), map.get(key));
+        }
+    }
+}
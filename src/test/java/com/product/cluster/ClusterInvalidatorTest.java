@@ -0,0 +1,111 @@
+package com.product.cluster;
+
+import com.product.event.ChangeType;
+import com.product.event.ProductChangedEvent;
+import com.product.model.Product;
+import com.product.model.ProductInvalidation;
+import com.product.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ClusterInvalidatorTest {
+
+    @Autowired
+    private ProductRepository repository;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final Loopback loopback = new Loopback();
+
+    private final List<ProductChangedEvent> eventsOfA = new ArrayList<>();
+
+    private final List<ProductChangedEvent> eventsOfB = new ArrayList<>();
+
+    private ClusterInvalidator nodeA;
+
+    private ClusterInvalidator nodeB;
+
+    @Before
+    public void init() {
+        nodeA = new ClusterInvalidator(loopback, repository, event -> eventsOfA.add((ProductChangedEvent) event),
+                new SimpleMeterRegistry(), "a", 10, 100);
+        nodeB = new ClusterInvalidator(loopback, repository, event -> eventsOfB.add((ProductChangedEvent) event),
+                registry, "b", 10, 100);
+        nodeA.start();
+        nodeB.start();
+    }
+
+    @After
+    public void clean() {
+        nodeA.close();
+        nodeB.close();
+        repository.deleteAll();
+    }
+
+    @Test
+    public void givenChangesOnOneNode_whenFlushed_thenOtherNodeRefreshedOncePerProduct() {
+        var created = repository.save(new Product("Vaqueiro curto", "Nuevo estilo"));
+        nodeA.onProductChanged(ProductChangedEvent.created(created));
+        created.setDescription("Estilo de siempre");
+        var updated = repository.save(created);
+        nodeA.onProductChanged(ProductChangedEvent.updated(updated));
+        var deleted = repository.save(new Product("Saia", "Verano"));
+        repository.softDeleteById(deleted.getId(), LocalDateTime.now());
+        nodeA.onProductChanged(ProductChangedEvent.deleted(deleted.getId(), LocalDateTime.now()));
+
+        assertEquals(2, nodeA.flush());
+
+        assertEquals(1, loopback.batches);
+        assertTrue(eventsOfA.isEmpty());
+        assertEquals(2, eventsOfB.size());
+        var refreshed = eventsOfB.get(0);
+        assertTrue(refreshed.isRemote());
+        assertEquals(ChangeType.CREATED, refreshed.getType());
+        assertEquals("Estilo de siempre", refreshed.getProduct().getDescription());
+        assertEquals(ChangeType.DELETED, eventsOfB.get(1).getType());
+        assertNull(eventsOfB.get(1).getProduct());
+        assertEquals(2, registry.get("product.cluster.invalidations").tag("direction", "received").counter().count(), 0);
+        assertEquals(2, registry.get("product.cluster.invalidation.lag").timer().count());
+    }
+
+    /**
+     * Delivers every batch right away to every node, in the publishing thread.
+     */
+    private static final class Loopback implements InvalidationTransport {
+
+        private final List<Consumer<List<ProductInvalidation>>> listeners = new ArrayList<>();
+
+        private int batches;
+
+        @Override
+        public void publish(List<ProductInvalidation> batch) {
+            batches++;
+            listeners.forEach(listener -> listener.accept(batch));
+        }
+
+        @Override
+        public void subscribe(Consumer<List<ProductInvalidation>> listener) {
+            listeners.add(listener);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.product.cluster;
+
+import com.product.event.ChangeType;
+import com.product.model.ProductInvalidation;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class JdbcInvalidationTransportTest {
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final LocalDateTime changed = LocalDateTime.of(2021, 10, 5, 10, 30);
+
+    private JdbcInvalidationTransport transport(Duration retention) {
+        // polled by the test, not by the background poller
+        return new JdbcInvalidationTransport(jdbc, 3_600_000, Duration.ofSeconds(5), retention);
+    }
+
+    @After
+    public void clean() {
+        jdbc.update("delete from product_invalidations");
+    }
+
+    @Test
+    public void givenPublishedBatch_whenPoll_thenDeliveredOnceToEveryNode() {
+        var publisher = transport(Duration.ofHours(1));
+        var subscriber = transport(Duration.ofHours(1));
+        subscriber.subscribe(batch -> {
+        });
+
+        publisher.publish(List.of(
+                new ProductInvalidation(0, "a", null, 1, ChangeType.UPDATED, changed, null),
+                new ProductInvalidation(0, "a", "acme", 2, ChangeType.DELETED, changed, null)));
+        var delivered = subscriber.poll();
+
+        assertEquals(List.of(1L, 2L), delivered.stream().map(ProductInvalidation::getProductId).collect(Collectors.toList()));
+        assertEquals("acme", delivered.get(1).getTenant());
+        assertEquals(ChangeType.DELETED, delivered.get(1).getType());
+        assertEquals(changed, delivered.get(0).getChangedAt());
+        // still within the lookback, but already delivered
+        assertTrue(subscriber.poll().isEmpty());
+
+        publisher.publish(List.of(new ProductInvalidation(0, "a", null, 3, ChangeType.CREATED, changed, null)));
+        assertEquals(3, subscriber.poll().get(0).getProductId());
+        publisher.close();
+        subscriber.close();
+    }
+
+    @Test
+    public void givenRowsOlderThanRetention_whenPoll_thenDeleted() throws InterruptedException {
+        var transport = transport(Duration.ofMillis(10));
+        transport.subscribe(batch -> {
+        });
+        transport.publish(List.of(new ProductInvalidation(0, "a", null, 1, ChangeType.UPDATED, changed, null)));
+        Thread.sleep(50);
+        transport.publish(List.of(new ProductInvalidation(0, "a", null, 2, ChangeType.UPDATED, changed, null)));
+
+        assertEquals(2, transport.poll().size());
+
+        assertEquals(List.of(2L), jdbc.queryForList("select product_id from product_invalidations", Long.class));
+        transport.close();
+    }
+}
@@ -1,10 +1,23 @@
 package com.product.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.product.dto.ChangeFeed;
+import com.product.dto.FacetCount;
+import com.product.dto.Facets;
 import com.product.dto.Pagination;
+import com.product.dto.ProductLookup;
+import com.product.dto.ProductChange;
+import com.product.event.ChangeType;
+import com.product.facet.FacetService;
+import com.product.history.ProductHistory;
+import com.product.idempotency.IdempotencyStore;
 import com.product.dto.Response;
+import com.product.dto.Suggestion;
 import com.product.model.Product;
+import com.product.repository.MatchMode;
+import com.product.service.ProductChangeFeedService;
 import com.product.service.ProductService;
+import com.product.suggest.SuggestService;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,15 +30,23 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -40,16 +61,31 @@ class ProductControllerTest {
     @MockBean
     private ProductService service;
 
+    @MockBean
+    private ProductChangeFeedService changeFeedService;
+
+    @MockBean
+    private SuggestService suggestService;
+
+    @MockBean
+    private FacetService facetService;
+
+    @MockBean
+    private IdempotencyStore idempotencyStore;
+
+    @MockBean
+    private ProductHistory productHistory;
+
     @Test
     public void givenProducts_whenGetProducts_thenContentAndStatus200() throws Exception {
 
         var products = List.of(new Product("Vaqueiro Curto", "Nuevo estilo de Vaqueiro curto"));
         PageImpl<Product> pageProducts = new PageImpl<>(products);
-        when(service.search(any(), any(), any(Pageable.class)))
+        when(service.search(any(), any(), any(MatchMode.class), any(Pageable.class)))
                 .thenReturn(new Response<>(products,
                         new Pagination(pageProducts.getNumber(), pageProducts.getTotalElements(), pageProducts.getTotalPages())));
 
-        mockMvc.perform(get("/api/products")
+        search(get("/api/products")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
                 .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
@@ -64,11 +100,11 @@ class ProductControllerTest {
 
     @Test
     public void givenProducts_whenGetProducts_thenNotContentAndStatus204() throws Exception {
-        when(service.search(any(), any(), any(Pageable.class)))
+        when(service.search(any(), any(), any(MatchMode.class), any(Pageable.class)))
                 .thenThrow(new ResponseStatusException(
                         HttpStatus.NO_CONTENT, "Products Not Found"));
 
-        mockMvc.perform(get("/api/products")
+        search(get("/api/products")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().is2xxSuccessful())
                 .andExpect(jsonPath("$").doesNotExist());
@@ -76,28 +112,80 @@ class ProductControllerTest {
 
     @Test
     public void givenNone_whenGetProductsAndPageAndSizeParameters_thenEvaluatePageParameters() throws Exception {
-        mockMvc.perform(get("/api/products")
+        search(get("/api/products")
                 .param("page", "1")
                 .param("size", "10")
                 .contentType(MediaType.APPLICATION_JSON));
 
         ArgumentCaptor<Pageable> pageableCaptor = ArgumentCaptor.forClass(Pageable.class);
-        verify(service).search(any(), any(), pageableCaptor.capture());
+        verify(service).search(any(), any(), eq(MatchMode.CONTAINS), pageableCaptor.capture());
         PageRequest pageable = (PageRequest) pageableCaptor.getValue();
 
         assertEquals(1, pageable.getPageNumber());
         assertEquals(10, pageable.getPageSize());
     }
 
+    @Test
+    public void givenSuggestions_whenSuggest_thenContentAndStatus200() throws Exception {
+        when(suggestService.isLoaded()).thenReturn(true);
+        when(suggestService.suggest("vaq", 5)).thenReturn(List.of(new Suggestion(7, "Vaqueiro Curto")));
+
+        mockMvc.perform(get("/api/products/suggest")
+                        .param("prefix", "vaq")
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id", is(7)))
+                .andExpect(jsonPath("$[0].name", is("Vaqueiro Curto")));
+    }
+
+    @Test
+    public void givenSuggestionsNotLoaded_whenSuggest_thenStatus503() throws Exception {
+        mockMvc.perform(get("/api/products/suggest").param("prefix", "vaq"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    public void givenFacets_whenGetFacets_thenCountsAndStatus200() throws Exception {
+        when(facetService.isLoaded()).thenReturn(true);
+        when(facetService.facets("vaqueiro", null, MatchMode.CONTAINS, 3)).thenReturn(new Facets(12,
+                Map.of("P7D", 4L), Map.of("P7D", 9L), List.of(new FacetCount("vaqueiro", 12))));
+
+        mockMvc.perform(get("/api/products/facets")
+                        .param("name", "vaqueiro")
+                        .param("terms", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(12)))
+                .andExpect(jsonPath("$.createDateTime.P7D", is(4)))
+                .andExpect(jsonPath("$.updateDateTime.P7D", is(9)))
+                .andExpect(jsonPath("$.nameTerms[0].value", is("vaqueiro")))
+                .andExpect(jsonPath("$.nameTerms[0].count", is(12)));
+    }
+
+    @Test
+    public void givenFacetsNotLoaded_whenGetFacets_thenStatus503() throws Exception {
+        mockMvc.perform(get("/api/products/facets"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    public void givenPrefixMatch_whenGetProducts_thenPassedToService() throws Exception {
+        search(get("/api/products")
+                .param("name", "vaq")
+                .param("match", "PREFIX")
+                .contentType(MediaType.APPLICATION_JSON));
+
+        verify(service).search(eq("vaq"), any(), eq(MatchMode.PREFIX), any(Pageable.class));
+    }
+
     @Test
     public void givenProducts_whenGetProductsAndFilterName_thenContentAndStatus200() throws Exception {
 
         var products = List.of(new Product("Vaqueiro Curto", "Nuevo estilo de Vaqueiro curto"));
         PageImpl<Product> pageProducts = new PageImpl<>(products);
-        when(service.search(any(), any(), any(Pageable.class)))
+        when(service.search(any(), any(), any(MatchMode.class), any(Pageable.class)))
                 .thenReturn(new Response<>(products,
                         new Pagination(pageProducts.getNumber(), pageProducts.getTotalElements(), pageProducts.getTotalPages())));
-        mockMvc.perform(get("/api/products")
+        search(get("/api/products")
                         .param("name", "Curto")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
@@ -112,7 +200,7 @@ class ProductControllerTest {
 
         ArgumentCaptor<String> nameCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<String> descriptionCaptor = ArgumentCaptor.forClass(String.class);
-        verify(service).search(nameCaptor.capture(), descriptionCaptor.capture(),
+        verify(service).search(nameCaptor.capture(), descriptionCaptor.capture(), eq(MatchMode.CONTAINS),
                 ArgumentCaptor.forClass(Pageable.class).capture());
 
         assertEquals("Curto", nameCaptor.getValue());
@@ -121,11 +209,11 @@ class ProductControllerTest {
 
     @Test
     public void givenNone_whenGetProductsAndFilterName_thenNotContentAndStatus204() throws Exception {
-        when(service.search(any(), any(), any(Pageable.class)))
+        when(service.search(any(), any(), any(MatchMode.class), any(Pageable.class)))
                 .thenThrow(new ResponseStatusException(
                         HttpStatus.NO_CONTENT, "Products Not Found"));
 
-        mockMvc.perform(get("/api/products")
+        search(get("/api/products")
                         .param("name", "Curto")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().is2xxSuccessful())
@@ -133,7 +221,7 @@ class ProductControllerTest {
 
         ArgumentCaptor<String> nameCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<String> descriptionCaptor = ArgumentCaptor.forClass(String.class);
-        verify(service).search(nameCaptor.capture(), descriptionCaptor.capture(),
+        verify(service).search(nameCaptor.capture(), descriptionCaptor.capture(), eq(MatchMode.CONTAINS),
                 ArgumentCaptor.forClass(Pageable.class).capture());
 
         assertEquals("Curto", nameCaptor.getValue());
@@ -144,10 +232,10 @@ class ProductControllerTest {
 
         var products = List.of(new Product("Vaqueiro Curto", "Nuevo estilo de Vaqueiro curto"));
         PageImpl<Product> pageProducts = new PageImpl<>(products);
-        when(service.search(any(), any(), any(Pageable.class)))
+        when(service.search(any(), any(), any(MatchMode.class), any(Pageable.class)))
                 .thenReturn(new Response<>(products,
                         new Pagination(pageProducts.getNumber(), pageProducts.getTotalElements(), pageProducts.getTotalPages())));
-        mockMvc.perform(get("/api/products")
+        search(get("/api/products")
                         .param("description", "Vaqueiro")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
@@ -161,7 +249,7 @@ class ProductControllerTest {
 
         ArgumentCaptor<String> nameCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<String> descriptionCaptor = ArgumentCaptor.forClass(String.class);
-        verify(service).search(nameCaptor.capture(), descriptionCaptor.capture(),
+        verify(service).search(nameCaptor.capture(), descriptionCaptor.capture(), eq(MatchMode.CONTAINS),
                 ArgumentCaptor.forClass(Pageable.class).capture());
 
         assertEquals("Vaqueiro", descriptionCaptor.getValue());
@@ -169,11 +257,11 @@ class ProductControllerTest {
 
     @Test
     public void givenNone_whenGetProductsAndFilterDescription_thenNotContentAndStatus204() throws Exception {
-        when(service.search(any(), any(), any(Pageable.class)))
+        when(service.search(any(), any(), any(MatchMode.class), any(Pageable.class)))
                 .thenThrow(new ResponseStatusException(
                         HttpStatus.NO_CONTENT, "Products Not Found"));
 
-        mockMvc.perform(get("/api/products")
+        search(get("/api/products")
                         .param("description", "Vaqueiro")
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().is2xxSuccessful())
@@ -181,7 +269,7 @@ class ProductControllerTest {
 
         ArgumentCaptor<String> nameCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<String> descriptionCaptor = ArgumentCaptor.forClass(String.class);
-        verify(service).search(nameCaptor.capture(), descriptionCaptor.capture(),
+        verify(service).search(nameCaptor.capture(), descriptionCaptor.capture(), eq(MatchMode.CONTAINS),
                 ArgumentCaptor.forClass(Pageable.class).capture());
 
         assertEquals("Vaqueiro", descriptionCaptor.getValue());
@@ -193,10 +281,10 @@ class ProductControllerTest {
         var products = List.of(new Product("Vaqueiro Curto", "Nuevo estilo de Vaqueiro curto"));
 
         PageImpl<Product> pageProducts = new PageImpl<>(products);
-        when(service.search(any(), any(), any(Pageable.class)))
+        when(service.search(any(), any(), any(MatchMode.class), any(Pageable.class)))
                 .thenReturn(new Response<>(products,
                         new Pagination(pageProducts.getNumber(), pageProducts.getTotalElements(), pageProducts.getTotalPages())));
-        mockMvc.perform(get("/api/products")
+        search(get("/api/products")
                         .param("name", "Curto")
                         .param("description", "Vaqueiro")
                         .contentType(MediaType.APPLICATION_JSON))
@@ -210,7 +298,7 @@ class ProductControllerTest {
                 .andExpect(jsonPath("$['data'][0].description", is(products.get(0).getDescription())));
         ArgumentCaptor<String> nameCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<String> descriptionCaptor = ArgumentCaptor.forClass(String.class);
-        verify(service).search(nameCaptor.capture(), descriptionCaptor.capture(),
+        verify(service).search(nameCaptor.capture(), descriptionCaptor.capture(), eq(MatchMode.CONTAINS),
                 ArgumentCaptor.forClass(Pageable.class).capture());
 
         assertEquals("Curto", nameCaptor.getValue());
@@ -219,11 +307,11 @@ class ProductControllerTest {
 
     @Test
     public void givenNone_whenGetProductsAndFilterNameAndDescription_thenNotContentAndStatus204() throws Exception {
-        when(service.search(any(), any(), any(Pageable.class)))
+        when(service.search(any(), any(), any(MatchMode.class), any(Pageable.class)))
                 .thenThrow(new ResponseStatusException(
                         HttpStatus.NO_CONTENT, "Products Not Found"));
 
-        mockMvc.perform(get("/api/products")
+        search(get("/api/products")
                         .param("name", "Curto")
                         .param("description", "Vaqueiro")
                         .contentType(MediaType.APPLICATION_JSON))
@@ -232,13 +320,35 @@ class ProductControllerTest {
 
         ArgumentCaptor<String> nameCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<String> descriptionCaptor = ArgumentCaptor.forClass(String.class);
-        verify(service).search(nameCaptor.capture(), descriptionCaptor.capture(),
+        verify(service).search(nameCaptor.capture(), descriptionCaptor.capture(), eq(MatchMode.CONTAINS),
                 ArgumentCaptor.forClass(Pageable.class).capture());
 
         assertEquals("Curto", nameCaptor.getValue());
         assertEquals("Vaqueiro", descriptionCaptor.getValue());
     }
 
+    @Test
+    public void givenChanges_whenGetChanges_thenChangesAndNextToken() throws Exception {
+        var product = new Product("Vaqueiro Curto", "Nuevo estilo de Vaqueiro curto");
+        when(changeFeedService.changes(any(), anyInt()))
+                .thenReturn(new ChangeFeed(List.of(
+                        new ProductChange(ChangeType.CREATED, 0, product, LocalDateTime.now(), "a"),
+                        new ProductChange(ChangeType.DELETED, 1, null, LocalDateTime.now(), "b")), "b"));
+
+        mockMvc.perform(get("/api/products/changes")
+                        .param("since", "x")
+                        .param("limit", "2")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.next", is("b")))
+                .andExpect(jsonPath("$.changes[0].type", is("CREATED")))
+                .andExpect(jsonPath("$.changes[0].product.name", is(product.getName())))
+                .andExpect(jsonPath("$.changes[1].type", is("DELETED")))
+                .andExpect(jsonPath("$.changes[1].product").doesNotExist());
+
+        verify(changeFeedService).changes("x", 2);
+    }
+
     @Test
     public void givenProduct_whenCreateProduct_thenCreatAndStatus201() throws Exception {
         var product = new Product("Vaqueiro Curto", "Nuevo estilo de Vaqueiro curto");
@@ -259,6 +369,22 @@ class ProductControllerTest {
         assertEquals(product.getDescription(), productArgumentCaptor.getValue().getDescription());
     }
 
+    @Test
+    public void givenIdempotencyKey_whenCreateProduct_thenGoesThroughIdempotencyStore() throws Exception {
+        var product = new Product(7, "Vaqueiro Curto", "Nuevo estilo de Vaqueiro curto", null, null);
+        when(idempotencyStore.<Product>execute(eq("retry-1"), eq(List.of(product.getName(), product.getDescription())), any()))
+                .thenReturn(new ResponseEntity<>(product, HttpStatus.CREATED));
+
+        mockMvc.perform(post("/api/products")
+                        .header("Idempotency-Key", "retry-1")
+                        .content(asJsonString(new Product(product.getName(), product.getDescription())))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id", is(7)));
+
+        verify(service, never()).create(any());
+    }
+
     @Test
     public void givenProductWithNullName_whenCreateProduct_thenErrorAndStatus400() throws Exception {
         var product = new Product("Vaqueiro Curto", null);
@@ -318,6 +444,47 @@ class ProductControllerTest {
         assertEquals(0, idCaptor.getValue());
     }
 
+    @Test
+    public void givenAsOf_whenGetProductById_thenVersionFromHistory() throws Exception {
+        var asOf = LocalDateTime.of(2021, 10, 5, 10, 30);
+        var product = new Product(3L, "Vaqueiro Curto", "Nuevo estilo de Vaqueiro curto", null, null);
+        when(productHistory.asOf(3, asOf)).thenReturn(Optional.of(product));
+
+        mockMvc.perform(get("/api/products/{id}", 3).param("asOf", "2021-10-05T10:30:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is(product.getName())));
+        mockMvc.perform(get("/api/products/{id}", 4).param("asOf", "2021-10-05T10:30:00"))
+                .andExpect(status().isNotFound());
+
+        verify(service, never()).get(anyLong());
+    }
+
+    @Test
+    public void givenIds_whenGetProducts_thenLookupInsteadOfSearch() throws Exception {
+        var product = new Product(2L, "Vaqueiro Curto", "Nuevo estilo de Vaqueiro curto", null, null);
+        when(service.getAll(List.of(2L, 5L))).thenReturn(new ProductLookup(List.of(product), List.of(5L)));
+
+        mockMvc.perform(get("/api/products").param("ids", "2,5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].id", is(2)))
+                .andExpect(jsonPath("$.notFound[0]", is(5)));
+
+        verify(service, never()).search(any(), any(), any(MatchMode.class), any(Pageable.class));
+    }
+
+    @Test
+    public void givenIds_whenLookupProducts_thenFoundAndNotFound() throws Exception {
+        var product = new Product(2L, "Vaqueiro Curto", "Nuevo estilo de Vaqueiro curto", null, null);
+        when(service.getAll(List.of(5L, 2L))).thenReturn(new ProductLookup(List.of(product), List.of(5L)));
+
+        mockMvc.perform(post("/api/products/lookup")
+                        .content("[5, 2]")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].name", is(product.getName())))
+                .andExpect(jsonPath("$.notFound[0]", is(5)));
+    }
+
     @Test
     public void givenProduct_whenUpdateProduct_thenResultAndStatus200() throws Exception {
         var newProduct = new Product("Vaqueiro Curto Verano", "Nuevo estilo de Vaqueiro curto Verano");
@@ -404,4 +571,9 @@ class ProductControllerTest {
             throw new RuntimeException(e);
         }
     }
+
+    private ResultActions search(MockHttpServletRequestBuilder builder) throws Exception {
+        var started = mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+        return mockMvc.perform(asyncDispatch(started));
+    }
 }
\ No newline at end of file
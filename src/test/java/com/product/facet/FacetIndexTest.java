@@ -0,0 +1,83 @@
+package com.product.facet;
+
+import com.product.dto.Facets;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FacetIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2021, 10, 20);
+
+    private static final List<Integer> WINDOWS = List.of(1, 7, 30);
+
+    @Test
+    public void givenName_whenTerms_thenNormalizedDistinctWords() {
+        assertArrayEquals(new String[]{"pantalon", "curto", "de", "verano"},
+                FacetIndex.terms("Pantalón curto, de verano: curto! A"));
+    }
+
+    @Test
+    public void givenProducts_whenCountAll_thenTotalsKeptOnEveryChange() {
+        var index = new FacetIndex(2);
+        index.put(1, "Vaqueiro curto", daysAgo(0), daysAgo(0));
+        index.put(2, "Vaqueiro longo", daysAgo(3), daysAgo(1));
+        index.put(3, "Camisa curta", daysAgo(10), daysAgo(10));
+        index.put(4, "Saia", daysAgo(40), daysAgo(40));
+        index.put(3, "Camisa longa", daysAgo(10), daysAgo(0));
+        index.remove(4);
+        index.remove(5);
+
+        var facets = index.count(null, TODAY, WINDOWS, 10);
+
+        assertEquals(3, facets.getTotal());
+        assertEquals(List.of(1L, 2L, 3L), List.copyOf(facets.getCreateDateTime().values()));
+        assertEquals(List.of("P1D", "P7D", "P30D"), List.copyOf(facets.getCreateDateTime().keySet()));
+        assertEquals(List.of(2L, 3L, 3L), List.copyOf(facets.getUpdateDateTime().values()));
+        assertEquals(List.of("vaqueiro=2", "camisa=1", "curto=1", "longa=1", "longo=1"), terms(facets));
+    }
+
+    @Test
+    public void givenSubset_whenCount_thenOnlyThoseProducts() {
+        var index = new FacetIndex(16);
+        index.put(1, "Vaqueiro curto", daysAgo(0), daysAgo(0));
+        index.put(2, "Vaqueiro longo", daysAgo(3), daysAgo(3));
+        index.put(3, "Camisa curta", daysAgo(10), daysAgo(10));
+
+        var facets = index.count(new long[]{3, 1, 9}, TODAY, WINDOWS, 2);
+
+        assertEquals(2, facets.getTotal());
+        assertEquals(List.of(1L, 1L, 2L), List.copyOf(facets.getCreateDateTime().values()));
+        assertEquals(List.of("camisa=1", "curta=1"), terms(facets));
+    }
+
+    @Test
+    public void givenRemovedProduct_whenOrdinalReused_thenNoStaleTerms() {
+        var index = new FacetIndex(16);
+        index.put(1, "Vaqueiro", daysAgo(0), daysAgo(0));
+        index.remove(1);
+        index.put(2, "Camisa", null, null);
+
+        var facets = index.count(new long[]{1, 2}, TODAY, WINDOWS, 10);
+
+        assertEquals(1, facets.getTotal());
+        assertEquals(List.of(0L, 0L, 0L), List.copyOf(facets.getCreateDateTime().values()));
+        assertEquals(List.of("camisa=1"), terms(facets));
+        assertEquals(List.of("camisa=1"), terms(index.count(null, TODAY, WINDOWS, 10)));
+    }
+
+    private static LocalDateTime daysAgo(int days) {
+        return TODAY.minusDays(days).atTime(12, 0);
+    }
+
+    private static List<String> terms(Facets facets) {
+        return facets.getNameTerms().stream().map(term -> term.getValue() + "=" + term.getCount())
+                .collect(Collectors.toList());
+    }
+}
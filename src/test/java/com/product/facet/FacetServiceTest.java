@@ -0,0 +1,49 @@
+package com.product.facet;
+
+import com.product.event.ProductChangedEvent;
+import com.product.model.Product;
+import com.product.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FacetServiceTest {
+
+    private final ProductRepository repository = mock(ProductRepository.class);
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @Test
+    public void givenChangesWhileLoading_whenLoad_thenOnlyCurrentProductsCounted() {
+        var service = new FacetService(repository, List.of(1, 7), 10, 16);
+        // the changes are committed after the page was read, before the loader counts it
+        when(repository.findPageAfter(anyLong(), any())).thenAnswer(invocation -> {
+            service.onProductChanged(ProductChangedEvent.deleted(1, now));
+            service.onProductChanged(ProductChangedEvent.updated(product(2, "Camisa")));
+            return List.of(product(1, "Vaqueiro"), product(2, "Pantalon"), product(3, "Saia"));
+        });
+        when(repository.findAllById(any())).thenReturn(List.of(product(2, "Camisa")));
+
+        service.load();
+
+        var facets = service.facets(null, null, null, 10);
+        assertTrue(service.isLoaded());
+        assertEquals(2, facets.getTotal());
+        assertEquals(List.of("camisa=1", "saia=1"), facets.getNameTerms().stream()
+                .map(term -> term.getValue() + "=" + term.getCount())
+                .collect(Collectors.toList()));
+    }
+
+    private Product product(long id, String name) {
+        return new Product(id, name, "Nuevo estilo verano", now, now);
+    }
+}
@@ -0,0 +1,131 @@
+package com.product.history;
+
+import com.product.event.ChangeType;
+import com.product.event.ProductChangedEvent;
+import com.product.model.Product;
+import com.product.model.ProductVersion;
+import com.product.repository.ProductVersionRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ProductHistoryTest {
+
+    @Autowired
+    private ProductVersionRepository versions;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final LocalDateTime created = LocalDateTime.of(2021, 10, 5, 10, 30);
+
+    private ProductHistory history;
+
+    @Before
+    public void init() {
+        history = new ProductHistory(jdbc, versions, 3, 5, 100);
+    }
+
+    @After
+    public void clean() {
+        history.close();
+        jdbc.update("delete from product_versions");
+    }
+
+    @Test
+    public void givenUpdatesAndDelete_whenAsOf_thenVersionAtThatTime() {
+        history.onProductChanged(ProductChangedEvent.created(product(1, "Vaqueiro curto", 0)));
+        history.onProductChanged(ProductChangedEvent.updated(product(1, "Vaqueiro longo", 1)));
+        history.onProductChanged(ProductChangedEvent.updated(product(1, "Vaqueiro alto", 2)));
+        history.onProductChanged(ProductChangedEvent.deleted(1, created.plusDays(3)));
+
+        assertTrue(history.asOf(1, created.minusSeconds(1)).isEmpty());
+        assertEquals("Vaqueiro curto", history.asOf(1, created).orElseThrow().getName());
+        assertEquals("Vaqueiro longo", history.asOf(1, created.plusDays(1).plusHours(5)).orElseThrow().getName());
+        assertEquals(created.plusDays(2), history.asOf(1, created.plusDays(2)).orElseThrow().getUpdateDateTime());
+        assertTrue(history.asOf(1, created.plusDays(3)).isEmpty());
+        assertEquals(0, history.size());
+    }
+
+    @Test
+    public void givenUpdates_whenFlush_thenDeltasAfterOneSnapshot() {
+        history.onProductChanged(ProductChangedEvent.created(product(1, "Vaqueiro curto", 0)));
+        history.onProductChanged(ProductChangedEvent.updated(product(1, "Vaqueiro longo", 1)));
+        history.onProductChanged(ProductChangedEvent.updated(product(2, "Saia", 1)));
+        history.flush();
+
+        var stored = versions.findAll();
+        assertEquals(3, stored.size());
+        assertEquals(2, stored.stream().filter(version -> version.getKind() == ProductVersion.Kind.SNAPSHOT).count());
+        assertEquals("Saia", history.asOf(2, created.plusDays(1)).orElseThrow().getName());
+    }
+
+    @Test
+    public void givenUpdatesQueuedOutOfTimeOrder_whenAsOf_thenVersionAtThatTime() {
+        history.onProductChanged(ProductChangedEvent.created(product(1, "Saia", 0)));
+        history.onProductChanged(ProductChangedEvent.updated(product(1, "Vaqueiro longo", 2)));
+        history.onProductChanged(ProductChangedEvent.updated(product(1, "Vaqueiro alto", 1)));
+        history.onProductChanged(ProductChangedEvent.updated(product(1, "Vaqueiro baixo", 3)));
+
+        assertEquals("Saia", history.asOf(1, created).orElseThrow().getName());
+        assertEquals("Vaqueiro alto", history.asOf(1, created.plusDays(1)).orElseThrow().getName());
+        assertEquals("Vaqueiro baixo", history.asOf(1, created.plusDays(3)).orElseThrow().getName());
+    }
+
+    @Test
+    public void givenLongDeltaChain_whenCompact_thenLastDeltaBecomesSnapshot() {
+        var job = new ProductHistoryCompactionJob(versions, 2);
+        for (int day = 0; day < 5; day++) {
+            history.onProductChanged(day == 0 ? ProductChangedEvent.created(product(1, "Vaqueiro 0", 0))
+                    : ProductChangedEvent.updated(product(1, "Vaqueiro " + day, day)));
+        }
+        history.flush();
+
+        assertEquals(1, job.compact());
+        assertEquals(0, job.compact());
+
+        assertEquals(1, versions.findLatestChain(1).size());
+        for (int day = 0; day < 5; day++) {
+            assertEquals("Vaqueiro " + day, history.asOf(1, created.plusDays(day)).orElseThrow().getName());
+        }
+    }
+
+    @Test
+    public void givenVersionOfAnotherNode_whenNextLocalChange_thenSnapshot() {
+        var other = new ProductHistory(jdbc, versions, 3, 5, 100);
+        history.onProductChanged(ProductChangedEvent.created(product(1, "Vaqueiro curto", 0)));
+        history.flush();
+        var remote = product(1, "Pantalon bonito largo", 1);
+        other.onProductChanged(ProductChangedEvent.updated(remote));
+        other.close();
+        history.onRemoteProductChanged(new ProductChangedEvent(ChangeType.UPDATED, 1, remote,
+                remote.getUpdateDateTime(), true));
+        history.onProductChanged(ProductChangedEvent.updated(product(1, "Vaqueiro longo", 2)));
+        history.flush();
+
+        assertEquals("Vaqueiro curto", history.asOf(1, created).orElseThrow().getName());
+        assertEquals("Pantalon bonito largo", history.asOf(1, created.plusDays(1)).orElseThrow().getName());
+        assertEquals("Vaqueiro longo", history.asOf(1, created.plusDays(2)).orElseThrow().getName());
+        assertEquals(3, versions.findAll().stream()
+                .filter(version -> version.getKind() == ProductVersion.Kind.SNAPSHOT).count());
+    }
+
+    private Product product(long id, String name, int day) {
+        return new Product(id, name, "Nuevo estilo de " + name, created, created.plusDays(day));
+    }
+}
@@ -0,0 +1,63 @@
+package com.product.history;
+
+import com.product.model.Product;
+import com.product.model.ProductVersion;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VersionCodecTest {
+
+    private final LocalDateTime created = LocalDateTime.of(2021, 10, 5, 10, 30, 0, 123_456_000);
+
+    @Test
+    public void givenSnapshotAndDeltas_whenReplay_thenEveryVersion() {
+        var versions = new String[][]{
+                {"Vaqueiro curto", "Vaqueiro para todos los días"},
+                {"Vaqueiro curto", "Vaqueiro para todos los días de verano"},
+                {"Vaqueiro longo", "Vaqueiro para todos los días de verano"},
+                {"Saia 👗", "Nueva 👗 saia"},
+                {"Saia 👖", ""}};
+        List<ProductVersion> chain = new ArrayList<>();
+        Product before = null;
+        for (int i = 0; i < versions.length; i++) {
+            var product = new Product(7, versions[i][0], versions[i][1], created, created.plusDays(i));
+            chain.add(new ProductVersion(i, 7, created.plusDays(i),
+                    before == null ? ProductVersion.Kind.SNAPSHOT : ProductVersion.Kind.DELTA,
+                    before == null ? VersionCodec.snapshot(product) : VersionCodec.delta(before, product)));
+            before = product;
+
+            var replayed = VersionCodec.replay(7, chain).orElseThrow();
+            assertEquals(product, replayed);
+            assertEquals(created, replayed.getCreateDateTime());
+            assertEquals(created.plusDays(i), replayed.getUpdateDateTime());
+        }
+    }
+
+    @Test
+    public void givenSmallEdit_whenDelta_thenOnlyTheEditIsStored() {
+        var description = "Vaqueiro medio longo para usar todos los días, ".repeat(4);
+        var before = new Product(1, "Vaqueiro", description + "en verano", created, created);
+        var after = new Product(1, "Vaqueiro", description + "en inverno", created, created);
+
+        assertTrue(VersionCodec.delta(before, after).length < 12);
+        assertEquals(1, VersionCodec.delta(before, before).length);
+    }
+
+    @Test
+    public void givenDeletedOrNoSnapshot_whenReplay_thenEmpty() {
+        var product = new Product(1, "Vaqueiro", "Verano", created, created);
+        var snapshot = new ProductVersion(1, 1, created, ProductVersion.Kind.SNAPSHOT, VersionCodec.snapshot(product));
+        var deleted = new ProductVersion(2, 1, created.plusDays(1), ProductVersion.Kind.DELETED, null);
+        var delta = new ProductVersion(3, 1, created, ProductVersion.Kind.DELTA, VersionCodec.delta(product, product));
+
+        assertTrue(VersionCodec.replay(1, List.of(snapshot, deleted)).isEmpty());
+        assertTrue(VersionCodec.replay(1, List.of(delta)).isEmpty());
+        assertTrue(VersionCodec.replay(1, List.of()).isEmpty());
+    }
+}
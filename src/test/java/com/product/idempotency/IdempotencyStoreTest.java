@@ -0,0 +1,130 @@
+package com.product.idempotency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IdempotencyStoreTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final AtomicInteger runs = new AtomicInteger();
+
+    private IdempotencyStore store(int maxKeys) {
+        return new IdempotencyStore(maxKeys, Duration.ofMinutes(1), Duration.ofSeconds(5), registry, clock::get);
+    }
+
+    private ResponseEntity<String> create() {
+        return new ResponseEntity<>("product-" + runs.incrementAndGet(), HttpStatus.CREATED);
+    }
+
+    @Test
+    public void givenSameKey_whenExecuteTwice_thenRunOnceAndReplayed() {
+        var store = store(10);
+
+        var first = store.execute("k1", "request", this::create);
+        var second = store.execute("k1", "request", this::create);
+
+        assertEquals(1, runs.get());
+        assertEquals("product-1", second.getBody());
+        assertEquals(HttpStatus.CREATED, second.getStatusCode());
+        assertNull(first.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+        assertEquals("true", second.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+        assertEquals(1, registry.get("product.idempotency.requests").tag("outcome", "replayed").counter().count());
+    }
+
+    @Test
+    public void givenConcurrentDuplicates_whenExecute_thenWaitForTheFirst() throws Exception {
+        var store = store(10);
+        var release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ResponseEntity<String>>> responses = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                responses.add(pool.submit(() -> store.execute("k1", "request", () -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return create();
+                })));
+            }
+            release.countDown();
+            for (var response : responses) {
+                assertEquals("product-1", response.get(5, TimeUnit.SECONDS).getBody());
+            }
+            assertEquals(1, runs.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void givenKeyReusedForAnotherRequest_whenExecute_thenStatus422() {
+        var store = store(10);
+        store.execute("k1", "request", this::create);
+
+        var error = assertThrows(ResponseStatusException.class, () -> store.execute("k1", "other", this::create));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, error.getStatus());
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    public void givenFailedRequest_whenRetried_thenRunAgain() {
+        var store = store(10);
+        store.execute("k1", "request", () -> new ResponseEntity<String>(HttpStatus.INTERNAL_SERVER_ERROR));
+        assertThrows(IllegalStateException.class, () -> store.execute("k2", "request", () -> {
+            throw new IllegalStateException("down");
+        }));
+
+        assertEquals("product-1", store.execute("k1", "request", this::create).getBody());
+        assertEquals("product-2", store.execute("k2", "request", this::create).getBody());
+    }
+
+    @Test
+    public void givenExpiredOrOldestKeys_whenExecute_thenEvicted() {
+        var store = store(2);
+        store.execute("k1", "request", this::create);
+        store.execute("k2", "request", this::create);
+        store.execute("k3", "request", this::create);
+
+        assertEquals(2, store.size());
+        assertEquals("product-4", store.execute("k1", "request", this::create).getBody());
+
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(1));
+        assertEquals("product-5", store.execute("k3", "request", this::create).getBody());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    public void givenBlankOrLongKey_whenExecute_thenStatus400() {
+        var store = store(10);
+
+        assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ResponseStatusException.class,
+                () -> store.execute(" ", "request", this::create)).getStatus());
+        assertEquals(HttpStatus.BAD_REQUEST, assertThrows(ResponseStatusException.class,
+                () -> store.execute("k".repeat(256), "request", this::create)).getStatus());
+        assertEquals(0, runs.get());
+    }
+}
@@ -0,0 +1,62 @@
+package com.product.idfilter;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongBloomFilterTest {
+
+    @Test
+    public void givenAddedKeys_whenMightContain_thenAlwaysTrue() {
+        var filter = new LongBloomFilter(100_000, 0.01);
+        for (long id = 1; id <= 100_000; id++) {
+            filter.add(id);
+        }
+        filter.add(0);
+        filter.add(-1);
+        filter.add(Long.MAX_VALUE);
+
+        for (long id = 1; id <= 100_000; id++) {
+            assertTrue(filter.mightContain(id), String.valueOf(id));
+        }
+        assertTrue(filter.mightContain(0));
+        assertTrue(filter.mightContain(-1));
+        assertTrue(filter.mightContain(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void givenFullFilter_whenMissingKeys_thenFalsePositiveRateNearTarget() {
+        var filter = new LongBloomFilter(100_000, 0.01);
+        for (long id = 1; id <= 100_000; id++) {
+            filter.add(id);
+        }
+
+        int falsePositives = 0;
+        for (long id = 100_001; id <= 1_100_000; id++) {
+            if (filter.mightContain(id)) {
+                falsePositives++;
+            }
+        }
+
+        double rate = falsePositives / 1_000_000.0;
+        assertTrue(rate < 0.015, String.valueOf(rate));
+        assertTrue(Math.abs(rate - filter.expectedFalsePositiveRate()) < 0.003,
+                rate + " against " + filter.expectedFalsePositiveRate());
+    }
+
+    @Test
+    public void givenEmptyFilter_whenMightContain_thenFalse() {
+        var filter = new LongBloomFilter(1000, 0.01);
+
+        assertFalse(filter.mightContain(42));
+        assertTrue(filter.expectedFalsePositiveRate() == 0);
+    }
+
+    @Test
+    public void givenInvalidRate_whenCreate_thenRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new LongBloomFilter(1000, 0));
+        assertThrows(IllegalArgumentException.class, () -> new LongBloomFilter(1000, 1));
+    }
+}
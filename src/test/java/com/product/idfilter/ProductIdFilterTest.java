@@ -0,0 +1,102 @@
+package com.product.idfilter;
+
+import com.product.event.ProductChangedEvent;
+import com.product.model.Product;
+import com.product.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductIdFilterTest {
+
+    private final ProductRepository repository = mock(ProductRepository.class);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @Test
+    public void givenNotBuilt_whenMightExist_thenEveryId() {
+        var filter = new ProductIdFilter(repository, registry, 1000, 0.01, false);
+
+        assertFalse(filter.isLoaded());
+        assertTrue(filter.mightExist(42));
+        assertEquals(0, lookups("passed") + lookups("rejected"));
+    }
+
+    @Test
+    public void givenScannedIds_whenRebuild_thenOnlyThoseAndCreatedMightExist() {
+        when(repository.count()).thenReturn(15_000L);
+        when(repository.findIdsAfter(eq(0L), any())).thenReturn(ids(1, 10_000));
+        when(repository.findIdsAfter(eq(10_000L), any())).thenReturn(ids(10_001, 15_000));
+        var filter = new ProductIdFilter(repository, registry, 1000, 0.001, false);
+
+        filter.rebuild();
+        filter.onProductChanged(ProductChangedEvent.created(new Product(20_000L, "Vaqueiro", "Nuevo", now, now)));
+
+        assertTrue(filter.isLoaded());
+        assertTrue(filter.mightExist(1));
+        assertTrue(filter.mightExist(15_000));
+        assertTrue(filter.mightExist(20_000));
+        assertFalse(filter.mightExist(Long.MAX_VALUE));
+        assertEquals(15_001, registry.get("product.id.filter.ids").gauge().value());
+    }
+
+    @Test
+    public void givenCreatedWhileRebuilding_whenRebuilt_thenKept() {
+        var filter = new ProductIdFilter(repository, registry, 1000, 0.001, false);
+        when(repository.findIdsAfter(anyLong(), any())).thenAnswer(invocation -> {
+            filter.onProductChanged(ProductChangedEvent.created(new Product(7L, "Vaqueiro", "Nuevo", now, now)));
+            return ids(1, 5);
+        });
+
+        filter.rebuild();
+
+        assertTrue(filter.mightExist(7));
+    }
+
+    @Test
+    public void givenLookups_whenMissesGetThrough_thenFalsePositiveRate() {
+        when(repository.findIdsAfter(anyLong(), any())).thenReturn(ids(1, 100));
+        var filter = new ProductIdFilter(repository, registry, 1000, 0.01, false);
+        filter.rebuild();
+
+        for (long id = 1000; id < 1100; id++) {
+            filter.mightExist(id);
+        }
+        filter.recordFalsePositive();
+
+        double rejected = lookups("rejected");
+        assertTrue(rejected > 90);
+        assertEquals(1, lookups("false_positive"));
+        assertEquals(1 / (rejected + 1), registry.get("product.id.filter.false.positive.rate").gauge().value(), 1e-9);
+        assertTrue(registry.get("product.id.filter.expected.false.positive.rate").gauge().value() < 0.01);
+    }
+
+    @Test
+    public void givenSharding_whenCreate_thenRejected() {
+        assertThrows(IllegalStateException.class, () -> new ProductIdFilter(repository, registry, 1000, 0.01, true));
+    }
+
+    private double lookups(String result) {
+        return registry.get("product.id.filter.lookups").tag("result", result).counter().count();
+    }
+
+    private static List<Long> ids(long from, long to) {
+        return LongStream.rangeClosed(from, to).boxed().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,64 @@
+package com.product.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.product.dto.Pagination;
+import com.product.dto.Response;
+import com.product.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class ProductJsonWriterTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @Test
+    public void givenProduct_whenWrite_thenSameBytesAsJackson() throws Exception {
+        var product = new Product(42, "Vaqueiro curto", "Vaqueiro medio longo para usar todos los días.", now, now);
+
+        assertSameAsJackson(product);
+    }
+
+    @Test
+    public void givenEscapesAndUnicode_whenWrite_thenSameBytesAsJackson() throws Exception {
+        var product = new Product(-7, "Quote \" slash \\ / tab \t newline \n cr \r bell \u0007 del \u007f",
+                "ñ € 中文 😀   \b \f \u001f", now, now);
+
+        assertSameAsJackson(product);
+        assertSameAsJackson(new Product(Long.MIN_VALUE, "", "", now, now));
+        assertSameAsJackson(new Product(Long.MAX_VALUE, null, null, now, now));
+    }
+
+    @Test
+    public void givenResponse_whenWrite_thenSameBytesAsJackson() throws Exception {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            products.add(new Product(i, "Pantalon " + i, "Nuevo pantalon 2021 verano número " + i, now, now));
+        }
+
+        assertSameAsJackson(new Response<>(products, new Pagination(3, 123456789012L, 41152)));
+        assertSameAsJackson(new Response<>(List.of(), new Pagination()));
+        var partial = new Pagination(0, 3, 1);
+        partial.setPartial(true);
+        assertSameAsJackson(new Response<>(products.subList(0, 3), partial));
+        assertSameAsJackson(new Response<Product>(null, null));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void assertSameAsJackson(Object value) throws Exception {
+        var out = new ByteArrayOutputStream();
+        if (value instanceof Product) {
+            ProductJsonWriter.current().write((Product) value, out);
+        } else {
+            ProductJsonWriter.current().write((Response<Product>) value, out);
+        }
+        assertArrayEquals(mapper.writeValueAsBytes(value), out.toByteArray(), () -> out.toString());
+    }
+}
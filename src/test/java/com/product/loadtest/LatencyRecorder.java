@@ -0,0 +1,103 @@
+package com.product.loadtest;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Latencies in microseconds per operation, kept in full so the percentiles are exact. Each request
+ * records two: from the time it was scheduled to be sent, which includes the wait for a free
+ * connection when the server falls behind and so corrects for coordinated omission, and from the
+ * time it was actually sent, the service time a closed-loop client would report.
+ */
+class LatencyRecorder {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<Workload.Operation, Series> series = new EnumMap<>(Workload.Operation.class);
+
+    LatencyRecorder() {
+        for (Workload.Operation operation : Workload.Operation.values()) {
+            series.put(operation, new Series());
+        }
+    }
+
+    void record(Workload.Operation operation, long scheduledMicros, long serviceMicros, boolean error) {
+        series.get(operation).add(scheduledMicros, serviceMicros, error);
+    }
+
+    String report(double seconds) {
+        var out = new StringBuilder(String.format(Locale.ROOT, "%-14s %9s %8s %7s %9s %9s %9s %9s %9s %12s%n",
+                "operation", "requests", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms",
+                "p99 svc ms"));
+        var all = new Series();
+        series.forEach((operation, values) -> {
+            line(out, operation.name().toLowerCase(Locale.ROOT), values, seconds);
+            all.addAll(values);
+        });
+        line(out, "all", all, seconds);
+        return out.toString();
+    }
+
+    private static void line(StringBuilder out, String name, Series values, double seconds) {
+        if (values.count == 0) {
+            return;
+        }
+        long[] scheduled = values.sortedScheduled();
+        out.append(String.format(Locale.ROOT, "%-14s %9d %8.1f %7d", name, values.count, values.count / seconds, values.errors));
+        for (double percentile : PERCENTILES) {
+            out.append(String.format(Locale.ROOT, " %9.2f", percentile(scheduled, percentile) / 1000.0));
+        }
+        out.append(String.format(Locale.ROOT, " %9.2f %12.2f%n", scheduled[scheduled.length - 1] / 1000.0,
+                percentile(values.sortedService(), 99) / 1000.0));
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static final class Series {
+
+        private long[] scheduled = new long[1024];
+
+        private long[] service = new long[1024];
+
+        private int count;
+
+        private int errors;
+
+        synchronized void add(long scheduledMicros, long serviceMicros, boolean error) {
+            if (count == scheduled.length) {
+                scheduled = Arrays.copyOf(scheduled, count * 2);
+                service = Arrays.copyOf(service, count * 2);
+            }
+            scheduled[count] = scheduledMicros;
+            service[count] = serviceMicros;
+            count++;
+            if (error) {
+                errors++;
+            }
+        }
+
+        synchronized void addAll(Series other) {
+            for (int i = 0; i < other.count; i++) {
+                add(other.scheduled[i], other.service[i], false);
+            }
+            errors += other.errors;
+        }
+
+        synchronized long[] sortedScheduled() {
+            var sorted = Arrays.copyOf(scheduled, count);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+
+        synchronized long[] sortedService() {
+            var sorted = Arrays.copyOf(service, count);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.product.loadtest;
+
+import com.product.ProductApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load test of the HTTP API. Starts the application in this JVM on an in-memory database,
+ * seeds it with a {@link SyntheticCatalog} before it reports ready, then sends the {@link Workload}
+ * mix at a fixed rate, whatever the response times, and prints throughput and latency percentiles
+ * from a {@link LatencyRecorder}. Needs no other process; point {@code --loadtest.url} at a running
+ * instance, seeded with the same number of products, to test that one instead.
+ * <p>
+ * Options are {@code --loadtest.*} arguments (see {@link #DEFAULTS}), every other argument is passed
+ * to the application, e.g. to compare configurations:
+ * {@code mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java
+ * -Dexec.args="-Xmx4g -cp %classpath com.product.loadtest.LoadTest --loadtest.rate=2000 --product.catalog.enabled=true"}.
+ */
+public class LoadTest {
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "products", "100000",
+            "rate", "100",
+            "warm-up-seconds", "15",
+            "seconds", "60",
+            "connections", "64",
+            "seed", "42",
+            "mix", "get=55,search_broad=5,search_narrow=10,search_rare=5,search_prefix=10,create=6,update=6,delete=3");
+
+    private static final String PREFIX = "--loadtest.";
+
+    private final Workload workload;
+
+    private final int rate;
+
+    private final Duration warmUp;
+
+    private final Duration duration;
+
+    private final ExecutorService connections;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final LatencyRecorder recorder = new LatencyRecorder();
+
+    LoadTest(Workload workload, int rate, int connections, Duration warmUp, Duration duration) {
+        this.workload = workload;
+        this.rate = rate;
+        this.warmUp = warmUp;
+        this.duration = duration;
+        this.connections = Executors.newFixedThreadPool(connections);
+    }
+
+    void run() throws InterruptedException {
+        System.out.printf(Locale.ROOT, "Sending %d requests/s for %d s after %d s of warm-up%n",
+                rate, duration.toSeconds(), warmUp.toSeconds());
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long measureFrom = start + warmUp.toNanos();
+        long end = measureFrom + duration.toNanos();
+        // requests go out on a fixed schedule; when every connection is busy they queue, and the wait counts
+        for (long scheduled = start; scheduled < end; scheduled += interval) {
+            long wait;
+            while ((wait = scheduled - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            var operation = workload.next();
+            var request = workload.request(operation);
+            boolean measured = scheduled >= measureFrom;
+            long intended = scheduled;
+            connections.execute(() -> {
+                long sent = System.nanoTime();
+                boolean error;
+                try {
+                    var response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                    error = response.statusCode() >= 500 || response.statusCode() == 429;
+                    if (operation == Workload.Operation.CREATE && response.statusCode() == 201) {
+                        workload.created(response.body());
+                    }
+                } catch (IOException e) {
+                    error = true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long done = System.nanoTime();
+                if (measured) {
+                    recorder.record(operation, (done - intended) / 1000, (done - sent) / 1000, error);
+                }
+            });
+        }
+        connections.shutdown();
+        if (!connections.awaitTermination(1, TimeUnit.MINUTES)) {
+            System.out.println("Requests still outstanding after a minute, stopping");
+            connections.shutdownNow();
+        }
+        System.out.print(recorder.report(duration.toSeconds()));
+    }
+
+    public static void main(String[] args) throws Exception {
+        // devtools would restart the application in a new class loader, running this method again
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        List<String> applicationArgs = new ArrayList<>(List.of("--server.port=0", "--spring.main.banner-mode=off",
+                "--logging.level.root=warn", "--spring.jpa.show-sql=false",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest"));
+        for (String arg : args) {
+            if (arg.startsWith(PREFIX) && arg.contains("=")) {
+                options.put(arg.substring(PREFIX.length(), arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            } else {
+                applicationArgs.add(arg);
+            }
+        }
+        int products = Integer.parseInt(options.get("products"));
+        long seed = Long.parseLong(options.get("seed"));
+
+        ConfigurableApplicationContext context = null;
+        var url = options.get("url");
+        if (url == null) {
+            long started = System.nanoTime();
+            context = new SpringApplicationBuilder(ProductApplication.class)
+                    .listeners(new Seeder(products, seed))
+                    .run(applicationArgs.toArray(String[]::new));
+            url = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            System.out.printf(Locale.ROOT, "Started with %,d products in %.1f s%n", products,
+                    (System.nanoTime() - started) / 1e9);
+        }
+        try {
+            var workload = new Workload(url + "/api/products", products, Workload.mix(options.get("mix")), seed);
+            new LoadTest(workload,
+                    Integer.parseInt(options.get("rate")),
+                    Integer.parseInt(options.get("connections")),
+                    Duration.ofSeconds(Long.parseLong(options.get("warm-up-seconds"))),
+                    Duration.ofSeconds(Long.parseLong(options.get("seconds")))).run();
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    /**
+     * Fills the database once the schema exists and before the application is ready, so the
+     * in-memory read models load the seeded catalog.
+     */
+    private static final class Seeder implements ApplicationListener<ApplicationStartedEvent> {
+
+        private final int products;
+
+        private final long seed;
+
+        private Seeder(int products, long seed) {
+            this.products = products;
+            this.seed = seed;
+        }
+
+        @Override
+        public void onApplicationEvent(ApplicationStartedEvent event) {
+            new SyntheticCatalog(seed).seed(event.getApplicationContext().getBean(JdbcTemplate.class), products);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.product.loadtest;
+
+import com.product.model.SearchText;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Galician and Spanish clothing names and descriptions. Words are drawn with a Zipf distribution,
+ * like real catalogs, so the first words of every list are in a large share of the products and the
+ * last ones in very few: searches on them have very different selectivity.
+ */
+class SyntheticCatalog {
+
+    static final String[] GARMENTS = {"Camiseta", "Pantalón", "Vaqueiro", "Camisa", "Chaqueta", "Saia", "Vestido",
+            "Sudadeira", "Jersey", "Abrigo", "Zapatillas", "Botas", "Blusa", "Chaleco", "Bufanda", "Gorro", "Cazadora",
+            "Polo", "Chándal", "Sandalias", "Gabardina", "Calcetíns", "Pixama", "Cinto", "Bolso", "Mandil"};
+
+    static final String[] ADJECTIVES = {"clásico", "básico", "curto", "longo", "bonito", "moderno", "lixeiro",
+            "elegante", "deportivo", "cálido", "ancho", "estreito", "suave", "impermeable", "acolchado", "reversible",
+            "bordado", "vintage", "técnico", "artesanal"};
+
+    static final String[] COLOURS = {"negro", "azul", "branco", "gris", "vermello", "verde", "marrón", "beixe",
+            "rosa", "amarelo", "granate", "laranxa", "turquesa", "mostaza", "lavanda"};
+
+    static final String[] MATERIALS = {"algodón", "poliéster", "la", "liño", "coiro", "seda", "pana", "xénero de punto",
+            "cachemira", "la merino"};
+
+    static final String[] SEASONS = {"verano", "inverno", "primavera", "outono", "todo o ano"};
+
+    static final String[] PLACES = {"Vigo", "A Coruña", "Santiago", "Ourense", "Lugo", "Pontevedra", "Ferrol",
+            "Madrid", "Sevilla", "Valencia", "Bilbao", "Salamanca", "Cádiz", "Betanzos", "Ribadeo", "Allariz",
+            "Cambados", "Mondoñedo", "Viveiro", "Carballiño"};
+
+    private final Random random;
+
+    SyntheticCatalog(long seed) {
+        this.random = new Random(seed);
+    }
+
+    String name() {
+        return pick(GARMENTS) + " " + pick(ADJECTIVES) + " " + pick(COLOURS);
+    }
+
+    String description(String name) {
+        return (random.nextBoolean() ? "Novo " : "Nuevo ") + name.toLowerCase() + " de " + pick(MATERIALS)
+                + " para " + pick(SEASONS) + ", deseñado en " + pick(PLACES);
+    }
+
+    /**
+     * Inserts {@code count} products with ids 1 to {@code count} in chunks, then moves the id
+     * sequence past them so products created through the API do not collide.
+     */
+    void seed(JdbcTemplate jdbc, int count) {
+        var now = Timestamp.valueOf(LocalDateTime.now());
+        int chunk = 10_000;
+        for (int from = 1; from <= count; from += chunk) {
+            List<Object[]> rows = new ArrayList<>(chunk);
+            for (int id = from; id < from + chunk && id <= count; id++) {
+                var name = name();
+                var description = description(name);
+                rows.add(new Object[]{id, name, description, SearchText.normalize(name),
+                        SearchText.normalize(description), now, now});
+            }
+            jdbc.batchUpdate("insert into products (id, name, description, name_normalized, description_normalized, "
+                    + "create_date_time, update_date_time) values (?, ?, ?, ?, ?, ?, ?)", rows);
+        }
+        jdbc.execute("alter sequence hibernate_sequence restart with " + (count + 1));
+    }
+
+    /**
+     * An element with a Zipf(1) distribution over the array: the first is about twice as likely as
+     * the second and {@code n} times as likely as the n-th.
+     */
+    String pick(String[] words) {
+        double harmonic = 0;
+        for (int i = 1; i <= words.length; i++) {
+            harmonic += 1.0 / i;
+        }
+        double target = random.nextDouble() * harmonic;
+        for (int i = 1; i <= words.length; i++) {
+            target -= 1.0 / i;
+            if (target <= 0) {
+                return words[i - 1];
+            }
+        }
+        return words[words.length - 1];
+    }
+}
@@ -0,0 +1,149 @@
+package com.product.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The request mix: reads of random products, searches of different selectivity, and writes.
+ * Deletes only remove products created by the run, so the seeded catalog keeps its size.
+ */
+class Workload {
+
+    enum Operation {
+        GET,
+        /** a common garment: matches a large share of the catalog */
+        SEARCH_BROAD,
+        /** garment, adjective and colour: a handful of pages */
+        SEARCH_NARROW,
+        /** a rare place in the description */
+        SEARCH_RARE,
+        /** the first letters of a garment, {@code match=PREFIX} */
+        SEARCH_PREFIX,
+        CREATE,
+        UPDATE,
+        DELETE
+    }
+
+    private static final String JSON = "application/json";
+
+    private final String base;
+
+    private final int products;
+
+    private final Map<Operation, Integer> weights;
+
+    private final int totalWeight;
+
+    private final SyntheticCatalog catalog;
+
+    private final Random random;
+
+    private final Queue<Long> created = new ConcurrentLinkedQueue<>();
+
+    Workload(String base, int products, Map<Operation, Integer> weights, long seed) {
+        this.base = base;
+        this.products = products;
+        this.weights = new EnumMap<>(weights);
+        this.totalWeight = weights.values().stream().mapToInt(Integer::intValue).sum();
+        this.catalog = new SyntheticCatalog(seed);
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Parses a mix like {@code get=60,search_broad=5,create=5}.
+     */
+    static Map<Operation, Integer> mix(String spec) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : spec.split(",")) {
+            var parts = entry.trim().split("=");
+            weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+
+    /**
+     * Called from the dispatcher thread only.
+     */
+    Operation next() {
+        int target = random.nextInt(totalWeight);
+        for (Map.Entry<Operation, Integer> weight : weights.entrySet()) {
+            target -= weight.getValue();
+            if (target < 0) {
+                return weight.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty mix");
+    }
+
+    /**
+     * Called from the dispatcher thread only.
+     */
+    HttpRequest request(Operation operation) {
+        switch (operation) {
+            case GET:
+                return get("/" + randomId());
+            case SEARCH_BROAD:
+                return get("?name=" + encode(SyntheticCatalog.GARMENTS[0]) + "&size=10&page=" + random.nextInt(10));
+            case SEARCH_NARROW:
+                return get("?name=" + encode(catalog.name()) + "&size=10");
+            case SEARCH_RARE:
+                var places = SyntheticCatalog.PLACES;
+                return get("?name=" + encode(catalog.pick(SyntheticCatalog.GARMENTS))
+                        + "&description=" + encode(places[places.length - 1 - random.nextInt(3)]) + "&size=10");
+            case SEARCH_PREFIX:
+                var garment = catalog.pick(SyntheticCatalog.GARMENTS);
+                return get("?name=" + encode(garment.substring(0, Math.min(garment.length(), 2 + random.nextInt(3))))
+                        + "&match=PREFIX&size=10");
+            case CREATE:
+                return HttpRequest.newBuilder(URI.create(base)).header("Content-Type", JSON)
+                        .POST(HttpRequest.BodyPublishers.ofString(body())).build();
+            case UPDATE:
+                return HttpRequest.newBuilder(URI.create(base + "/" + randomId())).header("Content-Type", JSON)
+                        .PUT(HttpRequest.BodyPublishers.ofString(body())).build();
+            case DELETE:
+                var id = created.poll();
+                return HttpRequest.newBuilder(URI.create(base + "/" + (id != null ? id : products + 1 + random.nextInt(products))))
+                        .DELETE().build();
+            default:
+                throw new IllegalArgumentException(operation.name());
+        }
+    }
+
+    /**
+     * Remembers the id of a product created by the run, the body is the created product.
+     */
+    void created(String body) {
+        int start = body.indexOf("\"id\":");
+        if (start >= 0) {
+            int end = start + 5;
+            while (end < body.length() && Character.isDigit(body.charAt(end))) {
+                end++;
+            }
+            created.add(Long.parseLong(body.substring(start + 5, end)));
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(base + path)).GET().build();
+    }
+
+    private String body() {
+        var name = catalog.name();
+        return "{\"name\":\"" + name + "\",\"description\":\"" + catalog.description(name) + "\"}";
+    }
+
+    private long randomId() {
+        return 1 + random.nextInt(products);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
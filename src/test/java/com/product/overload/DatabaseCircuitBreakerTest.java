@@ -0,0 +1,115 @@
+package com.product.overload;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DatabaseCircuitBreakerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final AtomicInteger poolWaiters = new AtomicInteger();
+
+    private final AtomicInteger calls = new AtomicInteger();
+
+    private DatabaseCircuitBreaker breaker() {
+        var properties = new OverloadProperties();
+        properties.setWindowSize(4);
+        properties.setMinimumCalls(4);
+        properties.setFailureRate(0.5);
+        properties.setSlowCall(Duration.ofMillis(100));
+        properties.setMaxPoolWaiters(3);
+        properties.setOpenDuration(Duration.ofSeconds(10));
+        properties.setProbeCalls(2);
+        return new DatabaseCircuitBreaker(properties, poolWaiters::get, registry, clock::get);
+    }
+
+    private String succeed() {
+        calls.incrementAndGet();
+        return "ok";
+    }
+
+    private String fail() {
+        calls.incrementAndGet();
+        throw new QueryTimeoutException("timeout");
+    }
+
+    private String slow() {
+        calls.incrementAndGet();
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(150));
+        return "ok";
+    }
+
+    @Test
+    public void givenHalfTheCallsFailed_whenCall_thenRejectedWithoutCallingTheDatabase() {
+        var breaker = breaker();
+        breaker.call(this::succeed);
+        breaker.call(this::slow);
+        breaker.call(this::succeed);
+        assertThrows(QueryTimeoutException.class, () -> breaker.call(this::fail));
+
+        var error = assertThrows(DatabaseOverloadedException.class, () -> breaker.call(this::succeed));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, error.getStatus());
+        assertEquals("10", error.getResponseHeaders().getFirst("Retry-After"));
+        assertEquals(4, calls.get());
+        assertEquals(DatabaseCircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(1, registry.get("product.db.circuit.rejected").counter().count());
+    }
+
+    @Test
+    public void givenClientErrors_whenCall_thenNotCountedAsFailures() {
+        var breaker = breaker();
+        for (int i = 0; i < 4; i++) {
+            assertThrows(ResponseStatusException.class, () -> breaker.call(() -> {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+            }));
+        }
+
+        assertEquals("ok", breaker.call(this::succeed));
+        assertEquals(DatabaseCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void givenOpenDurationPassed_whenProbesSucceed_thenClosed() {
+        var breaker = breaker();
+        poolWaiters.set(3);
+        assertThrows(DatabaseOverloadedException.class, () -> breaker.call(this::succeed));
+        poolWaiters.set(0);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertEquals(DatabaseCircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.call(this::succeed);
+        breaker.call(this::succeed);
+
+        assertEquals(DatabaseCircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void givenOpenDurationPassed_whenProbeFails_thenOpenAgain() {
+        var breaker = breaker();
+        poolWaiters.set(3);
+        assertThrows(DatabaseOverloadedException.class, () -> breaker.call(this::succeed));
+        poolWaiters.set(0);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        breaker.call(this::slow);
+
+        assertEquals(DatabaseCircuitBreaker.State.OPEN, breaker.getState());
+        assertThrows(DatabaseOverloadedException.class, () -> breaker.call(this::succeed));
+        assertEquals(1, calls.get());
+    }
+}
@@ -0,0 +1,87 @@
+package com.product.overload;
+
+import com.product.dto.Pagination;
+import com.product.dto.Response;
+import com.product.event.ProductChangedEvent;
+import com.product.model.Product;
+import com.product.repository.MatchMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StaleCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final LocalDateTime now = LocalDateTime.of(2021, 10, 5, 10, 30);
+
+    private StaleCache cache() {
+        var properties = new OverloadProperties();
+        properties.setMaxProducts(2);
+        properties.setMaxStaleness(Duration.ofMinutes(10));
+        return new StaleCache(properties, new SimpleMeterRegistry(), clock::get);
+    }
+
+    @Test
+    public void givenCachedProduct_whenGet_thenProductAndAgeUntilMaxStaleness() {
+        var cache = cache();
+        cache.put(new Product(1, "Vaqueiro", "Curto", now, now));
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(90));
+
+        var stale = cache.get(1).orElseThrow();
+        assertEquals("Vaqueiro", stale.getValue().getName());
+        assertEquals(Duration.ofSeconds(90), stale.getAge());
+        assertEquals("90", StaleCache.headers(stale.getAge()).getFirst("Age"));
+        assertEquals(StaleCache.WARNING, StaleCache.headers(stale.getAge()).getFirst("Warning"));
+
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(10));
+        assertTrue(cache.get(1).isEmpty());
+    }
+
+    @Test
+    public void givenChanges_whenGet_thenLatestStateAndLruBound() {
+        var cache = cache();
+        cache.put(new Product(1, "Vaqueiro", "Curto", now, now));
+        cache.put(new Product(2, "Saia", "Verano", now, now));
+        cache.onProductChanged(ProductChangedEvent.updated(new Product(1, "Vaqueiro", "Longo", now, now)));
+        cache.onProductChanged(ProductChangedEvent.deleted(2, now));
+        cache.onProductChanged(ProductChangedEvent.updated(new Product(3, "Camisa", "Inverno", now, now)));
+        cache.put(new Product(4, "Pantalon", "Bonito", now, now));
+        cache.put(new Product(5, "Camisa", "Verano", now, now));
+
+        assertTrue(cache.get(1).isEmpty());
+        assertTrue(cache.get(2).isEmpty());
+        assertTrue(cache.get(3).isEmpty());
+        assertEquals("Verano", cache.get(5).orElseThrow().getValue().getDescription());
+
+        cache.onProductChanged(ProductChangedEvent.updated(new Product(4, "Pantalon", "Feo", now, now)));
+        assertEquals("Feo", cache.get(4).orElseThrow().getValue().getDescription());
+    }
+
+    @Test
+    public void givenCachedSearch_whenSearch_thenCopyWithAge() {
+        var cache = cache();
+        var response = new Response<>(List.of(new Product(1, "Vaqueiro", "Curto", now, now)), new Pagination(0, 1, 1));
+        cache.put("vaq", null, MatchMode.CONTAINS, PageRequest.of(0, 3), response);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+
+        var stale = cache.search("vaq", null, MatchMode.CONTAINS, PageRequest.of(0, 3)).orElseThrow();
+
+        assertNotSame(response, stale);
+        assertEquals(response.getData(), stale.getData());
+        assertEquals(1, stale.getPagination().getTotalItems());
+        assertEquals(Duration.ofSeconds(5), stale.getAge());
+        assertTrue(cache.search("vaq", null, MatchMode.CONTAINS, PageRequest.of(1, 3)).isEmpty());
+        assertTrue(cache.search("vaq", null, MatchMode.PREFIX, PageRequest.of(0, 3)).isEmpty());
+    }
+}
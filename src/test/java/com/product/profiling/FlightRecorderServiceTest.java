@@ -0,0 +1,72 @@
+package com.product.profiling;
+
+import com.product.model.SearchText;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlightRecorderServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private FlightRecorderService flightRecorder;
+
+    @BeforeEach
+    public void init() {
+        flightRecorder = new FlightRecorderService(directory, Duration.ofMinutes(1), 5, false, null, 0);
+    }
+
+    @AfterEach
+    public void close() {
+        flightRecorder.close();
+    }
+
+    @Test
+    public void givenAllocationProfile_whenStopped_thenTopSitesUnderApplicationPackage() throws Exception {
+        flightRecorder.start(Profile.ALLOCATION, null);
+
+        long length = 0;
+        long end = System.nanoTime() + Duration.ofSeconds(1).toNanos();
+        while (System.nanoTime() < end) {
+            length += SearchText.normalize("Vaqueiro clásico para todos los DÍAS " + length).length();
+        }
+        var summary = flightRecorder.stop(Profile.ALLOCATION).orElseThrow();
+
+        assertTrue(length > 0);
+        assertEquals("allocation", summary.getRecording());
+        assertTrue(Files.size(Path.of(summary.getFile())) > 0);
+        var sites = summary.getSites().get("allocationSites");
+        assertTrue(sites.size() <= 5);
+        assertTrue(sites.stream().anyMatch(site -> site.getSite().startsWith("com.product.model.SearchText.normalize:")),
+                sites.stream().map(RecordingSummary.Site::getSite).reduce("", String::concat));
+        assertTrue(sites.stream().noneMatch(site -> site.getSite().startsWith("com.product.profiling.")));
+    }
+
+    @Test
+    public void givenRunningProfile_whenStartedAgain_thenRejected() {
+        var status = flightRecorder.start(Profile.LOCK, Duration.ofHours(1));
+
+        assertEquals(Duration.ofMinutes(1), status.get("duration"));
+        assertThrows(IllegalStateException.class, () -> flightRecorder.start(Profile.LOCK, null));
+        assertTrue(flightRecorder.summary("lock").isPresent());
+        assertTrue(flightRecorder.summary("jdbc-io").isEmpty());
+        assertTrue(flightRecorder.stop(Profile.LOCK).isPresent());
+        assertTrue(flightRecorder.stop(Profile.LOCK).isEmpty());
+    }
+
+    @Test
+    public void givenProfileIds_whenOf_thenMatchingProfile() {
+        assertEquals(Profile.JDBC_IO, Profile.of("jdbc-io").orElseThrow());
+        assertTrue(Profile.of("JDBC_IO").isEmpty());
+    }
+}
@@ -0,0 +1,65 @@
+package com.product.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryTokenBucketStoreTest {
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+
+    private final InMemoryTokenBucketStore store = new InMemoryTokenBucketStore(clock::get);
+
+    @Test
+    public void givenFullBucket_whenConsumeCapacity_thenAllowedAndNextRejected() {
+        var limit = BucketLimit.of(3, 1);
+
+        assertEquals(0, store.tryConsume("client", limit));
+        assertEquals(0, store.tryConsume("client", limit));
+        assertEquals(0, store.tryConsume("client", limit));
+
+        long wait = store.tryConsume("client", limit);
+        assertEquals(TimeUnit.SECONDS.toNanos(1), wait);
+    }
+
+    @Test
+    public void givenEmptyBucket_whenRefillTimeElapses_thenAllowed() {
+        var limit = BucketLimit.of(1, 2);
+        assertEquals(0, store.tryConsume("client", limit));
+        assertTrue(store.tryConsume("client", limit) > 0);
+
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+
+        assertEquals(0, store.tryConsume("client", limit));
+    }
+
+    @Test
+    public void givenTwoClients_whenOneIsExhausted_thenOtherIsAllowed() {
+        var limit = BucketLimit.of(1, 1);
+        assertEquals(0, store.tryConsume("a", limit));
+        assertTrue(store.tryConsume("a", limit) > 0);
+
+        assertEquals(0, store.tryConsume("b", limit));
+    }
+
+    @Test
+    public void givenRefilledBuckets_whenEvictIdle_thenRemoved() {
+        var limit = BucketLimit.of(2, 1);
+        store.tryConsume("a", limit);
+        store.tryConsume("b", limit);
+        store.tryConsume("b", limit);
+        assertEquals(2, store.size());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        store.evictIdle();
+        assertEquals(1, store.size());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        store.evictIdle();
+        assertEquals(0, store.size());
+    }
+}
@@ -0,0 +1,77 @@
+package com.product.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RateLimitFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private RateLimitFilter filter() {
+        var properties = new RateLimitProperties();
+        properties.setRead(new RateLimitProperties.Budget(2, 1));
+        properties.setSearch(new RateLimitProperties.Budget(1, 0.5));
+        return new RateLimitFilter(new InMemoryTokenBucketStore(), properties, registry);
+    }
+
+    @Test
+    public void givenSearchBudgetExhausted_whenSearch_thenStatus429AndRetryAfter() throws Exception {
+        var filter = filter();
+        var request = new MockHttpServletRequest("GET", "/api/products");
+        request.setParameter("description", "verano");
+
+        var first = new MockHttpServletResponse();
+        filter.doFilter(request, first, new MockFilterChain());
+        assertEquals(200, first.getStatus());
+
+        var second = new MockHttpServletResponse();
+        filter.doFilter(request, second, new MockFilterChain());
+        assertEquals(429, second.getStatus());
+        assertEquals("2", second.getHeader("Retry-After"));
+
+        assertEquals(1, registry.get("product.rate.limit.requests")
+                .tag("class", "search").tag("outcome", "rejected").counter().count());
+    }
+
+    @Test
+    public void givenSearchBudgetExhausted_whenGetById_thenReadBudgetIsUsed() throws Exception {
+        var filter = filter();
+        var search = new MockHttpServletRequest("GET", "/api/products");
+        search.setParameter("description", "verano");
+        filter.doFilter(search, new MockHttpServletResponse(), new MockFilterChain());
+
+        var response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/products/1"), response, new MockFilterChain());
+
+        assertEquals(200, response.getStatus());
+        assertNull(response.getHeader("Retry-After"));
+    }
+
+    @Test
+    public void givenApiKeys_whenOneIsExhausted_thenOtherIsAllowed() throws Exception {
+        var filter = filter();
+        for (int i = 0; i < 2; i++) {
+            var request = new MockHttpServletRequest("GET", "/api/products/1");
+            request.addHeader("X-API-Key", "noisy");
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        }
+        var noisy = new MockHttpServletRequest("GET", "/api/products/1");
+        noisy.addHeader("X-API-Key", "noisy");
+        var noisyResponse = new MockHttpServletResponse();
+        filter.doFilter(noisy, noisyResponse, new MockFilterChain());
+
+        var quiet = new MockHttpServletRequest("GET", "/api/products/1");
+        quiet.addHeader("X-API-Key", "quiet");
+        var quietResponse = new MockHttpServletResponse();
+        filter.doFilter(quiet, quietResponse, new MockFilterChain());
+
+        assertEquals(429, noisyResponse.getStatus());
+        assertEquals(200, quietResponse.getStatus());
+    }
+}
@@ -57,4 +57,22 @@ public class ProductWithDescriptionLikeSpecificationTest {
         assertThat(productVaqueiro, IsNot.not(results));
         assertThat(productPantalon, IsNot.not(results));
     }
+
+    @Test
+    public void givenAccentsAndCase_whenFindAllProductsAndFilterDescription_thenFolded() {
+        var product = repository.save(new Product("Camisa", "Camisa para todos los días"));
+
+        var results = repository.findAll(new ProductWithDescriptionLikeSpecification("TODOS LOS DIAS"));
+
+        assertEquals(List.of(product), results);
+    }
+
+    @Test
+    public void givenPrefixMatch_whenFindAllProductsAndFilterDescription_thenOnlyStartingWith() {
+        var results = repository.findAll(new ProductWithDescriptionLikeSpecification("vaqueiro", MatchMode.PREFIX));
+        var middle = repository.findAll(new ProductWithDescriptionLikeSpecification("classico", MatchMode.PREFIX));
+
+        assertEquals(List.of(productVaqueiro), results);
+        assertEquals(0, middle.size());
+    }
 }
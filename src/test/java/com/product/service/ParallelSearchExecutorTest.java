@@ -0,0 +1,71 @@
+package com.product.service;
+
+import com.product.model.Product;
+import com.product.repository.ProductRepository;
+import com.product.repository.ProductWithDescriptionLikeSpecification;
+import com.product.repository.ProductWithNameLikeSpecification;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ParallelSearchExecutorTest {
+
+    @Autowired
+    private ProductRepository repository;
+
+    private ParallelSearchExecutor executor;
+
+    @Before
+    public void init() {
+        executor = new ParallelSearchExecutor(repository, 2, 4);
+        for (int i = 0; i < 30; i++) {
+            repository.save(new Product((i % 3 == 0 ? "Vaqueiro " : "Pantalon ") + i,
+                    i % 2 == 0 ? "Nuevo estilo verano" : "Nuevo estilo inverno"));
+        }
+    }
+
+    @After
+    public void clean() {
+        executor.close();
+        repository.deleteAll();
+    }
+
+    @Test
+    public void givenBothFilters_whenSearch_thenSameAsSpecification() {
+        var pageable = PageRequest.of(1, 2);
+        var spec = Specification
+                .where(new ProductWithNameLikeSpecification("Vaqueiro"))
+                .and(new ProductWithDescriptionLikeSpecification("verano"));
+        var expected = repository.findAll(spec, PageRequest.of(1, 2, Sort.by("id")));
+
+        var page = executor.search("Vaqueiro", "verano", pageable);
+
+        assertEquals(5, page.getTotalElements());
+        assertEquals(expected.getTotalElements(), page.getTotalElements());
+        assertEquals(expected.getContent(), page.getContent());
+    }
+
+    @Test
+    public void givenSingleFilterOrOtherSort_whenSupports_thenFalse() {
+        assertTrue(executor.supports("a", "b", PageRequest.of(0, 3)));
+        assertTrue(executor.supports("a", "b", PageRequest.of(0, 3, Sort.by("id"))));
+        assertFalse(executor.supports("a", null, PageRequest.of(0, 3)));
+        assertFalse(executor.supports("a", "b", PageRequest.of(0, 3, Sort.by("name"))));
+    }
+}
@@ -0,0 +1,83 @@
+package com.product.service;
+
+import com.product.event.ChangeType;
+import com.product.model.Product;
+import com.product.repository.ProductRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@DataJpaTest
+public class ProductChangeFeedServiceTest {
+
+    @Autowired
+    private ProductRepository repository;
+
+    private ProductChangeFeedService feed;
+
+    private Product productPantalon;
+
+    private Product productVaqueiro;
+
+    @Before
+    public void init() {
+        feed = new ProductChangeFeedService(repository, 1000);
+        productPantalon = repository.save(new Product("Pantalon bonito", "Nuevo pantalon 2021 verano"));
+        productVaqueiro = repository.save(new Product("Vaqueiro curto", "Vaqueiro classico verano"));
+    }
+
+    @Test
+    public void givenProducts_whenChangesFromStart_thenAllCreatedInOrder() {
+        var changes = feed.changes(null, 10);
+
+        assertEquals(2, changes.getChanges().size());
+        assertEquals(ChangeType.CREATED, changes.getChanges().get(0).getType());
+        assertEquals(productPantalon, changes.getChanges().get(0).getProduct());
+        assertEquals(productVaqueiro, changes.getChanges().get(1).getProduct());
+        assertEquals(changes.getChanges().get(1).getToken(), changes.getNext());
+    }
+
+    @Test
+    public void givenLimit_whenResumeFromNext_thenRemainingChanges() {
+        var first = feed.changes(null, 1);
+        assertEquals(1, first.getChanges().size());
+
+        var second = feed.changes(first.getNext(), 1);
+        assertEquals(1, second.getChanges().size());
+        assertEquals(productVaqueiro.getId(), second.getChanges().get(0).getId());
+
+        var third = feed.changes(second.getNext(), 1);
+        assertTrue(third.getChanges().isEmpty());
+        assertEquals(second.getNext(), third.getNext());
+    }
+
+    @Test
+    public void givenDeletedProduct_whenChanges_thenTombstone() {
+        var next = feed.changes(null, 10).getNext();
+        repository.softDeleteById(productPantalon.getId(), LocalDateTime.now().plusSeconds(1));
+
+        var changes = feed.changes(next, 10);
+
+        assertEquals(1, changes.getChanges().size());
+        assertEquals(ChangeType.DELETED, changes.getChanges().get(0).getType());
+        assertEquals(productPantalon.getId(), changes.getChanges().get(0).getId());
+        assertNull(changes.getChanges().get(0).getProduct());
+    }
+
+    @Test
+    public void givenInvalidToken_whenChanges_thenBadRequest() {
+        assertThrows(ResponseStatusException.class, () -> feed.changes("not a token", 10));
+    }
+}
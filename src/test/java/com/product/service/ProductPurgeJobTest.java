@@ -0,0 +1,65 @@
+package com.product.service;
+
+import com.product.model.Product;
+import com.product.repository.ProductRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@DataJpaTest
+public class ProductPurgeJobTest {
+
+    @Autowired
+    private ProductRepository repository;
+
+    private ProductPurgeJob job;
+
+    private LocalDateTime now;
+
+    @Before
+    public void init() {
+        job = new ProductPurgeJob(repository, Duration.ofDays(7), 2, 0);
+        now = LocalDateTime.now();
+    }
+
+    @Test
+    public void givenSoftDeletedProduct_whenFind_thenHidden() {
+        var product = repository.save(new Product("Pantalon bonito", "Nuevo pantalon 2021 verano"));
+
+        assertEquals(1, repository.softDeleteById(product.getId(), now));
+        assertEquals(0, repository.softDeleteById(product.getId(), now));
+
+        assertFalse(repository.findById(product.getId()).isPresent());
+        assertEquals(0, repository.count());
+    }
+
+    @Test
+    public void givenOldAndRecentTombstones_whenPurge_thenOnlyOldRemovedInChunks() {
+        for (int i = 0; i < 5; i++) {
+            var product = repository.save(new Product("Vaqueiro " + i, "Vaqueiro classico verano"));
+            repository.softDeleteById(product.getId(), now.minusDays(10));
+        }
+        var recent = repository.save(new Product("Vaqueiro curto", "Vaqueiro classico verano"));
+        repository.softDeleteById(recent.getId(), now.minusDays(1));
+        var live = repository.save(new Product("Pantalon bonito", "Nuevo pantalon 2021 verano"));
+
+        assertEquals(5, job.purge(now.minusDays(7)));
+
+        var remaining = repository.findChangedSince(ChangeToken.START.getTimestamp(), 0, PageRequest.of(0, 10));
+        assertEquals(2, remaining.size());
+        assertTrue(remaining.stream().anyMatch(p -> p.getId() == recent.getId() && p.isDeleted()));
+        assertTrue(repository.findById(live.getId()).isPresent());
+    }
+}
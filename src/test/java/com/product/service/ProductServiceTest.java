@@ -2,26 +2,41 @@ package com.product.service;
 
 import com.product.dto.Response;
 import com.product.model.Product;
+import com.product.overload.DatabaseCircuitBreaker;
+import com.product.overload.DatabaseOverloadedException;
+import com.product.overload.OverloadProperties;
+import com.product.overload.StaleCache;
 import com.product.repository.ProductRepository;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-import org.springframework.dao.EmptyResultDataAccessException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -32,6 +47,9 @@ public class ProductServiceTest {
     @Mock
     private ProductRepository repository;
 
+    @Mock
+    private ApplicationEventPublisher events;
+
     @InjectMocks
     private ProductService service;
 
@@ -124,8 +142,8 @@ public class ProductServiceTest {
         when(repository.findById(anyLong()))
                 .thenReturn(product);
 
-        when(repository.save(any()))
-                .thenReturn(newProduct);
+        when(repository.updateIfExists(anyLong(), any(), any(), any(), any(), any()))
+                .thenReturn(1);
         try {
             ResponseEntity<Product> response = service.update(0, newProduct);
             assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -136,6 +154,21 @@ public class ProductServiceTest {
 
     }
 
+    @Test
+    public void givenDeletedAfterRead_whenUpdate_thenNotFoundAndNothingSaved() {
+        var product = new Product(7L, "Vaqueiro Curto", "Nuevo estilo de Vaqueiro curto", LocalDateTime.now(), LocalDateTime.now());
+        var newProduct = new Product("Vaqueiro Curto Verano", "Nuevo estilo de Vaqueiro curto Verano");
+        when(repository.findById(7L)).thenReturn(Optional.of(product));
+        when(repository.updateIfExists(anyLong(), any(), any(), any(), any(), any())).thenReturn(0);
+
+        ResponseEntity<Product> response = service.update(7, newProduct);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals("Vaqueiro Curto", product.getName());
+        verify(repository, never()).save(any());
+        verify(events, never()).publishEvent(any());
+    }
+
     @Test
     public void givenNone_whenUpdate_thenNotFound() throws Exception {
         var newProduct = new Product("Vaqueiro Curto Verano", "Nuevo estilo de Vaqueiro curto Verano");
@@ -181,12 +214,14 @@ public class ProductServiceTest {
 
     @Test
     public void givenProducts_whenDelete_thenNoContent() throws Exception {
+        when(repository.softDeleteById(anyLong(), any())).thenReturn(1);
         try {
             ResponseEntity<HttpStatus> response = service.delete(0);
             assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
 
             ArgumentCaptor<Long> idCaptor = ArgumentCaptor.forClass(Long.class);
-            verify(repository).deleteById(idCaptor.capture());
+            verify(repository).softDeleteById(idCaptor.capture(), any());
+            verify(repository, never()).deleteById(anyLong());
 
             assertEquals(0, idCaptor.getValue());
 
@@ -196,17 +231,13 @@ public class ProductServiceTest {
     }
 
     @Test
-    public void givenNone_whenDelete_thenNoContent() throws Exception {
+    public void givenNone_whenDelete_thenNotFound() throws Exception {
+        when(repository.softDeleteById(anyLong(), any())).thenReturn(0);
         try {
-            when(service.delete(anyLong())).thenThrow(new EmptyResultDataAccessException(0));
-
             ResponseEntity<HttpStatus> response = service.delete(0);
-            assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
-
-            ArgumentCaptor<Long> idCaptor = ArgumentCaptor.forClass(Long.class);
-            verify(repository).deleteById(idCaptor.capture());
+            assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
 
-            assertEquals(0, idCaptor.getValue());
+            verify(events, never()).publishEvent(any());
         } catch (Exception exception) {
             fail("There should have been no exception");
         }
@@ -215,13 +246,13 @@ public class ProductServiceTest {
     @Test
     public void givenNone_whenDelete_thenError() throws Exception {
         try {
-            when(service.delete(anyLong())).thenThrow(new NullPointerException());
+            when(repository.softDeleteById(anyLong(), any())).thenThrow(new NullPointerException());
 
             ResponseEntity<HttpStatus> response = service.delete(0);
             assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, response.getStatusCode());
 
             ArgumentCaptor<Long> idCaptor = ArgumentCaptor.forClass(Long.class);
-            verify(repository).deleteById(idCaptor.capture());
+            verify(repository).softDeleteById(idCaptor.capture(), any());
 
             assertEquals(0, idCaptor.getValue());
         } catch (Exception exception) {
@@ -229,4 +260,68 @@ public class ProductServiceTest {
         }
     }
 
+    @Test
+    public void givenManyIds_whenGetAll_thenInInputOrderWithNotFoundListed() {
+        var now = LocalDateTime.now();
+        when(repository.findAllById(ArgumentMatchers.<Collection<Long>>any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().filter(id -> id % 10 != 0)
+                    .map(id -> new Product(id, "Vaqueiro " + id, "Nuevo estilo verano", now, now))
+                    .collect(Collectors.toList());
+        });
+        var ids = LongStream.rangeClosed(1, 150).map(id -> 151 - id).boxed().collect(Collectors.toList());
+        ids.add(149L);
+
+        var lookup = service.getAll(ids);
+
+        verify(repository, times(2)).findAllById(any());
+        assertEquals(135, lookup.getData().size());
+        assertEquals(149, lookup.getData().get(0).getId());
+        assertEquals(1, lookup.getData().get(134).getId());
+        assertEquals(15, lookup.getNotFound().size());
+        assertEquals(150, lookup.getNotFound().get(0));
+        assertEquals(10, lookup.getNotFound().get(14));
+    }
+
+    @Test
+    public void givenTooManyIds_whenGetAll_thenBadRequest() {
+        var ids = LongStream.rangeClosed(1, 501).boxed().collect(Collectors.toList());
+
+        var error = assertThrows(ResponseStatusException.class, () -> service.getAll(ids));
+
+        assertEquals(HttpStatus.BAD_REQUEST, error.getStatus());
+        verify(repository, never()).findAllById(any());
+    }
+
+    @Test
+    public void givenDatabaseFailing_whenGetAndSearch_thenStaleCopiesThenFastRejection() {
+        var properties = new OverloadProperties();
+        properties.setWindowSize(2);
+        properties.setMinimumCalls(2);
+        var registry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(service, "circuitBreaker", new DatabaseCircuitBreaker(properties, () -> 0, registry));
+        ReflectionTestUtils.setField(service, "staleCache", new StaleCache(properties, registry));
+        var now = LocalDateTime.now();
+        var product = new Product(1, "Vaqueiro Curto", "Nuevo estilo de Vaqueiro curto", now, now);
+        when(repository.findById(1L)).thenReturn(Optional.of(product));
+        when(repository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(new PageImpl<>(List.of(product)));
+        service.get(1);
+        service.search("vaq", null, Pageable.ofSize(3));
+
+        when(repository.findById(1L)).thenThrow(new QueryTimeoutException("timeout"));
+        when(repository.findAll(any(Specification.class), any(Pageable.class))).thenThrow(new QueryTimeoutException("timeout"));
+        var stale = service.get(1);
+        var staleSearch = service.search("vaq", null, Pageable.ofSize(3));
+
+        assertEquals(product, stale.getBody());
+        assertNotNull(stale.getHeaders().getFirst("Warning"));
+        assertEquals(product, staleSearch.getData().get(0));
+        assertNotNull(staleSearch.getAge());
+
+        var rejected = assertThrows(DatabaseOverloadedException.class,
+                () -> service.create(new Product("Saia", "Verano")));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getStatus());
+        verify(repository, never()).save(any());
+        assertThrows(DatabaseOverloadedException.class, () -> service.get(2));
+    }
 }
\ No newline at end of file
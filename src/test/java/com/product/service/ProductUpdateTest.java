@@ -0,0 +1,63 @@
+package com.product.service;
+
+import com.product.model.Product;
+import com.product.repository.ProductRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@DataJpaTest
+public class ProductUpdateTest {
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Test
+    public void givenProduct_whenUpdate_thenNameAndSearchTextWritten() {
+        var product = repository.save(new Product("Pantalon bonito", "Nuevo pantalon 2021 verano"));
+        var service = new ProductService(repository, mock(ApplicationEventPublisher.class));
+
+        var response = service.update(product.getId(), new Product("Pantalón curto", "Nuevo pantalon 2022 verano"));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        var updated = repository.findById(product.getId()).orElseThrow();
+        assertEquals("Pantalón curto", updated.getName());
+        assertEquals("pantalon curto", updated.getNameNormalized());
+        assertEquals(response.getBody().getUpdateDateTime(), updated.getUpdateDateTime());
+    }
+
+    @Test
+    public void givenDeletedAfterRead_whenUpdate_thenNotFoundAndNotInsertedAgain() {
+        var product = repository.save(new Product("Vaqueiro curto", "Vaqueiro classico verano"));
+        // the update reads the product, then a concurrent delete commits before it writes
+        var read = repository.findById(product.getId()).orElseThrow();
+        ProductRepository racing = mock(ProductRepository.class, delegatesTo(repository));
+        doReturn(Optional.of(read)).when(racing).findById(product.getId());
+        repository.softDeleteById(product.getId(), LocalDateTime.now());
+        var service = new ProductService(racing, mock(ApplicationEventPublisher.class));
+
+        var response = service.update(product.getId(), new Product("Vaqueiro longo", "Vaqueiro classico verano"));
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals(0, repository.count());
+        var rows = repository.findChangedSince(ChangeToken.START.getTimestamp(), 0, PageRequest.of(0, 10));
+        assertEquals(1, rows.size());
+        assertTrue(rows.get(0).isDeleted());
+        assertEquals("Vaqueiro curto", rows.get(0).getName());
+    }
+}
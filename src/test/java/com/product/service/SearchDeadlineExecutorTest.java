@@ -0,0 +1,153 @@
+package com.product.service;
+
+import com.product.dto.Pagination;
+import com.product.dto.Response;
+import com.product.model.Product;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+// H2 only hands out rows while the query runs with lazy execution, which partial results need
+@RunWith(SpringJUnit4ClassRunner.class)
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:deadline;LAZY_QUERY_EXECUTION=TRUE")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class SearchDeadlineExecutorTest {
+
+    private static final int PRODUCTS = 10_000;
+
+    // evaluated per row by H2, about 2 seconds for the whole table
+    private static final Specification<Product> SLOW = (root, query, builder) ->
+            builder.isTrue(builder.function("SLOW_MATCH", Boolean.class, root.get("id")));
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private SearchDeadlineExecutor executor;
+
+    public static boolean slowMatch(long id) {
+        LockSupport.parkNanos(200_000);
+        return true;
+    }
+
+    @Before
+    public void init() {
+        executor = new SearchDeadlineExecutor(entityManager, transactionManager, 300, 1, 1);
+        jdbc.execute("create alias if not exists SLOW_MATCH for \"" + getClass().getName() + ".slowMatch\"");
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= PRODUCTS; i++) {
+            rows.add(new Object[]{i, "Vaqueiro " + i, "Nuevo estilo verano", "vaqueiro " + i, "nuevo estilo verano"});
+        }
+        jdbc.batchUpdate("insert into products (id, name, description, name_normalized, description_normalized, " +
+                "create_date_time, update_date_time) values (?, ?, ?, ?, ?, current_timestamp, current_timestamp)", rows);
+    }
+
+    @After
+    public void clean() {
+        executor.close();
+        jdbc.update("delete from products");
+    }
+
+    @Test
+    public void givenFastSearch_whenSubmit_thenFullPage() throws Exception {
+        var response = search(Specification.where(null), 5, false).get(2, TimeUnit.SECONDS);
+
+        assertEquals(5, response.getData().size());
+        assertEquals(PRODUCTS, response.getPagination().getTotalItems());
+        assertFalse(response.getPagination().isPartial());
+    }
+
+    @Test
+    public void givenSlowSearch_whenDeadlinePasses_thenUnavailableAndQueryCancelled() throws Exception {
+        long start = System.nanoTime();
+        assertStatus(HttpStatus.SERVICE_UNAVAILABLE, search(SLOW, 20, false));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+
+        // the only pool thread is free again long before the slow query could have finished
+        var response = search(Specification.where(null), 5, false).get(1, TimeUnit.SECONDS);
+        assertEquals(5, response.getData().size());
+    }
+
+    @Test
+    public void givenSlowSearchAcceptingPartial_whenDeadlinePasses_thenRowsFoundSoFar() throws Exception {
+        var response = search(SLOW, PRODUCTS, true).get(1, TimeUnit.SECONDS);
+
+        var found = response.getData().size();
+        assertTrue(String.valueOf(found), found > 0 && found < PRODUCTS);
+        assertTrue(response.getPagination().isPartial());
+        assertEquals(found, response.getPagination().getTotalItems());
+        assertEquals(found, response.getData().get(found - 1).getId());
+    }
+
+    @Test
+    public void givenSlowSearch_whenCancelled_thenQueryCancelled() throws Exception {
+        var slow = search(SLOW, 20, false);
+        Thread.sleep(100);
+        slow.cancel(true);
+
+        var response = search(Specification.where(null), 5, false).get(1, TimeUnit.SECONDS);
+        assertEquals(5, response.getData().size());
+    }
+
+    @Test
+    public void givenPoolAndQueueFull_whenSubmit_thenUnavailable() throws Exception {
+        var running = search(SLOW, 20, false);
+        var queued = search(SLOW, 20, false);
+
+        var rejected = search(SLOW, 20, false);
+
+        assertStatus(HttpStatus.SERVICE_UNAVAILABLE, rejected);
+        assertFalse(running.isDone() && queued.isDone());
+        running.cancel(true);
+        queued.cancel(true);
+    }
+
+    private CompletableFuture<Response<Product>> search(Specification<Product> spec, int size, boolean partial) {
+        return executor.submit(() -> {
+            var page = executor.findAll(spec, PageRequest.of(0, size));
+            return new Response<>(page.getContent(),
+                    new Pagination(page.getNumber(), page.getTotalElements(), page.getTotalPages()));
+        }, partial);
+    }
+
+    private static void assertStatus(HttpStatus status, CompletableFuture<?> future) throws Exception {
+        try {
+            future.get(2, TimeUnit.SECONDS);
+            fail("Expected " + status);
+        } catch (ExecutionException e) {
+            assertEquals(status, ((ResponseStatusException) e.getCause()).getStatus());
+        }
+    }
+}
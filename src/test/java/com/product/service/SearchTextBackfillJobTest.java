@@ -0,0 +1,62 @@
+package com.product.service;
+
+import com.product.model.Product;
+import com.product.repository.ProductRepository;
+import com.product.repository.ProductWithNameLikeSpecification;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@DataJpaTest
+public class SearchTextBackfillJobTest {
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private SearchTextBackfillJob job;
+
+    @Before
+    public void init() {
+        job = new SearchTextBackfillJob(repository, 2, 0);
+    }
+
+    @Test
+    public void givenRowsWithoutSearchText_whenBackfill_thenFoundByFilters() {
+        for (int i = 1; i <= 5; i++) {
+            jdbc.update("insert into products (id, name, description, create_date_time, update_date_time) " +
+                    "values (?, ?, 'Vaqueiro para todos los días', current_timestamp, current_timestamp)", 1000 + i, "Vaqueiro Ñ " + i);
+        }
+        repository.save(new Product("Pantalon bonito", "Nuevo pantalon 2021 verano"));
+
+        assertEquals(0, repository.findAll(new ProductWithNameLikeSpecification("vaqueiro n")).size());
+
+        assertEquals(5, job.backfill());
+
+        var product = repository.findById(1003L).orElseThrow();
+        assertEquals("vaqueiro n 3", product.getNameNormalized());
+        assertEquals("vaqueiro para todos los dias", product.getDescriptionNormalized());
+        assertEquals(5, repository.findAll(new ProductWithNameLikeSpecification("vaqueiro n")).size());
+        assertEquals(0, job.backfill());
+    }
+
+    @Test
+    public void givenRowWithoutDescriptionSearchText_whenBackfill_thenFilledOnce() {
+        jdbc.update("insert into products (id, name, name_normalized, description, create_date_time, update_date_time) " +
+                "values (2001, 'Saia', 'saia', 'Saia de verano', current_timestamp, current_timestamp)");
+
+        assertEquals(1, job.backfill());
+
+        assertEquals("saia de verano", repository.findById(2001L).orElseThrow().getDescriptionNormalized());
+        assertEquals(0, job.backfill());
+    }
+}
@@ -0,0 +1,35 @@
+package com.product.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class SortedIdSetsTest {
+
+    @Test
+    public void givenOverlappingSets_whenIntersect_thenCommonIds() {
+        long[] result = SortedIdSets.intersect(List.of(
+                new long[]{1, 3, 5, 7, 9, 11},
+                new long[]{2, 3, 4, 9, 10, 11, 12}));
+
+        assertArrayEquals(new long[]{3, 9, 11}, result);
+    }
+
+    @Test
+    public void givenSmallAndHugeSets_whenIntersect_thenGallopFindsAll() {
+        long[] huge = LongStream.range(0, 100_000).map(i -> i * 2).toArray();
+
+        long[] result = SortedIdSets.intersect(List.of(huge, new long[]{0, 1, 5000, 99_998, 199_998, 200_000}));
+
+        assertArrayEquals(new long[]{0, 5000, 99_998, 199_998}, result);
+    }
+
+    @Test
+    public void givenDisjointOrEmptySets_whenIntersect_thenEmpty() {
+        assertArrayEquals(new long[0], SortedIdSets.intersect(List.of(new long[]{1, 2}, new long[]{3, 4})));
+        assertArrayEquals(new long[0], SortedIdSets.intersect(List.of(new long[]{1, 2}, new long[0], new long[]{1})));
+    }
+}
@@ -0,0 +1,185 @@
+package com.product.shard;
+
+import com.product.model.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardedProductRepositoryTest {
+
+    private ShardedProductRepository repository;
+
+    private List<DataSource> dataSources;
+
+    @BeforeEach
+    public void init() {
+        var test = UUID.randomUUID();
+        dataSources = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            dataSources.add(new DriverManagerDataSource("jdbc:h2:mem:" + test + "-" + i + ";DB_CLOSE_DELAY=-1", "sa", "sa"));
+        }
+        repository = new ShardedProductRepository(dataSources, new SnowflakeIdGenerator(1));
+    }
+
+    @AfterEach
+    public void close() throws Exception {
+        repository.close();
+    }
+
+    @Test
+    public void givenProducts_whenSave_thenSpreadAcrossShardsAndFoundById() {
+        var shardsUsed = new HashSet<Integer>();
+        for (int i = 0; i < 30; i++) {
+            var saved = repository.save(new Product("Vaqueiro " + i, "Vaqueiro classico verano"));
+            shardsUsed.add(repository.shardOf(saved.getId()));
+            assertEquals(saved, repository.findById(saved.getId()).orElseThrow());
+        }
+        assertEquals(3, shardsUsed.size());
+    }
+
+    @Test
+    public void givenProductsOnAllShards_whenFindAllSortedByName_thenMergedPage() {
+        for (int i = 0; i < 20; i++) {
+            repository.save(new Product(String.format("Vaqueiro %02d", i), i % 2 == 0 ? "verano" : "inverno"));
+        }
+
+        var page = repository.findAll("Vaqueiro", "verano", PageRequest.of(1, 3, Sort.by("name").descending()));
+
+        assertEquals(10, page.getTotalElements());
+        assertEquals(4, page.getTotalPages());
+        assertEquals(List.of("Vaqueiro 12", "Vaqueiro 10", "Vaqueiro 08"),
+                page.getContent().stream().map(Product::getName).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void givenUnsortedPage_whenFindAll_thenOrderedById() {
+        for (int i = 0; i < 10; i++) {
+            repository.save(new Product("Pantalon " + i, "Nuevo pantalon 2021 verano"));
+        }
+
+        var content = repository.findAll(null, null, PageRequest.of(0, 10)).getContent();
+
+        for (int i = 1; i < content.size(); i++) {
+            assertTrue(content.get(i - 1).getId() < content.get(i).getId());
+        }
+    }
+
+    @Test
+    public void givenProduct_whenUpdateAndSoftDelete_thenHidden() {
+        var saved = repository.save(new Product("Pantalon bonito", "Nuevo pantalon 2021 verano"));
+        saved.setName("Pantalon curto");
+        repository.save(saved);
+        assertEquals("Pantalon curto", repository.findById(saved.getId()).orElseThrow().getName());
+
+        assertEquals(1, repository.softDeleteById(saved.getId(), LocalDateTime.now()));
+
+        assertFalse(repository.findById(saved.getId()).isPresent());
+        assertEquals(0, repository.findAll(null, null, PageRequest.of(0, 3)).getTotalElements());
+    }
+
+    @Test
+    public void givenProductsOnAllShards_whenFindAllById_thenFoundExceptDeleted() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            ids.add(repository.save(new Product("Camisa " + i, "Nuevo estilo verano")).getId());
+        }
+        repository.softDeleteById(ids.get(0), LocalDateTime.now());
+        ids.add(42L);
+
+        var found = repository.findAllById(ids).stream().map(Product::getId).collect(Collectors.toSet());
+
+        assertEquals(new HashSet<>(ids.subList(1, 12)), found);
+    }
+
+    @Test
+    public void givenProductDeletedSinceRead_whenUpdate_thenEmpty() {
+        var saved = repository.save(new Product("Pantalon bonito", "Nuevo pantalon 2021 verano"));
+        repository.softDeleteById(saved.getId(), LocalDateTime.now());
+        saved.setName("Pantalon curto");
+
+        assertTrue(repository.update(saved).isEmpty());
+        assertThrows(EmptyResultDataAccessException.class, () -> repository.save(saved));
+    }
+
+    @Test
+    public void givenChangesOnAllShards_whenFindChangedSince_thenMergedInTimeOrderWithTombstones() {
+        var since = LocalDateTime.now().minusMinutes(1);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            ids.add(repository.save(new Product("Camisa " + i, "Nuevo estilo verano")).getId());
+        }
+        repository.softDeleteById(ids.get(4), LocalDateTime.now().plusSeconds(1));
+
+        var changes = repository.findChangedSince(since, 0, 20);
+        var firstPage = repository.findChangedSince(since, 0, 4);
+        var last = firstPage.get(3);
+        var secondPage = repository.findChangedSince(last.getUpdateDateTime(), last.getId(), 20);
+
+        assertEquals(9, changes.size());
+        assertEquals(ids.get(4), changes.get(8).getId());
+        assertTrue(changes.get(8).isDeleted());
+        assertEquals(changes.subList(4, 9), secondPage);
+        for (int i = 1; i < changes.size(); i++) {
+            assertFalse(changes.get(i).getUpdateDateTime().isBefore(changes.get(i - 1).getUpdateDateTime()));
+        }
+    }
+
+    @Test
+    public void givenDeletedProductsOnAllShards_whenPurge_thenOnlyOldTombstonesRemoved() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            ids.add(repository.save(new Product("Camisa " + i, "Nuevo estilo verano")).getId());
+        }
+        for (int i = 0; i < 6; i++) {
+            repository.softDeleteById(ids.get(i), LocalDateTime.now().minusDays(i < 4 ? 10 : 0));
+        }
+
+        var purgeable = repository.findPurgeableIds(LocalDateTime.now().minusDays(7), 3);
+
+        assertEquals(ids.subList(0, 4).stream().sorted().limit(3).collect(Collectors.toList()), purgeable);
+        assertEquals(3, repository.purgeAllById(purgeable));
+        assertEquals(1, repository.findPurgeableIds(LocalDateTime.now().minusDays(7), 3).size());
+        assertEquals(3, repository.findAll(null, null, PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    @Test
+    public void givenRowsWithoutSearchText_whenBackfill_thenFoundByFilters() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            ids.add(repository.save(new Product("Vaqueiro Ñ " + i, "Vaqueiro para todos los días")).getId());
+        }
+        for (int shard = 0; shard < repository.shardCount(); shard++) {
+            new JdbcTemplate(dataSources.get(shard)).update("update products set description_normalized = null");
+        }
+
+        var missing = repository.findWithoutSearchText(0, 4);
+        for (Product product : missing) {
+            assertEquals(1, repository.updateSearchText(product.getId(), "vaqueiro n", "vaqueiro para todos los dias"));
+        }
+
+        assertEquals(ids.stream().sorted().limit(4).collect(Collectors.toList()),
+                missing.stream().map(Product::getId).collect(Collectors.toList()));
+        assertEquals(2, repository.findWithoutSearchText(missing.get(3).getId(), 4).size());
+        assertEquals(ids.stream().sorted().skip(2).collect(Collectors.toList()),
+                repository.findPageAfter(missing.get(1).getId(), 10).stream().map(Product::getId).collect(Collectors.toList()));
+        assertEquals(4, repository.findAll(null, "dias", PageRequest.of(0, 10)).getTotalElements());
+    }
+}
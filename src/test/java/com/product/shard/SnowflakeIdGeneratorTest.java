@@ -0,0 +1,49 @@
+package com.product.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeIdGeneratorTest {
+
+    private final AtomicLong clock = new AtomicLong(SnowflakeIdGenerator.EPOCH + 1000);
+
+    @Test
+    public void givenSameMillisecond_whenNextId_thenIncreasing() {
+        var generator = new SnowflakeIdGenerator(3, clock::get);
+        long previous = generator.nextId();
+        for (int i = 0; i < 10000; i++) {
+            long next = generator.nextId();
+            assertTrue(next > previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    public void givenClockGoingBackwards_whenNextId_thenStillIncreasing() {
+        var generator = new SnowflakeIdGenerator(3, clock::get);
+        long first = generator.nextId();
+        clock.addAndGet(-500);
+
+        assertTrue(generator.nextId() > first);
+    }
+
+    @Test
+    public void givenTwoWorkers_whenSameInstant_thenDifferentIds() {
+        long a = new SnowflakeIdGenerator(1, clock::get).nextId();
+        long b = new SnowflakeIdGenerator(2, clock::get).nextId();
+
+        assertNotEquals(a, b);
+        assertEquals(1000, a >>> 22);
+    }
+
+    @Test
+    public void givenWorkerOutOfRange_whenCreate_thenError() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(1024));
+    }
+}
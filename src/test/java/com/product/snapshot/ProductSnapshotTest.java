@@ -0,0 +1,101 @@
+package com.product.snapshot;
+
+import com.product.model.Product;
+import com.product.repository.MatchMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    private ProductSnapshot snapshot;
+
+    private final LocalDateTime created = LocalDateTime.of(2021, 10, 5, 10, 30, 15, 123456000);
+
+    @BeforeEach
+    public void init() throws IOException {
+        var file = directory.resolve("products.snapshot");
+        try (var writer = new ProductSnapshotWriter(file)) {
+            writer.write(new Product(1, "Vaqueiro curto", "Vaqueiro para todos los días", created, created));
+            writer.write(new Product(4, "Pantalon bonito", "Nuevo pantalon 2021 verano", created, created.plusDays(1)));
+            writer.write(new Product(7, "Vaqueiro longo", "Vaqueiro classico verano", created, created));
+            writer.write(new Product(9, "Saia", "Saia de verano", created, created));
+        }
+        snapshot = ProductSnapshot.open(file);
+    }
+
+    @Test
+    public void givenSnapshot_whenGet_thenProductWithTimestamps() {
+        var product = snapshot.get(4).orElseThrow();
+
+        assertEquals(new Product(4, "Pantalon bonito", "Nuevo pantalon 2021 verano", null, null), product);
+        assertEquals(created, product.getCreateDateTime());
+        assertEquals(created.plusDays(1), product.getUpdateDateTime());
+        assertEquals(4, snapshot.size());
+    }
+
+    @Test
+    public void givenSnapshot_whenGetMissingId_thenEmpty() {
+        assertFalse(snapshot.get(0).isPresent());
+        assertFalse(snapshot.get(5).isPresent());
+        assertFalse(snapshot.get(10).isPresent());
+    }
+
+    @Test
+    public void givenSnapshot_whenSearch_thenMatchesPagedInIdOrder() {
+        var page = snapshot.search(null, "verano", PageRequest.of(1, 2));
+
+        assertEquals(3, page.getTotalElements());
+        assertEquals(List.of(9L), page.getContent().stream().map(Product::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void givenAccentedFilter_whenSearch_thenUtf8Match() {
+        var page = snapshot.search("Vaqueiro", "días", Pageable.unpaged());
+
+        assertEquals(List.of(1L), page.getContent().stream().map(Product::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void givenCaseAccentsOrPrefix_whenSearch_thenFoldedMatch() {
+        var folded = snapshot.search(null, "TODOS LOS DIAS", Pageable.unpaged());
+        var prefix = snapshot.search("vaqueiro", null, MatchMode.PREFIX, Pageable.unpaged());
+        var notPrefix = snapshot.search("curto", null, MatchMode.PREFIX, Pageable.unpaged());
+
+        assertEquals(List.of(1L), folded.getContent().stream().map(Product::getId).collect(Collectors.toList()));
+        assertEquals(List.of(1L, 7L), prefix.getContent().stream().map(Product::getId).collect(Collectors.toList()));
+        assertEquals(0, notPrefix.getTotalElements());
+    }
+
+    @Test
+    public void givenSortByName_whenSupports_thenFalse() {
+        assertTrue(ProductSnapshot.supports(PageRequest.of(0, 3)));
+        assertTrue(ProductSnapshot.supports(PageRequest.of(0, 3, Sort.by("id"))));
+        assertFalse(ProductSnapshot.supports(PageRequest.of(0, 3, Sort.by("name"))));
+    }
+
+    @Test
+    public void givenOtherFile_whenOpen_thenError() throws IOException {
+        var file = Files.write(directory.resolve("other"), new byte[64]);
+
+        assertThrows(IOException.class, () -> ProductSnapshot.open(file));
+    }
+}
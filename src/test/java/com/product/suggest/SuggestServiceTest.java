@@ -0,0 +1,51 @@
+package com.product.suggest;
+
+import com.product.dto.Suggestion;
+import com.product.event.ProductChangedEvent;
+import com.product.model.Product;
+import com.product.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SuggestServiceTest {
+
+    private final ProductRepository repository = mock(ProductRepository.class);
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @Test
+    public void givenChangesWhileLoading_whenLoad_thenSuggestedUnderCurrentNames() {
+        var service = new SuggestService(repository, 10, 100);
+        // the changes are committed after the page was read, before the loader puts it
+        when(repository.findPageAfter(anyLong(), any())).thenAnswer(invocation -> {
+            service.onProductChanged(ProductChangedEvent.deleted(1, now));
+            service.onProductChanged(ProductChangedEvent.updated(product(2, "Vaqueiro longo")));
+            return List.of(product(1, "Vaqueiro curto"), product(2, "Pantalon"), product(3, "Vaqueiro"));
+        });
+        when(repository.findAllById(any())).thenReturn(List.of(product(2, "Vaqueiro longo")));
+
+        service.load();
+
+        assertTrue(service.isLoaded());
+        assertEquals(List.of(2L, 3L), ids(service.suggest("vaq", 10)));
+        assertEquals(List.of(), ids(service.suggest("pan", 10)));
+    }
+
+    private Product product(long id, String name) {
+        return new Product(id, name, "Nuevo estilo verano", now, now);
+    }
+
+    private static List<Long> ids(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::getId).sorted().collect(Collectors.toList());
+    }
+}
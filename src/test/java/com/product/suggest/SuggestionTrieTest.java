@@ -0,0 +1,106 @@
+package com.product.suggest;
+
+import com.product.dto.Suggestion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SuggestionTrieTest {
+
+    private SuggestionTrie trie;
+
+    @BeforeEach
+    void init() {
+        trie = new SuggestionTrie();
+        trie.put(1, "Vaqueiro Curto");
+        trie.put(2, "Vaqueiro Largo");
+        trie.put(3, "Vaquero");
+        trie.put(4, "Pantalón bonito");
+        trie.put(5, "Pantalon corto");
+    }
+
+    @Test
+    void givenScores_whenTop_thenMostPopularFirst() {
+        trie.addScore(2, 10);
+        trie.addScore(3, 5);
+        trie.addScore(1, 1);
+
+        assertEquals(List.of(2L, 3L, 1L), ids(trie.top("vaq", 10)));
+        assertEquals(List.of(2L, 3L), ids(trie.top("VAQ", 2)));
+        assertEquals(List.of(2L, 1L), ids(trie.top("vaqueiro ", 10)));
+    }
+
+    @Test
+    void givenAccents_whenTop_thenFolded() {
+        trie.addScore(4, 3);
+
+        assertEquals(List.of(4L, 5L), ids(trie.top("pantalon", 10)));
+        assertEquals(List.of(4L, 5L), ids(trie.top("PANTALÓN", 10)));
+        assertEquals("Pantalón bonito", trie.top("pantalon b", 1).get(0).getName());
+    }
+
+    @Test
+    void givenNoMatch_whenTop_thenEmpty() {
+        assertTrue(trie.top("vaqx", 10).isEmpty());
+        assertTrue(trie.top("z", 10).isEmpty());
+        assertTrue(trie.top("vaquero largo", 10).isEmpty());
+    }
+
+    @Test
+    void givenRenameAndRemove_whenTop_thenUpdatedAndScoreKept() {
+        trie.addScore(3, 7);
+        trie.put(3, "Pantalon vaquero");
+        trie.remove(1);
+
+        assertEquals(List.of(2L), ids(trie.top("vaq", 10)));
+        assertEquals(List.of(3L, 4L, 5L), ids(trie.top("pan", 10)));
+        assertEquals(4, trie.size());
+
+        trie.remove(2);
+        trie.remove(3);
+        trie.remove(4);
+        trie.remove(5);
+        assertEquals(0, trie.size());
+        assertTrue(trie.top("", 10).isEmpty());
+
+        trie.put(6, "Vaqueiro");
+        assertEquals(List.of(6L), ids(trie.top("v", 10)));
+    }
+
+    @Test
+    void givenManyNames_whenTop_thenSameAsSortingAll() {
+        var trie = new SuggestionTrie();
+        for (int i = 0; i < 2000; i++) {
+            trie.put(i, "Product " + Integer.toString(i, 7));
+            trie.addScore(i, (i * 7919L) % 1000);
+        }
+
+        for (String prefix : List.of("", "p", "product 1", "product 12", "product 3456")) {
+            var top = trie.top(prefix, 20);
+            var scores = top.stream().map(s -> (s.getId() * 7919L) % 1000).collect(Collectors.toList());
+            for (int i = 1; i < scores.size(); i++) {
+                assertTrue(scores.get(i - 1) >= scores.get(i), prefix + " " + scores);
+            }
+            top.forEach(s -> assertTrue(s.getName().toLowerCase().startsWith(prefix)));
+            long matching = IntStream.range(0, 2000)
+                    .filter(i -> ("product " + Integer.toString(i, 7)).startsWith(prefix)).count();
+            assertEquals(Math.min(20, matching), top.size());
+            long lowestTop = scores.isEmpty() ? 0 : scores.get(scores.size() - 1);
+            long betterOutside = IntStream.range(0, 2000)
+                    .filter(i -> ("product " + Integer.toString(i, 7)).startsWith(prefix))
+                    .filter(i -> top.stream().noneMatch(s -> s.getId() == i))
+                    .filter(i -> (i * 7919L) % 1000 > lowestTop).count();
+            assertEquals(0, betterOutside, prefix);
+        }
+    }
+
+    private static List<Long> ids(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::getId).collect(Collectors.toList());
+    }
+}
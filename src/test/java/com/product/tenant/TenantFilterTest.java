@@ -0,0 +1,112 @@
+package com.product.tenant;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TenantFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private TenantFilter filter() {
+        var properties = new TenantProperties();
+        properties.setTenants(List.of("acme", "globex"));
+        properties.setMaxConcurrentRequests(2);
+        properties.setMaxConcurrentSearches(1);
+        return new TenantFilter(properties, registry);
+    }
+
+    private static MockHttpServletRequest search(String tenant) {
+        var request = new MockHttpServletRequest("GET", "/api/products");
+        request.setParameter("description", "verano");
+        if (tenant != null) {
+            request.addHeader("X-Tenant-ID", tenant);
+        }
+        return request;
+    }
+
+    @Test
+    public void givenTenantHeader_whenFilter_thenRequestRunsInTenant() throws Exception {
+        var filter = filter();
+        List<String> tenants = new ArrayList<>();
+        FilterChain chain = (request, response) -> tenants.add(TenantContext.get());
+
+        filter.doFilter(search("acme"), new MockHttpServletResponse(), chain);
+        filter.doFilter(search(null), new MockHttpServletResponse(), chain);
+        filter.doFilter(search("default"), new MockHttpServletResponse(), chain);
+
+        assertEquals("acme", tenants.get(0));
+        assertNull(tenants.get(1));
+        assertNull(tenants.get(2));
+        assertNull(TenantContext.get());
+    }
+
+    @Test
+    public void givenUnknownTenant_whenFilter_thenStatus400() throws Exception {
+        var response = new MockHttpServletResponse();
+
+        filter().doFilter(search("initech"), response, new MockFilterChain());
+
+        assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    public void givenTenantSearchBudgetInUse_whenSearch_thenOnlyThatTenantGets429() throws Exception {
+        var filter = filter();
+        var responses = new ArrayList<MockHttpServletResponse>();
+        // the chain of the first search runs the others while it holds its permits
+        FilterChain chain = (request, response) -> {
+            for (String tenant : new String[]{"acme", "globex"}) {
+                var other = new MockHttpServletResponse();
+                filter.doFilter(search(tenant), other, new MockFilterChain());
+                responses.add(other);
+            }
+            var read = new MockHttpServletResponse();
+            var get = new MockHttpServletRequest("GET", "/api/products/1");
+            get.addHeader("X-Tenant-ID", "acme");
+            filter.doFilter(get, read, new MockFilterChain());
+            responses.add(read);
+        };
+
+        filter.doFilter(search("acme"), new MockHttpServletResponse(), chain);
+
+        assertEquals(429, responses.get(0).getStatus());
+        assertEquals("1", responses.get(0).getHeader("Retry-After"));
+        assertEquals(200, responses.get(1).getStatus());
+        assertEquals(200, responses.get(2).getStatus());
+        assertEquals(1, registry.get("product.tenant.rejected").tag("tenant", "acme").counter().count());
+
+        var after = new MockHttpServletResponse();
+        filter.doFilter(search("acme"), after, new MockFilterChain());
+        assertEquals(200, after.getStatus());
+    }
+
+    @Test
+    public void givenOpenEventStreams_whenRequest_thenServed() throws Exception {
+        var filter = filter();
+        FilterChain stream = (request, response) -> {
+            request.startAsync();
+            response.setContentType("text/event-stream");
+        };
+        for (int i = 0; i < 3; i++) {
+            var subscribe = new MockHttpServletRequest("GET", "/api/products/changes");
+            subscribe.setAsyncSupported(true);
+            subscribe.addHeader("X-Tenant-ID", "acme");
+            filter.doFilter(subscribe, new MockHttpServletResponse(), stream);
+        }
+
+        var response = new MockHttpServletResponse();
+        filter.doFilter(search("acme"), response, new MockFilterChain());
+
+        assertEquals(200, response.getStatus());
+    }
+}
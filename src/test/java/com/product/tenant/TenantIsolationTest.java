@@ -0,0 +1,44 @@
+package com.product.tenant;
+
+import com.product.model.Product;
+import com.product.repository.ProductRepository;
+import com.product.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:product-tenancy-test",
+        "product.tenancy.enabled=true",
+        "product.tenancy.tenants=acme,globex"})
+class TenantIsolationTest {
+
+    @Autowired
+    private ProductService service;
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Test
+    public void givenProductOfOneTenant_whenReadFromAnother_thenNotFound() {
+        var created = TenantContext.call("acme",
+                () -> service.create(new Product("Vaqueiro acme", "Nuevo estilo de Vaqueiro")).getBody());
+        long id = created.getId();
+
+        assertEquals("Vaqueiro acme", TenantContext.call("acme", () -> service.get(id).getBody().getName()));
+        assertEquals(1, TenantContext.call("acme",
+                () -> service.search("acme", null, PageRequest.of(0, 3)).getData().size()));
+
+        assertEquals(HttpStatus.NOT_FOUND, TenantContext.call("globex", () -> service.get(id).getStatusCode()));
+        var error = assertThrows(ResponseStatusException.class, () -> TenantContext.call("globex",
+                () -> service.search("acme", null, PageRequest.of(0, 3))));
+        assertEquals(HttpStatus.NO_CONTENT, error.getStatus());
+        assertEquals(0, repository.findAll().stream().filter(product -> product.getName().equals("Vaqueiro acme")).count());
+    }
+}
@@ -0,0 +1,74 @@
+package com.product.timing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestTimingTest {
+
+    @AfterEach
+    public void detach() {
+        RequestTiming.attach(null);
+    }
+
+    @Test
+    public void givenNestedPhases_whenClosed_thenEachRecordsItsOwnTime() throws Exception {
+        var timing = new RequestTiming("trace");
+        RequestTiming.attach(timing);
+
+        try (var service = RequestTiming.start("service")) {
+            Thread.sleep(20);
+            try (var query = RequestTiming.start("db.query")) {
+                Thread.sleep(50);
+            }
+        }
+        long total = timing.finish();
+
+        var phases = timing.phases();
+        assertEquals(List.of("db.query", "service"), List.copyOf(phases.keySet()));
+        assertTrue(phases.get("db.query") >= 50_000_000L);
+        assertTrue(phases.get("service") >= 20_000_000L && phases.get("service") < 50_000_000L);
+        assertTrue(phases.get("service") + phases.get("db.query") <= total);
+        assertEquals(2, timing.spans().size());
+    }
+
+    @Test
+    public void givenNoTiming_whenStart_thenNothingRecorded() {
+        try (var phase = RequestTiming.start("service")) {
+            assertNull(RequestTiming.current());
+        }
+    }
+
+    @Test
+    public void givenPropagatedTask_whenRunOnAnotherThread_thenPhasesAddedToRequest() {
+        var timing = new RequestTiming("trace");
+        RequestTiming.attach(timing);
+
+        CompletableFuture.supplyAsync(RequestTiming.propagate(() -> {
+            try (var query = RequestTiming.start("db.query")) {
+                return RequestTiming.current();
+            }
+        })).join();
+        try (var query = RequestTiming.start("db.query")) {
+            assertEquals(timing, RequestTiming.current());
+        }
+
+        CompletableFuture.runAsync(RequestTiming.propagate(() -> RequestTiming.start("db.count").close())).join();
+
+        assertEquals(2, timing.phases().size());
+        assertEquals(3, timing.spans().size());
+    }
+
+    @Test
+    public void givenSql_whenKind_thenQueryCountOrUpdate() {
+        assertEquals("db.count", JdbcPhaseListener.kind("select count(product0_.id) as col_0_0_ from product product0_"));
+        assertEquals("db.query", JdbcPhaseListener.kind(" select product0_.id as id1_0_ from product product0_"));
+        assertEquals("db.update", JdbcPhaseListener.kind("update product set name=? where id=?"));
+    }
+}
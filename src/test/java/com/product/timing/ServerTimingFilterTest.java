@@ -0,0 +1,92 @@
+package com.product.timing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ServerTimingFilterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final HttpServlet handler = new HttpServlet() {
+        @Override
+        protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+            request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/products");
+            try (var service = RequestTiming.start("service")) {
+                try (var query = RequestTiming.start("db.query")) {
+                    response.setStatus(200);
+                }
+            }
+            RequestTiming.current().startSerialization();
+            response.getWriter().write("{\"data\":[]}");
+            response.flushBuffer();
+        }
+    };
+
+    @Test
+    public void givenSampledRequest_whenFiltered_thenServerTimingHeaderAndTimers() throws Exception {
+        var request = new MockHttpServletRequest("GET", "/api/products");
+        request.addHeader("traceparent", "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01");
+        var response = new MockHttpServletResponse();
+
+        new ServerTimingFilter(1, registry).doFilter(request, response, new MockFilterChain(handler));
+
+        var header = response.getHeader(ServerTimingFilter.HEADER);
+        assertTrue(header.startsWith("db.query;desc=\"JDBC queries\";dur="), header);
+        assertTrue(header.contains(", service;desc=\"Service\";dur="), header);
+        assertTrue(header.contains(", serialize;desc=\"Response body\";dur="), header);
+        assertTrue(header.contains(", total;dur="), header);
+        assertTrue(header.contains("traceparent;desc=\"00-4bf92f3577b34da6a3ce929d0e0e4736-"), header);
+        assertEquals("{\"data\":[]}", response.getContentAsString());
+        assertEquals(1, registry.get(ServerTimingFilter.METER)
+                .tag("endpoint", "GET /api/products").tag("phase", "db.query").timer().count());
+        assertEquals(4, registry.find(ServerTimingFilter.METER).timers().size());
+        assertNull(RequestTiming.current());
+    }
+
+    @Test
+    public void givenUnsampledRequest_whenFiltered_thenNoHeader() throws Exception {
+        var response = new MockHttpServletResponse();
+
+        var chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+                assertNull(RequestTiming.current());
+                response.getWriter().write("{}");
+            }
+        });
+
+        new ServerTimingFilter(0, registry).doFilter(new MockHttpServletRequest("GET", "/api/products"), response, chain);
+
+        assertNull(response.getHeader(ServerTimingFilter.HEADER));
+        assertEquals("{}", response.getContentAsString());
+        assertTrue(registry.find(ServerTimingFilter.METER).timers().isEmpty());
+    }
+
+    @Test
+    public void givenTimers_whenTimingsEndpoint_thenGroupedByEndpointAndPhase() throws Exception {
+        new ServerTimingFilter(1, registry).doFilter(new MockHttpServletRequest("GET", "/api/products"),
+                new MockHttpServletResponse(), new MockFilterChain(handler));
+
+        var timings = new TimingsEndpoint(registry).timings();
+
+        assertEquals(1, timings.size());
+        var phases = timings.get("GET /api/products");
+        assertEquals(Set.of("service", "db.query", "serialize", "total"), phases.keySet());
+        assertEquals(1, phases.get("total").getCount());
+        assertTrue(phases.get("total").getPercentiles().containsKey("p99"));
+    }
+}
@@ -0,0 +1,72 @@
+package com.product.warmup;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccessLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void givenRequestsBeforeStart_whenRecord_thenIgnored() {
+        var accessLog = new AccessLog(directory.resolve("access.log"), 100, 10);
+        accessLog.recordGet(1);
+        accessLog.recordSearch("Vaqueiro", null, PageRequest.of(0, 3));
+
+        assertTrue(accessLog.hottestIds(10).isEmpty());
+        assertTrue(accessLog.hottestSearches(10).isEmpty());
+    }
+
+    @Test
+    public void givenSavedLog_whenLoad_thenHottestFirstAndSearchesRoundTrip() throws IOException {
+        var file = directory.resolve("access.log");
+        var accessLog = new AccessLog(file, 100, 2);
+        accessLog.start();
+        for (int i = 0; i < 5; i++) {
+            accessLog.recordGet(7);
+        }
+        accessLog.recordGet(3);
+        accessLog.recordGet(3);
+        accessLog.recordGet(9);
+        var sorted = PageRequest.of(2, 20, Sort.by(Sort.Order.desc("name"), Sort.Order.asc("id")));
+        accessLog.recordSearch("Vaqueiro curto", "100% algodón", sorted);
+        accessLog.recordSearch("Vaqueiro curto", "100% algodón", sorted);
+        accessLog.recordSearch(null, "verano", PageRequest.of(0, 3));
+        accessLog.save();
+
+        var restarted = new AccessLog(file, 100, 2);
+        restarted.load();
+
+        assertEquals(List.of(7L, 3L), restarted.hottestIds(10));
+        var searches = restarted.hottestSearches(10);
+        assertEquals(2, searches.size());
+        assertEquals("Vaqueiro curto", searches.get(0).getName());
+        assertEquals("100% algodón", searches.get(0).getDescription());
+        assertEquals(sorted, searches.get(0).toPageable());
+        assertNull(searches.get(1).getName());
+        assertEquals(PageRequest.of(0, 3), searches.get(1).toPageable());
+    }
+
+    @Test
+    public void givenMaxTracked_whenRecordNewIds_thenOnlyExistingCounted() {
+        var accessLog = new AccessLog(directory.resolve("access.log"), 2, 10);
+        accessLog.start();
+        accessLog.recordGet(1);
+        accessLog.recordGet(2);
+        accessLog.recordGet(3);
+        accessLog.recordGet(2);
+
+        assertEquals(List.of(2L, 1L), accessLog.hottestIds(10));
+    }
+}
@@ -0,0 +1,51 @@
+package com.product.warmup;
+
+import com.product.event.ProductChangedEvent;
+import com.product.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HotProductCacheTest {
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @Test
+    public void givenLoadedProducts_whenChanged_thenUpdatedOrDroppedButNeverAdded() {
+        var cache = new HotProductCache();
+        assertFalse(cache.isLoaded());
+        cache.load(() -> List.of(product(1, "Vaqueiro"), product(2, "Pantalon")));
+
+        cache.onProductChanged(ProductChangedEvent.updated(product(1, "Vaqueiro curto")));
+        cache.onProductChanged(ProductChangedEvent.deleted(2, now));
+        cache.onProductChanged(ProductChangedEvent.created(product(3, "Camisa")));
+        cache.onProductChanged(ProductChangedEvent.updated(product(4, "Saia")));
+
+        assertTrue(cache.isLoaded());
+        assertEquals("Vaqueiro curto", cache.get(1).orElseThrow().getName());
+        assertFalse(cache.get(2).isPresent());
+        assertFalse(cache.get(3).isPresent());
+        assertFalse(cache.get(4).isPresent());
+    }
+
+    @Test
+    public void givenChangeWhileLoading_whenLoad_thenProductNotCached() {
+        var cache = new HotProductCache();
+        cache.load(() -> {
+            cache.onProductChanged(ProductChangedEvent.updated(product(1, "Vaqueiro curto")));
+            return List.of(product(1, "Vaqueiro"), product(2, "Pantalon"));
+        });
+
+        assertFalse(cache.get(1).isPresent());
+        assertEquals("Pantalon", cache.get(2).orElseThrow().getName());
+    }
+
+    private Product product(long id, String name) {
+        return new Product(id, name, "Nuevo estilo verano", now, now);
+    }
+}
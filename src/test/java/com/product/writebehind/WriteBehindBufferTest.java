@@ -0,0 +1,122 @@
+package com.product.writebehind;
+
+import com.product.event.ProductChangedEvent;
+import com.product.model.Product;
+import com.product.repository.ProductRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class WriteBehindBufferTest {
+
+    @Autowired
+    private ProductRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final List<Object> events = new CopyOnWriteArrayList<>();
+
+    private WriteBehindBuffer buffer;
+
+    private Product product;
+
+    @Before
+    public void init() {
+        buffer = new WriteBehindBuffer(jdbc, events::add, 4, 3, 5);
+        product = repository.save(new Product("Pantalon bonito", "Nuevo pantalon 2021 verano"));
+    }
+
+    @After
+    public void clean() {
+        buffer.close();
+        jdbc.update("delete from products");
+    }
+
+    @Test
+    public void givenSeveralUpdates_whenFlush_thenOnlyLastWrittenOnce() {
+        buffer.put(product, "Pantalon 1", "Verano");
+        buffer.put(buffer.get(product.getId()).orElseThrow(), "Pantalon 2", "Verano");
+        buffer.put(buffer.get(product.getId()).orElseThrow(), "Pantalon 3", "Inverno");
+
+        assertEquals(1, buffer.size());
+        assertEquals("Pantalon 3", buffer.get(product.getId()).orElseThrow().getName());
+        assertEquals("Pantalon bonito", repository.findById(product.getId()).orElseThrow().getName());
+
+        assertEquals(1, buffer.flush());
+
+        var stored = repository.findById(product.getId()).orElseThrow();
+        assertEquals("Pantalon 3", stored.getName());
+        assertEquals("Inverno", stored.getDescription());
+        assertTrue(stored.getUpdateDateTime().isAfter(product.getUpdateDateTime()));
+        assertEquals(1, events.size());
+        assertEquals(stored.getUpdateDateTime(), ((ProductChangedEvent) events.get(0)).getTimestamp());
+        assertEquals(0, buffer.size());
+        assertFalse(buffer.get(product.getId()).isPresent());
+    }
+
+    @Test
+    public void givenProductDeletedMeanwhile_whenFlush_thenNotWritten() {
+        buffer.put(product, "Pantalon 1", "Verano");
+        repository.softDeleteById(product.getId(), LocalDateTime.now());
+
+        assertEquals(0, buffer.flush());
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void givenDiscardedUpdate_whenGet_thenEmpty() {
+        buffer.put(product, "Pantalon 1", "Verano");
+        buffer.discard(product.getId());
+
+        assertFalse(buffer.get(product.getId()).isPresent());
+        assertEquals(0, buffer.size());
+        assertEquals(0, buffer.flush());
+    }
+
+    @Test
+    public void givenBatchSizeReached_whenPut_thenFlushedInBackground() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            var other = i == 0 ? product : repository.save(new Product("Vaqueiro " + i, "Vaqueiro classico"));
+            buffer.put(other, "Vaqueiro curto " + i, "Vaqueiro classico verano");
+        }
+
+        for (int i = 0; i < 100 && events.size() < 3; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(3, events.size());
+        assertEquals("Vaqueiro curto 0", repository.findById(product.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    public void givenMaxPendingReached_whenPut_thenCallerFlushes() {
+        var slowBuffer = new WriteBehindBuffer(jdbc, events::add, 4, 2, 2);
+        var other = repository.save(new Product("Vaqueiro", "Vaqueiro classico"));
+
+        slowBuffer.put(product, "Pantalon 1", "Verano");
+        assertEquals(1, slowBuffer.size());
+        slowBuffer.put(other, "Vaqueiro 1", "Verano");
+
+        assertEquals(0, slowBuffer.size());
+        assertEquals("Vaqueiro 1", repository.findById(other.getId()).orElseThrow().getName());
+        slowBuffer.close();
+    }
+}